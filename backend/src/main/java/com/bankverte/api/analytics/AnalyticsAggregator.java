@@ -0,0 +1,258 @@
+package com.bankverte.api.analytics;
+
+import com.bankverte.api.analytics.dto.*;
+import com.bankverte.api.insight.InsightContext;
+import com.bankverte.api.insight.InsightEvaluator;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Pure in-memory aggregation behind the analytics endpoints.
+ * Kept free of repository access so it can be benchmarked and reused on
+ * any list of transactions.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsAggregator {
+
+        private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_DATE;
+
+        private final InsightEvaluator insightEvaluator;
+
+        // Category colors for charts
+        private static final Map<String, String> CATEGORY_COLORS = Map.of(
+                        "TRANSPORT_FLIGHT", "#FF6B6B",
+                        "TRANSPORT_CAR", "#FFA07A",
+                        "TRANSPORT_PUBLIC", "#90EE90",
+                        "FOOD_MEAT", "#FF8C00",
+                        "FOOD_LOCAL", "#32CD32",
+                        "ENERGY", "#FFD700",
+                        "SHOPPING", "#9370DB",
+                        "OTHER", "#808080");
+
+        public AnalyticsSummaryResponse summarize(
+                        List<Transaction> currentTransactions,
+                        Double prevTotal,
+                        LocalDateTime startDate,
+                        LocalDateTime endDate) {
+
+                Double totalCO2 = currentTransactions.stream()
+                                .mapToDouble(t -> t.getCarbonFootprint() != null ? t.getCarbonFootprint() : 0.0)
+                                .sum();
+
+                Map<TransactionCategory, Double> categoryTotals = currentTransactions.stream()
+                                .filter(t -> t.getCategory() != null && t.getCarbonFootprint() != null)
+                                .collect(Collectors.groupingBy(
+                                                Transaction::getCategory,
+                                                Collectors.summingDouble(Transaction::getCarbonFootprint)));
+
+                AnalyticsSummaryResponse response = summarize(totalCO2, currentTransactions.size(), categoryTotals,
+                                prevTotal, startDate.toLocalDate(), endDate.toLocalDate());
+
+                double[] footprints = currentTransactions.stream()
+                                .map(Transaction::getCarbonFootprint)
+                                .filter(Objects::nonNull)
+                                .mapToDouble(Double::doubleValue)
+                                .sorted()
+                                .toArray();
+                response.setMedianCO2PerTransaction(percentile(footprints, 0.5));
+                response.setP90CO2PerTransaction(percentile(footprints, 0.9));
+                response.setDistinctMerchants(currentTransactions.stream()
+                                .map(Transaction::getMerchant)
+                                .filter(m -> m != null && !m.isEmpty())
+                                .distinct()
+                                .count());
+                return response;
+        }
+
+        /**
+         * The summary card from period totals, leaving the distribution
+         * statistics to the caller.
+         */
+        public AnalyticsSummaryResponse summarize(
+                        double totalCO2,
+                        long transactionCount,
+                        Map<TransactionCategory, Double> categoryTotals,
+                        Double prevTotal,
+                        LocalDate startDate,
+                        LocalDate endDate) {
+
+                Double avgCO2 = transactionCount == 0 ? 0.0 : totalCO2 / transactionCount;
+
+                // Find top category
+                AnalyticsSummaryResponse.TopCategoryInfo topCategory = categoryTotals.entrySet().stream()
+                                .max(Map.Entry.comparingByValue())
+                                .map(entry -> AnalyticsSummaryResponse.TopCategoryInfo.builder()
+                                                .name(entry.getKey().name())
+                                                .displayName(entry.getKey().getDisplayName())
+                                                .co2(entry.getValue())
+                                                .percentage(totalCO2 > 0 ? (entry.getValue() / totalCO2) * 100 : 0.0)
+                                                .build())
+                                .orElse(null);
+
+                // Evolution vs previous period
+                Double evolutionPct = (prevTotal != null && prevTotal > 0)
+                                ? ((totalCO2 - prevTotal) / prevTotal) * 100
+                                : 0.0;
+
+                return AnalyticsSummaryResponse.builder()
+                                .totalCO2(Math.round(totalCO2 * 100.0) / 100.0)
+                                .averageCO2PerTransaction(Math.round(avgCO2 * 100.0) / 100.0)
+                                .transactionCount((int) transactionCount)
+                                .topCategory(topCategory)
+                                .evolutionPercentage(Math.round(evolutionPct * 10.0) / 10.0)
+                                .periodStart(startDate.format(DATE_FORMATTER))
+                                .periodEnd(endDate.format(DATE_FORMATTER))
+                                .build();
+        }
+
+        /**
+         * The value of rank {@code ceil(q * n)} in sorted values, rounded like
+         * the other CO₂ figures; null when there are none.
+         */
+        public static Double percentile(double[] sorted, double q) {
+                if (sorted.length == 0) {
+                        return null;
+                }
+                int rank = Math.max(1, (int) Math.ceil(q * sorted.length));
+                return Math.round(sorted[rank - 1] * 100.0) / 100.0;
+        }
+
+        public List<TimeSeriesDataPoint> timeSeries(List<Transaction> transactions) {
+                Map<LocalDate, List<Transaction>> grouped = transactions.stream()
+                                .collect(Collectors.groupingBy(t -> t.getCreatedAt().toLocalDate()));
+
+                return grouped.entrySet().stream()
+                                .map(entry -> {
+                                        Double co2 = entry.getValue().stream()
+                                                        .mapToDouble(t -> t.getCarbonFootprint() != null
+                                                                        ? t.getCarbonFootprint()
+                                                                        : 0.0)
+                                                        .sum();
+                                        return TimeSeriesDataPoint.builder()
+                                                        .date(entry.getKey().format(DATE_FORMATTER))
+                                                        .co2Value(Math.round(co2 * 100.0) / 100.0)
+                                                        .transactionCount(entry.getValue().size())
+                                                        .build();
+                                })
+                                .sorted(Comparator.comparing(TimeSeriesDataPoint::getDate))
+                                .collect(Collectors.toList());
+        }
+
+        public List<CategoryBreakdown> byCategory(List<Transaction> transactions) {
+                Double totalCO2 = transactions.stream()
+                                .mapToDouble(t -> t.getCarbonFootprint() != null ? t.getCarbonFootprint() : 0.0)
+                                .sum();
+
+                Map<TransactionCategory, Double> co2 = new EnumMap<>(TransactionCategory.class);
+                Map<TransactionCategory, Long> counts = new EnumMap<>(TransactionCategory.class);
+                for (Transaction t : transactions) {
+                        if (t.getCategory() == null) {
+                                continue;
+                        }
+                        co2.merge(t.getCategory(), t.getCarbonFootprint() != null ? t.getCarbonFootprint() : 0.0,
+                                        Double::sum);
+                        counts.merge(t.getCategory(), 1L, Long::sum);
+                }
+                return byCategory(co2, counts, totalCO2);
+        }
+
+        /**
+         * The breakdown from per-category totals.
+         */
+        public List<CategoryBreakdown> byCategory(Map<TransactionCategory, Double> co2ByCategory,
+                        Map<TransactionCategory, Long> counts, double totalCO2) {
+                return co2ByCategory.entrySet().stream()
+                                .map(entry -> {
+                                        double co2 = entry.getValue();
+                                        return CategoryBreakdown.builder()
+                                                        .category(entry.getKey().name())
+                                                        .displayName(entry.getKey().getDisplayName())
+                                                        .totalCO2(Math.round(co2 * 100.0) / 100.0)
+                                                        .percentage(totalCO2 > 0
+                                                                        ? Math.round((co2 / totalCO2) * 1000.0) / 10.0
+                                                                        : 0.0)
+                                                        .transactionCount(counts.get(entry.getKey()).intValue())
+                                                        .color(CATEGORY_COLORS.getOrDefault(entry.getKey().name(),
+                                                                        "#808080"))
+                                                        .build();
+                                })
+                                .sorted((a, b) -> Double.compare(b.getTotalCO2(), a.getTotalCO2()))
+                                .collect(Collectors.toList());
+        }
+
+        public List<MerchantAnalytics> topMerchants(List<Transaction> transactions, int limit) {
+                Map<String, List<Transaction>> grouped = transactions.stream()
+                                .filter(t -> t.getMerchant() != null && !t.getMerchant().isEmpty())
+                                .collect(Collectors.groupingBy(Transaction::getMerchant));
+
+                return grouped.entrySet().stream()
+                                .map(entry -> {
+                                        List<Transaction> merchantTxns = entry.getValue();
+                                        Double totalCO2 = merchantTxns.stream()
+                                                        .mapToDouble(t -> t.getCarbonFootprint() != null
+                                                                        ? t.getCarbonFootprint()
+                                                                        : 0.0)
+                                                        .sum();
+                                        String primaryCat = merchantTxns.stream()
+                                                        .filter(t -> t.getCategory() != null)
+                                                        .collect(Collectors.groupingBy(Transaction::getCategory,
+                                                                        Collectors.counting()))
+                                                        .entrySet().stream()
+                                                        .max(Map.Entry.comparingByValue())
+                                                        .map(e -> e.getKey().getDisplayName())
+                                                        .orElse("Unknown");
+
+                                        return MerchantAnalytics.builder()
+                                                        .merchantName(entry.getKey())
+                                                        .totalCO2(Math.round(totalCO2 * 100.0) / 100.0)
+                                                        .transactionCount(merchantTxns.size())
+                                                        .averageCO2(Math.round((totalCO2 / merchantTxns.size()) * 100.0)
+                                                                        / 100.0)
+                                                        .primaryCategory(primaryCat)
+                                                        .build();
+                                })
+                                .sorted((a, b) -> Double.compare(b.getTotalCO2(), a.getTotalCO2()))
+                                .limit(limit)
+                                .collect(Collectors.toList());
+        }
+
+        /**
+         * Runs the insight rules over an arbitrary period, for ranges the
+         * persisted insight set does not cover.
+         *
+         * @param prevTotal looked up lazily, only when there is something to compare against
+         */
+        public List<Insight> insights(List<Transaction> currentTransactions, Supplier<Double> prevTotal) {
+                Map<TransactionCategory, Double> categoryTotals = new EnumMap<>(TransactionCategory.class);
+                Map<String, Double> merchantTotals = new HashMap<>();
+                for (Transaction t : currentTransactions) {
+                        if (t.getCategory() == null || t.getCarbonFootprint() == null) {
+                                continue;
+                        }
+                        categoryTotals.merge(t.getCategory(), t.getCarbonFootprint(), Double::sum);
+                        if (t.getMerchant() != null && !t.getMerchant().isEmpty()) {
+                                merchantTotals.merge(t.getMerchant(), t.getCarbonFootprint(), Double::sum);
+                        }
+                }
+                double totalCO2 = categoryTotals.values().stream().mapToDouble(Double::doubleValue).sum();
+
+                return insightEvaluator.evaluate(InsightContext.builder()
+                                .transactionCount(currentTransactions.size())
+                                .totalCO2(totalCO2)
+                                .categoryTotals(categoryTotals)
+                                .merchantTotals(merchantTotals)
+                                .comparableTotal(totalCO2)
+                                .previousTotal(prevTotal)
+                                .build());
+        }
+}
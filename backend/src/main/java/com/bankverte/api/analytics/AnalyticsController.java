@@ -1,11 +1,20 @@
 package com.bankverte.api.analytics;
 
 import com.bankverte.api.analytics.dto.*;
+import com.bankverte.api.archive.ArchiveStore;
+import com.bankverte.api.forecast.ForecastService;
+import com.bankverte.api.insight.InsightEngine;
+import com.bankverte.api.recurring.RecurringDetector;
+import com.bankverte.api.sketch.PeriodComparisonService;
+import com.bankverte.api.sketch.SketchQueryService;
 import com.bankverte.api.transaction.Transaction;
-import com.bankverte.api.transaction.TransactionCategory;
 import com.bankverte.api.transaction.TransactionRepository;
+import com.bankverte.api.transaction.TransactionResponse;
 import com.bankverte.api.user.User;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -13,94 +22,58 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
-import java.util.*;
+import java.util.List;
 import java.util.stream.Collectors;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/analytics")
 @RequiredArgsConstructor
 public class AnalyticsController {
 
         private final TransactionRepository transactionRepository;
+        private final AnalyticsAggregator aggregator;
+        private final InsightEngine insightEngine;
+        private final RecurringDetector recurringDetector;
+        private final SketchQueryService sketchQueryService;
+        private final PeriodComparisonService periodComparisonService;
+        private final ForecastService forecastService;
+        private final ArchiveStore archiveStore;
+        private final MeterRegistry meterRegistry;
         private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_DATE;
 
-        // Category colors for charts
-        private static final Map<String, String> CATEGORY_COLORS = Map.of(
-                        "TRANSPORT_FLIGHT", "#FF6B6B",
-                        "TRANSPORT_CAR", "#FFA07A",
-                        "TRANSPORT_PUBLIC", "#90EE90",
-                        "FOOD_MEAT", "#FF8C00",
-                        "FOOD_LOCAL", "#32CD32",
-                        "ENERGY", "#FFD700",
-                        "SHOPPING", "#9370DB",
-                        "OTHER", "#808080");
-
         @GetMapping("/summary")
         public ResponseEntity<?> getSummary(
                         @AuthenticationPrincipal User user,
                         @RequestParam(required = false) String from,
-                        @RequestParam(required = false) String to) {
+                        @RequestParam(required = false) String to,
+                        @RequestParam(required = false) Boolean approximate) {
 
                 LocalDateTime endDate = to != null ? parseEndDate(to) : LocalDateTime.now();
                 LocalDateTime startDate = from != null
                                 ? parseStartDate(from)
                                 : endDate.minusDays(365).withHour(0).withMinute(0).withSecond(0).withNano(0);
+                long daysDiff = ChronoUnit.DAYS.between(startDate, endDate);
+                LocalDateTime prevStart = startDate.minusDays(daysDiff);
 
-                System.out.println("=== ANALYTICS DEBUG ===");
-                System.out.println("User ID: " + (user != null ? user.getId() : "NULL"));
-                System.out.println("User Email: " + (user != null ? user.getEmail() : "NULL"));
-                System.out.println("Date Range: " + startDate + " to " + endDate);
+                if (useSketches(approximate, startDate, endDate)) {
+                        return ResponseEntity.ok(sketchQueryService.summary(user.getId(), prevStart.toLocalDate(),
+                                        startDate.toLocalDate(), endDate.toLocalDate()));
+                }
 
                 // Get current period data
-                List<Transaction> currentTransactions = transactionRepository
-                                .findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(user, startDate, endDate);
+                List<Transaction> currentTransactions = loadPeriod("summary", user, startDate, endDate);
 
-                System.out.println("Transactions found: " + currentTransactions.size());
-                if (!currentTransactions.isEmpty()) {
-                        System.out.println("First transaction: " + currentTransactions.get(0).getDescription());
-                }
-
-                Double totalCO2 = currentTransactions.stream()
-                                .mapToDouble(t -> t.getCarbonFootprint() != null ? t.getCarbonFootprint() : 0.0)
-                                .sum();
-
-                Double avgCO2 = currentTransactions.isEmpty() ? 0.0 : totalCO2 / currentTransactions.size();
-
-                // Find top category
-                Map<TransactionCategory, Double> categoryTotals = currentTransactions.stream()
-                                .filter(t -> t.getCategory() != null && t.getCarbonFootprint() != null)
-                                .collect(Collectors.groupingBy(
-                                                Transaction::getCategory,
-                                                Collectors.summingDouble(Transaction::getCarbonFootprint)));
-
-                AnalyticsSummaryResponse.TopCategoryInfo topCategory = categoryTotals.entrySet().stream()
-                                .max(Map.Entry.comparingByValue())
-                                .map(entry -> AnalyticsSummaryResponse.TopCategoryInfo.builder()
-                                                .name(entry.getKey().name())
-                                                .displayName(entry.getKey().getDisplayName())
-                                                .co2(entry.getValue())
-                                                .percentage(totalCO2 > 0 ? (entry.getValue() / totalCO2) * 100 : 0.0)
-                                                .build())
-                                .orElse(null);
+                log.debug("Summary for user {} from {} to {}: {} transactions",
+                                user != null ? user.getId() : null, startDate, endDate, currentTransactions.size());
 
                 // Calculate evolution vs previous period
-                long daysDiff = ChronoUnit.DAYS.between(startDate, endDate);
-                LocalDateTime prevStart = startDate.minusDays(daysDiff);
-                Double prevTotal = transactionRepository.sumCarbonFootprintByUserBetween(user, prevStart, startDate);
-                Double evolutionPct = (prevTotal != null && prevTotal > 0)
-                                ? ((totalCO2 - prevTotal) / prevTotal) * 100
-                                : 0.0;
-
-                AnalyticsSummaryResponse response = AnalyticsSummaryResponse.builder()
-                                .totalCO2(Math.round(totalCO2 * 100.0) / 100.0)
-                                .averageCO2PerTransaction(Math.round(avgCO2 * 100.0) / 100.0)
-                                .transactionCount(currentTransactions.size())
-                                .topCategory(topCategory)
-                                .evolutionPercentage(Math.round(evolutionPct * 10.0) / 10.0)
-                                .periodStart(startDate.format(DATE_FORMATTER))
-                                .periodEnd(endDate.format(DATE_FORMATTER))
-                                .build();
+                Double prevTotal = previousTotal(user, prevStart, startDate);
+
+                AnalyticsSummaryResponse response = aggregator.summarize(currentTransactions, prevTotal, startDate,
+                                endDate);
 
                 return ResponseEntity.ok(response);
         }
@@ -110,35 +83,24 @@ public class AnalyticsController {
                         @AuthenticationPrincipal User user,
                         @RequestParam(required = false) String from,
                         @RequestParam(required = false) String to,
-                        @RequestParam(defaultValue = "day") String groupBy) {
+                        @RequestParam(defaultValue = "day") String groupBy,
+                        @RequestParam(defaultValue = "rows") String layout,
+                        @RequestParam(required = false) Boolean approximate) {
 
                 LocalDateTime endDate = to != null ? parseEndDate(to) : LocalDateTime.now();
                 LocalDateTime startDate = from != null
                                 ? parseStartDate(from)
                                 : endDate.minusDays(30).withHour(0).withMinute(0).withSecond(0).withNano(0);
 
-                List<Transaction> transactions = transactionRepository
-                                .findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(user, startDate, endDate);
-
-                Map<LocalDate, List<Transaction>> grouped = transactions.stream()
-                                .collect(Collectors.groupingBy(t -> t.getCreatedAt().toLocalDate()));
-
-                List<TimeSeriesDataPoint> dataPoints = grouped.entrySet().stream()
-                                .map(entry -> {
-                                        Double co2 = entry.getValue().stream()
-                                                        .mapToDouble(t -> t.getCarbonFootprint() != null
-                                                                        ? t.getCarbonFootprint()
-                                                                        : 0.0)
-                                                        .sum();
-                                        return TimeSeriesDataPoint.builder()
-                                                        .date(entry.getKey().format(DATE_FORMATTER))
-                                                        .co2Value(Math.round(co2 * 100.0) / 100.0)
-                                                        .transactionCount(entry.getValue().size())
-                                                        .build();
-                                })
-                                .sorted(Comparator.comparing(TimeSeriesDataPoint::getDate))
-                                .collect(Collectors.toList());
+                List<TimeSeriesDataPoint> dataPoints = useSketches(approximate, startDate, endDate)
+                                ? sketchQueryService.timeSeries(user.getId(), startDate.toLocalDate(),
+                                                endDate.toLocalDate())
+                                : aggregator.timeSeries(loadPeriod("timeseries", user, startDate, endDate));
 
+                // layout=columnar: parallel arrays instead of one object per day
+                if ("columnar".equals(layout)) {
+                        return ResponseEntity.ok(TimeSeriesColumns.of(dataPoints));
+                }
                 return ResponseEntity.ok(dataPoints);
         }
 
@@ -146,45 +108,22 @@ public class AnalyticsController {
         public ResponseEntity<?> getByCategory(
                         @AuthenticationPrincipal User user,
                         @RequestParam(required = false) String from,
-                        @RequestParam(required = false) String to) {
+                        @RequestParam(required = false) String to,
+                        @RequestParam(required = false) Boolean approximate) {
 
                 LocalDateTime endDate = to != null ? parseEndDate(to) : LocalDateTime.now();
                 LocalDateTime startDate = from != null
                                 ? parseStartDate(from)
                                 : endDate.minusDays(30).withHour(0).withMinute(0).withSecond(0).withNano(0);
 
-                List<Transaction> transactions = transactionRepository
-                                .findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(user, startDate, endDate);
-
-                Double totalCO2 = transactions.stream()
-                                .mapToDouble(t -> t.getCarbonFootprint() != null ? t.getCarbonFootprint() : 0.0)
-                                .sum();
-
-                Map<TransactionCategory, List<Transaction>> grouped = transactions.stream()
-                                .filter(t -> t.getCategory() != null)
-                                .collect(Collectors.groupingBy(Transaction::getCategory));
-
-                List<CategoryBreakdown> breakdown = grouped.entrySet().stream()
-                                .map(entry -> {
-                                        Double co2 = entry.getValue().stream()
-                                                        .mapToDouble(t -> t.getCarbonFootprint() != null
-                                                                        ? t.getCarbonFootprint()
-                                                                        : 0.0)
-                                                        .sum();
-                                        return CategoryBreakdown.builder()
-                                                        .category(entry.getKey().name())
-                                                        .displayName(entry.getKey().getDisplayName())
-                                                        .totalCO2(Math.round(co2 * 100.0) / 100.0)
-                                                        .percentage(totalCO2 > 0
-                                                                        ? Math.round((co2 / totalCO2) * 1000.0) / 10.0
-                                                                        : 0.0)
-                                                        .transactionCount(entry.getValue().size())
-                                                        .color(CATEGORY_COLORS.getOrDefault(entry.getKey().name(),
-                                                                        "#808080"))
-                                                        .build();
-                                })
-                                .sorted((a, b) -> Double.compare(b.getTotalCO2(), a.getTotalCO2()))
-                                .collect(Collectors.toList());
+                if (useSketches(approximate, startDate, endDate)) {
+                        return ResponseEntity.ok(sketchQueryService.byCategory(user.getId(), startDate.toLocalDate(),
+                                        endDate.toLocalDate()));
+                }
+
+                List<Transaction> transactions = loadPeriod("by-category", user, startDate, endDate);
+
+                List<CategoryBreakdown> breakdown = aggregator.byCategory(transactions);
 
                 return ResponseEntity.ok(breakdown);
         }
@@ -194,49 +133,22 @@ public class AnalyticsController {
                         @AuthenticationPrincipal User user,
                         @RequestParam(required = false) String from,
                         @RequestParam(required = false) String to,
-                        @RequestParam(defaultValue = "10") Integer limit) {
+                        @RequestParam(defaultValue = "10") Integer limit,
+                        @RequestParam(required = false) Boolean approximate) {
 
                 LocalDateTime endDate = to != null ? parseEndDate(to) : LocalDateTime.now();
                 LocalDateTime startDate = from != null
                                 ? parseStartDate(from)
                                 : endDate.minusDays(30).withHour(0).withMinute(0).withSecond(0).withNano(0);
 
-                List<Transaction> transactions = transactionRepository
-                                .findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(user, startDate, endDate);
-
-                Map<String, List<Transaction>> grouped = transactions.stream()
-                                .filter(t -> t.getMerchant() != null && !t.getMerchant().isEmpty())
-                                .collect(Collectors.groupingBy(Transaction::getMerchant));
-
-                List<MerchantAnalytics> merchants = grouped.entrySet().stream()
-                                .map(entry -> {
-                                        List<Transaction> merchantTxns = entry.getValue();
-                                        Double totalCO2 = merchantTxns.stream()
-                                                        .mapToDouble(t -> t.getCarbonFootprint() != null
-                                                                        ? t.getCarbonFootprint()
-                                                                        : 0.0)
-                                                        .sum();
-                                        String primaryCat = merchantTxns.stream()
-                                                        .filter(t -> t.getCategory() != null)
-                                                        .collect(Collectors.groupingBy(Transaction::getCategory,
-                                                                        Collectors.counting()))
-                                                        .entrySet().stream()
-                                                        .max(Map.Entry.comparingByValue())
-                                                        .map(e -> e.getKey().getDisplayName())
-                                                        .orElse("Unknown");
-
-                                        return MerchantAnalytics.builder()
-                                                        .merchantName(entry.getKey())
-                                                        .totalCO2(Math.round(totalCO2 * 100.0) / 100.0)
-                                                        .transactionCount(merchantTxns.size())
-                                                        .averageCO2(Math.round((totalCO2 / merchantTxns.size()) * 100.0)
-                                                                        / 100.0)
-                                                        .primaryCategory(primaryCat)
-                                                        .build();
-                                })
-                                .sorted((a, b) -> Double.compare(b.getTotalCO2(), a.getTotalCO2()))
-                                .limit(limit)
-                                .collect(Collectors.toList());
+                if (useSketches(approximate, startDate, endDate)) {
+                        return ResponseEntity.ok(sketchQueryService.topMerchants(user.getId(), startDate.toLocalDate(),
+                                        endDate.toLocalDate(), limit));
+                }
+
+                List<Transaction> transactions = loadPeriod("top-merchants", user, startDate, endDate);
+
+                List<MerchantAnalytics> merchants = aggregator.topMerchants(transactions, limit);
 
                 return ResponseEntity.ok(merchants);
         }
@@ -256,8 +168,7 @@ public class AnalyticsController {
                                 ? parseStartDate(from)
                                 : endDate.minusMonths(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
 
-                List<Transaction> transactions = transactionRepository
-                                .findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(user, startDate, endDate)
+                List<TransactionResponse> transactions = loadPeriod("transactions", user, startDate, endDate)
                                 .stream()
                                 .filter(t -> category == null
                                                 || (t.getCategory() != null && t.getCategory().name().equals(category)))
@@ -266,6 +177,7 @@ public class AnalyticsController {
                                                                 .contains(merchant.toLowerCase())))
                                 .filter(t -> minAmount == null || (t.getAmount() != null && t.getAmount() >= minAmount))
                                 .filter(t -> maxAmount == null || (t.getAmount() != null && t.getAmount() <= maxAmount))
+                                .map(TransactionResponse::from)
                                 .collect(Collectors.toList());
 
                 return ResponseEntity.ok(transactions);
@@ -277,114 +189,107 @@ public class AnalyticsController {
                         @RequestParam(required = false) String from,
                         @RequestParam(required = false) String to) {
 
+                // Without a range: the persisted insights of the current month
+                if (from == null && to == null) {
+                        return ResponseEntity.ok(insightEngine.current(user));
+                }
+
                 LocalDateTime endDate = to != null ? parseEndDate(to) : LocalDateTime.now();
                 LocalDateTime startDate = from != null
                                 ? parseStartDate(from)
                                 : endDate.minusDays(30).withHour(0).withMinute(0).withSecond(0).withNano(0);
 
-                List<Transaction> currentTransactions = transactionRepository
-                                .findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(user, startDate, endDate);
-
-                List<Insight> insights = new ArrayList<>();
-
-                if (currentTransactions.isEmpty()) {
-                        insights.add(Insight.builder()
-                                        .type(Insight.InsightType.RECOMMENDATION)
-                                        .severity(Insight.InsightSeverity.INFO)
-                                        .title("Start Tracking")
-                                        .message("Add your first transaction to start tracking your carbon footprint!")
-                                        .actionable(true)
-                                        .suggestedAction("Add a transaction")
-                                        .build());
-                        return ResponseEntity.ok(insights);
-                }
+                List<Transaction> currentTransactions = loadPeriod("insights", user, startDate, endDate);
 
-                // Analyze top category
-                Map<TransactionCategory, Double> categoryTotals = currentTransactions.stream()
-                                .filter(t -> t.getCategory() != null && t.getCarbonFootprint() != null)
-                                .collect(Collectors.groupingBy(
-                                                Transaction::getCategory,
-                                                Collectors.summingDouble(Transaction::getCarbonFootprint)));
-
-                Double totalCO2 = categoryTotals.values().stream().mapToDouble(Double::doubleValue).sum();
-
-                categoryTotals.entrySet().stream()
-                                .max(Map.Entry.comparingByValue())
-                                .ifPresent(entry -> {
-                                        double pct = (entry.getValue() / totalCO2) * 100;
-                                        if (pct > 30) {
-                                                insights.add(Insight.builder()
-                                                                .type(Insight.InsightType.ALERT)
-                                                                .severity(Insight.InsightSeverity.WARNING)
-                                                                .title("High CO₂ Category")
-                                                                .message(String.format(
-                                                                                "%s represents %.0f%% of your carbon footprint this period.",
-                                                                                entry.getKey().getDisplayName(), pct))
-                                                                .actionable(true)
-                                                                .suggestedAction(
-                                                                                "Consider eco-friendly alternatives in this category")
-                                                                .build());
-                                        }
-                                });
-
-                // Evolution insight
-                long daysDiff = ChronoUnit.DAYS.between(startDate, endDate);
-                LocalDateTime prevStart = startDate.minusDays(daysDiff);
-                Double prevTotal = transactionRepository.sumCarbonFootprintByUserBetween(user, prevStart, startDate);
-
-                if (prevTotal != null && prevTotal > 0) {
-                        double change = ((totalCO2 - prevTotal) / prevTotal) * 100;
-                        if (change < -10) {
-                                insights.add(Insight.builder()
-                                                .type(Insight.InsightType.TREND)
-                                                .severity(Insight.InsightSeverity.SUCCESS)
-                                                .title("Great Progress!")
-                                                .message(String.format(
-                                                                "Your CO₂ emissions decreased by %.1f%% compared to the previous period. Keep it up!",
-                                                                Math.abs(change)))
-                                                .actionable(false)
-                                                .build());
-                        } else if (change > 10) {
-                                insights.add(Insight.builder()
-                                                .type(Insight.InsightType.TREND)
-                                                .severity(Insight.InsightSeverity.WARNING)
-                                                .title("Emissions Increased")
-                                                .message(String.format(
-                                                                "Your CO₂ emissions increased by %.1f%% compared to the previous period.",
-                                                                change))
-                                                .actionable(true)
-                                                .suggestedAction(
-                                                                "Review your recent transactions to identify high-emission activities")
-                                                .build());
+                List<Insight> insights = aggregator.insights(currentTransactions, () -> {
+                        long daysDiff = ChronoUnit.DAYS.between(startDate, endDate);
+                        LocalDateTime prevStart = startDate.minusDays(daysDiff);
+                        return previousTotal(user, prevStart, startDate);
+                });
+
+                return ResponseEntity.ok(insights);
+        }
+
+        /**
+         * Recurring payments still going on, from the persisted series: no
+         * scan of the user's transactions.
+         */
+        @GetMapping("/recurring")
+        public ResponseEntity<?> getRecurring(@AuthenticationPrincipal User user) {
+                return ResponseEntity.ok(recurringDetector.active(user.getId()));
+        }
+
+        /**
+         * Projected end-of-month and end-of-year CO₂, in total and per
+         * category, from the smoothed state kept up to date on each insert.
+         */
+        @GetMapping("/forecast")
+        public ResponseEntity<?> getForecast(@AuthenticationPrincipal User user) {
+                return ResponseEntity.ok(forecastService.forecast(user.getId()));
+        }
+
+        /**
+         * Totals and category breakdowns of several periods, each with its
+         * deltas versus the one listed before it. Give either periods, each
+         * yyyy-MM-dd..yyyy-MM-dd, yyyy-MM or yyyy, or lastMonths / lastYears
+         * for the last calendar months or years up to today. More than
+         * {@link PeriodComparisonService#MAX_PERIODS} months or
+         * {@link PeriodComparisonService#MAX_YEARS} years is a 400.
+         */
+        @GetMapping("/compare")
+        public ResponseEntity<?> comparePeriods(
+                        @AuthenticationPrincipal User user,
+                        @RequestParam(required = false) List<String> periods,
+                        @RequestParam(required = false) Integer lastMonths,
+                        @RequestParam(required = false) Integer lastYears) {
+
+                LocalDate today = LocalDate.now();
+                try {
+                        List<PeriodComparisonService.Range> ranges;
+                        if (periods != null && lastMonths == null && lastYears == null) {
+                                ranges = periods.stream().map(PeriodComparisonService.Range::parse).toList();
+                        } else if (lastMonths != null && periods == null && lastYears == null) {
+                                ranges = PeriodComparisonService.Range.lastMonths(lastMonths, today);
+                        } else if (lastYears != null && periods == null && lastMonths == null) {
+                                ranges = PeriodComparisonService.Range.lastYears(lastYears, today);
+                        } else {
+                                return ResponseEntity.badRequest().build();
                         }
+                        return ResponseEntity.ok(periodComparisonService.compare(user.getId(), ranges));
+                } catch (DateTimeParseException | IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
                 }
+        }
 
-                // Merchant insights
-                Map<String, Double> merchantTotals = currentTransactions.stream()
-                                .filter(t -> t.getMerchant() != null && !t.getMerchant().isEmpty()
-                                                && t.getCarbonFootprint() != null)
-                                .collect(Collectors.groupingBy(
-                                                Transaction::getMerchant,
-                                                Collectors.summingDouble(Transaction::getCarbonFootprint)));
-
-                merchantTotals.entrySet().stream()
-                                .filter(e -> (e.getValue() / totalCO2) > 0.25)
-                                .forEach(entry -> {
-                                        double pct = (entry.getValue() / totalCO2) * 100;
-                                        insights.add(Insight.builder()
-                                                        .type(Insight.InsightType.RECOMMENDATION)
-                                                        .severity(Insight.InsightSeverity.INFO)
-                                                        .title("Top Emitter")
-                                                        .message(String.format(
-                                                                        "'%s' accounts for %.0f%% of your emissions.",
-                                                                        entry.getKey(), pct))
-                                                        .actionable(true)
-                                                        .suggestedAction(
-                                                                        "Look for greener alternatives or reduce frequency")
-                                                        .build());
-                                });
+        /**
+         * approximate=true answers from the daily sketches, with the error
+         * bounds documented on SketchQueryService; long ranges default to them.
+         */
+        private boolean useSketches(Boolean approximate, LocalDateTime startDate, LocalDateTime endDate) {
+                return approximate != null
+                                ? approximate
+                                : sketchQueryService.approximateByDefault(startDate.toLocalDate(), endDate.toLocalDate());
+        }
 
-                return ResponseEntity.ok(insights);
+        private List<Transaction> loadPeriod(String endpoint, User user, LocalDateTime startDate,
+                        LocalDateTime endDate) {
+                // Months moved to the archive are read from their segments and merged in
+                List<Transaction> transactions = archiveStore.merge(user, startDate, endDate, transactionRepository
+                                .findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(user, startDate, endDate));
+                DistributionSummary.builder("bankverte.analytics.rows.loaded")
+                                .description("Transactions loaded per analytics request")
+                                .baseUnit("rows")
+                                .tag("endpoint", endpoint)
+                                .register(meterRegistry)
+                                .record(transactions.size());
+                return transactions;
+        }
+
+        private Double previousTotal(User user, LocalDateTime startDate, LocalDateTime endDate) {
+                // Rows archived but not deleted yet are counted from the table only
+                return transactionRepository.sumCarbonFootprintByUserBetween(user, startDate, endDate)
+                                + archiveStore.sumCo2(user.getId(), startDate, endDate, until -> transactionRepository
+                                                .findIdsByUserBetween(user, startDate, until));
         }
 
         private LocalDateTime parseStartDate(String dateStr) {
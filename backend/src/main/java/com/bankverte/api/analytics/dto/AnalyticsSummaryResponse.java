@@ -1,5 +1,6 @@
 package com.bankverte.api.analytics.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,6 +18,17 @@ public class AnalyticsSummaryResponse {
     private Double evolutionPercentage; // Percentage change vs previous period
     private String periodStart;
     private String periodEnd;
+    private Double medianCO2PerTransaction;
+    private Double p90CO2PerTransaction;
+    private Long distinctMerchants;
+
+    // Set when merged from daily sketches: the quantiles are within this
+    // relative error of the exact ones, the distinct count has this
+    // standard error. Totals, counts and the top category stay exact.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double quantileRelativeError;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distinctMerchantsStandardError;
 
     @Data
     @Builder
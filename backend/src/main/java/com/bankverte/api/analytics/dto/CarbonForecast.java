@@ -0,0 +1,35 @@
+package com.bankverte.api.analytics.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * CO₂ so far this month and year, and where each should end at the
+ * current pace, in total and per category.
+ */
+@Data
+@Builder
+public class CarbonForecast {
+    private String asOf;
+    private Long observedDays; // history behind the forecast; short histories are rough
+    private Double monthToDate;
+    private Double projectedMonth;
+    private Double yearToDate;
+    private Double projectedYear;
+    private List<CategoryForecast> categories;
+
+    @Data
+    @Builder
+    public static class CategoryForecast {
+        private String category;
+        private String displayName;
+        private Double dailyCO2; // smoothed
+        private Double dailyTrend; // change of dailyCO2 per day
+        private Double monthToDate;
+        private Double projectedMonth;
+        private Double yearToDate;
+        private Double projectedYear;
+    }
+}
@@ -1,5 +1,6 @@
 package com.bankverte.api.analytics.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,4 +16,8 @@ public class MerchantAnalytics {
     private Integer transactionCount;
     private Double averageCO2;
     private String primaryCategory;
+
+    // Only on approximate answers: totalCO2 is within this many kg of the exact total
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double co2ErrorBound;
 }
@@ -0,0 +1,33 @@
+package com.bankverte.api.analytics.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Totals of several periods, each compared with the one before it in the
+ * list.
+ */
+@Data
+@Builder
+public class PeriodComparison {
+    private List<Period> periods;
+
+    @Data
+    @Builder
+    public static class Period {
+        private String label;
+        private String from;
+        private String to;
+        private Double totalCO2;
+        private Long transactionCount;
+        private Double averageCO2PerDay; // for periods of different lengths
+        private List<CategoryBreakdown> categories;
+        // Versus the previous period; null on the first one
+        private Double deltaCO2;
+        private Double deltaPercentage;
+        private Map<String, Double> categoryDeltas;
+    }
+}
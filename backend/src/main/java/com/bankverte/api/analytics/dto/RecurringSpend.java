@@ -0,0 +1,26 @@
+package com.bankverte.api.analytics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringSpend {
+    private String merchant;
+    private String category;
+    private String categoryDisplayName;
+    private String cadence;
+    private Integer occurrences;
+    private Double averageAmount;
+    private Double averageCO2;
+    private Double monthlyCO2; // averageCO2 spread over the cadence
+    private LocalDate firstSeen;
+    private LocalDate lastSeen;
+    private LocalDate nextExpected;
+}
@@ -0,0 +1,37 @@
+package com.bankverte.api.analytics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Columnar form of a {@link TimeSeriesDataPoint} list: one array per field,
+ * index {@code i} of each array describing the same day.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSeriesColumns {
+    private List<String> dates; // ISO date strings
+    private double[] co2Values;
+    private int[] transactionCounts;
+
+    public static TimeSeriesColumns of(List<TimeSeriesDataPoint> points) {
+        double[] co2Values = new double[points.size()];
+        int[] transactionCounts = new int[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            TimeSeriesDataPoint point = points.get(i);
+            co2Values[i] = point.getCo2Value();
+            transactionCounts[i] = point.getTransactionCount();
+        }
+        return TimeSeriesColumns.builder()
+                .dates(points.stream().map(TimeSeriesDataPoint::getDate).toList())
+                .co2Values(co2Values)
+                .transactionCounts(transactionCounts)
+                .build();
+    }
+}
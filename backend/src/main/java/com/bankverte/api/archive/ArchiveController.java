@@ -0,0 +1,45 @@
+package com.bankverte.api.archive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.Collection;
+
+@RestController
+@RequestMapping("/api/admin/archive")
+@RequiredArgsConstructor
+public class ArchiveController {
+
+        private final ArchiveStore store;
+        private final TransactionArchiver archiver;
+
+        @GetMapping
+        public ResponseEntity<ArchiveStatus> getStatus() {
+                return ResponseEntity.ok(status());
+        }
+
+        @PostMapping
+        public ResponseEntity<ArchiveStatus> archive() throws SQLException, IOException {
+                long moved = archiver.archive();
+                ArchiveStatus status = status();
+                status.setArchivedNow(moved);
+                return ResponseEntity.ok(status);
+        }
+
+        private ArchiveStatus status() {
+                Collection<ArchiveSegment> segments = store.segments().values();
+                return ArchiveStatus.builder()
+                                .segments(segments.size())
+                                .transactions(segments.stream().mapToLong(ArchiveSegment::rowCount).sum())
+                                .bytes(segments.stream().mapToLong(ArchiveSegment::sizeBytes).sum())
+                                .oldestMonth(segments.stream().map(ArchiveSegment::month).min(YearMonth::compareTo)
+                                                .map(YearMonth::toString).orElse(null))
+                                .newestMonth(segments.stream().map(ArchiveSegment::month).max(YearMonth::compareTo)
+                                                .map(YearMonth::toString).orElse(null))
+                                .build();
+        }
+}
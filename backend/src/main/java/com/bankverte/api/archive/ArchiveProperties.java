@@ -0,0 +1,48 @@
+package com.bankverte.api.archive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.archive")
+public class ArchiveProperties {
+
+    /**
+     * Move old transactions out of the database. Segments already on disk
+     * are read whether or not this is set.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Where segment files live. Local to the node: with several nodes, put
+     * it on a shared volume and archive from one of them.
+     */
+    private String directory = "archive";
+
+    /**
+     * How often the directory is rescanned for segments written by another
+     * node. The archiver waits twice this long between writing segments and
+     * deleting their rows, so every node maps them first. Zero for one node.
+     */
+    private Duration rescanInterval = Duration.ofSeconds(10);
+
+    /**
+     * Months kept in the transaction table, the current one included.
+     * Transactions of earlier months are archived.
+     */
+    private int hotMonths = 13;
+
+    /**
+     * Width of the user id range stored in one segment file per month.
+     */
+    private int userRange = 1024;
+
+    /**
+     * Delay before the first run, then between the end of one run and the
+     * start of the next.
+     */
+    private Duration initialDelay = Duration.ofMinutes(5);
+    private Duration interval = Duration.ofDays(1);
+}
@@ -0,0 +1,440 @@
+package com.bankverte.api.archive;
+
+import com.bankverte.api.transaction.PaymentType;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCategory;
+import com.bankverte.api.user.User;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One month of archived transactions of a user id range, in an immutable
+ * file mapped read-only.
+ *
+ * <p>Rows are sorted by user and time and stored column by column: fixed
+ * width numbers, enums as one byte, strings as codes into a dictionary kept
+ * at the end of the file, and times as microseconds since the start of the
+ * month. Every value is addressable in the mapping, so a query binary
+ * searches the user directory and the time column and decodes only the
+ * rows it returns.
+ *
+ * <p>Readers {@link #retain()} a segment for the duration of a query; the
+ * mapping is released as soon as the store has replaced the segment and the
+ * last reader is done, instead of whenever the buffer is collected.
+ */
+final class ArchiveSegment {
+
+    private static final int MAGIC = 0x42564131; // "BVA1"
+    private static final int HEADER_BYTES = 24;
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+    private static final Comparator<Transaction> ORDER = Comparator
+            .comparing((Transaction t) -> t.getUser().getId())
+            .thenComparing(Transaction::getCreatedAt)
+            .thenComparing(Transaction::getId);
+    // Unmaps a direct buffer right away; null where the JDK does not allow it
+    private static final MethodHandle UNMAP = unmapper();
+
+    private final Path path;
+    private final FileTime modified;
+    private final YearMonth month;
+    private final LocalDateTime monthStart;
+    private final ByteBuffer buffer;
+    private final int userCount;
+    private final int rowCount;
+    private final int userIdsAt;
+    private final int rowStartsAt;
+    private final int idAt;
+    private final int createdAtAt;
+    private final int amountAt;
+    private final int co2At;
+    private final int emissionFactorAt;
+    private final int confidenceAt;
+    private final int categoryAt;
+    private final int paymentTypeAt;
+    private final int descriptionAt;
+    private final int currencyAt;
+    private final int merchantAt;
+    private final int factorSourceAt;
+    private final int dictionaryOffsetsAt;
+    private final int dictionaryBytesAt;
+    // Decoded on first use; a race only decodes a string twice
+    private final String[] dictionary;
+    // The store's reference plus one per running query
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private ArchiveSegment(Path path, FileTime modified, ByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.modified = modified;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an archive segment: " + path);
+        }
+        int yearMonth = buffer.getInt(4);
+        this.month = YearMonth.of(yearMonth / 100, yearMonth % 100);
+        this.monthStart = month.atDay(1).atStartOfDay();
+        this.userCount = buffer.getInt(8);
+        this.rowCount = buffer.getInt(12);
+        int dictionarySize = buffer.getInt(16);
+
+        int at = HEADER_BYTES;
+        userIdsAt = at;
+        at += 4 * userCount;
+        rowStartsAt = at;
+        at += 4 * (userCount + 1);
+        idAt = at;
+        at += 4 * rowCount;
+        createdAtAt = at;
+        at += 8 * rowCount;
+        amountAt = at;
+        at += 8 * rowCount;
+        co2At = at;
+        at += 8 * rowCount;
+        emissionFactorAt = at;
+        at += 8 * rowCount;
+        confidenceAt = at;
+        at += 8 * rowCount;
+        categoryAt = at;
+        at += rowCount;
+        paymentTypeAt = at;
+        at += rowCount;
+        descriptionAt = at;
+        at += 4 * rowCount;
+        currencyAt = at;
+        at += 4 * rowCount;
+        merchantAt = at;
+        at += 4 * rowCount;
+        factorSourceAt = at;
+        at += 4 * rowCount;
+        dictionaryOffsetsAt = at;
+        at += 4 * (dictionarySize + 1);
+        dictionaryBytesAt = at;
+        if (at + buffer.getInt(dictionaryOffsetsAt + 4 * dictionarySize) != buffer.capacity()) {
+            throw new IOException("Truncated archive segment: " + path);
+        }
+        this.dictionary = new String[dictionarySize];
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        // Read first: a file replaced meanwhile looks modified on the next rescan and is opened again
+        FileTime modified = Files.getLastModifiedTime(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping outlives the channel
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ArchiveSegment(path, modified, mapped);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Whether the file may differ from what is mapped.
+     */
+    boolean isStale(FileTime modified, long size) {
+        return !this.modified.equals(modified) || buffer.capacity() != size;
+    }
+
+    /**
+     * Keeps the mapping until {@link #release()}.
+     *
+     * @return false when the segment was replaced and may be unmapped already
+     */
+    boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0 && UNMAP != null) {
+            try {
+                UNMAP.invokeExact(buffer);
+            } catch (Throwable e) {
+                // Left to the garbage collector
+            }
+        }
+    }
+
+    YearMonth month() {
+        return month;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Appends the user's transactions with {@code from <= createdAt <= to},
+     * oldest first, owned by {@code user}.
+     */
+    void read(User user, LocalDateTime from, LocalDateTime to, List<Transaction> out) {
+        long range = range(user.getId(), from, to);
+        for (int row = (int) (range >>> 32), end = (int) range; row < end; row++) {
+            Transaction transaction = transaction(row);
+            transaction.setUser(user);
+            out.add(transaction);
+        }
+    }
+
+    /**
+     * Total CO₂ of the user's transactions with {@code from <= createdAt <= to},
+     * but for the {@code excluded} ids.
+     */
+    double sumCo2(int userId, LocalDateTime from, LocalDateTime to, Set<Integer> excluded) {
+        long range = range(userId, from, to);
+        double sum = 0;
+        for (int row = (int) (range >>> 32), end = (int) range; row < end; row++) {
+            double co2 = buffer.getDouble(co2At + 8 * row);
+            if (!Double.isNaN(co2) && (excluded.isEmpty() || !excluded.contains(buffer.getInt(idAt + 4 * row)))) {
+                sum += co2;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Every row, each owned by a bare {@link User} holding only its id.
+     */
+    List<Transaction> readAll() {
+        List<Transaction> rows = new ArrayList<>(rowCount);
+        for (int u = 0; u < userCount; u++) {
+            User owner = User.builder().id(buffer.getInt(userIdsAt + 4 * u)).build();
+            for (int row = rowStart(u), end = rowStart(u + 1); row < end; row++) {
+                Transaction transaction = transaction(row);
+                transaction.setUser(owner);
+                rows.add(transaction);
+            }
+        }
+        return rows;
+    }
+
+    // First row packed in the high half, end row in the low half
+    private long range(int userId, LocalDateTime from, LocalDateTime to) {
+        int u = binarySearch(userIdsAt, userCount, userId);
+        if (u < 0) {
+            return 0;
+        }
+        int first = rowStart(u);
+        int end = rowStart(u + 1);
+        LocalDateTime monthEnd = monthStart.plusMonths(1);
+        if (from.isAfter(monthStart)) {
+            long fromMicros = ceilMicros(from);
+            first = lowerBound(first, end, fromMicros);
+        }
+        if (to.isBefore(monthEnd)) {
+            // Rows at or before to: strictly before the next microsecond
+            long toMicros = ceilMicros(to.plusNanos(1));
+            end = lowerBound(first, end, toMicros);
+        }
+        return first < end ? ((long) first << 32) | end : 0;
+    }
+
+    private long ceilMicros(LocalDateTime time) {
+        long nanos = ChronoUnit.NANOS.between(monthStart, time);
+        return -Math.floorDiv(-nanos, 1_000);
+    }
+
+    private int lowerBound(int low, int high, long micros) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(createdAtAt + 8 * mid) < micros) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int binarySearch(int at, int length, int key) {
+        int low = 0;
+        int high = length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = buffer.getInt(at + 4 * mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int rowStart(int user) {
+        return buffer.getInt(rowStartsAt + 4 * user);
+    }
+
+    private Transaction transaction(int row) {
+        byte category = buffer.get(categoryAt + row);
+        byte paymentType = buffer.get(paymentTypeAt + row);
+        return Transaction.builder()
+                .id(buffer.getInt(idAt + 4 * row))
+                .createdAt(monthStart.plus(buffer.getLong(createdAtAt + 8 * row), ChronoUnit.MICROS))
+                .amount(number(amountAt, row))
+                .carbonFootprint(number(co2At, row))
+                .emissionFactor(number(emissionFactorAt, row))
+                .confidenceScore(number(confidenceAt, row))
+                .category(category > 0 ? CATEGORIES[category - 1] : null)
+                .paymentType(paymentType > 0 ? PAYMENT_TYPES[paymentType - 1] : null)
+                .description(string(descriptionAt, row))
+                .currency(string(currencyAt, row))
+                .merchant(string(merchantAt, row))
+                .factorSource(string(factorSourceAt, row))
+                .build();
+    }
+
+    private Double number(int column, int row) {
+        double value = buffer.getDouble(column + 8 * row);
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private String string(int column, int row) {
+        int code = buffer.getInt(column + 4 * row);
+        if (code < 0) {
+            return null;
+        }
+        String value = dictionary[code];
+        if (value == null) {
+            int start = buffer.getInt(dictionaryOffsetsAt + 4 * code);
+            int end = buffer.getInt(dictionaryOffsetsAt + 4 * (code + 1));
+            byte[] bytes = new byte[end - start];
+            buffer.get(dictionaryBytesAt + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            dictionary[code] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Writes the transactions of one month to a new segment file that
+     * atomically replaces {@code target}. Each transaction's user needs
+     * only an id.
+     */
+    static void write(Path target, YearMonth month, List<Transaction> transactions) throws IOException {
+        List<Transaction> rows = new ArrayList<>(transactions);
+        rows.sort(ORDER);
+        int rowCount = rows.size();
+        LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+
+        int[] userIds = new int[rowCount];
+        int[] rowStarts = new int[rowCount + 1];
+        int userCount = 0;
+        Map<String, Integer> codes = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[][] stringColumns = new int[4][rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            Transaction t = rows.get(row);
+            if (userCount == 0 || userIds[userCount - 1] != t.getUser().getId()) {
+                userIds[userCount] = t.getUser().getId();
+                rowStarts[userCount++] = row;
+            }
+            String[] values = {t.getDescription(), t.getCurrency(), t.getMerchant(), t.getFactorSource()};
+            for (int c = 0; c < values.length; c++) {
+                String value = values[c];
+                stringColumns[c][row] = value == null ? -1 : codes.computeIfAbsent(value, v -> {
+                    strings.add(v.getBytes(StandardCharsets.UTF_8));
+                    return strings.size() - 1;
+                });
+            }
+        }
+        rowStarts[userCount] = rowCount;
+        int dictionaryBytes = strings.stream().mapToInt(b -> b.length).sum();
+
+        int size = HEADER_BYTES + 4 * userCount + 4 * (userCount + 1) + rowCount * (4 + 8 * 5 + 2 + 4 * 4)
+                + 4 * (strings.size() + 1) + dictionaryBytes;
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putInt(month.getYear() * 100 + month.getMonthValue())
+                .putInt(userCount).putInt(rowCount).putInt(strings.size()).putInt(0);
+        for (int u = 0; u < userCount; u++) {
+            out.putInt(userIds[u]);
+        }
+        for (int u = 0; u <= userCount; u++) {
+            out.putInt(rowStarts[u]);
+        }
+        rows.forEach(t -> out.putInt(t.getId()));
+        rows.forEach(t -> out.putLong(ChronoUnit.MICROS.between(monthStart, t.getCreatedAt())));
+        rows.forEach(t -> out.putDouble(orNaN(t.getAmount())));
+        rows.forEach(t -> out.putDouble(orNaN(t.getCarbonFootprint())));
+        rows.forEach(t -> out.putDouble(orNaN(t.getEmissionFactor())));
+        rows.forEach(t -> out.putDouble(orNaN(t.getConfidenceScore())));
+        rows.forEach(t -> out.put((byte) (t.getCategory() != null ? t.getCategory().ordinal() + 1 : 0)));
+        rows.forEach(t -> out.put((byte) (t.getPaymentType() != null ? t.getPaymentType().ordinal() + 1 : 0)));
+        for (int[] column : stringColumns) {
+            Arrays.stream(column).forEach(out::putInt);
+        }
+        int offset = 0;
+        for (byte[] string : strings) {
+            out.putInt(offset);
+            offset += string.length;
+        }
+        out.putInt(offset);
+        strings.forEach(out::put);
+        out.flip();
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static MethodHandle unmapper() {
+        try {
+            // sun.misc.Unsafe.invokeCleaner, looked up so the build does not depend on it
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            MethodHandle invokeCleaner = MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class));
+            return invokeCleaner.bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.bankverte.api.archive;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ArchiveStatus {
+    private Integer segments;
+    private Long transactions; // archived, over all segments
+    private Long bytes;
+    private String oldestMonth;
+    private String newestMonth;
+    private Long archivedNow; // moved by the run just requested
+}
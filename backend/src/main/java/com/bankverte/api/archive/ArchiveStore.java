@@ -0,0 +1,278 @@
+package com.bankverte.api.archive;
+
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.user.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The archived months of every user range, for merging into answers from
+ * the transaction table. The archive directory is rescanned every
+ * rescan-interval, so segments written by another node sharing it are
+ * mapped too; the archiver maps its own right away. A segment replaced by a
+ * new version is unmapped once the queries reading it are done.
+ */
+@Slf4j
+@Component
+public class ArchiveStore {
+
+    private static final Pattern FILE_NAME = Pattern.compile("transactions-(\\d{6})-(\\d+)\\.seg");
+
+    private final ArchiveProperties properties;
+    private final Path directory;
+    private final Map<Long, ArchiveSegment> segments = new ConcurrentHashMap<>();
+    private final Counter rowsRead;
+    private final ScheduledExecutorService scheduler;
+    // Bounds of the archived months, for skipping ranges that cannot touch them
+    private volatile YearMonth oldest;
+    private volatile YearMonth newest;
+
+    public ArchiveStore(ArchiveProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.directory = Path.of(properties.getDirectory());
+        this.rowsRead = Counter.builder("bankverte.archive.rows.read")
+                .description("Archived transactions returned to analytics queries")
+                .register(meterRegistry);
+        Gauge.builder("bankverte.archive.segments", segments, Map::size)
+                .description("Archive segment files mapped")
+                .register(meterRegistry);
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("archive-scan-");
+        threads.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threads);
+
+        rescan();
+        if (!segments.isEmpty()) {
+            log.info("Mapped {} archive segments from {} to {}", segments.size(), oldest, newest);
+        }
+        long interval = properties.getRescanInterval().toMillis();
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::rescan, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Maps segment files that are new or changed since the last scan, and
+     * drops the ones deleted.
+     */
+    synchronized void rescan() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Set<Long> found = new HashSet<>();
+        int mapped = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "transactions-*.seg")) {
+            for (Path file : files) {
+                Matcher name = FILE_NAME.matcher(file.getFileName().toString());
+                if (!name.matches()) {
+                    continue;
+                }
+                int yearMonth = Integer.parseInt(name.group(1));
+                YearMonth month = YearMonth.of(yearMonth / 100, yearMonth % 100);
+                int rangeStart = Integer.parseInt(name.group(2));
+                long key = key(month, rangeStart);
+                found.add(key);
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    ArchiveSegment current = segments.get(key);
+                    if (current == null || current.isStale(attributes.lastModifiedTime(), attributes.size())) {
+                        put(rangeStart, ArchiveSegment.open(file));
+                        mapped++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Archive segment {} not readable, its transactions are missing from analytics: {}",
+                            file, e.toString());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list archive directory {}: {}", directory, e.toString());
+            return;
+        }
+        int dropped = 0;
+        for (Long key : new ArrayList<>(segments.keySet())) {
+            if (!found.contains(key)) {
+                segments.remove(key).release();
+                dropped++;
+            }
+        }
+        if (mapped > 0 || dropped > 0) {
+            updateBounds();
+            log.debug("Mapped {} new or changed archive segments and dropped {}, {} in all", mapped, dropped,
+                    segments.size());
+        }
+    }
+
+    /**
+     * The hot transactions of a period, newest first, with the archived ones
+     * of the same period added.
+     */
+    public List<Transaction> merge(User user, LocalDateTime from, LocalDateTime to, List<Transaction> hot) {
+        List<Transaction> archived = new ArrayList<>();
+        List<ArchiveSegment> overlapping = overlapping(user.getId(), from, to);
+        try {
+            for (ArchiveSegment segment : overlapping) {
+                segment.read(user, from, to, archived);
+            }
+        } finally {
+            overlapping.forEach(ArchiveSegment::release);
+        }
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        rowsRead.increment(archived.size());
+
+        List<Transaction> merged = new ArrayList<>(hot.size() + archived.size());
+        merged.addAll(hot);
+        LocalDateTime archivedUntil = end(overlapping);
+        if (hot.isEmpty() || !hot.get(hot.size() - 1).getCreatedAt().isBefore(archivedUntil)) {
+            Collections.reverse(archived);
+            merged.addAll(archived);
+            return merged;
+        }
+        // Hot rows in archived months: written late, or archived and not deleted yet
+        Set<Integer> hotIds = new HashSet<>();
+        hot.forEach(t -> hotIds.add(t.getId()));
+        archived.stream().filter(t -> !hotIds.contains(t.getId())).forEach(merged::add);
+        merged.sort(Comparator.comparing(Transaction::getCreatedAt).reversed());
+        return merged;
+    }
+
+    /**
+     * Archived CO₂ of a user with {@code from <= createdAt < to}, but for
+     * rows still in the table as well, which the caller counts.
+     *
+     * @param hotIdsBefore ids of the user's rows in the table from
+     *                     {@code from} up to the given time, asked only when
+     *                     archived months overlap the period
+     */
+    public double sumCo2(Integer userId, LocalDateTime from, LocalDateTime to,
+            Function<LocalDateTime, Set<Integer>> hotIdsBefore) {
+        List<ArchiveSegment> overlapping = overlapping(userId, from, to);
+        if (overlapping.isEmpty()) {
+            return 0;
+        }
+        try {
+            LocalDateTime archivedUntil = end(overlapping);
+            Set<Integer> hotIds = hotIdsBefore.apply(archivedUntil.isBefore(to) ? archivedUntil : to);
+            double sum = 0;
+            for (ArchiveSegment segment : overlapping) {
+                sum += segment.sumCo2(userId, from, to.minusNanos(1), hotIds);
+            }
+            return sum;
+        } finally {
+            overlapping.forEach(ArchiveSegment::release);
+        }
+    }
+
+    /**
+     * The segments of the user's range in the period, oldest first, each
+     * retained for the caller to release.
+     */
+    private List<ArchiveSegment> overlapping(int userId, LocalDateTime from, LocalDateTime to) {
+        YearMonth first = oldest;
+        YearMonth last = newest;
+        if (first == null || to.isBefore(from)) {
+            return List.of();
+        }
+        YearMonth start = YearMonth.from(from).isBefore(first) ? first : YearMonth.from(from);
+        YearMonth end = YearMonth.from(to).isAfter(last) ? last : YearMonth.from(to);
+        List<ArchiveSegment> overlapping = new ArrayList<>();
+        for (YearMonth month = start; !month.isAfter(end); month = month.plusMonths(1)) {
+            segment(month, rangeStart(userId)).ifPresent(overlapping::add);
+        }
+        return overlapping;
+    }
+
+    private static LocalDateTime end(List<ArchiveSegment> segments) {
+        return segments.get(segments.size() - 1).month().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    int rangeStart(int userId) {
+        return userId - Math.floorMod(userId, properties.getUserRange());
+    }
+
+    /**
+     * The segment of a month and range, retained for the caller to
+     * {@link ArchiveSegment#release() release}.
+     */
+    Optional<ArchiveSegment> segment(YearMonth month, int rangeStart) {
+        while (true) {
+            ArchiveSegment segment = segments.get(key(month, rangeStart));
+            if (segment == null || segment.retain()) {
+                return Optional.ofNullable(segment);
+            }
+            // Replaced since the lookup: take the new version
+        }
+    }
+
+    Path path(YearMonth month, int rangeStart) {
+        return directory.resolve(String.format("transactions-%04d%02d-%d.seg", month.getYear(),
+                month.getMonthValue(), rangeStart));
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    Map<Long, ArchiveSegment> segments() {
+        return segments;
+    }
+
+    /**
+     * Makes a segment visible to queries, replacing the previous version of
+     * the same month and range.
+     */
+    synchronized void put(int rangeStart, ArchiveSegment segment) {
+        ArchiveSegment previous = segments.put(key(segment.month(), rangeStart), segment);
+        if (previous != null) {
+            previous.release();
+        }
+        if (oldest == null || segment.month().isBefore(oldest)) {
+            oldest = segment.month();
+        }
+        if (newest == null || segment.month().isAfter(newest)) {
+            newest = segment.month();
+        }
+    }
+
+    private void updateBounds() {
+        oldest = segments.values().stream().map(ArchiveSegment::month).min(YearMonth::compareTo).orElse(null);
+        newest = segments.values().stream().map(ArchiveSegment::month).max(YearMonth::compareTo).orElse(null);
+    }
+
+    private static long key(YearMonth month, int rangeStart) {
+        return ((long) (month.getYear() * 100 + month.getMonthValue()) << 32) | rangeStart;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,295 @@
+package com.bankverte.api.archive;
+
+import com.bankverte.api.sharding.Shards;
+import com.bankverte.api.transaction.PaymentType;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCategory;
+import com.bankverte.api.user.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves transactions older than the hot months from the transaction table
+ * into {@link ArchiveSegment} files, one month and user range at a time.
+ * Every segment is written and mapped first; the rows are deleted only once
+ * the other nodes have had two rescan-intervals to map it too. A failure in
+ * between leaves rows in both tiers, which reads tolerate and the next run
+ * cleans up. Rows that reach an archived month later are
+ * merged into a new version of its segment.
+ *
+ * <p>The monthly totals and daily sketches keep covering archived months;
+ * only their backfills, which read the transaction table, would not.
+ *
+ * <p>With sharding each database is archived in turn into the same
+ * segments, which are per user range, not per database, so archived rows
+ * stay readable wherever their user moves.
+ */
+@Slf4j
+@Component
+public class TransactionArchiver {
+
+    private static final int DELETE_BATCH_SIZE = 1_000;
+
+    private final Shards shards;
+    private final ArchiveProperties properties;
+    private final ArchiveStore store;
+    private final ScheduledExecutorService scheduler;
+    private final Timer runs;
+    private final Counter archived;
+    // Not synchronized: a virtual thread blocking on JDBC inside a monitor pins its carrier
+    private final ReentrantLock running = new ReentrantLock();
+
+    public TransactionArchiver(Shards shards, ArchiveProperties properties, ArchiveStore store,
+            MeterRegistry meterRegistry) {
+        this.shards = shards;
+        this.properties = properties;
+        this.store = store;
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("archiver-");
+        threads.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threads);
+        this.runs = Timer.builder("bankverte.archive.run")
+                .description("Runs of the transaction archiver")
+                .register(meterRegistry);
+        this.archived = Counter.builder("bankverte.archive.rows")
+                .description("Transactions moved from the table to archive segments")
+                .register(meterRegistry);
+
+        if (properties.isEnabled()) {
+            scheduler.scheduleWithFixedDelay(this::archiveQuietly, properties.getInitialDelay().toMillis(),
+                    properties.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Archives every month before the hot ones now.
+     *
+     * @return the number of transactions moved
+     */
+    public long archive() throws SQLException, IOException {
+        running.lock();
+        try {
+            long started = System.nanoTime();
+            YearMonth firstHot = YearMonth.now().minusMonths(properties.getHotMonths() - 1L);
+            // Ids of the rows written to each segment, per database
+            Map<String, List<int[]>> written = new LinkedHashMap<>();
+            for (String shard : shards.names()) {
+                try (Connection connection = shards.dataSource(shard).getConnection()) {
+                    Optional<YearMonth> oldest = oldestMonth(connection, firstHot.atDay(1).atStartOfDay());
+                    if (oldest.isPresent()) {
+                        Files.createDirectories(store.directory());
+                        connection.setAutoCommit(false);
+                        List<int[]> ids = new ArrayList<>();
+                        for (YearMonth month = oldest.get(); month.isBefore(firstHot); month = month.plusMonths(1)) {
+                            for (int rangeStart : rangeStarts(connection, month)) {
+                                int[] rows = write(connection, month, rangeStart);
+                                if (rows.length > 0) {
+                                    ids.add(rows);
+                                }
+                            }
+                        }
+                        connection.commit();
+                        written.put(shard, ids);
+                    }
+                }
+            }
+            if (written.isEmpty()) {
+                runs.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return 0;
+            }
+            awaitRescan();
+            long moved = 0;
+            for (Map.Entry<String, List<int[]>> shard : written.entrySet()) {
+                try (Connection connection = shards.dataSource(shard.getKey()).getConnection()) {
+                    connection.setAutoCommit(false);
+                    for (int[] ids : shard.getValue()) {
+                        moved += delete(connection, ids);
+                    }
+                }
+            }
+            runs.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (moved > 0) {
+                log.info("Archived {} transactions before {} in {} ms", moved, firstHot,
+                        (System.nanoTime() - started) / 1_000_000);
+            }
+            return moved;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    /**
+     * Gives the nodes sharing the directory time to map the new segments
+     * before their rows leave the table.
+     */
+    private void awaitRescan() throws InterruptedIOException {
+        long wait = 2 * properties.getRescanInterval().toMillis();
+        if (wait <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // The rows stay in both tiers until the next run
+            throw new InterruptedIOException("Interrupted before deleting archived transactions");
+        }
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (SQLException | IOException | RuntimeException e) {
+            log.warn("Transaction archiving failed: {}", e.toString());
+        }
+    }
+
+    /**
+     * Writes and maps the segment of a month and range.
+     *
+     * @return the ids of the rows moved into it
+     */
+    private int[] write(Connection connection, YearMonth month, int rangeStart) throws SQLException, IOException {
+        List<Transaction> rows = select(connection, month, rangeStart);
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        List<Transaction> segmentRows = new ArrayList<>(rows);
+        Optional<ArchiveSegment> previous = store.segment(month, rangeStart);
+        if (previous.isPresent()) {
+            // Rows still in the table after an interrupted run are already in the segment
+            Set<Integer> ids = new HashSet<>();
+            rows.forEach(t -> ids.add(t.getId()));
+            try {
+                previous.get().readAll().stream().filter(t -> !ids.contains(t.getId())).forEach(segmentRows::add);
+            } finally {
+                previous.get().release();
+            }
+        }
+        Path path = store.path(month, rangeStart);
+        ArchiveSegment.write(path, month, segmentRows);
+        store.put(rangeStart, ArchiveSegment.open(path));
+        return rows.stream().mapToInt(Transaction::getId).toArray();
+    }
+
+    private int delete(Connection connection, int[] ids) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM transaction WHERE id = ?")) {
+            for (int i = 0; i < ids.length; i++) {
+                delete.setInt(1, ids[i]);
+                delete.addBatch();
+                if ((i + 1) % DELETE_BATCH_SIZE == 0) {
+                    delete.executeBatch();
+                }
+            }
+            delete.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+        archived.increment(ids.length);
+        return ids.length;
+    }
+
+    private Optional<YearMonth> oldestMonth(Connection connection, LocalDateTime before) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT MIN(created_at) FROM transaction WHERE created_at < ?")) {
+            select.setTimestamp(1, Timestamp.valueOf(before));
+            try (ResultSet rs = select.executeQuery()) {
+                Timestamp oldest = rs.next() ? rs.getTimestamp(1) : null;
+                return Optional.ofNullable(oldest).map(t -> YearMonth.from(t.toLocalDateTime()));
+            }
+        }
+    }
+
+    private List<Integer> rangeStarts(Connection connection, YearMonth month) throws SQLException {
+        List<Integer> starts = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT DISTINCT user_id - MOD(user_id, ?) FROM transaction "
+                        + "WHERE created_at >= ? AND created_at < ? ORDER BY 1")) {
+            select.setInt(1, properties.getUserRange());
+            select.setTimestamp(2, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+            select.setTimestamp(3, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    starts.add(rs.getInt(1));
+                }
+            }
+        }
+        return starts;
+    }
+
+    private List<Transaction> select(Connection connection, YearMonth month, int rangeStart) throws SQLException {
+        List<Transaction> rows = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, user_id, created_at, description, amount, currency, category, carbon_footprint, "
+                        + "merchant, payment_type, emission_factor, factor_source, confidence_score "
+                        + "FROM transaction WHERE created_at >= ? AND created_at < ? "
+                        + "AND user_id >= ? AND user_id < ?")) {
+            select.setTimestamp(1, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+            select.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+            select.setInt(3, rangeStart);
+            select.setInt(4, rangeStart + properties.getUserRange());
+            select.setFetchSize(10_000);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    String category = rs.getString(7);
+                    String paymentType = rs.getString(10);
+                    rows.add(Transaction.builder()
+                            .id(rs.getInt(1))
+                            .user(User.builder().id(rs.getInt(2)).build())
+                            .createdAt(rs.getTimestamp(3).toLocalDateTime())
+                            .description(rs.getString(4))
+                            .amount(number(rs, 5))
+                            .currency(rs.getString(6))
+                            .category(category != null ? TransactionCategory.valueOf(category) : null)
+                            .carbonFootprint(number(rs, 8))
+                            .merchant(rs.getString(9))
+                            .paymentType(paymentType != null ? PaymentType.valueOf(paymentType) : null)
+                            .emissionFactor(number(rs, 11))
+                            .factorSource(rs.getString(12))
+                            .confidenceScore(number(rs, 13))
+                            .build());
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static Double number(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
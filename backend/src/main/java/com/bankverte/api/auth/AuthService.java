@@ -1,6 +1,7 @@
 package com.bankverte.api.auth;
 
 import com.bankverte.api.config.JwtService;
+import com.bankverte.api.sharding.ShardDirectory;
 import com.bankverte.api.user.Role;
 import com.bankverte.api.user.User;
 import com.bankverte.api.user.UserRepository;
@@ -18,6 +19,7 @@ public class AuthService {
   private final PasswordEncoder passwordEncoder;
   private final JwtService jwtService;
   private final AuthenticationManager authenticationManager;
+  private final ShardDirectory shardDirectory;
 
   public AuthenticationResponse register(RegisterRequest request) {
     var user = User.builder()
@@ -28,6 +30,7 @@ public class AuthService {
         .role(Role.USER) // Default role
         .build();
     repository.save(user);
+    shardDirectory.place(user);
     var jwtToken = jwtService.generateToken(user);
     return AuthenticationResponse.builder()
         .token(jwtToken)
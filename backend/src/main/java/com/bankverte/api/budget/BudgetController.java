@@ -0,0 +1,53 @@
+package com.bankverte.api.budget;
+
+import com.bankverte.api.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/budgets")
+@RequiredArgsConstructor
+public class BudgetController {
+
+        private final BudgetService budgetService;
+
+        @GetMapping
+        public ResponseEntity<?> getBudgets(@AuthenticationPrincipal User user) {
+                return ResponseEntity.ok(budgetService.statuses(user.getId()));
+        }
+
+        /**
+         * @param scope TOTAL or a transaction category
+         */
+        @PutMapping("/{scope}")
+        public ResponseEntity<?> setBudget(
+                        @AuthenticationPrincipal User user,
+                        @PathVariable String scope,
+                        @RequestBody SetBudgetRequest request) {
+
+                if (request.getMonthlyLimit() == null || request.getMonthlyLimit() <= 0) {
+                        return ResponseEntity.badRequest().build();
+                }
+                try {
+                        return ResponseEntity.ok(budgetService.set(user, scope, request.getMonthlyLimit()));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                }
+        }
+
+        @DeleteMapping("/{scope}")
+        public ResponseEntity<?> deleteBudget(
+                        @AuthenticationPrincipal User user,
+                        @PathVariable String scope) {
+
+                try {
+                        return budgetService.delete(user, scope)
+                                        ? ResponseEntity.noContent().build()
+                                        : ResponseEntity.notFound().build();
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                }
+        }
+}
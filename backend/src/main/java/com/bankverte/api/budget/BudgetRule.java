@@ -0,0 +1,43 @@
+package com.bankverte.api.budget;
+
+import com.bankverte.api.analytics.dto.Insight;
+import com.bankverte.api.insight.InsightContext;
+import com.bankverte.api.insight.InsightRule;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Budgets at 80% or more of their limit this month. Only applies to the
+ * persisted insight set, whose totals are the current month's.
+ */
+@Component
+@Order(5)
+@RequiredArgsConstructor
+public class BudgetRule implements InsightRule {
+
+    private final BudgetService budgetService;
+
+    @Override
+    public String name() {
+        return "budget";
+    }
+
+    @Override
+    public void evaluate(InsightContext context, List<Insight> insights) {
+        if (context.getUserId() == null) {
+            return;
+        }
+        YearMonth month = YearMonth.now();
+        for (CarbonBudget budget : budgetService.budgets(context.getUserId())) {
+            double spent = BudgetService.spent(budget, context.getCategoryTotals(), context.getTotalCO2());
+            BudgetStatus status = BudgetService.status(budget, spent, month);
+            if (status.getState() != BudgetStatus.State.OK) {
+                insights.add(BudgetService.insight(status));
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.bankverte.api.budget;
+
+import com.bankverte.api.analytics.dto.Insight;
+import com.bankverte.api.insight.CarbonMonthTotal;
+import com.bankverte.api.insight.CarbonMonthTotalRepository;
+import com.bankverte.api.sync.UserChange;
+import com.bankverte.api.sync.UserChangeRepository;
+import com.bankverte.api.transaction.TransactionCategory;
+import com.bankverte.api.user.User;
+import com.bankverte.api.user.UserDataChangedEvent;
+import com.bankverte.api.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Monthly CO₂ budgets, checked against the running monthly totals: a status
+ * or a threshold crossing costs a handful of additions, never an aggregate
+ * over transactions.
+ */
+@Service
+@RequiredArgsConstructor
+public class BudgetService {
+
+    public static final String TOTAL = "TOTAL";
+
+    private static final double WARNING_PCT = 80;
+    private static final double EXCEEDED_PCT = 100;
+
+    private final CarbonBudgetRepository budgetRepository;
+    private final CarbonMonthTotalRepository carbonMonthTotalRepository;
+    private final UserRepository userRepository;
+    private final UserChangeRepository userChangeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public List<CarbonBudget> budgets(Integer userId) {
+        return budgetRepository.findByUserId(userId);
+    }
+
+    public List<BudgetStatus> statuses(Integer userId) {
+        List<CarbonBudget> budgets = budgets(userId);
+        if (budgets.isEmpty()) {
+            return List.of();
+        }
+        YearMonth month = YearMonth.now();
+        Map<TransactionCategory, Double> totals = new EnumMap<>(TransactionCategory.class);
+        carbonMonthTotalRepository.findByUserIdAndYearMonthIn(userId, List.of(CarbonMonthTotal.key(month)))
+                .forEach(row -> totals.put(row.getCategory(), row.getCo2()));
+        double total = totals.values().stream().mapToDouble(Double::doubleValue).sum();
+        return budgets.stream().map(b -> status(b, spent(b, totals, total), month)).toList();
+    }
+
+    /**
+     * Creates or replaces the budget of {@code scope}, TOTAL or a category.
+     *
+     * @throws IllegalArgumentException for an unknown scope
+     */
+    @Transactional
+    public BudgetStatus set(User user, String scope, double monthlyLimit) {
+        TransactionCategory category = category(scope);
+        CarbonBudget budget = find(user.getId(), category)
+                .orElseGet(() -> CarbonBudget.builder().userId(user.getId()).category(category).build());
+        budget.setMonthlyLimit(monthlyLimit);
+        budgetRepository.save(budget);
+        changed(user);
+        return statuses(user.getId()).stream()
+                .filter(s -> s.getScope().equals(scope(category)))
+                .findFirst().orElseThrow();
+    }
+
+    @Transactional
+    public boolean delete(User user, String scope) {
+        Optional<CarbonBudget> budget = find(user.getId(), category(scope));
+        budget.ifPresent(b -> {
+            budgetRepository.delete(b);
+            changed(user);
+        });
+        return budget.isPresent();
+    }
+
+    /**
+     * Insights for the budgets that the latest {@code co2} kg in
+     * {@code category} pushed past 80% or 100%, given the month's totals
+     * including it.
+     */
+    public List<Insight> crossings(List<CarbonBudget> budgets, Map<TransactionCategory, Double> totals,
+            double total, TransactionCategory category, double co2) {
+        List<Insight> insights = new ArrayList<>();
+        YearMonth month = YearMonth.now();
+        for (CarbonBudget budget : budgets) {
+            if (budget.getCategory() != null && budget.getCategory() != category) {
+                continue;
+            }
+            double after = spent(budget, totals, total);
+            BudgetStatus.State before = state(budget, after - co2);
+            BudgetStatus status = status(budget, after, month);
+            if (status.getState().compareTo(before) > 0) {
+                insights.add(insight(status));
+            }
+        }
+        return insights;
+    }
+
+    public static Insight insight(BudgetStatus status) {
+        boolean exceeded = status.getState() == BudgetStatus.State.EXCEEDED;
+        return Insight.builder()
+                .type(Insight.InsightType.ALERT)
+                .severity(Insight.InsightSeverity.WARNING)
+                .title(exceeded ? "Budget Exceeded" : "Budget Almost Used")
+                .message(String.format("You have used %.0f%% of your %s budget of %.0f kg CO₂ this month.",
+                        status.getPercentage(), status.getDisplayName(), status.getMonthlyLimit()))
+                .actionable(true)
+                .suggestedAction(exceeded ? "Review your spending in this category or adjust the budget"
+                        : "Slow down on high-emission purchases for the rest of the month")
+                .build();
+    }
+
+    static double spent(CarbonBudget budget, Map<TransactionCategory, Double> totals, double total) {
+        return budget.getCategory() == null ? total : totals.getOrDefault(budget.getCategory(), 0.0);
+    }
+
+    static BudgetStatus status(CarbonBudget budget, double spent, YearMonth month) {
+        double pct = percentage(budget, spent);
+        return BudgetStatus.builder()
+                .scope(scope(budget.getCategory()))
+                .displayName(budget.getCategory() == null ? "overall" : budget.getCategory().getDisplayName())
+                .monthlyLimit(budget.getMonthlyLimit())
+                .spent(Math.round(spent * 100.0) / 100.0)
+                .percentage(Math.round(pct * 10.0) / 10.0)
+                .state(state(budget, spent))
+                .month(month.toString())
+                .build();
+    }
+
+    private static BudgetStatus.State state(CarbonBudget budget, double spent) {
+        double pct = percentage(budget, spent);
+        return pct >= EXCEEDED_PCT ? BudgetStatus.State.EXCEEDED
+                : pct >= WARNING_PCT ? BudgetStatus.State.WARNING
+                : BudgetStatus.State.OK;
+    }
+
+    private static double percentage(CarbonBudget budget, double spent) {
+        return budget.getMonthlyLimit() > 0 ? spent / budget.getMonthlyLimit() * 100 : 0.0;
+    }
+
+    private Optional<CarbonBudget> find(Integer userId, TransactionCategory category) {
+        return budgets(userId).stream().filter(b -> b.getCategory() == category).findFirst();
+    }
+
+    private void changed(User user) {
+        // Budgets feed the persisted insights, which refresh on a newer data version
+        userRepository.bumpDataVersion(user.getId());
+        userChangeRepository.record(user.getId(), UserChange.Kind.BUDGET, null);
+        eventPublisher.publishEvent(new UserDataChangedEvent(user.getId()));
+    }
+
+    private static TransactionCategory category(String scope) {
+        return TOTAL.equals(scope) ? null : TransactionCategory.valueOf(scope);
+    }
+
+    private static String scope(TransactionCategory category) {
+        return category == null ? TOTAL : category.name();
+    }
+}
@@ -0,0 +1,26 @@
+package com.bankverte.api.budget;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetStatus {
+    private String scope; // TOTAL or a category name
+    private String displayName;
+    private Double monthlyLimit;
+    private Double spent;
+    private Double percentage;
+    private State state;
+    private String month;
+
+    public enum State {
+        OK,
+        WARNING, // at least 80% used
+        EXCEEDED
+    }
+}
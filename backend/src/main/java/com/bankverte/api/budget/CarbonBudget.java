@@ -0,0 +1,32 @@
+package com.bankverte.api.budget;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A monthly CO₂ limit, for all of the user's emissions or for one category.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "carbon_budget", indexes = @Index(columnList = "user_id"))
+public class CarbonBudget {
+
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionCategory category; // null for the overall budget
+
+    private double monthlyLimit; // kg CO₂
+}
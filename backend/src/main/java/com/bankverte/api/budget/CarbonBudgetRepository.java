@@ -0,0 +1,10 @@
+package com.bankverte.api.budget;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface CarbonBudgetRepository extends JpaRepository<CarbonBudget, Integer> {
+
+    List<CarbonBudget> findByUserId(Integer userId);
+}
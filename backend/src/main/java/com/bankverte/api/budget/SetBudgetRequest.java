@@ -0,0 +1,12 @@
+package com.bankverte.api.budget;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SetBudgetRequest {
+    private Double monthlyLimit; // kg CO₂
+}
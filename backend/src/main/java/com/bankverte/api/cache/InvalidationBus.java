@@ -0,0 +1,237 @@
+package com.bankverte.api.cache;
+
+import com.bankverte.api.sharding.ShardDirectory;
+import com.bankverte.api.user.UserDataChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every {@link UserScopedCache} coherent across API nodes.
+ *
+ * <p>Local writes evict on commit. The changed user ids are then coalesced
+ * for {@code flush-interval} and sent to the other nodes as one Postgres
+ * NOTIFY, payload {@code <node>|<userId>:<version>,...}. Each node LISTENs on
+ * a dedicated connection and evicts entries older than the notified version.
+ * Notifications sent while that connection was down are lost, so after every
+ * (re)connect, and periodically, cached versions are compared with the
+ * users' databases and stale entries dropped.
+ *
+ * <p>On databases other than Postgres only the local and periodic paths run.
+ */
+@Slf4j
+@Component
+public class InvalidationBus {
+
+    // NOTIFY payloads must stay under 8000 bytes
+    private static final int MAX_IDS_PER_NOTIFY = 300;
+    private static final int MAX_IDS_PER_QUERY = 1_000;
+
+    private final List<UserScopedCache> caches;
+    private final ShardDirectory shardDirectory;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InvalidationProperties properties;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    private final Counter published;
+    private final Counter received;
+    private final Counter reconciled;
+    private volatile boolean postgres;
+    private volatile boolean running = true;
+
+    public InvalidationBus(List<UserScopedCache> caches, ShardDirectory shardDirectory, DataSource dataSource,
+            JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher, InvalidationProperties properties,
+            MeterRegistry meterRegistry) {
+        this.caches = caches;
+        this.shardDirectory = shardDirectory;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("invalidation-");
+        threads.setDaemon(true);
+        this.scheduler = Executors.newScheduledThreadPool(2, threads);
+        this.published = Counter.builder("bankverte.invalidation.users").tag("direction", "published")
+                .register(meterRegistry);
+        this.received = Counter.builder("bankverte.invalidation.users").tag("direction", "received")
+                .register(meterRegistry);
+        this.reconciled = Counter.builder("bankverte.invalidation.users").tag("direction", "reconciled")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        try (Connection connection = dataSource.getConnection()) {
+            postgres = connection.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            log.warn("Could not inspect the database, cross-node invalidation disabled: {}", e.toString());
+        }
+        long reconcileMillis = properties.getReconcileInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::reconcile, reconcileMillis, reconcileMillis, TimeUnit.MILLISECONDS);
+        if (postgres) {
+            long flushMillis = properties.getFlushInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+            Thread listener = new Thread(this::listen, "invalidation-listener");
+            listener.setDaemon(true);
+            listener.start();
+            log.info("Cross-node invalidation on channel {} as node {}", properties.getChannel(), nodeId);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        caches.forEach(cache -> cache.evict(event.userId(), -1));
+        if (postgres) {
+            pending.add(event.userId());
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(pending);
+        pending.removeAll(ids);
+        try {
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_NOTIFY) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_NOTIFY));
+                StringBuilder payload = new StringBuilder(nodeId).append('|');
+                // Versions read now are at least the committed ones
+                for (Object[] row : shardDirectory.findDataVersions(chunk)) {
+                    payload.append(row[0]).append(':').append(row[1]).append(',');
+                }
+                payload.setLength(payload.length() - 1);
+                jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, properties.getChannel(),
+                        payload.toString());
+                published.increment(chunk.size());
+            }
+        } catch (RuntimeException e) {
+            // Other nodes catch up at their next reconciliation
+            log.warn("Could not publish invalidations for {} users: {}", ids.size(), e.toString());
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + properties.getChannel());
+                }
+                // Anything missed while not listening is found by comparing versions
+                reconcile();
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(1_000);
+                    if (notifications != null && notifications.length > 0) {
+                        apply(notifications);
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Invalidation listener lost its connection, retrying in {}: {}",
+                            properties.getReconnectDelay(), e.toString());
+                    sleep(properties.getReconnectDelay().toMillis());
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies one batch of notifications, keeping only the highest version
+     * per user.
+     */
+    private void apply(PGNotification[] notifications) {
+        Map<Integer, Long> latest = new HashMap<>();
+        for (PGNotification notification : notifications) {
+            String payload = notification.getParameter();
+            int bar = payload.indexOf('|');
+            if (bar < 0 || payload.substring(0, bar).equals(nodeId)) {
+                continue;
+            }
+            for (String entry : payload.substring(bar + 1).split(",")) {
+                int colon = entry.indexOf(':');
+                if (colon > 0) {
+                    latest.merge(Integer.valueOf(entry.substring(0, colon)),
+                            Long.valueOf(entry.substring(colon + 1)), Math::max);
+                }
+            }
+        }
+        latest.forEach((userId, version) -> {
+            caches.forEach(cache -> cache.evict(userId, version));
+            eventPublisher.publishEvent(new RemoteUserDataChangedEvent(userId, version));
+        });
+        received.increment(latest.size());
+    }
+
+    /**
+     * Drops entries whose version is behind the database.
+     */
+    void reconcile() {
+        try {
+            for (UserScopedCache cache : caches) {
+                List<Map.Entry<Integer, Long>> cached = new ArrayList<>(cache.cachedVersions().entrySet());
+                for (int from = 0; from < cached.size(); from += MAX_IDS_PER_QUERY) {
+                    List<Map.Entry<Integer, Long>> chunk =
+                            cached.subList(from, Math.min(cached.size(), from + MAX_IDS_PER_QUERY));
+                    List<Integer> ids = chunk.stream().map(Map.Entry::getKey).toList();
+                    Map<Integer, Long> current = new HashMap<>();
+                    for (Object[] row : shardDirectory.findDataVersions(ids)) {
+                        current.put((Integer) row[0], (Long) row[1]);
+                    }
+                    for (Map.Entry<Integer, Long> entry : chunk) {
+                        Long version = current.get(entry.getKey());
+                        if (version == null || version > entry.getValue()) {
+                            cache.evict(entry.getKey(), version != null ? version : -1);
+                            reconciled.increment();
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cache reconciliation failed: {}", e.toString());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.bankverte.api.cache;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(InvalidationProperties.class)
+public class InvalidationConfiguration {
+}
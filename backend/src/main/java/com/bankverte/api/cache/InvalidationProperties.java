@@ -0,0 +1,40 @@
+package com.bankverte.api.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.invalidation")
+public class InvalidationProperties {
+
+    /**
+     * Postgres NOTIFY channel shared by all nodes. Ignored on other databases,
+     * where invalidation stays local.
+     */
+    private String channel = "bankverte_invalidation";
+
+    /**
+     * How long changed user ids are collected before one NOTIFY carries them
+     * all, so a burst of writes costs a single message.
+     */
+    private Duration flushInterval = Duration.ofMillis(20);
+
+    /**
+     * Safety net for lost notifications, e.g. a node that died between commit
+     * and flush: cached versions are compared with the database this often.
+     */
+    private Duration reconcileInterval = Duration.ofSeconds(60);
+
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+
+    private PrincipalCache principalCache = new PrincipalCache();
+
+    @Data
+    public static class PrincipalCache {
+        private boolean enabled = true;
+        private int maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+}
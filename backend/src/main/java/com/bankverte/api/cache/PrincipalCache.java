@@ -0,0 +1,101 @@
+package com.bankverte.api.cache;
+
+import com.bankverte.api.user.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Users resolved by the JWT filter, keyed by email, so an authenticated
+ * request (and in particular an ETag revalidation) needs no user lookup.
+ * Entries carry the data version they were loaded at and are evicted on
+ * every change to the user, on this node or, through the bus, on another.
+ * Each request gets its own copy of the cached user, so one that changes
+ * its principal, as a profile update does, cannot touch another's.
+ */
+@Component
+public class PrincipalCache implements UserScopedCache {
+
+    private record Entry(User user, long loadedAtNanos) {
+    }
+
+    private final Map<String, Entry> byEmail = new ConcurrentHashMap<>();
+    private final Map<Integer, String> emailById = new ConcurrentHashMap<>();
+    // Bumped by every eviction; a load that overlapped one is not cached
+    private final AtomicLong evictions = new AtomicLong();
+    private final InvalidationProperties.PrincipalCache properties;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrincipalCache(InvalidationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getPrincipalCache();
+        Gauge.builder("bankverte.cache.size", byEmail, Map::size).tag("cache", "principal").register(meterRegistry);
+        this.hits = Counter.builder("bankverte.cache.gets").tags("cache", "principal", "result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("bankverte.cache.gets").tags("cache", "principal", "result", "miss")
+                .register(meterRegistry);
+    }
+
+    public UserDetails getOrLoad(String email, Function<String, UserDetails> loader) {
+        if (!properties.isEnabled()) {
+            return loader.apply(email);
+        }
+        Entry entry = byEmail.get(email);
+        if (entry != null && System.nanoTime() - entry.loadedAtNanos() < properties.getTtl().toNanos()) {
+            hits.increment();
+            return entry.user().toBuilder().build();
+        }
+        misses.increment();
+
+        long evictionsBefore = evictions.get();
+        UserDetails loaded = loader.apply(email);
+        if (loaded instanceof User user && evictions.get() == evictionsBefore) {
+            if (byEmail.size() >= properties.getMaxSize()) {
+                evictOne();
+            }
+            byEmail.put(email, new Entry(user.toBuilder().build(), System.nanoTime()));
+            emailById.put(user.getId(), email);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void evict(Integer userId, long version) {
+        evictions.incrementAndGet();
+        String email = emailById.get(userId);
+        if (email == null) {
+            return;
+        }
+        Entry entry = byEmail.get(email);
+        if (entry != null && (version < 0 || entry.user().getDataVersion() < version)) {
+            byEmail.remove(email, entry);
+            emailById.remove(userId, email);
+        }
+    }
+
+    @Override
+    public Map<Integer, Long> cachedVersions() {
+        Map<Integer, Long> versions = new HashMap<>();
+        byEmail.values().forEach(e -> versions.put(e.user().getId(), e.user().getDataVersion()));
+        return versions;
+    }
+
+    private void evictOne() {
+        // No recency tracking: any entry will do, the TTL bounds their age anyway
+        Iterator<Map.Entry<String, Entry>> it = byEmail.entrySet().iterator();
+        if (it.hasNext()) {
+            Map.Entry<String, Entry> victim = it.next();
+            it.remove();
+            emailById.remove(victim.getValue().user().getId(), victim.getKey());
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.bankverte.api.cache;
+
+/**
+ * Another node committed a change to the user's data. Published by
+ * {@link InvalidationBus} after remote invalidations have been applied.
+ */
+public record RemoteUserDataChangedEvent(Integer userId, long dataVersion) {
+}
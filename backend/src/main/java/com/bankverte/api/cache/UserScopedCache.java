@@ -0,0 +1,22 @@
+package com.bankverte.api.cache;
+
+import java.util.Map;
+
+/**
+ * An in-process cache of data derived from individual users. Every bean
+ * implementing it is kept coherent by {@link InvalidationBus}.
+ */
+public interface UserScopedCache {
+
+    /**
+     * Drops what is cached for the user unless it was computed at
+     * {@code version} or later. A negative version drops unconditionally.
+     */
+    void evict(Integer userId, long version);
+
+    /**
+     * The data version each cached user's entries were computed at, used to
+     * find entries that missed an invalidation.
+     */
+    Map<Integer, Long> cachedVersions();
+}
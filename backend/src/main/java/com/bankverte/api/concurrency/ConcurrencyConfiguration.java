@@ -0,0 +1,69 @@
+package com.bankverte.api.concurrency;
+
+import com.bankverte.api.sharding.Shards;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Companions of the virtual thread mode. Spring Boot runs request handling
+ * on virtual threads when {@code spring.threads.virtual.enabled=true};
+ * these beans follow the same switch.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ConcurrencyProperties.class)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class ConcurrencyConfiguration {
+
+    // What HikariCP sizes a pool to when maximumPoolSize is left unset, which reads as -1 until it starts
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            ConcurrencyProperties properties,
+            Shards shards,
+            MeterRegistry meterRegistry
+    ) {
+        int limit = properties.getMaxConcurrentRequests() > 0
+                ? properties.getMaxConcurrentRequests()
+                : poolSize(shards);
+        log.info("Serving at most {} requests at once", limit);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limit, properties, meterRegistry));
+        // Ahead of the query budget and security filters: the principal lookup needs a connection too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    @Bean
+    public PinnedThreadMonitor pinnedThreadMonitor(ConcurrencyProperties properties, MeterRegistry meterRegistry) {
+        return new PinnedThreadMonitor(properties, meterRegistry);
+    }
+
+    /**
+     * The smallest pool of any database: a request holds a connection of its
+     * user's database until it completes, and the limit applies before the
+     * user is known, so every request in flight may be headed for the same
+     * database.
+     */
+    private static int poolSize(Shards shards) {
+        int size = Integer.MAX_VALUE;
+        for (String shard : shards.names()) {
+            if (!(shards.dataSource(shard) instanceof HikariDataSource pool)) {
+                throw new IllegalStateException("Cannot tell the connection pool size of database " + shard
+                        + "; set bankverte.concurrency.max-concurrent-requests");
+            }
+            int poolSize = pool.getMaximumPoolSize() > 0 ? pool.getMaximumPoolSize() : HIKARI_DEFAULT_POOL_SIZE;
+            size = Math.min(size, poolSize);
+        }
+        return size;
+    }
+}
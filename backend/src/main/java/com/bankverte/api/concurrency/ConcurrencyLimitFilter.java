@@ -0,0 +1,90 @@
+package com.bankverte.api.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the requests in flight. Tomcat's worker pool used to do this; with
+ * one virtual thread per request nothing else stops a burst from piling
+ * thousands of threads onto a handful of pooled connections, where they
+ * would time out in the pool instead of here.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore slots;
+    private final long timeoutNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer wait;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(int maxConcurrentRequests, ConcurrencyProperties properties,
+            MeterRegistry meterRegistry) {
+        this.slots = new Semaphore(maxConcurrentRequests, true);
+        this.timeoutNanos = properties.getAcquireTimeout().toNanos();
+        this.wait = Timer.builder("bankverte.concurrency.wait")
+                .description("Time requests waited for a concurrency slot")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("bankverte.concurrency.rejected")
+                .description("Requests answered 503 after waiting acquire-timeout for a slot")
+                .register(meterRegistry);
+        Gauge.builder("bankverte.concurrency.waiting", waiting, AtomicInteger::get)
+                .description("Requests waiting for a concurrency slot")
+                .register(meterRegistry);
+        Gauge.builder("bankverte.concurrency.limit", () -> maxConcurrentRequests)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getRequestURI();
+        // Health checks must answer under load; live streams hold no connection while open
+        return path.startsWith("/actuator/") || path.startsWith("/api/live/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long started = System.nanoTime();
+        boolean acquired;
+        waiting.incrementAndGet();
+        try {
+            acquired = slots.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        wait.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            // Not sendError: the error dispatch would run into the security filters and become a 403
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            slots.release();
+        }
+    }
+}
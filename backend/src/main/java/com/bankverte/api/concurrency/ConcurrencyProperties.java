@@ -0,0 +1,34 @@
+package com.bankverte.api.concurrency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Safeguards of the virtual thread mode ({@code spring.threads.virtual.enabled}).
+ */
+@Data
+@ConfigurationProperties(prefix = "bankverte.concurrency")
+public class ConcurrencyProperties {
+
+    /**
+     * Requests served at once; the others wait for a slot. 0 means the
+     * connection pool size, the smallest one when sharded: with open-in-view
+     * a request keeps its connection until it completes, so more would only
+     * queue inside the pool. Startup fails when a pool's size cannot be read
+     * and this is 0.
+     */
+    private int maxConcurrentRequests = 0;
+
+    /**
+     * How long a request waits for a slot before a 503 with Retry-After.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Virtual threads pinned to their carrier for longer than this are
+     * logged and counted in bankverte.virtual.pinned.
+     */
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+}
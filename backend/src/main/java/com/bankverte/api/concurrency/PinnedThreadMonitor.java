@@ -0,0 +1,68 @@
+package com.bankverte.api.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread,
+ * typically I/O inside a synchronized block or a native frame. Each one
+ * holds a carrier out of a pool the size of the CPU count, so a few of them
+ * stall all requests. Listens to the JFR event {@code jdk.VirtualThreadPinned}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PinnedThreadMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.bankverte.";
+
+    private final ConcurrencyProperties properties;
+    private final MeterRegistry meterRegistry;
+    private RecordingStream stream;
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(properties.getPinnedThreshold()).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = site(event);
+        Counter.builder("bankverte.virtual.pinned")
+                .description("Virtual threads blocked while pinned to their carrier")
+                .tag("site", site)
+                .register(meterRegistry)
+                .increment();
+        log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+    }
+
+    // The innermost application frame, else the innermost frame
+    private static String site(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        RecordedFrame site = frames.stream()
+                .filter(f -> f.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .orElse(frames.isEmpty() ? null : frames.get(0));
+        return site == null ? "unknown"
+                : site.getMethod().getType().getName() + "." + site.getMethod().getName();
+    }
+
+    @PreDestroy
+    void stop() {
+        stream.close();
+    }
+}
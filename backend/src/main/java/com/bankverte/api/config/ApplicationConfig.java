@@ -1,6 +1,8 @@
 package com.bankverte.api.config;
 
+import com.bankverte.api.sharding.ShardDirectory;
 import com.bankverte.api.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,18 +20,21 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class ApplicationConfig {
 
   private final UserRepository repository;
+  private final ShardDirectory shardDirectory;
 
   @Bean
   public UserDetailsService userDetailsService() {
+    // The primary knows every email; users on a shard are read from their home copy
     return username -> repository.findByEmail(username)
+        .map(shardDirectory::resolve)
         .orElseThrow(() -> new UsernameNotFoundException("User not found"));
   }
 
   @Bean
-  public AuthenticationProvider authenticationProvider() {
+  public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
     DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
     authProvider.setUserDetailsService(userDetailsService());
-    authProvider.setPasswordEncoder(passwordEncoder());
+    authProvider.setPasswordEncoder(passwordEncoder);
     return authProvider;
   }
 
@@ -39,8 +44,8 @@ public class ApplicationConfig {
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+    return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
   }
 
 }
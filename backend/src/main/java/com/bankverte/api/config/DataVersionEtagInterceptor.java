@@ -0,0 +1,63 @@
+package com.bankverte.api.config;
+
+import com.bankverte.api.user.User;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Conditional GET for user data: the ETag is derived from the caller's data
+ * version and the request, so a matching {@code If-None-Match} is answered
+ * with 304 before the controller runs. The version rides along with the user
+ * the JWT filter already loaded, which makes a revalidation cost no query
+ * beyond authentication.
+ *
+ * <p>The ETag is weak: the same data may be sent gzip-encoded or not, and
+ * Tomcat does not compress responses that carry a strong ETag.
+ */
+@Component
+public class DataVersionEtagInterceptor implements HandlerInterceptor {
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (!HttpMethod.GET.matches(request.getMethod())) {
+      return true;
+    }
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+      return true;
+    }
+    // Cacheable, but only by the caller and only after revalidation
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    return !new ServletWebRequest(request, response).checkNotModified(etag(user, request));
+  }
+
+  static String etag(User user, HttpServletRequest request) {
+    StringBuilder key = new StringBuilder()
+        .append(user.getId()).append('|')
+        // Endpoints default their range to "now", so results also move with the date
+        .append(LocalDate.now()).append('|')
+        .append(request.getRequestURI()).append('|')
+        // JSON, CBOR and Smile renditions of the same data are different bodies
+        .append(request.getHeader(HttpHeaders.ACCEPT));
+    Map<String, String[]> params = new TreeMap<>(request.getParameterMap());
+    params.forEach((name, values) -> key.append('|').append(name).append('=').append(String.join(",", values)));
+
+    CRC32C crc = new CRC32C();
+    crc.update(key.toString().getBytes(StandardCharsets.UTF_8));
+    return "W/\"" + user.getDataVersion() + "-" + Long.toHexString(crc.getValue()) + "\"";
+  }
+}
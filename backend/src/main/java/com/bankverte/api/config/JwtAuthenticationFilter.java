@@ -1,5 +1,8 @@
 package com.bankverte.api.config;
 
+import com.bankverte.api.cache.PrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +24,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private final JwtService jwtService;
   private final UserDetailsService userDetailsService;
+  private final PrincipalCache principalCache;
+  private final MeterRegistry meterRegistry;
 
   @Override
   protected void doFilterInternal(
@@ -36,10 +41,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
       return;
     }
     jwt = authHeader.substring(7);
-    userEmail = jwtService.extractUsername(jwt);
+    Timer.Sample parse = Timer.start(meterRegistry);
+    try {
+      userEmail = jwtService.extractUsername(jwt);
+    } finally {
+      parse.stop(jwtTimer("parse"));
+    }
     if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-      if (jwtService.isTokenValid(jwt, userDetails)) {
+      UserDetails userDetails = principalCache.getOrLoad(userEmail, userDetailsService::loadUserByUsername);
+      boolean tokenValid = jwtTimer("validate").record(() -> jwtService.isTokenValid(jwt, userDetails));
+      if (tokenValid) {
         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
             userDetails,
             null,
@@ -53,4 +64,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
     filterChain.doFilter(request, response);
   }
+
+  private Timer jwtTimer(String step) {
+    return Timer.builder("bankverte.jwt.verify")
+        .description("JWT signature check and claim validation per request")
+        .tag("step", step)
+        .register(meterRegistry);
+  }
 }
@@ -1,6 +1,9 @@
 package com.bankverte.api.config;
 
+import com.bankverte.api.user.Role;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -9,6 +12,9 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import java.util.List;
 import org.springframework.web.cors.CorsConfiguration;
@@ -23,6 +29,10 @@ public class SecurityConfiguration {
   private final JwtAuthenticationFilter jwtAuthFilter;
   private final AuthenticationProvider authenticationProvider;
 
+  // Addresses (CIDR) Prometheus may scrape from without a token; anyone else needs ADMIN
+  @Value("${bankverte.metrics.scrape-addresses:127.0.0.1/32,::1/128}")
+  private List<String> scrapeAddresses;
+
   @Bean
   public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
     http
@@ -33,6 +43,12 @@ public class SecurityConfiguration {
         .authorizeHttpRequests()
         .requestMatchers("/api/auth/**")
         .permitAll()
+        .requestMatchers("/actuator/health")
+        .permitAll()
+        .requestMatchers(scrapers())
+        .permitAll()
+        .requestMatchers("/actuator/**", "/api/admin/**")
+        .hasAuthority(Role.ADMIN.name())
         .anyRequest()
         .authenticated()
         .and()
@@ -45,12 +61,21 @@ public class SecurityConfiguration {
     return http.build();
   }
 
+  private RequestMatcher scrapers() {
+    RequestMatcher path = new AntPathRequestMatcher("/actuator/prometheus");
+    List<IpAddressMatcher> addresses = scrapeAddresses.stream().map(IpAddressMatcher::new).toList();
+    return (HttpServletRequest request) -> path.matches(request)
+        && addresses.stream().anyMatch(address -> address.matches(request));
+  }
+
   @Bean
   public CorsConfigurationSource corsConfigurationSource() {
     CorsConfiguration configuration = new CorsConfiguration();
     configuration.setAllowedOrigins(List.of("*"));
     configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD"));
     configuration.setAllowedHeaders(List.of("*"));
+    // Lets browser clients read the ETag they send back in If-None-Match
+    configuration.setExposedHeaders(List.of("ETag"));
     UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
     source.registerCorsConfiguration("/**", configuration);
     return source;
@@ -0,0 +1,44 @@
+package com.bankverte.api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Records how long hashing takes; BCrypt is deliberately slow and runs on
+ * every register and login.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+
+  public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.encodeTimer = timer("encode", meterRegistry);
+    this.matchesTimer = timer("matches", meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return encodeTimer.record(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private static Timer timer(String operation, MeterRegistry meterRegistry) {
+    return Timer.builder("bankverte.password.hash")
+        .description("Password hashing time")
+        .tag("operation", operation)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,19 @@
+package com.bankverte.api.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+  private final DataVersionEtagInterceptor dataVersionEtagInterceptor;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(dataVersionEtagInterceptor)
+        .addPathPatterns("/api/analytics/**", "/api/transactions/**", "/api/budgets/**");
+  }
+}
@@ -0,0 +1,202 @@
+package com.bankverte.api.forecast;
+
+import com.bankverte.api.insight.Backfills;
+import com.bankverte.api.sharding.AdvisoryLocks;
+import com.bankverte.api.sharding.Shards;
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fills the forecast states from the transaction table. Each user's
+ * transactions replay in date order through the same
+ * {@link ForecastState#add} the live updates use. Users are independent, so
+ * on startup ranges of user ids are rebuilt in parallel, each on its own
+ * connection and transaction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ForecastBackfill implements SmartInitializingSingleton {
+
+    private static final int BATCH_SIZE = 1_000;
+    // Ranges per thread, so that a dense range does not hold up the others
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final Shards shards;
+    private final ForecastProperties properties;
+
+    /**
+     * Runs on the first start after the forecasts were introduced, before the
+     * web server accepts requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Backfills.onEveryShard(shards, AdvisoryLocks.FORECAST_BACKFILL, "Forecast", this::backfill);
+    }
+
+    private void backfill(String shard, DataSource dataSource, Connection connection) throws SQLException {
+        if (!Backfills.isEmpty(connection, "forecast_state") || Backfills.isEmpty(connection, "transaction")) {
+            return;
+        }
+        long firstUserId;
+        long lastUserId;
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT MIN(user_id), MAX(user_id) FROM transaction")) {
+            rs.next();
+            firstUserId = rs.getLong(1);
+            lastUserId = rs.getLong(2);
+        }
+
+        long started = System.nanoTime();
+        int parallelism = Math.max(1, properties.getBackfillParallelism());
+        long span = lastUserId - firstUserId + 1;
+        long rangeSize = Math.max(1, (span + parallelism * RANGES_PER_THREAD - 1) / (parallelism * RANGES_PER_THREAD));
+        List<Callable<Integer>> ranges = new ArrayList<>();
+        for (long start = firstUserId; start <= lastUserId; start += rangeSize) {
+            long end = Math.min(start + rangeSize, lastUserId + 1);
+            long rangeStart = start;
+            ranges.add(() -> {
+                try (Connection range = dataSource.getConnection()) {
+                    range.setAutoCommit(false);
+                    int rows = rebuild(range, rangeStart, end, properties);
+                    range.commit();
+                    return rows;
+                }
+            });
+        }
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("forecast-backfill-");
+        threads.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, threads);
+        try {
+            int rows = 0;
+            int failed = 0;
+            for (Future<Integer> range : executor.invokeAll(ranges)) {
+                try {
+                    rows += range.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.warn("Forecast backfill of a user range failed: {}", e.getCause().toString());
+                }
+            }
+            log.info("Backfilled {} forecast states on {} in {} ms on {} threads{}", rows, shard,
+                    (System.nanoTime() - started) / 1_000_000, parallelism,
+                    failed > 0 ? ", " + failed + " user ranges failed" : "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Replaces the states of every user with an id from {@code firstUserId}
+     * on. Leaves committing to the caller.
+     *
+     * @return the number of states written
+     */
+    public static int rebuild(Connection connection, long firstUserId, ForecastProperties properties)
+            throws SQLException {
+        return rebuild(connection, firstUserId, Long.MAX_VALUE, properties);
+    }
+
+    /**
+     * Replaces the states of the users with {@code firstUserId <= id < endUserId},
+     * from the transactions no longer pending.
+     */
+    static int rebuild(Connection connection, long firstUserId, long endUserId, ForecastProperties properties)
+            throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM forecast_state WHERE user_id >= ? AND user_id < ?")) {
+            delete.setLong(1, firstUserId);
+            delete.setLong(2, endUserId);
+            delete.executeUpdate();
+        }
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT user_id, created_at, category, carbon_footprint FROM transaction "
+                        + "WHERE user_id >= ? AND user_id < ? AND category IS NOT NULL AND derived_pending = false "
+                        + "ORDER BY user_id, created_at");
+                PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO forecast_state (user_id, category, start_day, open_day, open_co2, "
+                                + "daily_level, daily_trend, month_key, month_co2, year_co2) "
+                                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            select.setLong(1, firstUserId);
+            select.setLong(2, endUserId);
+            select.setFetchSize(10_000);
+            Map<TransactionCategory, ForecastState> states = new EnumMap<>(TransactionCategory.class);
+            int written = 0;
+            int batched = 0;
+            int userId = -1;
+            LocalDate startDay = null;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    int rowUser = rs.getInt(1);
+                    LocalDate day = rs.getTimestamp(2).toLocalDateTime().toLocalDate();
+                    if (rowUser != userId) {
+                        written += write(states, insert);
+                        if (written - batched >= BATCH_SIZE) {
+                            insert.executeBatch();
+                            batched = written;
+                        }
+                        userId = rowUser;
+                        startDay = day;
+                    }
+                    int user = userId;
+                    LocalDate start = startDay;
+                    states.computeIfAbsent(TransactionCategory.valueOf(rs.getString(3)),
+                            category -> ForecastState.start(user, category, start, day))
+                            .add(day, rs.getDouble(4), properties);
+                }
+            }
+            written += write(states, insert);
+            insert.executeBatch();
+            return written;
+        }
+    }
+
+    private static int write(Map<TransactionCategory, ForecastState> states, PreparedStatement insert)
+            throws SQLException {
+        int written = 0;
+        for (ForecastState state : states.values()) {
+            insert.setInt(1, state.getUserId());
+            insert.setString(2, state.getCategory().name());
+            insert.setDate(3, Date.valueOf(state.getStartDay()));
+            insert.setDate(4, Date.valueOf(state.getOpenDay()));
+            insert.setDouble(5, state.getOpenCo2());
+            insert.setDouble(6, state.getDailyLevel());
+            insert.setDouble(7, state.getDailyTrend());
+            insert.setInt(8, state.getMonthKey());
+            insert.setDouble(9, state.getMonthCo2());
+            insert.setDouble(10, state.getYearCo2());
+            insert.addBatch();
+            written++;
+        }
+        states.clear();
+        return written;
+    }
+}
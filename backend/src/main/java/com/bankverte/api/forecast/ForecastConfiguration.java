@@ -0,0 +1,9 @@
+package com.bankverte.api.forecast;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ForecastProperties.class)
+public class ForecastConfiguration {
+}
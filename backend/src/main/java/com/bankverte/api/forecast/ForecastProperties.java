@@ -0,0 +1,32 @@
+package com.bankverte.api.forecast;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.forecast")
+public class ForecastProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Weight of each new day in the smoothed daily CO₂, 2 / (days + 1) for
+     * an average over about a month.
+     */
+    private double alpha = 0.065;
+
+    // Weight of each new day in the smoothed trend
+    private double beta = 0.02;
+
+    /**
+     * Share of the trend kept from one day to the next, so projections far
+     * ahead level off instead of growing without bound.
+     */
+    private double damping = 0.98;
+
+    // Days of history before the trend is estimated; until then the level is the plain daily mean
+    private int warmupDays = 28;
+
+    // Threads building the state of existing users on the first start
+    private int backfillParallelism = 4;
+}
@@ -0,0 +1,78 @@
+package com.bankverte.api.forecast;
+
+import com.bankverte.api.analytics.dto.CarbonForecast;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Month and year projections from the stored states: one read of at most
+ * one row per category, and a bounded amount of arithmetic per row,
+ * however long the user's history.
+ */
+@Service
+@RequiredArgsConstructor
+public class ForecastService {
+
+    private final ForecastProperties properties;
+    private final ForecastStateRepository repository;
+
+    public CarbonForecast forecast(Integer userId) {
+        LocalDate today = LocalDate.now();
+        int monthDaysLeft = today.lengthOfMonth() - today.getDayOfMonth();
+        int yearDaysLeft = today.lengthOfYear() - today.getDayOfYear();
+
+        List<CarbonForecast.CategoryForecast> categories = new ArrayList<>();
+        double monthToDate = 0;
+        double projectedMonth = 0;
+        double yearToDate = 0;
+        double projectedYear = 0;
+        long observedDays = 0;
+        for (ForecastState stored : repository.findByUserId(userId)) {
+            // Brought up to today on a copy: the stored row only moves with transactions
+            ForecastState state = stored.toBuilder().build();
+            if (state.getOpenDay().isBefore(today)) {
+                state.advance(today, properties);
+            }
+            boolean current = state.getMonthKey() == ForecastState.monthKey(today);
+            double month = current ? state.getMonthCo2() : 0;
+            double year = state.getMonthKey() / 100 == today.getYear() ? state.getYearCo2() : 0;
+            double monthEnd = month + state.expected(monthDaysLeft, properties);
+            double yearEnd = year + state.expected(yearDaysLeft, properties);
+            categories.add(CarbonForecast.CategoryForecast.builder()
+                    .category(state.getCategory().name())
+                    .displayName(state.getCategory().getDisplayName())
+                    .dailyCO2(round(state.getDailyLevel()))
+                    .dailyTrend(Math.round(state.getDailyTrend() * 10_000.0) / 10_000.0)
+                    .monthToDate(round(month))
+                    .projectedMonth(round(monthEnd))
+                    .yearToDate(round(year))
+                    .projectedYear(round(yearEnd))
+                    .build());
+            monthToDate += month;
+            projectedMonth += monthEnd;
+            yearToDate += year;
+            projectedYear += yearEnd;
+            observedDays = Math.max(observedDays, state.observedDays());
+        }
+        categories.sort(Comparator.comparing(CarbonForecast.CategoryForecast::getProjectedYear).reversed());
+
+        return CarbonForecast.builder()
+                .asOf(today.toString())
+                .observedDays(observedDays)
+                .monthToDate(round(monthToDate))
+                .projectedMonth(round(projectedMonth))
+                .yearToDate(round(yearToDate))
+                .projectedYear(round(projectedYear))
+                .categories(categories)
+                .build();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
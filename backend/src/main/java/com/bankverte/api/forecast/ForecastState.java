@@ -0,0 +1,170 @@
+package com.bankverte.api.forecast;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Smoothed daily CO₂ of one user and category: Holt's exponential smoothing
+ * with a damped trend over daily totals, days without transactions counting
+ * as zero. The current day stays open and is folded in when a later day
+ * starts, so each transaction costs O(1). The month and year to date of the
+ * open day are kept alongside for the projections.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "forecast_state")
+@IdClass(ForecastState.Key.class)
+public class ForecastState {
+
+    // Past this many empty days the level is zero for all purposes
+    private static final int MAX_EMPTY_DAYS = 366;
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private TransactionCategory category;
+
+    private LocalDate startDay; // the user's first transaction, shared by all categories
+
+    private LocalDate openDay;
+
+    private double openCo2;
+
+    private double dailyLevel;
+
+    private double dailyTrend;
+
+    private int monthKey; // yyyymm of the open day
+
+    private double monthCo2;
+
+    private double yearCo2;
+
+    /**
+     * A category without transactions before {@code day}: zero so far.
+     */
+    static ForecastState start(Integer userId, TransactionCategory category, LocalDate startDay, LocalDate day) {
+        return ForecastState.builder()
+                .userId(userId)
+                .category(category)
+                .startDay(startDay)
+                .openDay(day)
+                .monthKey(monthKey(day))
+                .build();
+    }
+
+    /**
+     * Adds a transaction. One dated before the open day still counts in the
+     * month and year it falls in, but is smoothed as part of the open day.
+     */
+    void add(LocalDate day, double co2, ForecastProperties properties) {
+        advance(day, properties);
+        openCo2 += co2;
+        if (monthKey(day) == monthKey) {
+            monthCo2 += co2;
+        }
+        if (day.getYear() == monthKey / 100) {
+            yearCo2 += co2;
+        }
+    }
+
+    /**
+     * Folds in the open day and the empty days up to {@code day}, which
+     * becomes the open day. Bounded: at most {@link #MAX_EMPTY_DAYS} steps,
+     * none after a longer gap.
+     */
+    void advance(LocalDate day, ForecastProperties properties) {
+        long gap = ChronoUnit.DAYS.between(openDay, day);
+        if (gap <= 0) {
+            return;
+        }
+        if (gap > MAX_EMPTY_DAYS) {
+            // Whatever the open day held has decayed to nothing: no need to smooth it away
+            dailyLevel = 0;
+            dailyTrend = 0;
+        } else {
+            long n = ChronoUnit.DAYS.between(startDay, openDay) + 1;
+            smooth(openCo2, n, properties);
+            for (long i = 1; i < gap; i++) {
+                smooth(0, n + i, properties);
+            }
+        }
+
+        int key = monthKey(day);
+        if (key / 100 != monthKey / 100) {
+            yearCo2 = 0;
+        }
+        if (key != monthKey) {
+            monthCo2 = 0;
+        }
+        monthKey = key;
+        openDay = day;
+        openCo2 = 0;
+    }
+
+    /**
+     * @param n days since the start, this one included
+     */
+    private void smooth(double x, long n, ForecastProperties properties) {
+        // 1/n until alpha takes over: the plain mean of the first days
+        double alpha = Math.max(properties.getAlpha(), 1.0 / n);
+        double previous = dailyLevel;
+        double damped = properties.getDamping() * dailyTrend;
+        dailyLevel = alpha * x + (1 - alpha) * (previous + damped);
+        dailyTrend = n > properties.getWarmupDays()
+                ? properties.getBeta() * (dailyLevel - previous) + (1 - properties.getBeta()) * damped
+                : 0;
+    }
+
+    /**
+     * Expected CO₂ of the {@code days} days after the open day, in closed
+     * form: the level for each day plus the damped trend summed up to it.
+     */
+    double expected(int days, ForecastProperties properties) {
+        if (days <= 0) {
+            return 0;
+        }
+        double phi = properties.getDamping();
+        double trendDays = phi >= 1
+                ? days * (days + 1) / 2.0
+                : phi / (1 - phi) * (days - phi * (1 - Math.pow(phi, days)) / (1 - phi));
+        return Math.max(0, days * dailyLevel + dailyTrend * trendDays);
+    }
+
+    /**
+     * Days folded into the level so far.
+     */
+    long observedDays() {
+        return ChronoUnit.DAYS.between(startDay, openDay);
+    }
+
+    static int monthKey(LocalDate day) {
+        return day.getYear() * 100 + day.getMonthValue();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Integer userId;
+        private TransactionCategory category;
+    }
+}
@@ -0,0 +1,10 @@
+package com.bankverte.api.forecast;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ForecastStateRepository extends JpaRepository<ForecastState, ForecastState.Key> {
+
+    List<ForecastState> findByUserId(Integer userId);
+}
@@ -0,0 +1,53 @@
+package com.bankverte.api.forecast;
+
+import com.bankverte.api.transaction.DerivedStateUpdater;
+import com.bankverte.api.transaction.Transaction;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Adds each new transaction to the {@link ForecastState} of its category,
+ * shortly after its commit: one read of the user's few states and one
+ * write, see {@link com.bankverte.api.transaction.DerivedStateConsumer}.
+ * {@link ForecastBackfill} builds the same states from history.
+ */
+@Component
+@RequiredArgsConstructor
+public class ForecastUpdater implements DerivedStateUpdater {
+
+    private final ForecastProperties properties;
+    private final ForecastStateRepository repository;
+    private final EntityManager entityManager;
+
+    @Override
+    public void apply(Transaction transaction) {
+        if (!properties.isEnabled() || transaction.getCategory() == null) {
+            return;
+        }
+        Integer userId = transaction.getUser().getId();
+        LocalDate day = transaction.getCreatedAt().toLocalDate();
+        double co2 = transaction.getCarbonFootprint() != null ? transaction.getCarbonFootprint() : 0.0;
+
+        List<ForecastState> states = repository.findByUserId(userId);
+        ForecastState state = states.stream()
+                .filter(s -> s.getCategory() == transaction.getCategory())
+                .findFirst()
+                .orElse(null);
+        if (state == null) {
+            LocalDate startDay = states.stream()
+                    .map(ForecastState::getStartDay)
+                    .min(LocalDate::compareTo)
+                    .orElse(day);
+            state = ForecastState.start(userId, transaction.getCategory(), startDay, day);
+            state.add(day, co2, properties);
+            entityManager.persist(state);
+            return;
+        }
+        state.add(day, co2, properties);
+        // Managed: flushed as an UPDATE on commit
+    }
+}
@@ -0,0 +1,9 @@
+package com.bankverte.api.ingest;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IngestProperties.class)
+public class IngestConfiguration {
+}
@@ -0,0 +1,39 @@
+package com.bankverte.api.ingest;
+
+import com.bankverte.api.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * Outcome of writes accepted by the write-behind mode. Outside
+ * /api/transactions: a failed write changes the answer without changing
+ * the data version the ETags are built from.
+ */
+@RestController
+@RequestMapping("/api/ingest")
+@RequiredArgsConstructor
+public class IngestController {
+
+        private final WriteBehindIngestor ingestor;
+        private final IngestProperties properties;
+
+        /**
+         * @param waitMillis how long to wait for a pending write to finish
+         */
+        @GetMapping("/{ticket}")
+        public ResponseEntity<?> getStatus(
+                        @AuthenticationPrincipal User user,
+                        @PathVariable UUID ticket,
+                        @RequestParam(defaultValue = "0") long waitMillis) {
+
+                long wait = Math.min(waitMillis, properties.getAwaitTimeout().toMillis());
+                return ingestor.find(ticket)
+                                .filter(write -> write.userId().equals(user.getId()))
+                                .<ResponseEntity<?>>map(write -> ResponseEntity.ok(write.await(wait)))
+                                .orElseGet(() -> ResponseEntity.notFound().build());
+        }
+}
@@ -0,0 +1,43 @@
+package com.bankverte.api.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.ingest")
+public class IngestProperties {
+
+    /**
+     * Queue new transactions and insert them in group commits instead of one
+     * database transaction per request.
+     */
+    private boolean writeBehind = false;
+
+    /**
+     * Writes accepted but not yet committed. A full queue turns new writes
+     * away with a 503 after enqueue-timeout.
+     */
+    private int queueCapacity = 10_000;
+    private Duration enqueueTimeout = Duration.ofMillis(50);
+
+    /**
+     * A batch is committed when it holds this many writes or when its first
+     * write has waited max-batch-delay, whichever comes first.
+     */
+    private int maxBatchSize = 256;
+    private Duration maxBatchDelay = Duration.ofMillis(5);
+
+    /**
+     * How long a request without {@code Prefer: respond-async} waits for its
+     * commit before it gets a 202 with the ticket instead.
+     */
+    private Duration awaitTimeout = Duration.ofSeconds(5);
+
+    /**
+     * How long the outcome of a finished write stays available on
+     * /api/ingest/{ticket}.
+     */
+    private Duration ticketRetention = Duration.ofMinutes(1);
+}
@@ -0,0 +1,29 @@
+package com.bankverte.api.ingest;
+
+import com.bankverte.api.transaction.TransactionResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestStatus {
+    private UUID ticket;
+    private State state;
+    private TransactionResponse transaction; // once committed
+    private String error; // once failed
+
+    public enum State {
+        PENDING,
+        COMMITTED,
+        FAILED,
+        REJECTED // not written, worth retrying shortly
+    }
+}
@@ -0,0 +1,60 @@
+package com.bankverte.api.ingest;
+
+import com.bankverte.api.transaction.CreateTransactionRequest;
+import com.bankverte.api.transaction.TransactionResponse;
+import com.bankverte.api.user.User;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One accepted write, completed when its batch commits or fails.
+ */
+public final class PendingWrite {
+
+    final UUID ticket = UUID.randomUUID();
+    final User user;
+    final CreateTransactionRequest request;
+    final CompletableFuture<TransactionResponse> result = new CompletableFuture<>();
+    volatile long completedAt;
+
+    PendingWrite(User user, CreateTransactionRequest request) {
+        this.user = user;
+        this.request = request;
+    }
+
+    public UUID ticket() {
+        return ticket;
+    }
+
+    public Integer userId() {
+        return user.getId();
+    }
+
+    /**
+     * The write's state, after waiting up to {@code timeoutMillis} for it to finish.
+     */
+    public IngestStatus await(long timeoutMillis) {
+        try {
+            if (timeoutMillis > 0 || result.isDone()) {
+                TransactionResponse transaction = result.get(Math.max(timeoutMillis, 0), TimeUnit.MILLISECONDS);
+                return IngestStatus.builder().ticket(ticket).state(IngestStatus.State.COMMITTED)
+                        .transaction(transaction).build();
+            }
+        } catch (TimeoutException e) {
+            // Still queued or in flight
+        } catch (ExecutionException e) {
+            IngestStatus.State state = e.getCause() instanceof RejectedExecutionException
+                    ? IngestStatus.State.REJECTED : IngestStatus.State.FAILED;
+            return IngestStatus.builder().ticket(ticket).state(state)
+                    .error(e.getCause().getClass().getSimpleName()).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return IngestStatus.builder().ticket(ticket).state(IngestStatus.State.PENDING).build();
+    }
+}
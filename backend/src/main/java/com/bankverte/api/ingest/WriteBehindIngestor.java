@@ -0,0 +1,243 @@
+package com.bankverte.api.ingest;
+
+import com.bankverte.api.sharding.ShardContext;
+import com.bankverte.api.sharding.ShardDirectory;
+import com.bankverte.api.transaction.CreateTransactionRequest;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionResponse;
+import com.bankverte.api.transaction.TransactionService;
+import com.bankverte.api.user.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for new transactions: requests append to a bounded queue and
+ * a single writer inserts them in batches, each batch in one database
+ * transaction, so a burst pays for one commit per batch rather than per
+ * request. A write is durable once its {@link PendingWrite} completes;
+ * writes still queued when the process dies are lost, which is why the
+ * mode is opt-in.
+ *
+ * <p>Each batch looks up its users' databases when it is written, so writes
+ * queued before a user moved follow the user, and those of a user being
+ * moved are turned away like the ones the freeze refuses up front.
+ */
+@Slf4j
+@Component
+public class WriteBehindIngestor {
+
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shardDirectory;
+    private final IngestProperties properties;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Map<UUID, PendingWrite> tickets = new ConcurrentHashMap<>();
+    // Finished writes in completion order, for expiring their tickets
+    private final Queue<PendingWrite> finished = new ConcurrentLinkedQueue<>();
+    private final DistributionSummary batchSize;
+    private final Timer commit;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Thread writer;
+    private volatile boolean running;
+
+    public WriteBehindIngestor(TransactionService transactionService, PlatformTransactionManager transactionManager,
+            ShardDirectory shardDirectory, IngestProperties properties, MeterRegistry meterRegistry) {
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardDirectory = shardDirectory;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.batchSize = DistributionSummary.builder("bankverte.ingest.batch.size")
+                .description("Transactions inserted per group commit")
+                .register(meterRegistry);
+        this.commit = Timer.builder("bankverte.ingest.commit")
+                .description("Time to insert and commit one batch")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("bankverte.ingest.rejected")
+                .description("Writes turned away: the queue was full or their user was being moved")
+                .register(meterRegistry);
+        this.failed = Counter.builder("bankverte.ingest.failed")
+                .description("Accepted writes that could not be committed")
+                .register(meterRegistry);
+        Gauge.builder("bankverte.ingest.queued", queue, BlockingQueue::size)
+                .description("Writes accepted and not yet in a batch")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::run, "ingest-writer");
+        if (properties.isWriteBehind()) {
+            running = true;
+            writer.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Queues a write, waiting up to enqueue-timeout for room.
+     *
+     * @throws RejectedExecutionException when the queue stayed full
+     */
+    public PendingWrite submit(User user, CreateTransactionRequest request) {
+        PendingWrite write = new PendingWrite(user, request);
+        tickets.put(write.ticket, write);
+        boolean queued;
+        try {
+            queued = running && queue.offer(write, properties.getEnqueueTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            tickets.remove(write.ticket);
+            rejected.increment();
+            throw new RejectedExecutionException("Ingest queue full");
+        }
+        return write;
+    }
+
+    public Optional<PendingWrite> find(UUID ticket) {
+        return Optional.ofNullable(tickets.get(ticket));
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(properties.getMaxBatchSize());
+        long maxDelay = properties.getMaxBatchDelay().toNanos();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    long deadline = System.nanoTime() + maxDelay;
+                    queue.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+                    while (batch.size() < properties.getMaxBatchSize()) {
+                        long left = deadline - System.nanoTime();
+                        PendingWrite next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+                    }
+                    write(batch);
+                    batch.clear();
+                }
+                expireTickets();
+            } catch (InterruptedException e) {
+                // Shutting down: keep draining what was accepted
+            } catch (RuntimeException e) {
+                log.error("Ingest writer failed on a batch of {}", batch.size(), e);
+                batch.forEach(w -> finish(w, null, e));
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        // Homes read now, not from the queued principals: their user may have moved, or be moving, since
+        Set<Integer> userIds = new HashSet<>();
+        batch.forEach(write -> userIds.add(write.userId()));
+        Map<Integer, String> homes = shardDirectory.settledHomes(userIds);
+        // One database transaction per database the batch touches
+        Map<String, List<PendingWrite>> byShard = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            String home = homes.get(write.userId());
+            if (home == null) {
+                rejected.increment();
+                finish(write, null, new RejectedExecutionException("User " + write.userId() + " is being moved"));
+                continue;
+            }
+            byShard.computeIfAbsent(home, shard -> new ArrayList<>()).add(write);
+        }
+        byShard.forEach((shard, writes) -> ShardContext.run(shard, () -> commit(writes)));
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        long started = System.nanoTime();
+        try {
+            List<Transaction> saved = transactionTemplate.execute(status -> {
+                List<Transaction> transactions = new ArrayList<>(batch.size());
+                for (PendingWrite write : batch) {
+                    transactions.add(transactionService.create(write.user, write.request));
+                }
+                return transactions;
+            });
+            commit.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            batchSize.record(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                finish(batch.get(i), TransactionResponse.from(saved.get(i)), null);
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failed.increment();
+                log.warn("Could not insert transaction for user {}: {}", batch.get(0).userId(), e.toString());
+                finish(batch.get(0), null, e);
+                return;
+            }
+            // One bad write must not sink the others: retry them one by one
+            for (PendingWrite write : batch) {
+                commit(List.of(write));
+            }
+        }
+    }
+
+    private void finish(PendingWrite write, TransactionResponse transaction, Throwable error) {
+        write.completedAt = System.nanoTime();
+        finished.add(write);
+        if (error != null) {
+            write.result.completeExceptionally(error);
+        } else {
+            write.result.complete(transaction);
+        }
+    }
+
+    private void expireTickets() {
+        long cutoff = System.nanoTime() - properties.getTicketRetention().toNanos();
+        PendingWrite oldest;
+        while ((oldest = finished.peek()) != null && oldest.completedAt - cutoff < 0) {
+            finished.poll();
+            tickets.remove(oldest.ticket);
+        }
+    }
+
+    /**
+     * Stops accepting writes and commits those already accepted.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (!queue.isEmpty()) {
+            log.warn("{} accepted transactions were not written before shutdown", queue.size());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flags transactions, and days, that are unusually carbon-heavy for the
+ * user, from an exponentially weighted mean and variance per (user,
+ * category) and per user's active-day total. Each insert updates the state
+ * in O(1); history is never rescanned.
+ *
+ * <p>The state lives in memory on the node that took the write, so it is
+ * rebuilt from new traffic after a restart, and without sticky routing each
+ * node learns from its share of a user's writes. Anomalies are stored in the
+ * write transaction and reported by {@link AnomalyRule}.
+ */
+@Component
+public class AnomalyDetector {
+
+    // Series index of the daily total, after the category ordinals
+    private static final int DAY_SERIES = 15;
+
+    private final AnomalyProperties properties;
+    private final EntityManager entityManager;
+    private final EwmaTable series;
+    private final Counter transactionAnomalies;
+    private final Counter dayAnomalies;
+
+    public AnomalyDetector(AnomalyProperties properties, EntityManager entityManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.entityManager = entityManager;
+        this.series = new EwmaTable(properties.getAlpha(), properties.getInitialCapacity());
+        Gauge.builder("bankverte.anomaly.series", this, AnomalyDetector::size)
+                .description("Series tracked by the anomaly detector")
+                .register(meterRegistry);
+        this.transactionAnomalies = Counter.builder("bankverte.anomaly.detected").tag("kind", "transaction")
+                .register(meterRegistry);
+        this.dayAnomalies = Counter.builder("bankverte.anomaly.detected").tag("kind", "day")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onTransactionCreated(TransactionCreatedEvent event) {
+        Transaction transaction = event.transaction();
+        if (!properties.isEnabled() || transaction.getCategory() == null
+                || transaction.getCarbonFootprint() == null) {
+            return;
+        }
+        long userKey = (long) event.userId() << 4;
+        double co2 = transaction.getCarbonFootprint();
+        int day = (int) transaction.getCreatedAt().toLocalDate().toEpochDay();
+
+        double transactionMean = Double.NaN;
+        double dayMean = Double.NaN;
+        double daySum = 0;
+        synchronized (series) {
+            int slot = series.slot(userKey | transaction.getCategory().ordinal());
+            if (unusual(slot, co2)) {
+                transactionMean = series.mean(slot);
+            }
+            series.observe(slot, co2);
+
+            // Report the day once, when its running total crosses the threshold
+            slot = series.slot(userKey | DAY_SERIES);
+            double before = series.bucketSum(slot, day);
+            daySum = series.accumulate(slot, day, co2);
+            if (!unusual(slot, before) && unusual(slot, daySum)) {
+                dayMean = series.mean(slot);
+            }
+        }
+
+        if (!Double.isNaN(transactionMean)) {
+            transactionAnomalies.increment();
+            entityManager.persist(CarbonAnomaly.builder()
+                    .userId(event.userId())
+                    .kind(CarbonAnomaly.Kind.TRANSACTION)
+                    .transactionId(transaction.getId())
+                    .category(transaction.getCategory())
+                    .co2(co2)
+                    .expectedCo2(transactionMean)
+                    .detectedAt(LocalDateTime.now())
+                    .build());
+        }
+        if (!Double.isNaN(dayMean)) {
+            dayAnomalies.increment();
+            entityManager.persist(CarbonAnomaly.builder()
+                    .userId(event.userId())
+                    .kind(CarbonAnomaly.Kind.DAY)
+                    .transactionId(transaction.getId())
+                    .co2(daySum)
+                    .expectedCo2(dayMean)
+                    .detectedAt(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    private boolean unusual(int slot, double co2) {
+        if (series.count(slot) < properties.getMinSamples() || co2 < properties.getMinCo2()) {
+            return false;
+        }
+        double mean = series.mean(slot);
+        return co2 > mean + properties.getThreshold() * series.stdDev(slot)
+                && co2 >= mean * properties.getMinRatio();
+    }
+
+    private int size() {
+        synchronized (series) {
+            return series.size();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.bankverte.api.insight;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.anomaly")
+public class AnomalyProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Weight of the newest value in the moving mean and variance. 0.1 makes
+     * the last ~20 values dominate.
+     */
+    private double alpha = 0.1;
+
+    /**
+     * A value is unusual above {@code mean + threshold * stdDev} that is also
+     * at least {@code minRatio} times the mean.
+     */
+    private double threshold = 3.0;
+    private double minRatio = 2.0;
+
+    // Values a series needs before it can flag anything
+    private int minSamples = 10;
+
+    // kg CO₂ below which nothing is worth an alert
+    private double minCo2 = 5.0;
+
+    // How long a detected anomaly stays in the user's insights
+    private Duration alertWindow = Duration.ofDays(7);
+
+    private int initialCapacity = 1 << 16;
+}
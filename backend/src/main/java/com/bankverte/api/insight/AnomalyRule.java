@@ -0,0 +1,66 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.analytics.dto.Insight;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reports the anomalies {@link AnomalyDetector} found recently. Only applies
+ * to the persisted insight set, ranged requests have no user in context.
+ */
+@Component
+@Order(15)
+@RequiredArgsConstructor
+public class AnomalyRule implements InsightRule {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("MMM d", Locale.ENGLISH);
+
+    private final CarbonAnomalyRepository anomalyRepository;
+    private final AnomalyProperties properties;
+
+    @Override
+    public String name() {
+        return "anomaly";
+    }
+
+    @Override
+    public void evaluate(InsightContext context, List<Insight> insights) {
+        if (context.getUserId() == null) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now().minus(properties.getAlertWindow());
+        for (CarbonAnomaly anomaly : anomalyRepository
+                .findTop3ByUserIdAndDetectedAtAfterOrderByDetectedAtDesc(context.getUserId(), since)) {
+            double ratio = anomaly.getExpectedCo2() > 0 ? anomaly.getCo2() / anomaly.getExpectedCo2() : 0;
+            String day = anomaly.getDetectedAt().format(DAY);
+            Insight.InsightBuilder insight = Insight.builder()
+                    .type(Insight.InsightType.ALERT)
+                    .severity(Insight.InsightSeverity.WARNING)
+                    .actionable(true);
+            if (anomaly.getKind() == CarbonAnomaly.Kind.DAY) {
+                insights.add(insight
+                        .title("Unusually Heavy Day")
+                        .message(String.format(
+                                "On %s you emitted %.0f kg CO₂, %.1fx a typical day for you (%.0f kg).",
+                                day, anomaly.getCo2(), ratio, anomaly.getExpectedCo2()))
+                        .suggestedAction("Review that day's transactions")
+                        .build());
+            } else {
+                insights.add(insight
+                        .title("Unusual Transaction")
+                        .message(String.format(
+                                "A %s transaction on %s emitted %.0f kg CO₂, %.1fx your usual %.0f kg.",
+                                anomaly.getCategory().getDisplayName(), day, anomaly.getCo2(), ratio,
+                                anomaly.getExpectedCo2()))
+                        .suggestedAction("Check whether a lower-carbon option was available")
+                        .build());
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.sharding.AdvisoryLocks;
+import com.bankverte.api.sharding.Shards;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * What the startup backfills of the derived tables share: each fills its
+ * tables on every database, one node at a time.
+ */
+@Slf4j
+public final class Backfills {
+
+    private Backfills() {
+    }
+
+    /**
+     * One database's backfill, on a connection holding the backfill's lock.
+     */
+    @FunctionalInterface
+    public interface ShardBackfill {
+        void run(String shard, DataSource dataSource, Connection connection) throws SQLException;
+    }
+
+    /**
+     * Runs {@code backfill} on every database in turn, under the advisory
+     * lock {@code lockKey}: nodes starting together wait for the first, then
+     * find the tables filled. A database that fails is logged and skipped.
+     */
+    public static void onEveryShard(Shards shards, long lockKey, String name, ShardBackfill backfill) {
+        for (String shard : shards.names()) {
+            DataSource dataSource = shards.dataSource(shard);
+            try (Connection lock = dataSource.getConnection()) {
+                AdvisoryLocks.lock(lock, lockKey);
+                try {
+                    backfill.run(shard, dataSource, lock);
+                } finally {
+                    AdvisoryLocks.unlock(lock, lockKey);
+                }
+            } catch (SQLException e) {
+                log.warn("{} backfill failed on {}: {}", name, shard, e.toString());
+            }
+        }
+    }
+
+    public static boolean isEmpty(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+            return !rs.next();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A transaction, or a day's running total, well above the user's usual
+ * values. Kept so that insight refreshes on any node can report it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "carbon_anomaly", indexes = @Index(columnList = "user_id, detected_at"))
+public class CarbonAnomaly {
+
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Enumerated(EnumType.STRING)
+    private Kind kind;
+
+    private Integer transactionId;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionCategory category; // null for DAY
+
+    private double co2;
+
+    private double expectedCo2; // moving mean when detected
+
+    @Column(name = "detected_at")
+    private LocalDateTime detectedAt;
+
+    public enum Kind {
+        TRANSACTION,
+        DAY
+    }
+}
@@ -0,0 +1,12 @@
+package com.bankverte.api.insight;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CarbonAnomalyRepository extends JpaRepository<CarbonAnomaly, Integer> {
+
+    List<CarbonAnomaly> findTop3ByUserIdAndDetectedAtAfterOrderByDetectedAtDesc(Integer userId,
+            LocalDateTime detectedAfter);
+}
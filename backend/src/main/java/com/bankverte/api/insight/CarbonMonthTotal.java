@@ -0,0 +1,56 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.YearMonth;
+
+/**
+ * Running CO₂ total of one user, month and category. Incremented in the same
+ * database transaction as each insert, so a new month simply starts new rows.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "carbon_month_total")
+@IdClass(CarbonMonthTotal.Key.class)
+public class CarbonMonthTotal {
+
+    @Id
+    private Integer userId;
+
+    @Id
+    private int yearMonth; // yyyymm, see key()
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private TransactionCategory category;
+
+    private double co2;
+
+    private long transactionCount;
+
+    public static int key(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Integer userId;
+        private int yearMonth;
+        private TransactionCategory category;
+    }
+}
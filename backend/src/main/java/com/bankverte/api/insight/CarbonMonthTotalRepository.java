@@ -0,0 +1,24 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CarbonMonthTotalRepository extends JpaRepository<CarbonMonthTotal, CarbonMonthTotal.Key> {
+
+    List<CarbonMonthTotal> findByUserIdAndYearMonthIn(Integer userId, Collection<Integer> yearMonths);
+
+    /**
+     * @return 0 when the row does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE CarbonMonthTotal c SET c.co2 = c.co2 + :co2, c.transactionCount = c.transactionCount + 1 "
+            + "WHERE c.userId = :userId AND c.yearMonth = :yearMonth AND c.category = :category")
+    int increment(@Param("userId") Integer userId, @Param("yearMonth") int yearMonth,
+            @Param("category") TransactionCategory category, @Param("co2") double co2);
+}
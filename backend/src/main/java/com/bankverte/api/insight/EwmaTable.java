@@ -0,0 +1,161 @@
+package com.bankverte.api.insight;
+
+import java.util.Arrays;
+
+/**
+ * Exponentially weighted mean and variance of many series, keyed by a long,
+ * stored in flat primitive arrays (open addressing, linear probing): about
+ * 40 bytes per series and no object per entry.
+ *
+ * <p>A series is either fed values directly with {@link #observe}, or summed
+ * into buckets with {@link #accumulate}, each closed bucket's sum becoming
+ * one observation, e.g. daily totals.
+ *
+ * <p>Not thread-safe. Slots are only valid until the next {@link #slot}
+ * call, which may grow the table.
+ */
+final class EwmaTable {
+
+    private static final long FREE = Long.MIN_VALUE;
+    private static final int NO_BUCKET = Integer.MIN_VALUE;
+
+    private final double alpha;
+    private long[] keys;
+    private double[] means;
+    private double[] variances;
+    private int[] counts;
+    private int[] buckets;
+    private double[] bucketSums;
+    private int size;
+
+    EwmaTable(double alpha, int initialCapacity) {
+        this.alpha = alpha;
+        allocate(Integer.highestOneBit(Math.max(16, initialCapacity - 1)) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The slot of {@code key}, creating an empty series if needed.
+     */
+    int slot(long key) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Reserved key");
+        }
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+            if (keys[i] == FREE) {
+                if ((size + 1) * 4 > keys.length * 3) {
+                    grow();
+                    return slot(key);
+                }
+                keys[i] = key;
+                buckets[i] = NO_BUCKET;
+                size++;
+                return i;
+            }
+        }
+    }
+
+    int count(int slot) {
+        return counts[slot];
+    }
+
+    double mean(int slot) {
+        return means[slot];
+    }
+
+    double stdDev(int slot) {
+        return Math.sqrt(variances[slot]);
+    }
+
+    void observe(int slot, double x) {
+        if (counts[slot] == 0) {
+            means[slot] = x;
+            variances[slot] = 0;
+        } else {
+            double diff = x - means[slot];
+            double increment = alpha * diff;
+            means[slot] += increment;
+            variances[slot] = (1 - alpha) * (variances[slot] + diff * increment);
+        }
+        if (counts[slot] < Integer.MAX_VALUE) {
+            counts[slot]++;
+        }
+    }
+
+    /**
+     * Running sum of {@code bucket} so far, 0 if the series is on another one.
+     */
+    double bucketSum(int slot, int bucket) {
+        return buckets[slot] == bucket ? bucketSums[slot] : 0;
+    }
+
+    /**
+     * Adds {@code x} to {@code bucket}. Moving to a later bucket first
+     * observes the sum of the previous one; values for earlier buckets are
+     * dropped.
+     *
+     * @return the running sum of {@code bucket}
+     */
+    double accumulate(int slot, int bucket, double x) {
+        if (buckets[slot] != bucket) {
+            if (buckets[slot] != NO_BUCKET && bucket < buckets[slot]) {
+                return 0;
+            }
+            if (buckets[slot] != NO_BUCKET) {
+                observe(slot, bucketSums[slot]);
+            }
+            buckets[slot] = bucket;
+            bucketSums[slot] = 0;
+        }
+        bucketSums[slot] += x;
+        return bucketSums[slot];
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldMeans = means;
+        double[] oldVariances = variances;
+        int[] oldCounts = counts;
+        int[] oldBuckets = buckets;
+        double[] oldBucketSums = bucketSums;
+        allocate(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == FREE) {
+                continue;
+            }
+            int i = hash(oldKeys[j]) & mask;
+            while (keys[i] != FREE) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            means[i] = oldMeans[j];
+            variances[i] = oldVariances[j];
+            counts[i] = oldCounts[j];
+            buckets[i] = oldBuckets[j];
+            bucketSums[i] = oldBucketSums[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        means = new double[capacity];
+        variances = new double[capacity];
+        counts = new int[capacity];
+        buckets = new int[capacity];
+        bucketSums = new double[capacity];
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
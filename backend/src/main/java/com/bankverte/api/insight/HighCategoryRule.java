@@ -0,0 +1,48 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.analytics.dto.Insight;
+import com.bankverte.api.transaction.TransactionCategory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+@Order(10)
+public class HighCategoryRule implements InsightRule {
+
+    // A category above this share of the period total triggers a "High CO₂ Category" alert
+    public static final double HIGH_CATEGORY_SHARE_PCT = 30;
+
+    @Override
+    public String name() {
+        return "high-category";
+    }
+
+    @Override
+    public void evaluate(InsightContext context, List<Insight> insights) {
+        double total = context.getTotalCO2();
+        context.getCategoryTotals().entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .ifPresent(entry -> {
+                    double pct = (entry.getValue() / total) * 100;
+                    if (pct > HIGH_CATEGORY_SHARE_PCT) {
+                        insights.add(insight(entry.getKey(), pct));
+                    }
+                });
+    }
+
+    public static Insight insight(TransactionCategory category, double pct) {
+        return Insight.builder()
+                .type(Insight.InsightType.ALERT)
+                .severity(Insight.InsightSeverity.WARNING)
+                .title("High CO₂ Category")
+                .message(String.format(
+                        "%s represents %.0f%% of your carbon footprint this period.",
+                        category.getDisplayName(), pct))
+                .actionable(true)
+                .suggestedAction("Consider eco-friendly alternatives in this category")
+                .build();
+    }
+}
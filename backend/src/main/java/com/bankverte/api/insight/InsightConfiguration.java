@@ -0,0 +1,9 @@
+package com.bankverte.api.insight;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AnomalyProperties.class)
+public class InsightConfiguration {
+}
@@ -0,0 +1,33 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * What the rules see of one user's period: running totals, not transactions.
+ */
+@Data
+@Builder
+public class InsightContext {
+
+    private Integer userId;
+
+    private long transactionCount;
+
+    private double totalCO2;
+
+    private Map<TransactionCategory, Double> categoryTotals;
+
+    private Map<String, Double> merchantTotals;
+
+    // Comparable with previousTotal, e.g. a month-to-date total projected to the full month.
+    // Null while the period is too young for a fair comparison
+    private Double comparableTotal;
+
+    // Looked up lazily, only by rules that need it
+    private Supplier<Double> previousTotal;
+}
@@ -0,0 +1,175 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.analytics.dto.Insight;
+import com.bankverte.api.transaction.TransactionCategory;
+import com.bankverte.api.user.User;
+import com.bankverte.api.user.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps each user's insight set for the current month up to date.
+ *
+ * <p>Committed transactions reach {@link InsightRefreshConsumer} through
+ * the outbox, which refreshes each user of a batch once. A refresh reads
+ * the user's {@link CarbonMonthTotal} and {@link MerchantMonthTotal} rows,
+ * runs the rules and replaces the persisted {@link InsightSet}. Reads serve
+ * that set with one query and only recompute when it belongs to an earlier
+ * day or data version, e.g. right after a write the outbox consumer has not
+ * caught up with, after a restart, or for data loaded outside the API.
+ */
+@Slf4j
+@Service
+public class InsightEngine {
+
+    // Before this day of the month a month-to-date pace is too noisy to compare
+    private static final int MIN_DAYS_FOR_TREND = 7;
+
+    private final InsightEvaluator evaluator;
+    private final InsightSetRepository insightSetRepository;
+    private final CarbonMonthTotalRepository carbonMonthTotalRepository;
+    private final MerchantMonthTotalRepository merchantMonthTotalRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter refreshedOnWrite;
+    private final Counter refreshedOnRead;
+
+    public InsightEngine(InsightEvaluator evaluator, InsightSetRepository insightSetRepository,
+            CarbonMonthTotalRepository carbonMonthTotalRepository,
+            MerchantMonthTotalRepository merchantMonthTotalRepository, UserRepository userRepository,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.evaluator = evaluator;
+        this.insightSetRepository = insightSetRepository;
+        this.carbonMonthTotalRepository = carbonMonthTotalRepository;
+        this.merchantMonthTotalRepository = merchantMonthTotalRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.refreshedOnWrite = Counter.builder("bankverte.insights.refreshed").tag("trigger", "write")
+                .register(meterRegistry);
+        this.refreshedOnRead = Counter.builder("bankverte.insights.refreshed").tag("trigger", "read")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refreshes a user whose transactions changed.
+     */
+    void refreshAfterWrite(Integer userId) {
+        refresh(userId);
+        refreshedOnWrite.increment();
+    }
+
+    public List<Insight> current(User user) {
+        InsightSet set = insightSetRepository.findWithInsights(user.getId()).orElse(null);
+        // Also once a day: the month-to-date pace and recent anomalies age without any write
+        if (set == null || set.getYearMonth() != CarbonMonthTotal.key(YearMonth.now())
+                || set.getDataVersion() < user.getDataVersion()
+                || set.getRefreshedAt().toLocalDate().isBefore(LocalDate.now())) {
+            refreshedOnRead.increment();
+            return refresh(user.getId());
+        }
+        return set.getInsights().stream().map(UserInsight::toInsight).toList();
+    }
+
+    /**
+     * Recomputes and stores the insight set of the current month.
+     */
+    public List<Insight> refresh(Integer userId) {
+        YearMonth month = YearMonth.now();
+        int yearMonth = CarbonMonthTotal.key(month);
+
+        // Read the version first: the totals read next are at least that recent
+        long dataVersion = userRepository.findDataVersions(List.of(userId)).stream()
+                .findFirst().map(row -> (Long) row[1]).orElse(0L);
+        Map<String, List<Insight>> byRule = evaluator.evaluateByRule(context(userId, month));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> store(userId, yearMonth, dataVersion, byRule));
+        } catch (DataAccessException e) {
+            // Another node refreshed the same user concurrently, its result is as good as ours
+            log.debug("Insight set of user {} not stored: {}", userId, e.toString());
+        }
+
+        List<Insight> insights = new ArrayList<>();
+        byRule.values().forEach(insights::addAll);
+        return insights;
+    }
+
+    private InsightContext context(Integer userId, YearMonth month) {
+        int current = CarbonMonthTotal.key(month);
+        int previous = CarbonMonthTotal.key(month.minusMonths(1));
+
+        Map<TransactionCategory, Double> categoryTotals = new EnumMap<>(TransactionCategory.class);
+        long count = 0;
+        double total = 0;
+        double previousTotal = 0;
+        for (CarbonMonthTotal row : carbonMonthTotalRepository.findByUserIdAndYearMonthIn(userId,
+                List.of(current, previous))) {
+            if (row.getYearMonth() == current) {
+                categoryTotals.put(row.getCategory(), row.getCo2());
+                count += row.getTransactionCount();
+                total += row.getCo2();
+            } else {
+                previousTotal += row.getCo2();
+            }
+        }
+
+        Map<String, Double> merchantTotals = new HashMap<>();
+        if (count > 0) {
+            merchantMonthTotalRepository.findByUserIdAndYearMonth(userId, current)
+                    .forEach(row -> merchantTotals.put(row.getMerchant(), row.getCo2()));
+        }
+
+        // Compare the month-to-date pace, projected to the whole month, with last month
+        int day = LocalDate.now().getDayOfMonth();
+        Double comparable = day >= MIN_DAYS_FOR_TREND ? total * month.lengthOfMonth() / day : null;
+        double previousMonth = previousTotal;
+
+        return InsightContext.builder()
+                .userId(userId)
+                .transactionCount(count)
+                .totalCO2(total)
+                .categoryTotals(categoryTotals)
+                .merchantTotals(merchantTotals)
+                .comparableTotal(comparable)
+                .previousTotal(() -> previousMonth)
+                .build();
+    }
+
+    private void store(Integer userId, int yearMonth, long dataVersion, Map<String, List<Insight>> byRule) {
+        InsightSet set = insightSetRepository.findWithInsights(userId)
+                .orElseGet(() -> InsightSet.builder().userId(userId).build());
+        if (set.getYearMonth() == yearMonth && set.getDataVersion() > dataVersion) {
+            return;
+        }
+        set.setYearMonth(yearMonth);
+        set.setDataVersion(dataVersion);
+        set.setRefreshedAt(LocalDateTime.now());
+        set.getInsights().clear();
+        byRule.forEach((rule, insights) -> insights.forEach(insight -> set.getInsights().add(UserInsight.builder()
+                .insightSet(set)
+                .sortOrder(set.getInsights().size())
+                .rule(rule)
+                .type(insight.getType())
+                .severity(insight.getSeverity())
+                .title(insight.getTitle())
+                .message(insight.getMessage())
+                .actionable(insight.getActionable())
+                .suggestedAction(insight.getSuggestedAction())
+                .build())));
+        insightSetRepository.save(set);
+    }
+}
@@ -0,0 +1,54 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.analytics.dto.Insight;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs every {@link InsightRule} over a context.
+ */
+@Component
+@RequiredArgsConstructor
+public class InsightEvaluator {
+
+    static final String START_TRACKING = "start-tracking";
+
+    private final List<InsightRule> rules;
+
+    public List<Insight> evaluate(InsightContext context) {
+        List<Insight> insights = new ArrayList<>();
+        evaluateByRule(context).values().forEach(insights::addAll);
+        return insights;
+    }
+
+    /**
+     * Insights keyed by the name of the rule that produced them, in rule order.
+     */
+    public Map<String, List<Insight>> evaluateByRule(InsightContext context) {
+        Map<String, List<Insight>> insights = new LinkedHashMap<>();
+        if (context.getTransactionCount() == 0) {
+            insights.put(START_TRACKING, List.of(Insight.builder()
+                    .type(Insight.InsightType.RECOMMENDATION)
+                    .severity(Insight.InsightSeverity.INFO)
+                    .title("Start Tracking")
+                    .message("Add your first transaction to start tracking your carbon footprint!")
+                    .actionable(true)
+                    .suggestedAction("Add a transaction")
+                    .build()));
+            return insights;
+        }
+        for (InsightRule rule : rules) {
+            List<Insight> produced = new ArrayList<>();
+            rule.evaluate(context, produced);
+            if (!produced.isEmpty()) {
+                insights.put(rule.name(), produced);
+            }
+        }
+        return insights;
+    }
+}
@@ -0,0 +1,57 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.outbox.OutboxConsumer;
+import com.bankverte.api.outbox.OutboxRecord;
+import com.bankverte.api.sharding.ShardContext;
+import com.bankverte.api.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Refreshes the insight sets of users with new transactions, once per user
+ * and outbox batch, on the database the events came from.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InsightRefreshConsumer implements OutboxConsumer {
+
+    private final InsightEngine insightEngine;
+    private final Shards shards;
+    // Users of the current batch with their database index in the high half, consumer thread only
+    private long[] users = new long[64];
+    private int size;
+
+    @Override
+    public String name() {
+        return "insights";
+    }
+
+    @Override
+    public void onEvent(OutboxRecord event, boolean endOfBatch) {
+        if (size == users.length) {
+            users = Arrays.copyOf(users, size * 2);
+        }
+        users[size++] = ((long) event.shardIndex() << 32) | (event.userId() & 0xffffffffL);
+        if (!endOfBatch) {
+            return;
+        }
+        Arrays.sort(users, 0, size);
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && users[i] == users[i - 1]) {
+                continue;
+            }
+            int userId = (int) users[i];
+            try {
+                ShardContext.run(shards.name((int) (users[i] >>> 32)), () -> insightEngine.refreshAfterWrite(userId));
+            } catch (RuntimeException e) {
+                // The next read notices the outdated data version and refreshes
+                log.warn("Could not refresh insights of user {}: {}", userId, e.toString());
+            }
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,20 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.analytics.dto.Insight;
+
+import java.util.List;
+
+/**
+ * One kind of insight. Rules are Spring beans evaluated in {@code @Order},
+ * whenever a user's insight set is refreshed; adding one never touches the
+ * read path, which only serves the persisted result.
+ */
+public interface InsightRule {
+
+    /**
+     * Stable identifier stored with each insight the rule produced.
+     */
+    String name();
+
+    void evaluate(InsightContext context, List<Insight> insights);
+}
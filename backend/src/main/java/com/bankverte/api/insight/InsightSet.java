@@ -0,0 +1,38 @@
+package com.bankverte.api.insight;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The current insights of one user, as of the month and data version they
+ * were computed for.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "insight_set")
+public class InsightSet {
+
+    @Id
+    private Integer userId;
+
+    private int yearMonth;
+
+    private long dataVersion;
+
+    private LocalDateTime refreshedAt;
+
+    @Builder.Default
+    @OneToMany(mappedBy = "insightSet", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("sortOrder")
+    private List<UserInsight> insights = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package com.bankverte.api.insight;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface InsightSetRepository extends JpaRepository<InsightSet, Integer> {
+
+    @Query("SELECT s FROM InsightSet s LEFT JOIN FETCH s.insights WHERE s.userId = :userId")
+    Optional<InsightSet> findWithInsights(@Param("userId") Integer userId);
+}
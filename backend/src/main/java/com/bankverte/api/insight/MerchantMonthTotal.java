@@ -0,0 +1,49 @@
+package com.bankverte.api.insight;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Running CO₂ total of one user, month and merchant, maintained like
+ * {@link CarbonMonthTotal}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "merchant_month_total")
+@IdClass(MerchantMonthTotal.Key.class)
+public class MerchantMonthTotal {
+
+    @Id
+    private Integer userId;
+
+    @Id
+    private int yearMonth;
+
+    @Id
+    private String merchant;
+
+    private double co2;
+
+    private long transactionCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Integer userId;
+        private int yearMonth;
+        private String merchant;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bankverte.api.insight;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface MerchantMonthTotalRepository extends JpaRepository<MerchantMonthTotal, MerchantMonthTotal.Key> {
+
+    List<MerchantMonthTotal> findByUserIdAndYearMonth(Integer userId, int yearMonth);
+
+    /**
+     * @return 0 when the row does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE MerchantMonthTotal m SET m.co2 = m.co2 + :co2, m.transactionCount = m.transactionCount + 1 "
+            + "WHERE m.userId = :userId AND m.yearMonth = :yearMonth AND m.merchant = :merchant")
+    int increment(@Param("userId") Integer userId, @Param("yearMonth") int yearMonth,
+            @Param("merchant") String merchant, @Param("co2") double co2);
+}
@@ -0,0 +1,80 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.sharding.AdvisoryLocks;
+import com.bankverte.api.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Fills the carbon and merchant totals per user and month, which
+ * {@link MonthlyTotalsUpdater} keeps up to date, with one grouped insert
+ * each over the transaction table.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MonthlyTotalsBackfill implements SmartInitializingSingleton {
+
+    private static final String YEAR_MONTH = "EXTRACT(YEAR FROM created_at) * 100 + EXTRACT(MONTH FROM created_at)";
+
+    private final Shards shards;
+
+    /**
+     * Runs once, on the first start after the totals were introduced, before
+     * the web server accepts requests. Writes other nodes make meanwhile are
+     * counted twice, so roll this out by starting a single node first.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Backfills.onEveryShard(shards, AdvisoryLocks.MONTHLY_TOTALS_BACKFILL, "Monthly totals",
+                (shard, dataSource, connection) -> {
+                    if (!Backfills.isEmpty(connection, "carbon_month_total") || Backfills.isEmpty(connection, "transaction")) {
+                        return;
+                    }
+                    long started = System.nanoTime();
+                    connection.setAutoCommit(false);
+                    int rows = rebuild(connection, 0);
+                    connection.commit();
+                    log.info("Backfilled {} monthly total rows on {} in {} ms", rows, shard,
+                            (System.nanoTime() - started) / 1_000_000);
+                });
+    }
+
+    /**
+     * Replaces the totals of every user with an id from {@code firstUserId}
+     * on. Leaves committing to the caller.
+     *
+     * @return the number of rows written
+     */
+    public static int rebuild(Connection connection, long firstUserId) throws SQLException {
+        execute(connection, "DELETE FROM carbon_month_total WHERE user_id >= ?", firstUserId);
+        execute(connection, "DELETE FROM merchant_month_total WHERE user_id >= ?", firstUserId);
+        int rows = execute(connection,
+                "INSERT INTO carbon_month_total (user_id, year_month, category, co2, transaction_count) "
+                        + "SELECT user_id, " + YEAR_MONTH + ", category, SUM(COALESCE(carbon_footprint, 0)), COUNT(*) "
+                        + "FROM transaction WHERE user_id >= ? AND category IS NOT NULL "
+                        + "GROUP BY user_id, " + YEAR_MONTH + ", category",
+                firstUserId);
+        rows += execute(connection,
+                "INSERT INTO merchant_month_total (user_id, year_month, merchant, co2, transaction_count) "
+                        + "SELECT user_id, " + YEAR_MONTH + ", merchant, SUM(COALESCE(carbon_footprint, 0)), COUNT(*) "
+                        + "FROM transaction WHERE user_id >= ? AND category IS NOT NULL "
+                        + "AND merchant IS NOT NULL AND merchant <> '' "
+                        + "GROUP BY user_id, " + YEAR_MONTH + ", merchant",
+                firstUserId);
+        return rows;
+    }
+
+    private static int execute(Connection connection, String sql, long firstUserId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, firstUserId);
+            return statement.executeUpdate();
+        }
+    }
+}
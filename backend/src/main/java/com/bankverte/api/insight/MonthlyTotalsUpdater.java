@@ -0,0 +1,45 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCreatedEvent;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Adds each new transaction to its month's running totals, inside the write
+ * transaction. The owner's data version has already been bumped at that
+ * point, which row-locks the user: concurrent writes of the same user queue
+ * up there, so the update-then-insert below cannot race.
+ */
+@Component
+@RequiredArgsConstructor
+public class MonthlyTotalsUpdater {
+
+    private final CarbonMonthTotalRepository carbonMonthTotalRepository;
+    private final MerchantMonthTotalRepository merchantMonthTotalRepository;
+    private final EntityManager entityManager;
+
+    @EventListener
+    public void onTransactionCreated(TransactionCreatedEvent event) {
+        Transaction transaction = event.transaction();
+        if (transaction.getCategory() == null) {
+            return;
+        }
+        Integer userId = event.userId();
+        int yearMonth = CarbonMonthTotal.key(YearMonth.from(transaction.getCreatedAt()));
+        double co2 = transaction.getCarbonFootprint() != null ? transaction.getCarbonFootprint() : 0.0;
+
+        if (carbonMonthTotalRepository.increment(userId, yearMonth, transaction.getCategory(), co2) == 0) {
+            entityManager.persist(new CarbonMonthTotal(userId, yearMonth, transaction.getCategory(), co2, 1));
+        }
+        String merchant = transaction.getMerchant();
+        if (merchant != null && !merchant.isEmpty()
+                && merchantMonthTotalRepository.increment(userId, yearMonth, merchant, co2) == 0) {
+            entityManager.persist(new MerchantMonthTotal(userId, yearMonth, merchant, co2, 1));
+        }
+    }
+}
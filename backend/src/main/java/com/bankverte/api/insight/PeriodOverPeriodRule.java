@@ -0,0 +1,55 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.analytics.dto.Insight;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Order(20)
+public class PeriodOverPeriodRule implements InsightRule {
+
+    private static final double CHANGE_PCT = 10;
+
+    @Override
+    public String name() {
+        return "period-over-period";
+    }
+
+    @Override
+    public void evaluate(InsightContext context, List<Insight> insights) {
+        Double current = context.getComparableTotal();
+        if (current == null) {
+            return;
+        }
+        Double previous = context.getPreviousTotal().get();
+        if (previous == null || previous <= 0) {
+            return;
+        }
+
+        double change = ((current - previous) / previous) * 100;
+        if (change < -CHANGE_PCT) {
+            insights.add(Insight.builder()
+                    .type(Insight.InsightType.TREND)
+                    .severity(Insight.InsightSeverity.SUCCESS)
+                    .title("Great Progress!")
+                    .message(String.format(
+                            "Your CO₂ emissions decreased by %.1f%% compared to the previous period. Keep it up!",
+                            Math.abs(change)))
+                    .actionable(false)
+                    .build());
+        } else if (change > CHANGE_PCT) {
+            insights.add(Insight.builder()
+                    .type(Insight.InsightType.TREND)
+                    .severity(Insight.InsightSeverity.WARNING)
+                    .title("Emissions Increased")
+                    .message(String.format(
+                            "Your CO₂ emissions increased by %.1f%% compared to the previous period.",
+                            change))
+                    .actionable(true)
+                    .suggestedAction("Review your recent transactions to identify high-emission activities")
+                    .build());
+        }
+    }
+}
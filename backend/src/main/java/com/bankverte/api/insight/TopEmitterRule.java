@@ -0,0 +1,39 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.analytics.dto.Insight;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Order(30)
+public class TopEmitterRule implements InsightRule {
+
+    private static final double MERCHANT_SHARE = 0.25;
+
+    @Override
+    public String name() {
+        return "top-emitter";
+    }
+
+    @Override
+    public void evaluate(InsightContext context, List<Insight> insights) {
+        double total = context.getTotalCO2();
+        context.getMerchantTotals().entrySet().stream()
+                .filter(e -> (e.getValue() / total) > MERCHANT_SHARE)
+                .forEach(entry -> {
+                    double pct = (entry.getValue() / total) * 100;
+                    insights.add(Insight.builder()
+                            .type(Insight.InsightType.RECOMMENDATION)
+                            .severity(Insight.InsightSeverity.INFO)
+                            .title("Top Emitter")
+                            .message(String.format(
+                                    "'%s' accounts for %.0f%% of your emissions.",
+                                    entry.getKey(), pct))
+                            .actionable(true)
+                            .suggestedAction("Look for greener alternatives or reduce frequency")
+                            .build());
+                });
+    }
+}
@@ -0,0 +1,59 @@
+package com.bankverte.api.insight;
+
+import com.bankverte.api.analytics.dto.Insight;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_insight", indexes = @Index(columnList = "user_id"))
+public class UserInsight {
+
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private InsightSet insightSet;
+
+    private int sortOrder;
+
+    private String rule; // InsightRule.name()
+
+    @Enumerated(EnumType.STRING)
+    private Insight.InsightType type;
+
+    @Enumerated(EnumType.STRING)
+    private Insight.InsightSeverity severity;
+
+    private String title;
+
+    @Column(length = 1000)
+    private String message;
+
+    private Boolean actionable;
+
+    private String suggestedAction;
+
+    public Insight toInsight() {
+        return Insight.builder()
+                .type(type)
+                .severity(severity)
+                .title(title)
+                .message(message)
+                .actionable(actionable)
+                .suggestedAction(suggestedAction)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package com.bankverte.api.live;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * One open event stream. Writes use servlet non-blocking I/O: frames are
+ * queued and written only while the socket accepts them, so neither a slow
+ * client nor an idle one holds a thread.
+ */
+final class LiveConnection implements WriteListener, AsyncListener {
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Integer userId;
+    private final AsyncContext async;
+    private final ServletOutputStream out;
+    private final int bufferSize;
+    private final Consumer<LiveConnection> onClose;
+    private final Runnable onResync;
+    private final Deque<byte[]> pending = new ArrayDeque<>();
+    private long nextEventId = 1;
+    private boolean closed;
+
+    LiveConnection(Integer userId, AsyncContext async, int bufferSize, Consumer<LiveConnection> onClose,
+            Runnable onResync) throws IOException {
+        this.userId = userId;
+        this.async = async;
+        this.out = async.getResponse().getOutputStream();
+        this.bufferSize = bufferSize;
+        this.onClose = onClose;
+        this.onResync = onResync;
+    }
+
+    Integer userId() {
+        return userId;
+    }
+
+    /**
+     * Starts writing; the container calls {@link #onWritePossible} once the
+     * stream is ready.
+     */
+    void open(long retryMillis) {
+        synchronized (this) {
+            pending.add(("retry: " + retryMillis + "\n\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        async.addListener(this);
+        out.setWriteListener(this);
+    }
+
+    synchronized void send(String event, String json) {
+        if (closed) {
+            return;
+        }
+        if (pending.size() >= bufferSize) {
+            // The client is not keeping up: drop the backlog, it has to reload anyway
+            pending.clear();
+            pending.add(frame("resync", "{}"));
+            onResync.run();
+        } else {
+            pending.add(frame(event, json));
+        }
+        flush();
+    }
+
+    synchronized void heartbeat() {
+        // Only worth sending on an idle stream, and it is how dead peers are found
+        if (!closed && pending.isEmpty()) {
+            pending.add(HEARTBEAT);
+            flush();
+        }
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+        }
+        onClose.accept(this);
+        try {
+            async.complete();
+        } catch (IllegalStateException e) {
+            // Already completed by the container
+        }
+    }
+
+    @Override
+    public synchronized void onWritePossible() {
+        flush();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    // Callers hold the monitor. isReady() must return true before every write
+    // or flush; when it returns false the container calls onWritePossible later.
+    private void flush() {
+        try {
+            while (!closed && out.isReady()) {
+                byte[] next = pending.poll();
+                if (next == null) {
+                    out.flush();
+                    return;
+                }
+                out.write(next);
+            }
+        } catch (IOException | IllegalStateException e) {
+            close();
+        }
+    }
+
+    private byte[] frame(String event, String json) {
+        return ("id: " + nextEventId++ + "\nevent: " + event + "\ndata: " + json + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
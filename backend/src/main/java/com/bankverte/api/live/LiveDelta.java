@@ -0,0 +1,28 @@
+package com.bankverte.api.live;
+
+import com.bankverte.api.analytics.dto.Insight;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Dashboard changes caused by one new transaction. Totals are absolute, not
+ * increments, so applying a delta twice or after a resync is harmless.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveDelta {
+    private Integer transactionId;
+    private String category;
+    private Double carbonFootprint;
+    private String month; // yyyy-MM the totals below refer to
+    private Double monthTotalCO2;
+    private Double categoryTotalCO2;
+    private Double categoryPercentage;
+    private List<Insight> insights;
+}
@@ -0,0 +1,9 @@
+package com.bankverte.api.live;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LiveUpdateProperties.class)
+public class LiveUpdateConfiguration {
+}
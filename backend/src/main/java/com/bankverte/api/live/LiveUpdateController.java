@@ -0,0 +1,40 @@
+package com.bankverte.api.live;
+
+import com.bankverte.api.user.User;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Server-sent events for the analytics dashboard:
+ * <ul>
+ *   <li>{@code delta}: a {@link LiveDelta} after each new transaction</li>
+ *   <li>{@code resync}: updates were lost, reload the dashboard over REST</li>
+ *   <li>comment lines as heartbeat</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/api/live")
+@RequiredArgsConstructor
+public class LiveUpdateController {
+
+    private final LiveUpdateService liveUpdateService;
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void stream(
+            @AuthenticationPrincipal User user,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (!liveUpdateService.subscribe(user.getId(), request, response)) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.bankverte.api.live;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.live")
+public class LiveUpdateProperties {
+
+    /**
+     * Events a connection may have queued. On overflow the queue is replaced
+     * by a single "resync" event telling the client to reload over REST.
+     */
+    private int bufferSize = 64;
+
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Lifetime of a stream before the server closes it and the client
+     * reconnects. Zero keeps streams open indefinitely.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    private int maxConnectionsPerUser = 5;
+
+    /**
+     * Threads computing deltas after a commit, and how many commits may wait
+     * for them before affected users are sent a resync instead.
+     */
+    private int dispatchThreads = 2;
+    private int dispatchQueueSize = 10_000;
+}
@@ -0,0 +1,223 @@
+package com.bankverte.api.live;
+
+import com.bankverte.api.analytics.dto.Insight;
+import com.bankverte.api.budget.BudgetService;
+import com.bankverte.api.cache.RemoteUserDataChangedEvent;
+import com.bankverte.api.insight.CarbonMonthTotal;
+import com.bankverte.api.insight.CarbonMonthTotalRepository;
+import com.bankverte.api.insight.HighCategoryRule;
+import com.bankverte.api.sharding.ShardContext;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCategory;
+import com.bankverte.api.transaction.TransactionCreatedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes dashboard deltas to the user's open event streams once a new
+ * transaction has committed. Streams only exist on the node that accepted
+ * them: writes made on other nodes arrive through the invalidation bus and
+ * turn into a resync.
+ */
+@Slf4j
+@Service
+public class LiveUpdateService {
+
+    private static final long RETRY_MILLIS = 5_000;
+
+    private final CarbonMonthTotalRepository carbonMonthTotalRepository;
+    private final BudgetService budgetService;
+    private final ObjectMapper objectMapper;
+    private final LiveUpdateProperties properties;
+    private final Map<Integer, Set<LiveConnection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService heartbeats;
+    private final Counter deltas;
+    private final Counter resyncs;
+
+    public LiveUpdateService(CarbonMonthTotalRepository carbonMonthTotalRepository, BudgetService budgetService,
+            ObjectMapper objectMapper, LiveUpdateProperties properties, MeterRegistry meterRegistry) {
+        this.carbonMonthTotalRepository = carbonMonthTotalRepository;
+        this.budgetService = budgetService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.dispatcher = new ThreadPoolExecutor(properties.getDispatchThreads(), properties.getDispatchThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getDispatchQueueSize()),
+                daemon("live-dispatch"));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("live-heartbeat"));
+        long interval = properties.getHeartbeatInterval().toMillis();
+        heartbeats.scheduleAtFixedRate(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("bankverte.live.connections", open, AtomicInteger::get)
+                .description("Open live update streams")
+                .register(meterRegistry);
+        this.deltas = Counter.builder("bankverte.live.events").tag("event", "delta").register(meterRegistry);
+        this.resyncs = Counter.builder("bankverte.live.events").tag("event", "resync").register(meterRegistry);
+    }
+
+    /**
+     * Turns the request into an event stream. Returns false, leaving the
+     * response untouched, when the user already has too many streams open.
+     */
+    public boolean subscribe(Integer userId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Set<LiveConnection> userConnections = connections.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet());
+        if (userConnections.size() >= properties.getMaxConnectionsPerUser()) {
+            return false;
+        }
+
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // Keeps nginx-style proxies from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+
+        // The unwrapped response: filters that buffer the body must not sit in a stream's path
+        AsyncContext async = request.startAsync();
+        async.setTimeout(properties.getTimeout().toMillis());
+        LiveConnection connection = new LiveConnection(userId, async, properties.getBufferSize(), this::remove,
+                resyncs::increment);
+        userConnections.add(connection);
+        open.incrementAndGet();
+        connection.open(RETRY_MILLIS);
+        return true;
+    }
+
+    @TransactionalEventListener
+    public void onTransactionCreated(TransactionCreatedEvent event) {
+        Integer userId = event.userId();
+        if (!connections.containsKey(userId)) {
+            return;
+        }
+        String shard = ShardContext.current();
+        try {
+            dispatcher.execute(() -> ShardContext.run(shard, () -> publishDelta(userId, event.transaction())));
+        } catch (RejectedExecutionException e) {
+            resync(userId);
+        }
+    }
+
+    @EventListener
+    public void onRemoteUserDataChanged(RemoteUserDataChangedEvent event) {
+        resync(event.userId());
+    }
+
+    private void publishDelta(Integer userId, Transaction transaction) {
+        Set<LiveConnection> userConnections = connections.get(userId);
+        if (userConnections == null || userConnections.isEmpty()) {
+            return;
+        }
+        try {
+            LiveDelta delta = delta(transaction);
+            String json = objectMapper.writeValueAsString(delta);
+            userConnections.forEach(c -> c.send("delta", json));
+            deltas.increment();
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Could not compute live delta for user {}: {}", userId, e.toString());
+            resync(userId);
+        }
+    }
+
+    private LiveDelta delta(Transaction transaction) {
+        YearMonth month = YearMonth.from(transaction.getCreatedAt());
+        Integer userId = transaction.getUser().getId();
+        Map<TransactionCategory, Double> totals = new EnumMap<>(TransactionCategory.class);
+        carbonMonthTotalRepository.findByUserIdAndYearMonthIn(userId, List.of(CarbonMonthTotal.key(month)))
+                .forEach(row -> totals.put(row.getCategory(), row.getCo2()));
+        double monthTotal = totals.values().stream().mapToDouble(Double::doubleValue).sum();
+        double categoryTotal = totals.getOrDefault(transaction.getCategory(), 0.0);
+        double co2 = transaction.getCarbonFootprint() != null ? transaction.getCarbonFootprint() : 0.0;
+        double share = share(categoryTotal, monthTotal);
+
+        // Report alerts only when this transaction crossed the threshold
+        List<Insight> insights = new ArrayList<>();
+        if (share > HighCategoryRule.HIGH_CATEGORY_SHARE_PCT
+                && share(categoryTotal - co2, monthTotal - co2) <= HighCategoryRule.HIGH_CATEGORY_SHARE_PCT) {
+            insights.add(HighCategoryRule.insight(transaction.getCategory(), share));
+        }
+        insights.addAll(budgetService.crossings(budgetService.budgets(userId), totals, monthTotal,
+                transaction.getCategory(), co2));
+
+        return LiveDelta.builder()
+                .transactionId(transaction.getId())
+                .category(transaction.getCategory().name())
+                .carbonFootprint(co2)
+                .month(month.toString())
+                .monthTotalCO2(Math.round(monthTotal * 100.0) / 100.0)
+                .categoryTotalCO2(Math.round(categoryTotal * 100.0) / 100.0)
+                .categoryPercentage(Math.round(share * 10.0) / 10.0)
+                .insights(insights)
+                .build();
+    }
+
+    private void resync(Integer userId) {
+        Set<LiveConnection> userConnections = connections.get(userId);
+        if (userConnections != null) {
+            userConnections.forEach(c -> c.send("resync", "{}"));
+            resyncs.increment();
+        }
+    }
+
+    private void heartbeat() {
+        connections.values().forEach(set -> set.forEach(LiveConnection::heartbeat));
+    }
+
+    private void remove(LiveConnection connection) {
+        Set<LiveConnection> userConnections = connections.get(connection.userId());
+        if (userConnections != null && userConnections.remove(connection)) {
+            open.decrementAndGet();
+            connections.computeIfPresent(connection.userId(), (id, set) -> set.isEmpty() ? null : set);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+        dispatcher.shutdownNow();
+        connections.values().forEach(set -> List.copyOf(set).forEach(LiveConnection::close));
+    }
+
+    private static double share(double part, double total) {
+        return total > 0 ? part / total * 100 : 0.0;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.bankverte.api.observability;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Worst values seen for one endpoint since startup.
+ */
+@Getter
+public class EndpointQueryReport {
+
+    private final String endpoint;
+    private long requests;
+    private int maxStatements;
+    private long maxSqlMillis;
+    private long maxRows;
+    private long violations;
+    private String mostRepeatedStatement;
+    private int mostRepeatedCount;
+    private List<String> lastViolation = List.of();
+
+    EndpointQueryReport(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    synchronized void update(RequestQueryStats stats, List<String> violations) {
+        requests++;
+        maxStatements = Math.max(maxStatements, stats.getStatements());
+        maxSqlMillis = Math.max(maxSqlMillis, stats.getExecutionNanos() / 1_000_000);
+        maxRows = Math.max(maxRows, stats.getRows());
+        Map.Entry<String, Integer> repeated = stats.mostRepeated();
+        if (repeated != null && repeated.getValue() > mostRepeatedCount) {
+            mostRepeatedCount = repeated.getValue();
+            mostRepeatedStatement = repeated.getKey();
+        }
+        if (!violations.isEmpty()) {
+            this.violations++;
+            this.lastViolation = violations;
+        }
+    }
+}
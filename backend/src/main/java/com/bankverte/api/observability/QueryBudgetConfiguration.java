@@ -0,0 +1,44 @@
+package com.bankverte.api.observability;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+public class QueryBudgetConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "bankverte.query-budget", name = "enabled", matchIfMissing = true)
+    public HibernatePropertiesCustomizer queryCountingHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                    new QueryCountingHibernateHooks.CountingStatementInspector());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                    QueryCountingHibernateHooks.TimingSessionListener.class.getName());
+            properties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> List.of(new QueryCountingHibernateHooks.RowCountingIntegrator()));
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "bankverte.query-budget", name = "enabled", matchIfMissing = true)
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(
+            QueryBudgetProperties properties,
+            QueryBudgetRecorder recorder
+    ) {
+        FilterRegistrationBean<QueryBudgetFilter> registration =
+                new FilterRegistrationBean<>(new QueryBudgetFilter(properties, recorder));
+        // Ahead of Spring Security so the principal lookup is counted too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
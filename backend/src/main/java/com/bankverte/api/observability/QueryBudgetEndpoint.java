@@ -0,0 +1,31 @@
+package com.bankverte.api.observability;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/querybudget}: endpoints with the heaviest SQL usage per
+ * request. DELETE clears the collected reports.
+ */
+@Component
+@Endpoint(id = "querybudget")
+@RequiredArgsConstructor
+public class QueryBudgetEndpoint {
+
+    private final QueryBudgetRecorder recorder;
+
+    @ReadOperation
+    public List<EndpointQueryReport> worstOffenders() {
+        return recorder.worstOffenders();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        recorder.reset();
+    }
+}
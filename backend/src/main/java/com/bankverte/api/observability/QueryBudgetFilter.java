@@ -0,0 +1,86 @@
+package com.bankverte.api.observability;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+  * Counts the SQL issued while serving a request, including the principal
+  * lookup done by the security filters, and checks it against the budget of
+  * the matched endpoint.
+  */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private final QueryBudgetProperties properties;
+    private final QueryBudgetRecorder recorder;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        boolean failOnViolation = properties.getMode() == QueryBudgetProperties.Mode.FAIL;
+        // In FAIL mode the body is held back so a violation can still become a 500
+        ContentCachingResponseWrapper buffered = failOnViolation ? new ContentCachingResponseWrapper(response) : null;
+
+        RequestQueryStats stats = QueryStatsHolder.begin();
+        try {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            QueryStatsHolder.end();
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern != null ? pattern.toString() : "UNMATCHED";
+        List<String> violations = check(properties.budgetFor(endpoint), stats);
+        recorder.record(request.getMethod(), endpoint, stats, violations);
+
+        if (!violations.isEmpty()) {
+            log.warn("Query budget exceeded for {} {}: {}", request.getMethod(), endpoint, String.join("; ", violations));
+        }
+        if (buffered != null) {
+            if (violations.isEmpty() || request.isAsyncStarted()) {
+                buffered.copyBodyToResponse();
+            } else {
+                buffered.resetBuffer();
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                response.setContentType("text/plain;charset=UTF-8");
+                // The wrapper has already opened the output stream, so no getWriter() here
+                response.getOutputStream().write(("Query budget exceeded: " + String.join("; ", violations))
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static List<String> check(QueryBudgetProperties.Budget budget, RequestQueryStats stats) {
+        List<String> violations = new ArrayList<>();
+        if (budget.getMaxStatements() != null && stats.getStatements() > budget.getMaxStatements()) {
+            violations.add(stats.getStatements() + " statements > " + budget.getMaxStatements());
+        }
+        Map.Entry<String, Integer> repeated = stats.mostRepeated();
+        if (budget.getMaxRepeatedStatement() != null && repeated != null
+                && repeated.getValue() > budget.getMaxRepeatedStatement()) {
+            violations.add("possible N+1, " + repeated.getValue() + " executions of: " + repeated.getKey());
+        }
+        if (budget.getMaxRows() != null && stats.getRows() > budget.getMaxRows()) {
+            violations.add(stats.getRows() + " rows > " + budget.getMaxRows());
+        }
+        return violations;
+    }
+}
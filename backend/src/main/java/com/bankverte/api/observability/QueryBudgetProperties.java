@@ -0,0 +1,71 @@
+package com.bankverte.api.observability;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-request SQL budgets. Endpoint entries are keyed by the request mapping
+ * pattern and override the defaults field by field, e.g.
+ * {@code bankverte.query-budget.endpoints[/api/analytics/summary].max-statements=4}.
+ */
+@Data
+@ConfigurationProperties(prefix = "bankverte.query-budget")
+public class QueryBudgetProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * LOG only reports violations; FAIL also turns the response into a 500,
+     * which is meant for tests.
+     */
+    private Mode mode = Mode.LOG;
+
+    private Budget defaults = new Budget(10, 3, null);
+
+    private Map<String, Budget> endpoints = new HashMap<>();
+
+    /**
+     * How many endpoints the querybudget actuator endpoint lists.
+     */
+    private int worstOffenders = 20;
+
+    public enum Mode {
+        LOG,
+        FAIL
+    }
+
+    @Data
+    public static class Budget {
+        private Integer maxStatements;
+        /**
+         * How many times one identical statement may run in a request before
+         * it is reported as a likely N+1.
+         */
+        private Integer maxRepeatedStatement;
+        private Long maxRows;
+
+        public Budget() {
+        }
+
+        public Budget(Integer maxStatements, Integer maxRepeatedStatement, Long maxRows) {
+            this.maxStatements = maxStatements;
+            this.maxRepeatedStatement = maxRepeatedStatement;
+            this.maxRows = maxRows;
+        }
+    }
+
+    Budget budgetFor(String endpoint) {
+        Budget specific = endpoints.get(endpoint);
+        if (specific == null) {
+            return defaults;
+        }
+        return new Budget(
+                specific.getMaxStatements() != null ? specific.getMaxStatements() : defaults.getMaxStatements(),
+                specific.getMaxRepeatedStatement() != null ? specific.getMaxRepeatedStatement()
+                        : defaults.getMaxRepeatedStatement(),
+                specific.getMaxRows() != null ? specific.getMaxRows() : defaults.getMaxRows());
+    }
+}
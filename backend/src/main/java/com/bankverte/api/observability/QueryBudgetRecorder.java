@@ -0,0 +1,70 @@
+package com.bankverte.api.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes per-request SQL statistics as metrics and keeps the worst
+ * request seen for each endpoint.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryBudgetRecorder {
+
+    private final MeterRegistry meterRegistry;
+    private final QueryBudgetProperties properties;
+    private final Map<String, EndpointQueryReport> reports = new ConcurrentHashMap<>();
+
+    void record(String method, String endpoint, RequestQueryStats stats, List<String> violations) {
+        DistributionSummary.builder("bankverte.sql.statements")
+                .description("SQL statements per request")
+                .tags("method", method, "uri", endpoint)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("bankverte.sql.rows")
+                .description("Entities loaded per request")
+                .baseUnit("rows")
+                .tags("method", method, "uri", endpoint)
+                .register(meterRegistry)
+                .record(stats.getRows());
+        Timer.builder("bankverte.sql.time")
+                .description("Total SQL execution time per request")
+                .tags("method", method, "uri", endpoint)
+                .register(meterRegistry)
+                .record(stats.getExecutionNanos(), TimeUnit.NANOSECONDS);
+        if (!violations.isEmpty()) {
+            Counter.builder("bankverte.sql.budget.exceeded")
+                    .tags("method", method, "uri", endpoint)
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        reports.computeIfAbsent(method + " " + endpoint, EndpointQueryReport::new).update(stats, violations);
+    }
+
+    /**
+     * Endpoints ordered by the largest number of statements a single request
+     * has issued.
+     */
+    public List<EndpointQueryReport> worstOffenders() {
+        return reports.values().stream()
+                .sorted(Comparator.comparingInt(EndpointQueryReport::getMaxStatements).reversed()
+                        .thenComparing(Comparator.comparingLong(EndpointQueryReport::getMaxSqlMillis).reversed()))
+                .limit(properties.getWorstOffenders())
+                .toList();
+    }
+
+    public void reset() {
+        reports.clear();
+    }
+}
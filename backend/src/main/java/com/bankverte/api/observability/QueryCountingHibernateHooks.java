@@ -0,0 +1,95 @@
+package com.bankverte.api.observability;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Hibernate extension points feeding {@link QueryStatsHolder}: statements
+ * are counted as they are prepared, timed around execution, and rows are
+ * counted as entities are loaded.
+ */
+final class QueryCountingHibernateHooks {
+
+    private QueryCountingHibernateHooks() {
+    }
+
+    static class CountingStatementInspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            RequestQueryStats stats = QueryStatsHolder.current();
+            if (stats != null) {
+                stats.statementPrepared(sql);
+            }
+            return sql;
+        }
+    }
+
+    /**
+     * Instantiated by Hibernate for every session, hence public.
+     */
+    public static class TimingSessionListener extends BaseSessionEventListener {
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            RequestQueryStats stats = QueryStatsHolder.current();
+            if (stats != null) {
+                stats.executionStarted();
+            }
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            RequestQueryStats stats = QueryStatsHolder.current();
+            if (stats != null) {
+                stats.executionEnded();
+            }
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            jdbcExecuteStatementStart();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            jdbcExecuteStatementEnd();
+        }
+    }
+
+    static class RowCountingIntegrator implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                SessionFactoryImplementor sessionFactory) {
+            sessionFactory.getServiceRegistry()
+                    .getService(EventListenerRegistry.class)
+                    .appendListeners(EventType.POST_LOAD, new RowCountingListener());
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory,
+                SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+
+    private static class RowCountingListener implements PostLoadEventListener {
+
+        @Override
+        public void onPostLoad(PostLoadEvent event) {
+            RequestQueryStats stats = QueryStatsHolder.current();
+            if (stats != null) {
+                stats.rowLoaded();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.bankverte.api.observability;
+
+/**
+ * Binds a {@link RequestQueryStats} to the current request thread so that
+ * Hibernate callbacks, which are not Spring beans, can reach it.
+ */
+public final class QueryStatsHolder {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryStatsHolder() {
+    }
+
+    static RequestQueryStats begin() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the stats of the request running on this thread, or null
+     *         outside of a request (startup, background jobs)
+     */
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+}
@@ -0,0 +1,58 @@
+package com.bankverte.api.observability;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SQL activity of a single HTTP request. Only touched by the request thread.
+ */
+public class RequestQueryStats {
+
+    private int statements;
+    private long executionNanos;
+    private long rows;
+    private long executionStartedAt;
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+
+    void statementPrepared(String sql) {
+        statements++;
+        executionsBySql.merge(sql, 1, Integer::sum);
+    }
+
+    void executionStarted() {
+        executionStartedAt = System.nanoTime();
+    }
+
+    void executionEnded() {
+        if (executionStartedAt != 0) {
+            executionNanos += System.nanoTime() - executionStartedAt;
+            executionStartedAt = 0;
+        }
+    }
+
+    void rowLoaded() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * The statement executed most often in this request and how many times,
+     * the usual signature of an N+1.
+     */
+    public Map.Entry<String, Integer> mostRepeated() {
+        return executionsBySql.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bankverte.api.outbox;
+
+/**
+ * Single-producer, multi-consumer ring of preallocated {@link OutboxRecord}
+ * slots. The producer fills a slot once every consumer has moved past the
+ * event it held and makes filled slots visible with {@link #publish};
+ * each consumer reads up to {@link #published()} and then advances its own
+ * {@link Cursor}, which releases the slots.
+ */
+final class EventRing {
+
+    private final OutboxRecord[] slots;
+    private final int mask;
+    private final Cursor[] cursors;
+    private volatile long published = -1;
+    // Producer only: a lower bound of the slowest cursor, refreshed when the ring looks full
+    private long slowest = -1;
+
+    EventRing(int size, int consumers) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + size);
+        }
+        this.slots = new OutboxRecord[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new OutboxRecord();
+        }
+        this.mask = size - 1;
+        this.cursors = new Cursor[consumers];
+        for (int i = 0; i < consumers; i++) {
+            cursors[i] = new Cursor();
+        }
+    }
+
+    Cursor cursor(int consumer) {
+        return cursors[consumer];
+    }
+
+    /**
+     * The slot to fill for {@code sequence}, or null while a consumer still
+     * has to read the event it holds.
+     */
+    OutboxRecord claim(long sequence) {
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint > slowest) {
+            slowest = slowestCursor();
+            if (wrapPoint > slowest) {
+                return null;
+            }
+        }
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Makes the slots up to {@code sequence} visible to consumers.
+     */
+    void publish(long sequence) {
+        published = sequence;
+    }
+
+    long published() {
+        return published;
+    }
+
+    OutboxRecord get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    private long slowestCursor() {
+        long min = Long.MAX_VALUE;
+        for (Cursor cursor : cursors) {
+            min = Math.min(min, cursor.sequence);
+        }
+        return min;
+    }
+
+    static final class Cursor {
+
+        // Last sequence the consumer is done with
+        volatile long sequence = -1;
+    }
+}
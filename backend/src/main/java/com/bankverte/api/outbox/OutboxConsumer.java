@@ -0,0 +1,24 @@
+package com.bankverte.api.outbox;
+
+/**
+ * Processes outbox events on its own thread, in id order but for events
+ * committed after the relay had moved past their id, handed over late.
+ * Delivery is at least once: after a failure, a restart or a takeover by
+ * another node the events since the consumer's last recorded position, the
+ * {@link OutboxRecord#watermark()}, are handed over again.
+ */
+public interface OutboxConsumer {
+
+    /**
+     * Key of the consumer's position in outbox_cursor; renaming a consumer
+     * starts it over from the oldest retained event.
+     */
+    String name();
+
+    /**
+     * @param endOfBatch whether this is the last event before the position
+     *                   is recorded, the point to flush work collected over
+     *                   the batch. Throwing retries the whole batch.
+     */
+    void onEvent(OutboxRecord event, boolean endOfBatch) throws Exception;
+}
@@ -0,0 +1,25 @@
+package com.bankverte.api.outbox;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The last outbox id a consumer has processed. Maintained by
+ * {@link OutboxRelay} with plain SQL; mapped so the schema is created.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_cursor")
+public class OutboxCursor {
+
+    @Id
+    private String consumer;
+
+    private long position;
+}
@@ -0,0 +1,43 @@
+package com.bankverte.api.outbox;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change waiting for the {@link OutboxRelay}, inserted in the transaction
+ * that made it and deleted once every consumer has processed it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+    // Identity rather than a pooled sequence: ids follow insert order
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 32)
+    private Type type;
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    private Integer transactionId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public enum Type {
+        TRANSACTION_CREATED
+    }
+}
@@ -0,0 +1,72 @@
+package com.bankverte.api.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.outbox")
+public class OutboxProperties {
+
+    /**
+     * Drain the outbox on this node. Nodes elect one relay per database
+     * with an advisory lock, so it can stay on everywhere.
+     */
+    private boolean relay = true;
+
+    /**
+     * Slots of the in-process ring, a power of two. The relay stops reading
+     * when the slowest consumer is this many events behind.
+     */
+    private int ringSize = 1024;
+
+    /**
+     * Outbox rows read per query.
+     */
+    private int fetchSize = 512;
+
+    /**
+     * Most events handed to a consumer before it records its position.
+     */
+    private int maxConsumerBatch = 256;
+
+    /**
+     * How long a consumer waits for more events once the first of a batch is
+     * there. Work done once per batch, such as refreshing a user's insights,
+     * then covers a burst of writes instead of running after each one,
+     * alongside the requests making them. Writes of other nodes already wait
+     * up to poll-interval.
+     */
+    private Duration batchDelay = Duration.ofSeconds(1);
+
+    /**
+     * Commits wake the relay on the node that made them; this interval
+     * picks up writes of other nodes.
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long the relay waits for a missing id, an insert not committed
+     * yet, before it moves past it. It keeps rechecking the id and relays it
+     * late if it commits.
+     */
+    private Duration gapTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Off Postgres, how long a missing id is rechecked before it is given
+     * up on as rolled back. On Postgres it is given up on once every
+     * transaction running when it was moved past has ended.
+     */
+    private Duration gapMaxAge = Duration.ofMinutes(1);
+
+    /**
+     * How often rows every consumer has processed are deleted.
+     */
+    private Duration pruneInterval = Duration.ofMinutes(1);
+
+    /**
+     * Attempts at a failing batch before a consumer skips it.
+     */
+    private int maxAttempts = 3;
+}
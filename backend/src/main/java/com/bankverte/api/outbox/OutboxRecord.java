@@ -0,0 +1,61 @@
+package com.bankverte.api.outbox;
+
+/**
+ * One slot of the relay's ring. Slots are allocated once and overwritten as
+ * the ring wraps, so a consumer must copy what it keeps beyond
+ * {@link OutboxConsumer#onEvent}.
+ */
+public final class OutboxRecord {
+
+    long id;
+    int shardIndex;
+    String shard;
+    OutboxEvent.Type type;
+    int userId;
+    int transactionId;
+    long createdAtMillis;
+    long watermark;
+
+    public long id() {
+        return id;
+    }
+
+    /**
+     * Position of the event's database in {@code Shards.names()}.
+     */
+    public int shardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * The database the event was written to; ids are per database.
+     */
+    public String shard() {
+        return shard;
+    }
+
+    public OutboxEvent.Type type() {
+        return type;
+    }
+
+    public int userId() {
+        return userId;
+    }
+
+    public int transactionId() {
+        return transactionId;
+    }
+
+    public long createdAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * Id of the event's database up to which every event was relayed before
+     * or with this one, or given up on. Below {@link #id()} for an event
+     * relayed late, or while older ids are still missing.
+     */
+    public long watermark() {
+        return watermark;
+    }
+}
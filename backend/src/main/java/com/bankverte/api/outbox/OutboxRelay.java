@@ -0,0 +1,554 @@
+package com.bankverte.api.outbox;
+
+import com.bankverte.api.sharding.AdvisoryLocks;
+import com.bankverte.api.sharding.Shards;
+import com.bankverte.api.transaction.TransactionCreatedEvent;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves committed outbox rows into an {@link EventRing} and runs every
+ * {@link OutboxConsumer} on its own thread behind it.
+ *
+ * <p>The relay reads rows in id order. Identity ids are taken at insert time,
+ * so a missing id is usually a transaction still in flight: the relay waits
+ * for it up to gap-timeout, then moves on and rechecks the missing ids on
+ * every poll, relaying them whenever they commit. It gives up on one only
+ * when no transaction that could still insert it is running: on Postgres
+ * once the oldest running transaction started after the gap was seen
+ * ({@code pg_snapshot_xmin}), elsewhere after gap-max-age. Each consumer
+ * records in outbox_cursor the id up to which every event was processed or
+ * given up on; on startup the relay resumes from the lowest of those
+ * positions and rows all consumers are past are deleted.
+ *
+ * <p>With sharding every database has its own outbox and cursors; the relay
+ * reads them all into the one ring and each event carries its database. One
+ * node at a time relays a database, the one holding its advisory lock; the
+ * others retry every poll-interval, and take over when it goes away.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String SELECT_EVENTS = "SELECT id, type, user_id, transaction_id, created_at"
+            + " FROM outbox_event WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String SELECT_MISSING = "SELECT id, type, user_id, transaction_id, created_at"
+            + " FROM outbox_event WHERE id IN (%s)";
+    // Missing ids rechecked per query, and tracked at most per database
+    private static final int MISSING_PER_QUERY = 500;
+    private static final int MAX_MISSING = 10_000;
+    // Recheck interval while waiting for a gap to fill
+    private static final long GAP_RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long RING_FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final OutboxProperties properties;
+    // Times the gaps; the metrics clock, so tests can stand in a mock one
+    private final Clock clock;
+    private final List<Source> sources = new ArrayList<>();
+    private final EventRing ring;
+    private final List<Worker> workers = new ArrayList<>();
+    private final Counter relayed;
+    private final Counter late;
+    private final Counter abandoned;
+    private final Thread relay;
+    private volatile boolean running;
+
+    // Relay thread only
+    private long nextSequence;
+    private long lastPrune;
+
+    public OutboxRelay(OutboxProperties properties, Shards shards, ObjectProvider<OutboxConsumer> consumers,
+            MeterRegistry meterRegistry, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        for (String shard : shards.names()) {
+            sources.add(new Source(sources.size(), shard, shards.dataSource(shard), shards.jdbc(shard)));
+        }
+        List<OutboxConsumer> registered = consumers.orderedStream().toList();
+        this.ring = new EventRing(properties.getRingSize(), registered.size());
+        for (OutboxConsumer consumer : registered) {
+            workers.add(new Worker(consumer, ring.cursor(workers.size()), meterRegistry));
+        }
+        this.relayed = Counter.builder("bankverte.outbox.relayed")
+                .description("Outbox events moved into the ring")
+                .register(meterRegistry);
+        this.late = Counter.builder("bankverte.outbox.late")
+                .description("Outbox events relayed after the relay had moved past their id")
+                .register(meterRegistry);
+        this.abandoned = Counter.builder("bankverte.outbox.abandoned")
+                .description("Missing outbox ids given up on as rolled back")
+                .register(meterRegistry);
+        Gauge.builder("bankverte.outbox.missing", sources, list -> list.stream().mapToInt(x -> x.missingCount).sum())
+                .description("Outbox ids the relay moved past and still waits for")
+                .register(meterRegistry);
+        this.relay = new Thread(this::run, "outbox-relay");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!properties.isRelay()) {
+            return;
+        }
+        lastPrune = System.nanoTime();
+
+        running = true;
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+        relay.start();
+        log.info("Outbox relay started for consumers {}", workers.stream().map(w -> w.consumer.name()).toList());
+    }
+
+    @TransactionalEventListener
+    public void onTransactionCommitted(TransactionCreatedEvent event) {
+        if (running) {
+            LockSupport.unpark(relay);
+        }
+    }
+
+    private void run() {
+        long pollNanos = properties.getPollInterval().toNanos();
+        long pruneNanos = properties.getPruneInterval().toNanos();
+        while (running) {
+            boolean more = false;
+            boolean gap = false;
+            boolean prune = System.nanoTime() - lastPrune > pruneNanos;
+            for (Source source : sources) {
+                try {
+                    more |= source.poll();
+                    if (prune) {
+                        source.prune();
+                    }
+                } catch (DataAccessException e) {
+                    log.warn("Could not read the outbox of {}: {}", source.name, e.toString());
+                }
+                gap |= source.gapSince != 0;
+            }
+            if (prune) {
+                lastPrune = System.nanoTime();
+            }
+            if (!more) {
+                LockSupport.parkNanos(this, gap ? GAP_RECHECK_NANOS : pollNanos);
+            }
+        }
+        sources.forEach(Source::stepDown);
+        // Let the consumers drain what was published and stop
+        workers.forEach(w -> LockSupport.unpark(w.thread));
+    }
+
+    private void publish() {
+        if (nextSequence - 1 > ring.published()) {
+            ring.publish(nextSequence - 1);
+            for (Worker worker : workers) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(relay);
+        relay.join(TimeUnit.SECONDS.toMillis(10));
+        for (Worker worker : workers) {
+            worker.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * The outbox of one database.
+     */
+    private final class Source {
+
+        final int index;
+        final String name;
+        final DataSource dataSource;
+        final JdbcTemplate jdbcTemplate;
+        // Relay thread only
+        Connection lock; // holds the advisory lock while this node relays the database
+        boolean postgres;
+        long lastId;
+        long gapSince;
+        int fetched;
+        boolean blocked;
+        // Ids moved past and not seen yet, each with the horizon after which it is given up on:
+        // an xid on Postgres, a monotonic clock deadline elsewhere
+        final TreeMap<Long, Long> missing = new TreeMap<>();
+        volatile int missingCount;
+
+        Source(int index, String name, DataSource dataSource, JdbcTemplate jdbcTemplate) {
+            this.index = index;
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        /**
+         * Whether this node relays the database, taking it over when no
+         * other node does.
+         */
+        private boolean lead() {
+            if (lock != null) {
+                return true;
+            }
+            Connection connection = null;
+            try {
+                connection = dataSource.getConnection();
+                if (!AdvisoryLocks.tryLock(connection, AdvisoryLocks.OUTBOX_RELAY)) {
+                    connection.close();
+                    return false;
+                }
+                postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+                lock = connection;
+                start();
+                log.info("Relaying the outbox of {} after id {}", name, lastId);
+                return true;
+            } catch (SQLException | DataAccessException e) {
+                log.warn("Could not take over the outbox of {}: {}", name, e.toString());
+                close(connection);
+                lock = null;
+                return false;
+            }
+        }
+
+        /**
+         * Lets another node take the database over; this one may again on
+         * its next poll.
+         */
+        void stepDown() {
+            if (lock == null) {
+                return;
+            }
+            close(lock);
+            lock = null;
+            missing.clear();
+            missingCount = 0;
+            gapSince = 0;
+        }
+
+        private void start() {
+            Map<String, Long> positions = new HashMap<>();
+            jdbcTemplate.query("SELECT consumer, position FROM outbox_cursor",
+                    (ResultSet rs) -> {
+                        positions.put(rs.getString(1), rs.getLong(2));
+                    });
+            // A new consumer starts at the oldest event still kept for the others
+            long oldest = positions.values().stream().mapToLong(Long::longValue).min().orElse(0);
+            lastId = Long.MAX_VALUE;
+            for (Worker worker : workers) {
+                Long position = positions.get(worker.consumer.name());
+                if (position == null) {
+                    position = oldest;
+                    jdbcTemplate.update("INSERT INTO outbox_cursor (consumer, position) VALUES (?, ?)",
+                            worker.consumer.name(), position);
+                }
+                worker.positions.set(index, position);
+                lastId = Math.min(lastId, position);
+            }
+            if (workers.isEmpty()) {
+                lastId = oldest;
+            }
+        }
+
+        /**
+         * Publishes the next committed rows; true when there may be more.
+         */
+        boolean poll() {
+            if (!lead()) {
+                return false;
+            }
+            try {
+                if (!lock.isValid(1)) {
+                    // Lost with the connection, e.g. when the database restarted
+                    stepDown();
+                    return false;
+                }
+            } catch (SQLException e) {
+                stepDown();
+                return false;
+            }
+            if (!missing.isEmpty()) {
+                recheck();
+            }
+            fetched = 0;
+            blocked = false;
+            jdbcTemplate.query(SELECT_EVENTS, this::relayRow, lastId, properties.getFetchSize());
+            publish();
+            return fetched == properties.getFetchSize() && !blocked;
+        }
+
+        private void relayRow(ResultSet rs) throws SQLException {
+            fetched++;
+            if (blocked) {
+                return;
+            }
+            long id = rs.getLong(1);
+            if (id != lastId + 1) {
+                long now = clock.monotonicTime();
+                if (gapSince == 0) {
+                    gapSince = now;
+                }
+                if (now - gapSince < properties.getGapTimeout().toNanos()) {
+                    blocked = true;
+                    return;
+                }
+                remember(lastId + 1, id - 1);
+            }
+            gapSince = 0;
+            if (relay(rs, id)) {
+                lastId = id;
+            }
+        }
+
+        /**
+         * Moves one row into the ring; false when the relay is stopping.
+         */
+        private boolean relay(ResultSet rs, long id) throws SQLException {
+            OutboxRecord slot;
+            while ((slot = ring.claim(nextSequence)) == null) {
+                // Ring full: hand over what is filled and wait for the slowest consumer
+                publish();
+                if (!running) {
+                    blocked = true;
+                    return false;
+                }
+                LockSupport.parkNanos(this, RING_FULL_WAIT_NANOS);
+            }
+            slot.id = id;
+            slot.shardIndex = index;
+            slot.shard = name;
+            slot.type = OutboxEvent.Type.valueOf(rs.getString(2));
+            slot.userId = rs.getInt(3);
+            slot.transactionId = rs.getInt(4);
+            slot.createdAtMillis = rs.getTimestamp(5).getTime();
+            // Missing ids are all below the one relayed in order, and below lastId once late
+            slot.watermark = missing.isEmpty() ? Math.max(id, lastId) : missing.firstKey() - 1;
+            nextSequence++;
+            relayed.increment();
+            return true;
+        }
+
+        /**
+         * Tracks the ids of a gap the relay moves past.
+         */
+        private void remember(long from, long to) {
+            long horizon = postgres
+                    ? jdbcTemplate.queryForObject("SELECT pg_snapshot_xmax(pg_current_snapshot())::text::bigint",
+                            Long.class)
+                    : clock.monotonicTime() + properties.getGapMaxAge().toNanos();
+            long kept = Math.min(to, from + MAX_MISSING - missing.size() - 1);
+            for (long id = from; id <= kept; id++) {
+                missing.put(id, horizon);
+            }
+            if (kept < to) {
+                abandoned.increment(to - kept);
+                log.warn("Outbox ids {} to {} of {} given up on: too many missing ids", kept + 1, to, name);
+            }
+            missingCount = missing.size();
+        }
+
+        /**
+         * Relays the missing ids that committed since, and gives up on the
+         * ones no running transaction can still insert.
+         */
+        private void recheck() {
+            // Read before the rows: a transaction finished by then has its row visible to the query
+            long horizon = postgres
+                    ? jdbcTemplate.queryForObject("SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint",
+                            Long.class)
+                    : clock.monotonicTime();
+            List<Long> ids = new ArrayList<>(Math.min(missing.size(), MISSING_PER_QUERY));
+            for (Long id : missing.keySet()) {
+                if (ids.size() == MISSING_PER_QUERY) {
+                    break;
+                }
+                ids.add(id);
+            }
+            jdbcTemplate.query(String.format(SELECT_MISSING, String.join(",", Collections.nCopies(ids.size(), "?"))),
+                    (ResultSet rs) -> {
+                        long id = rs.getLong(1);
+                        Long gaveUpAt = missing.remove(id);
+                        if (gaveUpAt != null && relay(rs, id)) {
+                            late.increment();
+                        } else if (gaveUpAt != null) {
+                            missing.put(id, gaveUpAt);
+                        }
+                    }, ids.toArray());
+            for (Long id : ids) {
+                Long gaveUpAt = missing.get(id);
+                // xmin: every transaction older than the gap has ended; else the deadline passed
+                if (gaveUpAt != null && (postgres ? horizon >= gaveUpAt : horizon - gaveUpAt >= 0)) {
+                    missing.remove(id);
+                    abandoned.increment();
+                    log.debug("Outbox id {} of {} given up on as rolled back", id, name);
+                }
+            }
+            missingCount = missing.size();
+        }
+
+        void prune() {
+            if (lock == null) {
+                return;
+            }
+            long processed = Long.MAX_VALUE;
+            for (Worker worker : workers) {
+                processed = Math.min(processed, worker.positions.get(index));
+            }
+            if (workers.isEmpty()) {
+                processed = missing.isEmpty() ? lastId : missing.firstKey() - 1;
+            }
+            int deleted = jdbcTemplate.update("DELETE FROM outbox_event WHERE id <= ?", processed);
+            log.debug("Pruned {} outbox events of {} up to id {}", deleted, name, processed);
+        }
+    }
+
+    private static void close(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Could not close an outbox lock connection: {}", e.toString());
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        final OutboxConsumer consumer;
+        final EventRing.Cursor cursor;
+        final Thread thread;
+        final Timer batch;
+        final Counter skipped;
+        // Outbox id up to which every event was processed or given up on, per database
+        final AtomicLongArray positions = new AtomicLongArray(sources.size());
+        // Highest watermark of the current batch per database, consumer thread only
+        final long[] batchEnd = new long[sources.size()];
+
+        Worker(OutboxConsumer consumer, EventRing.Cursor cursor, MeterRegistry meterRegistry) {
+            this.consumer = consumer;
+            this.cursor = cursor;
+            this.thread = new Thread(this, "outbox-" + consumer.name());
+            this.batch = Timer.builder("bankverte.outbox.batch").tag("consumer", consumer.name())
+                    .description("Time a consumer takes for one batch of events")
+                    .register(meterRegistry);
+            this.skipped = Counter.builder("bankverte.outbox.skipped").tag("consumer", consumer.name())
+                    .description("Events given up on after max-attempts failed batches")
+                    .register(meterRegistry);
+            Gauge.builder("bankverte.outbox.lag", this, w -> ring.published() - w.cursor.sequence)
+                    .tag("consumer", consumer.name())
+                    .description("Events published to the ring and not processed yet")
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void run() {
+            long pollNanos = properties.getPollInterval().toNanos();
+            long delayNanos = properties.getBatchDelay().toNanos();
+            int maxBatch = properties.getMaxConsumerBatch();
+            int attempts = 0;
+            while (true) {
+                long next = cursor.sequence + 1;
+                long available = ring.published();
+                if (available < next) {
+                    if (!running) {
+                        return;
+                    }
+                    LockSupport.parkNanos(this, pollNanos);
+                    continue;
+                }
+                if (attempts == 0 && delayNanos > 0) {
+                    available = gather(next, available, System.nanoTime() + delayNanos, maxBatch);
+                }
+                long end = Math.min(available, next + maxBatch - 1);
+                long endId = ring.get(end).id;
+                Arrays.fill(batchEnd, -1);
+                for (long sequence = next; sequence <= end; sequence++) {
+                    OutboxRecord event = ring.get(sequence);
+                    batchEnd[event.shardIndex] = Math.max(batchEnd[event.shardIndex], event.watermark);
+                }
+                long started = System.nanoTime();
+                try {
+                    // After a restart or takeover the first events may be ones this consumer already did
+                    for (long sequence = next; sequence <= end; sequence++) {
+                        OutboxRecord event = ring.get(sequence);
+                        if (event.id > positions.get(event.shardIndex)) {
+                            consumer.onEvent(event, sequence == end);
+                        }
+                    }
+                    batch.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                } catch (Exception e) {
+                    if (++attempts < properties.getMaxAttempts()) {
+                        log.warn("Outbox consumer {} failed on events up to id {}, retrying: {}",
+                                consumer.name(), endId, e.toString());
+                        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100L * attempts));
+                        continue;
+                    }
+                    skipped.increment(end - next + 1);
+                    log.error("Outbox consumer {} skipped events up to id {}", consumer.name(), endId, e);
+                }
+                attempts = 0;
+                for (Source source : sources) {
+                    if (batchEnd[source.index] > positions.get(source.index)) {
+                        store(source, batchEnd[source.index]);
+                    }
+                }
+                cursor.sequence = end;
+            }
+        }
+
+        /**
+         * Waits until {@code deadline} or a full batch, whichever comes first.
+         */
+        private long gather(long next, long available, long deadline, int maxBatch) {
+            long left;
+            while (running && available - next + 1 < maxBatch && (left = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, left);
+                available = ring.published();
+            }
+            return available;
+        }
+
+        private void store(Source source, long id) {
+            positions.set(source.index, id);
+            try {
+                source.jdbcTemplate.update("UPDATE outbox_cursor SET position = ? WHERE consumer = ?", id,
+                        consumer.name());
+            } catch (DataAccessException e) {
+                // Stored with the next batch; until then a restart repeats these events
+                log.warn("Could not store the position of outbox consumer {} on {}: {}", consumer.name(),
+                        source.name, e.toString());
+            }
+        }
+    }
+}
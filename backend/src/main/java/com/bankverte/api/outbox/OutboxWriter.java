@@ -0,0 +1,28 @@
+package com.bankverte.api.outbox;
+
+import com.bankverte.api.transaction.TransactionCreatedEvent;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records new transactions in the outbox, in the write transaction, so an
+ * event exists exactly when its transaction committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final EntityManager entityManager;
+
+    @EventListener
+    public void onTransactionCreated(TransactionCreatedEvent event) {
+        entityManager.persist(OutboxEvent.builder()
+                .type(OutboxEvent.Type.TRANSACTION_CREATED)
+                .userId(event.userId())
+                .transactionId(event.transaction().getId())
+                .createdAt(event.transaction().getCreatedAt())
+                .build());
+    }
+}
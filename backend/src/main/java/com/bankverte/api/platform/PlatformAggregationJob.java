@@ -0,0 +1,254 @@
+package com.bankverte.api.platform;
+
+import com.bankverte.api.insight.CarbonMonthTotal;
+import com.bankverte.api.sharding.Shards;
+import com.bankverte.api.transaction.TransactionCategory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Aggregates the monthly counters of every user into a {@link PlatformSnapshot}.
+ * The user id range is split across a fork-join pool, each leaf scanning its
+ * slice in one query; partial results merge on the way up and the sorted
+ * snapshot replaces the previous one atomically. With sharding every
+ * database is split this way at the same time and the results merged; a
+ * user moved during a run may count twice or not at all until the next.
+ */
+@Slf4j
+@Component
+public class PlatformAggregationJob {
+
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+
+    private final Shards shards;
+    private final PlatformProperties properties;
+    private final ForkJoinPool pool;
+    private final ScheduledExecutorService scheduler;
+    private final Timer succeeded;
+    private final Timer failed;
+    // Not synchronized: a virtual thread blocking on JDBC inside a monitor pins its carrier
+    private final ReentrantLock running = new ReentrantLock();
+    private volatile PlatformSnapshot snapshot;
+
+    public PlatformAggregationJob(Shards shards, PlatformProperties properties, MeterRegistry meterRegistry) {
+        this.shards = shards;
+        this.properties = properties;
+        this.pool = new ForkJoinPool(properties.getParallelism());
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("platform-");
+        threads.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threads);
+        this.succeeded = Timer.builder("bankverte.platform.aggregation").tag("outcome", "success")
+                .description("Runs of the platform-wide aggregation job").register(meterRegistry);
+        this.failed = Timer.builder("bankverte.platform.aggregation").tag("outcome", "failure")
+                .description("Runs of the platform-wide aggregation job").register(meterRegistry);
+        Gauge.builder("bankverte.platform.users", this, job -> job.snapshot != null ? job.snapshot.userCount() : 0)
+                .description("Users ranked in the current platform snapshot")
+                .register(meterRegistry);
+
+        if (properties.isEnabled()) {
+            scheduler.scheduleWithFixedDelay(this::refreshQuietly, properties.getInitialDelay().toMillis(),
+                    properties.getRefreshInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Optional<PlatformSnapshot> current() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Runs the aggregation now and publishes its result.
+     */
+    public PlatformSnapshot refresh() throws SQLException {
+        running.lock();
+        long started = System.nanoTime();
+        try {
+            PlatformSnapshot next = aggregate();
+            snapshot = next;
+            long elapsed = System.nanoTime() - started;
+            succeeded.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Platform snapshot of {} users computed in {} ms", next.userCount(), elapsed / 1_000_000);
+            return next;
+        } catch (SQLException | RuntimeException e) {
+            failed.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Platform aggregation failed: {}", e.toString());
+        }
+    }
+
+    private PlatformSnapshot aggregate() throws SQLException {
+        YearMonth rankTo = YearMonth.now();
+        YearMonth rankFrom = rankTo.minusMonths(properties.getRankMonths() - 1);
+        List<Partial> partials = shards.fanOut(shard -> {
+            DataSource dataSource = shards.dataSource(shard);
+            try {
+                int[] userIds = userIdRange(dataSource);
+                return userIds == null
+                        ? new Partial()
+                        : pool.invoke(new Slice(dataSource, userIds[0], userIds[1] + 1,
+                                CarbonMonthTotal.key(rankFrom), CarbonMonthTotal.key(rankTo)));
+            } catch (SQLException e) {
+                throw new IllegalStateException("Aggregating shard " + shard, e);
+            }
+        });
+        Partial result = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            result.merge(partials.get(i));
+        }
+
+        double[] totals = Arrays.copyOf(result.userTotals, result.users);
+        Arrays.sort(totals);
+        return new PlatformSnapshot(Instant.now(), rankFrom, rankTo, totals, result.monthTotals);
+    }
+
+    private int[] userIdRange(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT MIN(user_id), MAX(user_id) FROM carbon_month_total")) {
+            rs.next();
+            int min = rs.getInt(1);
+            return rs.wasNull() ? null : new int[] { min, rs.getInt(2) };
+        }
+    }
+
+    /**
+     * Users with an id in {@code [fromUserId, toUserId)}.
+     */
+    private final class Slice extends RecursiveTask<Partial> {
+
+        private final DataSource dataSource;
+        private final int fromUserId;
+        private final int toUserId;
+        private final int rankFrom;
+        private final int rankTo;
+
+        Slice(DataSource dataSource, int fromUserId, int toUserId, int rankFrom, int rankTo) {
+            this.dataSource = dataSource;
+            this.fromUserId = fromUserId;
+            this.toUserId = toUserId;
+            this.rankFrom = rankFrom;
+            this.rankTo = rankTo;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (toUserId - fromUserId <= properties.getPartitionSize()) {
+                try {
+                    return scan();
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Scanning users " + fromUserId + ".." + toUserId, e);
+                }
+            }
+            int middle = (fromUserId + toUserId) >>> 1;
+            Slice left = new Slice(dataSource, fromUserId, middle, rankFrom, rankTo);
+            left.fork();
+            Partial right = new Slice(dataSource, middle, toUserId, rankFrom, rankTo).compute();
+            return left.join().merge(right);
+        }
+
+        private Partial scan() throws SQLException {
+            Partial partial = new Partial();
+            try (Connection connection = dataSource.getConnection();
+                    PreparedStatement select = connection.prepareStatement(
+                            "SELECT user_id, year_month, category, co2 FROM carbon_month_total "
+                                    + "WHERE user_id >= ? AND user_id < ? ORDER BY user_id")) {
+                select.setInt(1, fromUserId);
+                select.setInt(2, toUserId);
+                try (ResultSet rs = select.executeQuery()) {
+                    int userId = -1;
+                    double userTotal = 0;
+                    boolean ranked = false;
+                    while (rs.next()) {
+                        int rowUser = rs.getInt(1);
+                        if (rowUser != userId) {
+                            if (ranked) {
+                                partial.addUser(userTotal);
+                            }
+                            userId = rowUser;
+                            userTotal = 0;
+                            ranked = false;
+                        }
+                        int yearMonth = rs.getInt(2);
+                        TransactionCategory category = TransactionCategory.valueOf(rs.getString(3));
+                        double co2 = rs.getDouble(4);
+                        partial.monthTotals.computeIfAbsent(yearMonth, m -> new double[CATEGORIES.length])
+                                [category.ordinal()] += co2;
+                        if (yearMonth >= rankFrom && yearMonth <= rankTo) {
+                            userTotal += co2;
+                            ranked = true;
+                        }
+                    }
+                    if (ranked) {
+                        partial.addUser(userTotal);
+                    }
+                }
+            }
+            return partial;
+        }
+    }
+
+    private static final class Partial {
+        double[] userTotals = new double[64];
+        int users;
+        final SortedMap<Integer, double[]> monthTotals = new TreeMap<>();
+
+        void addUser(double total) {
+            if (users == userTotals.length) {
+                userTotals = Arrays.copyOf(userTotals, users * 2);
+            }
+            userTotals[users++] = total;
+        }
+
+        Partial merge(Partial other) {
+            for (int i = 0; i < other.users; i++) {
+                addUser(other.userTotals[i]);
+            }
+            other.monthTotals.forEach((month, totals) -> {
+                double[] mine = monthTotals.computeIfAbsent(month, m -> new double[CATEGORIES.length]);
+                for (int i = 0; i < totals.length; i++) {
+                    mine[i] += totals[i];
+                }
+            });
+            return this;
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,9 @@
+package com.bankverte.api.platform;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PlatformProperties.class)
+public class PlatformConfiguration {
+}
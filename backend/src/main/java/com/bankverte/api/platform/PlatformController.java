@@ -0,0 +1,56 @@
+package com.bankverte.api.platform;
+
+import com.bankverte.api.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Platform-wide figures from the latest aggregation run. Kept out of
+ * /api/analytics: they change with other users' data, which the per-user
+ * ETags do not track.
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class PlatformController {
+
+        private final PlatformService platformService;
+        private final PlatformAggregationJob aggregationJob;
+
+        @GetMapping("/platform/rank")
+        public ResponseEntity<?> getRank(@AuthenticationPrincipal User user) {
+                return platformService.rank(user.getId())
+                                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                                .orElseGet(() -> ResponseEntity.noContent().build());
+        }
+
+        /**
+         * @param from first month, yyyy-MM
+         * @param to last month, yyyy-MM
+         */
+        @GetMapping("/admin/platform")
+        public ResponseEntity<?> getReport(
+                        @RequestParam(required = false) String from,
+                        @RequestParam(required = false) String to) {
+
+                try {
+                        return platformService.report(from != null ? YearMonth.parse(from) : null,
+                                        to != null ? YearMonth.parse(to) : null)
+                                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                                        .orElseGet(() -> ResponseEntity.noContent().build());
+                } catch (DateTimeParseException e) {
+                        return ResponseEntity.badRequest().build();
+                }
+        }
+
+        @PostMapping("/admin/platform/refresh")
+        public ResponseEntity<?> refresh() throws SQLException {
+                return ResponseEntity.ok(PlatformService.report(aggregationJob.refresh(), null, null));
+        }
+}
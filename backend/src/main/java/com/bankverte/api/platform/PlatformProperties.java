@@ -0,0 +1,36 @@
+package com.bankverte.api.platform;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.platform")
+public class PlatformProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Delay before the first snapshot, then between the end of one run and
+     * the start of the next.
+     */
+    private Duration initialDelay = Duration.ofSeconds(30);
+    private Duration refreshInterval = Duration.ofHours(1);
+
+    /**
+     * Workers of the aggregation pool. Each holds a pooled connection while
+     * it scans, so keep this well below the connection pool size.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Width of the user id range one worker scans in a single query.
+     */
+    private int partitionSize = 512;
+
+    /**
+     * Months, up to the current one, that the per-user ranking covers.
+     */
+    private int rankMonths = 12;
+}
@@ -0,0 +1,19 @@
+package com.bankverte.api.platform;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlatformRank {
+    private Double totalCO2; // the caller's, over rankFrom..rankTo
+    private Double lowerThanPercentOfUsers; // share of users emitting more
+    private Integer userCount;
+    private String rankFrom;
+    private String rankTo;
+    private String computedAt;
+}
@@ -0,0 +1,32 @@
+package com.bankverte.api.platform;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlatformReport {
+    private String computedAt;
+    private Integer userCount;
+    private Double totalCO2;
+    private Map<String, Double> byCategory;
+    private List<MonthTotal> months;
+    private Map<String, Double> userTotalPercentiles; // p10..p90 of per-user totals over the rank window
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MonthTotal {
+        private String month; // yyyy-MM
+        private Double totalCO2;
+        private Map<String, Double> byCategory;
+    }
+}
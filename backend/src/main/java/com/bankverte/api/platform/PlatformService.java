@@ -0,0 +1,104 @@
+package com.bankverte.api.platform;
+
+import com.bankverte.api.insight.CarbonMonthTotal;
+import com.bankverte.api.insight.CarbonMonthTotalRepository;
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads of the latest {@link PlatformSnapshot}. Empty until the first
+ * aggregation run completed.
+ */
+@Service
+@RequiredArgsConstructor
+public class PlatformService {
+
+    private static final double[] PERCENTILES = { 0.1, 0.25, 0.5, 0.75, 0.9 };
+
+    private final PlatformAggregationJob aggregationJob;
+    private final CarbonMonthTotalRepository carbonMonthTotalRepository;
+
+    /**
+     * Where the user's current total over the snapshot's window falls among
+     * the totals of all users at the time of the snapshot.
+     */
+    public Optional<PlatformRank> rank(Integer userId) {
+        return aggregationJob.current().map(snapshot -> {
+            List<Integer> months = new ArrayList<>();
+            for (YearMonth m = snapshot.rankFrom(); !m.isAfter(snapshot.rankTo()); m = m.plusMonths(1)) {
+                months.add(CarbonMonthTotal.key(m));
+            }
+            double total = carbonMonthTotalRepository.findByUserIdAndYearMonthIn(userId, months).stream()
+                    .mapToDouble(CarbonMonthTotal::getCo2)
+                    .sum();
+            return PlatformRank.builder()
+                    .totalCO2(round(total))
+                    .lowerThanPercentOfUsers(Math.round(snapshot.percentEmittingMore(total) * 10.0) / 10.0)
+                    .userCount(snapshot.userCount())
+                    .rankFrom(snapshot.rankFrom().toString())
+                    .rankTo(snapshot.rankTo().toString())
+                    .computedAt(snapshot.computedAt().toString())
+                    .build();
+        });
+    }
+
+    /**
+     * Platform totals of the months in {@code from..to}, both optional.
+     */
+    public Optional<PlatformReport> report(YearMonth from, YearMonth to) {
+        return aggregationJob.current().map(snapshot -> report(snapshot, from, to));
+    }
+
+    static PlatformReport report(PlatformSnapshot snapshot, YearMonth from, YearMonth to) {
+        Map<String, Double> byCategory = new LinkedHashMap<>();
+        List<PlatformReport.MonthTotal> months = new ArrayList<>();
+        double total = 0;
+        for (int key : snapshot.months()) {
+            YearMonth month = YearMonth.of(key / 100, key % 100);
+            if ((from != null && month.isBefore(from)) || (to != null && month.isAfter(to))) {
+                continue;
+            }
+            Map<String, Double> monthByCategory = new LinkedHashMap<>();
+            for (TransactionCategory category : TransactionCategory.values()) {
+                double co2 = snapshot.monthCo2(key, category);
+                if (co2 > 0) {
+                    monthByCategory.put(category.name(), round(co2));
+                    byCategory.merge(category.name(), co2, Double::sum);
+                }
+            }
+            double monthTotal = snapshot.monthCo2(key);
+            total += monthTotal;
+            months.add(PlatformReport.MonthTotal.builder()
+                    .month(month.toString())
+                    .totalCO2(round(monthTotal))
+                    .byCategory(monthByCategory)
+                    .build());
+        }
+        byCategory.replaceAll((category, co2) -> round(co2));
+
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double q : PERCENTILES) {
+            percentiles.put("p" + Math.round(q * 100), round(snapshot.userTotalQuantile(q)));
+        }
+        return PlatformReport.builder()
+                .computedAt(snapshot.computedAt().toString())
+                .userCount(snapshot.userCount())
+                .totalCO2(round(total))
+                .byCategory(byCategory)
+                .months(months)
+                .userTotalPercentiles(percentiles)
+                .build();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
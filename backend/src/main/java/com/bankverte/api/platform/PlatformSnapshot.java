@@ -0,0 +1,98 @@
+package com.bankverte.api.platform;
+
+import com.bankverte.api.transaction.TransactionCategory;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+
+/**
+ * Platform-wide totals as of one aggregation run. Never modified once
+ * published, so readers need no locking.
+ */
+public final class PlatformSnapshot {
+
+    private final Instant computedAt;
+    private final YearMonth rankFrom;
+    private final YearMonth rankTo;
+    // One total per active user over rankFrom..rankTo, ascending
+    private final double[] userTotals;
+    // yyyymm -> CO₂ per category ordinal
+    private final SortedMap<Integer, double[]> monthTotals;
+
+    PlatformSnapshot(Instant computedAt, YearMonth rankFrom, YearMonth rankTo, double[] userTotals,
+            SortedMap<Integer, double[]> monthTotals) {
+        this.computedAt = computedAt;
+        this.rankFrom = rankFrom;
+        this.rankTo = rankTo;
+        this.userTotals = userTotals;
+        this.monthTotals = Collections.unmodifiableSortedMap(monthTotals);
+    }
+
+    public Instant computedAt() {
+        return computedAt;
+    }
+
+    public YearMonth rankFrom() {
+        return rankFrom;
+    }
+
+    public YearMonth rankTo() {
+        return rankTo;
+    }
+
+    public int userCount() {
+        return userTotals.length;
+    }
+
+    /**
+     * Share of users, in percent, whose total is above {@code total}.
+     */
+    public double percentEmittingMore(double total) {
+        if (userTotals.length == 0) {
+            return 0;
+        }
+        // First index holding a larger total
+        int low = 0;
+        int high = userTotals.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (userTotals[mid] <= total) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return 100.0 * (userTotals.length - low) / userTotals.length;
+    }
+
+    /**
+     * The user total at rank {@code ceil(q * n)}, 0 without users.
+     */
+    public double userTotalQuantile(double q) {
+        if (userTotals.length == 0) {
+            return 0;
+        }
+        int rank = Math.max(1, (int) Math.ceil(q * userTotals.length));
+        return userTotals[rank - 1];
+    }
+
+    public double monthCo2(int yearMonth, TransactionCategory category) {
+        double[] totals = monthTotals.get(yearMonth);
+        return totals != null ? totals[category.ordinal()] : 0;
+    }
+
+    public double monthCo2(int yearMonth) {
+        double[] totals = monthTotals.get(yearMonth);
+        return totals != null ? Arrays.stream(totals).sum() : 0;
+    }
+
+    /**
+     * Months with any emissions, as yyyymm keys in ascending order.
+     */
+    public Iterable<Integer> months() {
+        return monthTotals.keySet();
+    }
+}
@@ -0,0 +1,40 @@
+package com.bankverte.api.recurring;
+
+/**
+ * Period of a recurring payment, with how many days early or late a payment
+ * may be and still be on it.
+ */
+public enum Cadence {
+    WEEKLY(7, 2),
+    BIWEEKLY(14, 3),
+    MONTHLY(30, 4),
+    QUARTERLY(91, 10),
+    YEARLY(365, 15);
+
+    // Days between payments beyond which no cadence fits
+    static final int LONGEST_GAP = 365 + 15;
+
+    private final int days;
+    private final int slack;
+
+    Cadence(int days, int slack) {
+        this.days = days;
+        this.slack = slack;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * The cadence a gap between two payments fits, null for none.
+     */
+    static Cadence of(long gapDays) {
+        for (Cadence cadence : values()) {
+            if (Math.abs(gapDays - cadence.days) <= cadence.slack) {
+                return cadence;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,226 @@
+package com.bankverte.api.recurring;
+
+import com.bankverte.api.insight.Backfills;
+import com.bankverte.api.sharding.AdvisoryLocks;
+import com.bankverte.api.sharding.Shards;
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the recurring series from the transaction table.
+ *
+ * <p>One ordered pass reads each user's transactions and groups them by
+ * merchant. Each merchant's payments then replay in date order through
+ * {@link RecurringSeries#record}, the rule the live updates follow, so the
+ * backfill ends where the live updates would have: O(n log n) for the sort,
+ * then a scan of the merchant's few series per payment. Expired series are
+ * not written.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecurringBackfill implements SmartInitializingSingleton {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final Shards shards;
+    private final RecurringProperties properties;
+
+    /**
+     * Runs on the first start after the series were introduced, before the
+     * web server accepts requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Backfills.onEveryShard(shards, AdvisoryLocks.RECURRING_BACKFILL, "Recurring series",
+                (shard, dataSource, connection) -> {
+                    if (!Backfills.isEmpty(connection, "recurring_series") || Backfills.isEmpty(connection, "transaction")) {
+                        return;
+                    }
+                    long started = System.nanoTime();
+                    connection.setAutoCommit(false);
+                    int rows = rebuild(connection, 0, properties);
+                    connection.commit();
+                    log.info("Backfilled {} recurring series on {} in {} ms", rows, shard,
+                            (System.nanoTime() - started) / 1_000_000);
+                });
+    }
+
+    /**
+     * Replaces the series of every user with an id from {@code firstUserId}
+     * on, skipping transactions the outbox has yet to fold in. Leaves
+     * committing to the caller.
+     *
+     * @return the number of series written
+     */
+    public static int rebuild(Connection connection, long firstUserId, RecurringProperties properties)
+            throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM recurring_series WHERE user_id >= ?")) {
+            delete.setLong(1, firstUserId);
+            delete.executeUpdate();
+        }
+
+        UserHistory history = new UserHistory(properties, LocalDate.now());
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT user_id, created_at, merchant, category, amount, carbon_footprint FROM transaction "
+                        + "WHERE user_id >= ? AND merchant IS NOT NULL AND amount IS NOT NULL AND derived_pending = false "
+                        + "ORDER BY user_id, created_at");
+                PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO recurring_series (user_id, merchant_key, series_no, merchant, category, "
+                                + "cadence, intervals, first_seen, last_seen, average_amount, average_co2) "
+                                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            select.setLong(1, firstUserId);
+            select.setFetchSize(10_000);
+            int userId = -1;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    int rowUser = rs.getInt(1);
+                    if (rowUser != userId) {
+                        history.flush(userId, insert);
+                        userId = rowUser;
+                    }
+                    String category = rs.getString(4);
+                    history.add(rs.getTimestamp(2).toLocalDateTime().toLocalDate(), rs.getString(3),
+                            category != null ? TransactionCategory.valueOf(category) : null, rs.getDouble(5),
+                            rs.getObject(6) != null ? rs.getDouble(6) : 0.0);
+                }
+            }
+            history.flush(userId, insert);
+            insert.executeBatch();
+            return history.written;
+        }
+    }
+
+    /**
+     * One user's transactions in date order, in parallel arrays.
+     */
+    private static final class UserHistory {
+
+        final RecurringProperties properties;
+        final LocalDate today;
+        // Merchant names repeat across users, normalise each once
+        final Map<String, String> merchantKeys = new HashMap<>();
+        LocalDate[] days = new LocalDate[256];
+        String[] merchants = new String[256];
+        String[] keys = new String[256];
+        TransactionCategory[] categories = new TransactionCategory[256];
+        double[] amounts = new double[256];
+        double[] co2 = new double[256];
+        int size;
+        int written;
+
+        UserHistory(RecurringProperties properties, LocalDate today) {
+            this.properties = properties;
+            this.today = today;
+        }
+
+        void add(LocalDate day, String merchant, TransactionCategory category, double amount, double rowCo2) {
+            String key = merchantKeys.computeIfAbsent(merchant, RecurringSeries::merchantKey);
+            if (key.isEmpty()) {
+                return;
+            }
+            if (size == days.length) {
+                int capacity = size * 2;
+                days = Arrays.copyOf(days, capacity);
+                merchants = Arrays.copyOf(merchants, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                co2 = Arrays.copyOf(co2, capacity);
+            }
+            days[size] = day;
+            merchants[size] = merchant;
+            keys[size] = key;
+            categories[size] = category;
+            amounts[size] = amount;
+            co2[size] = rowCo2;
+            size++;
+        }
+
+        void flush(int userId, PreparedStatement insert) throws SQLException {
+            if (size == 0) {
+                return;
+            }
+            // Stable: each merchant's rows stay in date order
+            Integer[] byMerchant = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                byMerchant[i] = i;
+            }
+            Arrays.sort(byMerchant, (a, b) -> keys[a].compareTo(keys[b]));
+
+            int start = 0;
+            while (start < size) {
+                String key = keys[byMerchant[start]];
+                int end = start + 1;
+                while (end < size && keys[byMerchant[end]].equals(key)) {
+                    end++;
+                }
+                write(userId, key, replay(userId, key, byMerchant, start, end), insert);
+                start = end;
+            }
+            size = 0;
+        }
+
+        private List<RecurringSeries> replay(int userId, String key, Integer[] rows, int start, int end) {
+            List<RecurringSeries> series = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                int row = rows[i];
+                RecurringSeries s = RecurringSeries.record(series, days[row], amounts[row], co2[row],
+                        properties.getAmountTolerance(), seriesNo ->
+                                RecurringSeries.builder().userId(userId).merchantKey(key).seriesNo(seriesNo).build());
+                s.setMerchant(merchants[row]);
+                s.setCategory(categories[row]);
+            }
+            return series;
+        }
+
+        private void write(int userId, String key, List<RecurringSeries> series, PreparedStatement insert)
+                throws SQLException {
+            // Keep what the live updates could still extend. Single payments are left out, they are
+            // most of the series and the live updates start one again from the next payment
+            List<RecurringSeries> kept = new ArrayList<>();
+            for (RecurringSeries s : series) {
+                if (s.getIntervals() > 0 && !s.isExpired(today, properties.getExpiryCadences())) {
+                    kept.add(s);
+                }
+            }
+            for (int seriesNo = 0; seriesNo < kept.size(); seriesNo++) {
+                RecurringSeries s = kept.get(seriesNo);
+                insert.setInt(1, userId);
+                insert.setString(2, key);
+                insert.setInt(3, seriesNo);
+                insert.setString(4, s.getMerchant());
+                insert.setString(5, s.getCategory() != null ? s.getCategory().name() : null);
+                insert.setString(6, s.getCadence() != null ? s.getCadence().name() : null);
+                insert.setInt(7, s.getIntervals());
+                insert.setDate(8, Date.valueOf(s.getFirstSeen()));
+                insert.setDate(9, Date.valueOf(s.getLastSeen()));
+                insert.setDouble(10, s.getAverageAmount());
+                insert.setDouble(11, s.getAverageCo2());
+                insert.addBatch();
+                if (++written % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+    }
+}
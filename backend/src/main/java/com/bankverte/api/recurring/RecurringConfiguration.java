@@ -0,0 +1,20 @@
+package com.bankverte.api.recurring;
+
+import com.bankverte.api.sharding.Shards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RecurringProperties.class)
+public class RecurringConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "bankverte.recurring.enabled", havingValue = "true", matchIfMissing = true)
+    public RecurringSeriesExpiry recurringSeriesExpiry(Shards shards, RecurringProperties properties,
+            MeterRegistry meterRegistry) {
+        return new RecurringSeriesExpiry(shards, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bankverte.api.recurring;
+
+import com.bankverte.api.analytics.dto.RecurringSpend;
+import com.bankverte.api.transaction.DerivedStateUpdater;
+import com.bankverte.api.transaction.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Adds each new transaction to the {@link RecurringSeries} of its merchant
+ * and amount, shortly after its commit: one read of the merchant's few
+ * series and one write, see
+ * {@link com.bankverte.api.transaction.DerivedStateConsumer}.
+ * {@link RecurringBackfill} builds the same series from history.
+ */
+@Component
+public class RecurringDetector implements DerivedStateUpdater {
+
+    private final RecurringProperties properties;
+    private final RecurringSeriesRepository repository;
+    private final EntityManager entityManager;
+    private final Counter detected;
+
+    public RecurringDetector(RecurringProperties properties, RecurringSeriesRepository repository,
+            EntityManager entityManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.detected = Counter.builder("bankverte.recurring.detected")
+                .description("Series that became recurring on a new transaction")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void apply(Transaction transaction) {
+        if (!properties.isEnabled() || transaction.getMerchant() == null || transaction.getAmount() == null) {
+            return;
+        }
+        Integer userId = transaction.getUser().getId();
+        String merchantKey = RecurringSeries.merchantKey(transaction.getMerchant());
+        if (merchantKey.isEmpty()) {
+            return;
+        }
+        LocalDate day = transaction.getCreatedAt().toLocalDate();
+        double amount = transaction.getAmount();
+        double co2 = transaction.getCarbonFootprint() != null ? transaction.getCarbonFootprint() : 0.0;
+
+        List<RecurringSeries> series = new ArrayList<>(repository.findByUserIdAndMerchantKey(userId,
+                merchantKey));
+        Set<Integer> recurring = series.stream().filter(s -> s.isRecurring(properties.getMinIntervals()))
+                .map(RecurringSeries::getSeriesNo).collect(Collectors.toSet());
+        RecurringSeries match = RecurringSeries.record(series, day, amount, co2, properties.getAmountTolerance(),
+                seriesNo -> {
+                    RecurringSeries created = RecurringSeries.builder()
+                            .userId(userId)
+                            .merchantKey(merchantKey)
+                            .seriesNo(seriesNo)
+                            .build();
+                    entityManager.persist(created);
+                    return created;
+                });
+        if (match.isRecurring(properties.getMinIntervals()) && !recurring.contains(match.getSeriesNo())) {
+            detected.increment();
+        }
+        match.setMerchant(transaction.getMerchant());
+        match.setCategory(transaction.getCategory());
+    }
+
+    /**
+     * The user's recurring payments still going on, most CO₂ a month first.
+     */
+    public List<RecurringSpend> active(Integer userId) {
+        LocalDate today = LocalDate.now();
+        return repository.findByUserIdAndIntervalsGreaterThanEqual(userId, properties.getMinIntervals()).stream()
+                .filter(s -> s.isRecurring(properties.getMinIntervals()) && s.isActive(today))
+                .sorted(Comparator.comparingDouble(RecurringSeries::monthlyCo2).reversed())
+                .map(RecurringDetector::toSpend)
+                .toList();
+    }
+
+    private static RecurringSpend toSpend(RecurringSeries series) {
+        return RecurringSpend.builder()
+                .merchant(series.getMerchant())
+                .category(series.getCategory() != null ? series.getCategory().name() : null)
+                .categoryDisplayName(series.getCategory() != null ? series.getCategory().getDisplayName() : null)
+                .cadence(series.getCadence().name())
+                .occurrences(series.getIntervals() + 1)
+                .averageAmount(Math.round(series.getAverageAmount() * 100.0) / 100.0)
+                .averageCO2(Math.round(series.getAverageCo2() * 100.0) / 100.0)
+                .monthlyCO2(Math.round(series.monthlyCo2() * 100.0) / 100.0)
+                .firstSeen(series.getFirstSeen())
+                .lastSeen(series.getLastSeen())
+                .nextExpected(series.nextExpected())
+                .build();
+    }
+}
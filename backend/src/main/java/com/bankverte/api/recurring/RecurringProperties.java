@@ -0,0 +1,33 @@
+package com.bankverte.api.recurring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.recurring")
+public class RecurringProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Payments to one merchant belong to the same series when their amounts
+     * differ by at most this share, e.g. a bill of 80 to 100 EUR.
+     */
+    private double amountTolerance = 0.25;
+
+    // Intervals on the same cadence before a series counts as recurring: 3 means 4 payments
+    private int minIntervals = 3;
+
+    // kg CO₂ a month below which a recurring series is not worth an insight
+    private double minMonthlyCo2 = 10.0;
+
+    /**
+     * Series whose next payment is this many periods overdue are deleted, as
+     * are single payments no cadence can extend any more.
+     */
+    private int expiryCadences = 3;
+
+    private Duration expiryInterval = Duration.ofHours(1);
+}
@@ -0,0 +1,68 @@
+package com.bankverte.api.recurring;
+
+import com.bankverte.api.analytics.dto.Insight;
+import com.bankverte.api.analytics.dto.RecurringSpend;
+import com.bankverte.api.insight.InsightContext;
+import com.bankverte.api.insight.InsightRule;
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The heaviest recurring payments, which add up without any single one
+ * standing out. Only applies to the persisted insight set, ranged requests
+ * have no user in context.
+ */
+@Component
+@Order(25)
+@RequiredArgsConstructor
+public class RecurringRule implements InsightRule {
+
+    private static final int MAX_INSIGHTS = 2;
+
+    private final RecurringDetector recurringDetector;
+    private final RecurringProperties properties;
+
+    @Override
+    public String name() {
+        return "recurring";
+    }
+
+    @Override
+    public void evaluate(InsightContext context, List<Insight> insights) {
+        if (context.getUserId() == null || !properties.isEnabled()) {
+            return;
+        }
+        recurringDetector.active(context.getUserId()).stream()
+                .filter(s -> s.getMonthlyCO2() >= properties.getMinMonthlyCo2())
+                .limit(MAX_INSIGHTS)
+                .forEach(spend -> insights.add(Insight.builder()
+                        .type(Insight.InsightType.RECOMMENDATION)
+                        .severity(Insight.InsightSeverity.INFO)
+                        .title("Recurring Emissions: " + spend.getMerchant())
+                        .message(String.format(
+                                "Your %s payments to %s emit about %.0f kg CO₂ a month, %.0f kg a year.",
+                                spend.getCadence().toLowerCase(Locale.ENGLISH), spend.getMerchant(),
+                                spend.getMonthlyCO2(), spend.getMonthlyCO2() * 12))
+                        .actionable(true)
+                        .suggestedAction(suggestion(spend))
+                        .build()));
+    }
+
+    private static String suggestion(RecurringSpend spend) {
+        if (spend.getCategory() == null) {
+            return "Check whether this recurring payment is still needed";
+        }
+        return switch (TransactionCategory.valueOf(spend.getCategory())) {
+            case ENERGY -> "Compare renewable tariffs for this contract";
+            case TRANSPORT_CAR -> "Try public transport or car-sharing for this regular trip";
+            case TRANSPORT_FLIGHT -> "Consider the train for this regular journey";
+            case FOOD_MEAT -> "Swap some of these regular purchases for plant-based options";
+            default -> "Check whether this recurring payment is still needed";
+        };
+    }
+}
@@ -0,0 +1,194 @@
+package com.bankverte.api.recurring;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Payments of one user to one merchant at a similar amount, and how regular
+ * they are so far. Each payment updates the row in O(1): a gap that fits the
+ * series' cadence extends it, any other gap restarts it from the last
+ * payment. A merchant has at most one series without an interval yet, the
+ * last payment that matched nothing. {@link #record} assigns a payment to a
+ * series, for the live updates and the backfill alike.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "recurring_series")
+@IdClass(RecurringSeries.Key.class)
+public class RecurringSeries {
+
+    private static final Pattern NOT_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final double DAYS_PER_MONTH = 30.44;
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Id
+    @Column(name = "merchant_key")
+    private String merchantKey; // see merchantKey()
+
+    @Id
+    private int seriesNo;
+
+    private String merchant; // as last seen
+
+    @Enumerated(EnumType.STRING)
+    private TransactionCategory category;
+
+    @Enumerated(EnumType.STRING)
+    private Cadence cadence; // null until two payments fit one
+
+    private int intervals; // consecutive gaps on the cadence
+
+    private LocalDate firstSeen;
+
+    private LocalDate lastSeen;
+
+    private double averageAmount;
+
+    private double averageCo2;
+
+    /**
+     * Merchant names as they are compared: without case, accents and
+     * punctuation, e.g. "EDF" and "edf." are the same merchant.
+     */
+    public static String merchantKey(String merchant) {
+        String folded = MARKS.matcher(Normalizer.normalize(merchant, Normalizer.Form.NFD)).replaceAll("");
+        return NOT_ALPHANUMERIC.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Adds a payment to the one of the merchant's series whose average
+     * amount it matches, the closest if several do. A payment matching none
+     * restarts the merchant's single payment, which {@code create} makes,
+     * given its series number, when there is none; it is added to the list.
+     *
+     * @param series the merchant's series, mutable
+     * @return the series the payment went to
+     */
+    static RecurringSeries record(List<RecurringSeries> series, LocalDate day, double amount, double co2,
+            double tolerance, IntFunction<RecurringSeries> create) {
+        RecurringSeries match = series.stream()
+                .filter(s -> s.matches(amount, tolerance))
+                .min(Comparator.comparingDouble(s -> Math.abs(s.averageAmount - amount)))
+                .orElse(null);
+        if (match != null) {
+            match.add(day, amount, co2);
+            return match;
+        }
+        RecurringSeries single = series.stream().filter(s -> s.intervals == 0).findFirst().orElse(null);
+        if (single == null) {
+            single = create.apply(series.stream().mapToInt(RecurringSeries::getSeriesNo).max().orElse(-1) + 1);
+            series.add(single);
+        }
+        single.restart(day, amount, co2);
+        return single;
+    }
+
+    boolean matches(double amount, double tolerance) {
+        return Math.abs(amount - averageAmount) <= tolerance * Math.max(averageAmount, 0.01);
+    }
+
+    /**
+     * Adds a payment on {@code day}, not before the last one.
+     */
+    void add(LocalDate day, double amount, double co2) {
+        long gap = ChronoUnit.DAYS.between(lastSeen, day);
+        if (gap < 0 || gap == 0 && intervals > 0) {
+            // Out of order, or a payment split over the same day
+            return;
+        }
+        Cadence fit = Cadence.of(gap);
+        if (fit != null && (fit == cadence || intervals == 0)) {
+            intervals++;
+            averageAmount += (amount - averageAmount) / (intervals + 1);
+            averageCo2 += (co2 - averageCo2) / (intervals + 1);
+        } else if (fit != null) {
+            // Same payments on a new cadence: keep the averages, count from the last one
+            intervals = 1;
+            firstSeen = lastSeen;
+            averageAmount = (averageAmount + amount) / 2;
+            averageCo2 = (averageCo2 + co2) / 2;
+        } else {
+            intervals = 0;
+            firstSeen = day;
+            averageAmount = amount;
+            averageCo2 = co2;
+        }
+        cadence = fit;
+        lastSeen = day;
+    }
+
+    /**
+     * Starts over from a single payment.
+     */
+    void restart(LocalDate day, double amount, double co2) {
+        cadence = null;
+        intervals = 0;
+        firstSeen = day;
+        lastSeen = day;
+        averageAmount = amount;
+        averageCo2 = co2;
+    }
+
+    public boolean isRecurring(int minIntervals) {
+        return cadence != null && intervals >= minIntervals;
+    }
+
+    /**
+     * False once two periods passed without a payment.
+     */
+    public boolean isActive(LocalDate today) {
+        return cadence != null && !lastSeen.plusDays(2L * cadence.getDays()).isBefore(today);
+    }
+
+    /**
+     * True once the next payment is more than {@code cadences} periods
+     * overdue, or, for a single payment, once no cadence could extend it.
+     */
+    boolean isExpired(LocalDate today, int cadences) {
+        LocalDate last = cadence != null ? lastSeen.plusDays((long) cadences * cadence.getDays())
+                : lastSeen.plusDays(Cadence.LONGEST_GAP);
+        return last.isBefore(today);
+    }
+
+    public LocalDate nextExpected() {
+        return lastSeen.plusDays(cadence.getDays());
+    }
+
+    public double monthlyCo2() {
+        return averageCo2 * DAYS_PER_MONTH / cadence.getDays();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Integer userId;
+        private String merchantKey;
+        private int seriesNo;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bankverte.api.recurring;
+
+import com.bankverte.api.sharding.Shards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes expired series on every database (see
+ * {@link RecurringSeries#isExpired}): payments that stopped would otherwise
+ * keep their rows forever, since only a new payment to the same merchant
+ * touches them.
+ */
+@Slf4j
+public class RecurringSeriesExpiry {
+
+    private final Shards shards;
+    private final RecurringProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final Counter expired;
+
+    public RecurringSeriesExpiry(Shards shards, RecurringProperties properties, MeterRegistry meterRegistry) {
+        this.shards = shards;
+        this.properties = properties;
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("recurring-expiry-");
+        threads.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threads);
+        this.expired = Counter.builder("bankverte.recurring.expired")
+                .description("Recurring series deleted once overdue")
+                .register(meterRegistry);
+
+        long interval = properties.getExpiryInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::expire, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    void expire() {
+        LocalDate today = LocalDate.now();
+        for (String shard : shards.names()) {
+            try {
+                int deleted = shards.jdbc(shard).update("DELETE FROM recurring_series WHERE cadence IS NULL "
+                        + "AND last_seen < ?", Date.valueOf(today.minusDays(Cadence.LONGEST_GAP)));
+                for (Cadence cadence : Cadence.values()) {
+                    long overdue = (long) properties.getExpiryCadences() * cadence.getDays();
+                    deleted += shards.jdbc(shard).update("DELETE FROM recurring_series WHERE cadence = ? "
+                            + "AND last_seen < ?", cadence.name(), Date.valueOf(today.minusDays(overdue)));
+                }
+                expired.increment(deleted);
+                log.debug("Expired {} recurring series on {}", deleted, shard);
+            } catch (DataAccessException e) {
+                log.warn("Could not expire recurring series on {}: {}", shard, e.toString());
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,12 @@
+package com.bankverte.api.recurring;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface RecurringSeriesRepository extends JpaRepository<RecurringSeries, RecurringSeries.Key> {
+
+    List<RecurringSeries> findByUserIdAndMerchantKey(Integer userId, String merchantKey);
+
+    List<RecurringSeries> findByUserIdAndIntervalsGreaterThanEqual(Integer userId, int intervals);
+}
@@ -0,0 +1,399 @@
+package com.bankverte.api.report;
+
+import com.bankverte.api.analytics.AnalyticsAggregator;
+import com.bankverte.api.insight.CarbonMonthTotal;
+import com.bankverte.api.sharding.Shards;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCategory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes every user's statement of a past month to the {@link ReportStore}.
+ *
+ * <p>One reader per database streams the month's transactions ordered by
+ * user, next to the previous month's totals in the same order, and hands
+ * them to a fixed pool in chunks of users. The reader waits when
+ * queued-chunks chunks are pending, so memory stays bounded whatever the
+ * number of users. Workers build each statement with the same
+ * {@link AnalyticsAggregator} code as the analytics endpoints and write it.
+ * Users whose statement exists are skipped, so a failed or interrupted run
+ * picks up where it stopped. Users without transactions that month get no
+ * statement, and months already archived are not read.
+ */
+@Slf4j
+@Component
+public class MonthlyReportJob {
+
+    private static final String SELECT_TRANSACTIONS = "SELECT user_id, id, created_at, description, amount, "
+            + "currency, category, carbon_footprint, merchant FROM transaction "
+            + "WHERE created_at >= ? AND created_at < ? ORDER BY user_id, created_at DESC";
+    private static final String SELECT_PREVIOUS_TOTALS = "SELECT user_id, SUM(co2) FROM carbon_month_total "
+            + "WHERE year_month = ? GROUP BY user_id ORDER BY user_id";
+    private static final String[] STAGES = { "read", "compute", "render", "write" };
+
+    private final Shards shards;
+    private final ReportProperties properties;
+    private final ReportStore store;
+    private final AnalyticsAggregator aggregator;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Timer> stageTimers = new LinkedHashMap<>();
+    private final Counter written;
+    private final Counter failed;
+    // Not synchronized: a virtual thread blocking on JDBC inside a monitor pins its carrier
+    private final ReentrantLock running = new ReentrantLock();
+    private volatile ReportRun lastRun;
+
+    public MonthlyReportJob(Shards shards, ReportProperties properties, ReportStore store,
+            AnalyticsAggregator aggregator, MeterRegistry meterRegistry) {
+        this.shards = shards;
+        this.properties = properties;
+        this.store = store;
+        this.aggregator = aggregator;
+        CustomizableThreadFactory workerThreads = new CustomizableThreadFactory("report-");
+        workerThreads.setDaemon(true);
+        this.workers = new ThreadPoolExecutor(properties.getParallelism(), properties.getParallelism(), 0,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), workerThreads);
+        CustomizableThreadFactory schedulerThreads = new CustomizableThreadFactory("report-scheduler-");
+        schedulerThreads.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreads);
+        for (String stage : STAGES) {
+            stageTimers.put(stage, Timer.builder("bankverte.report.stage").tag("stage", stage)
+                    .description("Time monthly statements spend in each stage, per chunk of users")
+                    .register(meterRegistry));
+        }
+        this.written = Counter.builder("bankverte.report.users").tag("outcome", "written")
+                .description("Monthly statements generated").register(meterRegistry);
+        this.failed = Counter.builder("bankverte.report.users").tag("outcome", "failed")
+                .description("Monthly statements generated").register(meterRegistry);
+
+        if (properties.isEnabled()) {
+            scheduler.scheduleWithFixedDelay(this::runQuietly, properties.getInitialDelay().toMillis(),
+                    properties.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Optional<ReportRun> lastRun() {
+        return Optional.ofNullable(lastRun);
+    }
+
+    /**
+     * Writes the statements of {@code month} not written yet, on the calling
+     * thread and the worker pool.
+     *
+     * @throws IllegalArgumentException for the current month or a later one
+     */
+    public ReportRun run(YearMonth month) throws SQLException, InterruptedException {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Only past months have statements: " + month);
+        }
+        running.lock();
+        try {
+            Run run = new Run(month);
+            for (String shard : shards.names()) {
+                run.read(shard);
+            }
+            run.await();
+            ReportRun result = run.result();
+            if (result.isComplete()) {
+                try {
+                    store.markComplete(month);
+                } catch (IOException e) {
+                    log.warn("Could not mark the statements of {} complete: {}", month, e.toString());
+                }
+            }
+            lastRun = result;
+            log.info("Statements of {}: {} written, {} skipped, {} failed, {} transactions in {} ms "
+                            + "({} users/s), stage ms {}", month, result.getWritten(), result.getSkipped(),
+                    result.getFailed(), result.getTransactions(), result.getElapsedMs(),
+                    Math.round(result.getUsersPerSecond()), result.getStageMs());
+            return result;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private void runQuietly() {
+        YearMonth month = YearMonth.now().minusMonths(1);
+        if (store.isComplete(month)) {
+            return;
+        }
+        try {
+            run(month);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Monthly statements of {} failed: {}", month, e.toString());
+        }
+    }
+
+    /**
+     * State of one run, shared by its reader and the workers.
+     */
+    private final class Run {
+
+        final YearMonth month;
+        final long started = System.nanoTime();
+        final Instant startedAt = Instant.now();
+        final Semaphore pending = new Semaphore(properties.getParallelism() + properties.getQueuedChunks());
+        final LongAdder[] stageNanos = new LongAdder[STAGES.length];
+        final LongAdder writtenUsers = new LongAdder();
+        final LongAdder failedUsers = new LongAdder();
+        // Reader only
+        long skipped;
+        long transactions; // of the users written
+
+        Run(YearMonth month) {
+            this.month = month;
+            for (int i = 0; i < STAGES.length; i++) {
+                stageNanos[i] = new LongAdder();
+            }
+        }
+
+        void read(String shard) throws SQLException, InterruptedException {
+            LocalDateTime from = month.atDay(1).atStartOfDay();
+            long readStarted = System.nanoTime();
+            long waited = 0;
+            try (Connection connection = shards.dataSource(shard).getConnection();
+                    Connection totalsConnection = shards.dataSource(shard).getConnection();
+                    PreparedStatement select = connection.prepareStatement(SELECT_TRANSACTIONS);
+                    PreparedStatement selectTotals = totalsConnection.prepareStatement(SELECT_PREVIOUS_TOTALS)) {
+                // Postgres only streams with a cursor inside a transaction
+                connection.setAutoCommit(false);
+                select.setTimestamp(1, Timestamp.valueOf(from));
+                select.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+                select.setFetchSize(1_000);
+                selectTotals.setInt(1, CarbonMonthTotal.key(month.minusMonths(1)));
+
+                try (ResultSet rs = select.executeQuery(); ResultSet totals = selectTotals.executeQuery()) {
+                    PreviousTotals previous = new PreviousTotals(totals);
+                    List<UserMonth> chunk = new ArrayList<>(properties.getChunkSize());
+                    UserMonth user = null;
+                    boolean skipping = false;
+                    int userId = -1;
+                    while (rs.next()) {
+                        int rowUser = rs.getInt(1);
+                        if (rowUser != userId) {
+                            if (user != null) {
+                                chunk.add(user);
+                                if (chunk.size() == properties.getChunkSize()) {
+                                    waited += submit(chunk);
+                                    chunk = new ArrayList<>(properties.getChunkSize());
+                                }
+                            }
+                            userId = rowUser;
+                            skipping = store.exists(month, userId);
+                            if (skipping) {
+                                skipped++;
+                                user = null;
+                            } else {
+                                user = new UserMonth(userId, previous.totalOf(userId));
+                            }
+                        }
+                        if (!skipping) {
+                            user.transactions.add(transaction(rs));
+                            transactions++;
+                        }
+                    }
+                    if (user != null) {
+                        chunk.add(user);
+                    }
+                    if (!chunk.isEmpty()) {
+                        waited += submit(chunk);
+                    }
+                }
+                connection.commit();
+            } finally {
+                long readNanos = System.nanoTime() - readStarted - waited;
+                stageNanos[0].add(readNanos);
+                stageTimers.get(STAGES[0]).record(readNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Hands a chunk to the workers.
+         *
+         * @return nanoseconds spent waiting for room
+         */
+        private long submit(List<UserMonth> chunk) throws InterruptedException {
+            long started = System.nanoTime();
+            pending.acquire();
+            long waited = System.nanoTime() - started;
+            try {
+                workers.execute(() -> {
+                    try {
+                        process(chunk);
+                    } finally {
+                        pending.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                pending.release();
+                throw e;
+            }
+            return waited;
+        }
+
+        private void process(List<UserMonth> chunk) {
+            long[] nanos = new long[STAGES.length];
+            LocalDateTime from = month.atDay(1).atStartOfDay();
+            LocalDateTime to = month.atEndOfMonth().atTime(LocalTime.MAX);
+            for (UserMonth user : chunk) {
+                try {
+                    long t0 = System.nanoTime();
+                    MonthlyStatement statement = MonthlyStatement.builder()
+                            .userId(user.userId)
+                            .month(month)
+                            .summary(aggregator.summarize(user.transactions, user.previousTotal, from, to))
+                            .categories(aggregator.byCategory(user.transactions))
+                            .merchants(aggregator.topMerchants(user.transactions, properties.getTopMerchants()))
+                            .build();
+                    long t1 = System.nanoTime();
+                    String csv = StatementRenderer.csv(statement);
+                    String html = StatementRenderer.html(statement);
+                    long t2 = System.nanoTime();
+                    store.write(month, user.userId, csv, html);
+                    long t3 = System.nanoTime();
+                    nanos[1] += t1 - t0;
+                    nanos[2] += t2 - t1;
+                    nanos[3] += t3 - t2;
+                    writtenUsers.increment();
+                    written.increment();
+                } catch (IOException | RuntimeException e) {
+                    failedUsers.increment();
+                    failed.increment();
+                    log.warn("Statement of user {} for {} failed: {}", user.userId, month, e.toString());
+                }
+            }
+            for (int i = 1; i < STAGES.length; i++) {
+                stageNanos[i].add(nanos[i]);
+                stageTimers.get(STAGES[i]).record(nanos[i], TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Waits for the chunks still with the workers.
+         */
+        void await() throws InterruptedException {
+            int permits = properties.getParallelism() + properties.getQueuedChunks();
+            pending.acquire(permits);
+            pending.release(permits);
+        }
+
+        ReportRun result() {
+            long elapsed = System.nanoTime() - started;
+            double seconds = Math.max(elapsed / 1e9, 1e-9);
+            Map<String, Long> stageMs = new LinkedHashMap<>();
+            for (int i = 0; i < STAGES.length; i++) {
+                stageMs.put(STAGES[i], stageNanos[i].sum() / 1_000_000);
+            }
+            return ReportRun.builder()
+                    .month(month.toString())
+                    .startedAt(startedAt)
+                    .elapsedMs(elapsed / 1_000_000)
+                    .written(writtenUsers.sum())
+                    .skipped(skipped)
+                    .failed(failedUsers.sum())
+                    .transactions(transactions)
+                    .usersPerSecond(Math.round(writtenUsers.sum() / seconds * 10) / 10.0)
+                    .transactionsPerSecond(Math.round(transactions / seconds * 10) / 10.0)
+                    .stageMs(stageMs)
+                    .complete(failedUsers.sum() == 0)
+                    .build();
+        }
+    }
+
+    private static Transaction transaction(ResultSet rs) throws SQLException {
+        String category = rs.getString(7);
+        return Transaction.builder()
+                .id(rs.getInt(2))
+                .createdAt(rs.getTimestamp(3).toLocalDateTime())
+                .description(rs.getString(4))
+                .amount(number(rs, 5))
+                .currency(rs.getString(6))
+                .category(category != null ? TransactionCategory.valueOf(category) : null)
+                .carbonFootprint(number(rs, 8))
+                .merchant(rs.getString(9))
+                .build();
+    }
+
+    private static Double number(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * The previous month's totals, read alongside the transactions: both are
+     * ordered by user, so each is looked up by moving forward.
+     */
+    private static final class PreviousTotals {
+
+        private final ResultSet rs;
+        private int userId = -1;
+        private double total;
+        private boolean exhausted;
+
+        PreviousTotals(ResultSet rs) {
+            this.rs = rs;
+        }
+
+        Double totalOf(int user) throws SQLException {
+            while (!exhausted && userId < user) {
+                if (rs.next()) {
+                    userId = rs.getInt(1);
+                    total = rs.getDouble(2);
+                } else {
+                    exhausted = true;
+                }
+            }
+            return userId == user ? total : null;
+        }
+    }
+
+    private static final class UserMonth {
+        final int userId;
+        final Double previousTotal;
+        final List<Transaction> transactions = new ArrayList<>();
+
+        UserMonth(int userId, Double previousTotal) {
+            this.userId = userId;
+            this.previousTotal = previousTotal;
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,24 @@
+package com.bankverte.api.report;
+
+import com.bankverte.api.analytics.dto.AnalyticsSummaryResponse;
+import com.bankverte.api.analytics.dto.CategoryBreakdown;
+import com.bankverte.api.analytics.dto.MerchantAnalytics;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * One user's month, as the summary, by-category and top-merchants
+ * endpoints would show it.
+ */
+@Data
+@Builder
+public class MonthlyStatement {
+    private int userId;
+    private YearMonth month;
+    private AnalyticsSummaryResponse summary;
+    private List<CategoryBreakdown> categories;
+    private List<MerchantAnalytics> merchants;
+}
@@ -0,0 +1,9 @@
+package com.bankverte.api.report;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ReportProperties.class)
+public class ReportConfiguration {
+}
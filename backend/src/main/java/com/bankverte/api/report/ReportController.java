@@ -0,0 +1,74 @@
+package com.bankverte.api.report;
+
+import com.bankverte.api.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class ReportController {
+
+        private final ReportStore store;
+        private final MonthlyReportJob reportJob;
+
+        /**
+         * The user's statement of a month, as generated by the last run.
+         *
+         * @param month yyyy-MM
+         * @param format html, printable to PDF from the browser, or csv
+         */
+        @GetMapping("/reports/{month}")
+        public ResponseEntity<?> getStatement(
+                        @AuthenticationPrincipal User user,
+                        @PathVariable String month,
+                        @RequestParam(defaultValue = "html") String format) throws IOException {
+
+                YearMonth yearMonth;
+                ReportStore.Format storeFormat;
+                try {
+                        yearMonth = YearMonth.parse(month);
+                        storeFormat = ReportStore.Format.valueOf(format.toUpperCase());
+                } catch (DateTimeParseException | IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                }
+                return store.read(yearMonth, user.getId(), storeFormat)
+                                .<ResponseEntity<?>>map(body -> ResponseEntity.ok()
+                                                .contentType(MediaType.parseMediaType(storeFormat.mediaType()
+                                                                + ";charset=UTF-8"))
+                                                .body(body))
+                                .orElseGet(() -> ResponseEntity.notFound().build());
+        }
+
+        @GetMapping("/admin/reports")
+        public ResponseEntity<?> getLastRun() {
+                return reportJob.lastRun()
+                                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                                .orElseGet(() -> ResponseEntity.noContent().build());
+        }
+
+        /**
+         * Generates the statements of a past month not generated yet.
+         *
+         * @param month yyyy-MM, the previous month by default
+         */
+        @PostMapping("/admin/reports")
+        public ResponseEntity<?> run(@RequestParam(required = false) String month)
+                        throws SQLException, InterruptedException {
+
+                try {
+                        YearMonth yearMonth = month != null ? YearMonth.parse(month) : YearMonth.now().minusMonths(1);
+                        return ResponseEntity.ok(reportJob.run(yearMonth));
+                } catch (DateTimeParseException | IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                }
+        }
+}
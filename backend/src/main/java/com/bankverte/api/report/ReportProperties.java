@@ -0,0 +1,42 @@
+package com.bankverte.api.report;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.report")
+public class ReportProperties {
+
+    /**
+     * Generate last month's statements on a schedule. Runs can also be
+     * started on /api/admin/reports either way.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Where statements are written, one directory per month. Local to the
+     * node: with several nodes, put it on a shared volume and run the job
+     * from one of them.
+     */
+    private String directory = "reports";
+
+    // Threads computing and writing statements
+    private int parallelism = 4;
+
+    // Users handed to a worker at a time
+    private int chunkSize = 256;
+
+    // Chunks read ahead of the workers; the reader waits beyond that
+    private int queuedChunks = 8;
+
+    private int topMerchants = 10;
+
+    /**
+     * Delay before the first check, then between checks. A check runs the
+     * job when last month is not complete yet.
+     */
+    private Duration initialDelay = Duration.ofMinutes(10);
+    private Duration interval = Duration.ofHours(6);
+}
@@ -0,0 +1,27 @@
+package com.bankverte.api.report;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Outcome of one run of {@link MonthlyReportJob}.
+ */
+@Data
+@Builder
+public class ReportRun {
+    private String month;
+    private Instant startedAt;
+    private long elapsedMs;
+    private long written;
+    private long skipped; // written by an earlier run
+    private long failed;
+    private long transactions;
+    private double usersPerSecond;
+    private double transactionsPerSecond;
+    // Time spent in each stage summed over threads: read, compute, render, write
+    private Map<String, Long> stageMs;
+    private boolean complete;
+}
@@ -0,0 +1,83 @@
+package com.bankverte.api.report;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * Statement files under the report directory, {@code yyyy-MM/<userId>.csv}
+ * and {@code .html}. Each file is written to a temporary name and moved in
+ * place, the HTML last: a user whose HTML exists is done, which is what
+ * makes runs restartable per user.
+ */
+@Component
+public class ReportStore {
+
+    public enum Format {
+        CSV("csv", "text/csv"),
+        HTML("html", "text/html");
+
+        private final String extension;
+        private final String mediaType;
+
+        Format(String extension, String mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+    }
+
+    private static final String COMPLETE = "_complete";
+
+    private final Path directory;
+
+    public ReportStore(ReportProperties properties) {
+        this.directory = Path.of(properties.getDirectory());
+    }
+
+    boolean exists(YearMonth month, int userId) {
+        return Files.exists(path(month, userId, Format.HTML));
+    }
+
+    void write(YearMonth month, int userId, String csv, String html) throws IOException {
+        Files.createDirectories(directory.resolve(month.toString()));
+        write(path(month, userId, Format.CSV), csv);
+        write(path(month, userId, Format.HTML), html);
+    }
+
+    private static void write(Path path, String content) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temporary, content, StandardCharsets.UTF_8);
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Optional<byte[]> read(YearMonth month, int userId, Format format) throws IOException {
+        Path path = path(month, userId, format);
+        return Files.exists(path) ? Optional.of(Files.readAllBytes(path)) : Optional.empty();
+    }
+
+    /**
+     * True once a run of the month finished with every user written.
+     */
+    boolean isComplete(YearMonth month) {
+        return Files.exists(directory.resolve(month.toString()).resolve(COMPLETE));
+    }
+
+    void markComplete(YearMonth month) throws IOException {
+        Files.createDirectories(directory.resolve(month.toString()));
+        Files.writeString(directory.resolve(month.toString()).resolve(COMPLETE), "");
+    }
+
+    private Path path(YearMonth month, int userId, Format format) {
+        return directory.resolve(month.toString()).resolve(userId + "." + format.extension);
+    }
+}
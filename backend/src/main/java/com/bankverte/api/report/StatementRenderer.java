@@ -0,0 +1,114 @@
+package com.bankverte.api.report;
+
+import com.bankverte.api.analytics.dto.AnalyticsSummaryResponse;
+import com.bankverte.api.analytics.dto.CategoryBreakdown;
+import com.bankverte.api.analytics.dto.MerchantAnalytics;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/**
+ * Writes a {@link MonthlyStatement} as CSV, one row per figure, and as a
+ * self-contained HTML page laid out for printing, so that a browser's
+ * "save as PDF" gives the PDF version.
+ */
+final class StatementRenderer {
+
+    private StatementRenderer() {
+    }
+
+    static String csv(MonthlyStatement statement) {
+        AnalyticsSummaryResponse summary = statement.getSummary();
+        StringBuilder csv = new StringBuilder(1024);
+        csv.append("section,key,label,co2_kg,share_pct,transactions\n");
+        row(csv, "summary", "total", "Total", summary.getTotalCO2(), null, summary.getTransactionCount());
+        row(csv, "summary", "average", "Average per transaction", summary.getAverageCO2PerTransaction(), null, null);
+        row(csv, "summary", "evolution", "Change vs previous month (%)", null, summary.getEvolutionPercentage(),
+                null);
+        for (CategoryBreakdown category : statement.getCategories()) {
+            row(csv, "category", category.getCategory(), category.getDisplayName(), category.getTotalCO2(),
+                    category.getPercentage(), category.getTransactionCount());
+        }
+        for (MerchantAnalytics merchant : statement.getMerchants()) {
+            row(csv, "merchant", merchant.getMerchantName(), merchant.getPrimaryCategory(), merchant.getTotalCO2(),
+                    null, merchant.getTransactionCount());
+        }
+        return csv.toString();
+    }
+
+    private static void row(StringBuilder csv, String section, String key, String label, Double co2, Double share,
+            Integer transactions) {
+        csv.append(section).append(',').append(quote(key)).append(',').append(quote(label)).append(',')
+                .append(co2 != null ? co2 : "").append(',')
+                .append(share != null ? share : "").append(',')
+                .append(transactions != null ? transactions : "").append('\n');
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    static String html(MonthlyStatement statement) {
+        AnalyticsSummaryResponse summary = statement.getSummary();
+        String month = statement.getMonth().getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " "
+                + statement.getMonth().getYear();
+        StringBuilder html = new StringBuilder(4096);
+        html.append("<!DOCTYPE html>\n<html lang=\"en\"><head><meta charset=\"utf-8\">")
+                .append("<title>Carbon statement ").append(month).append("</title><style>")
+                .append("body{font-family:sans-serif;max-width:720px;margin:2em auto;color:#222}")
+                .append("table{width:100%;border-collapse:collapse;margin-bottom:1.5em}")
+                .append("td,th{padding:4px 8px;border-bottom:1px solid #ddd;text-align:left}")
+                .append("td.n{text-align:right}.bar{height:10px;display:inline-block}")
+                .append("@page{size:A4;margin:2cm}@media print{body{margin:0}}")
+                .append("</style></head><body>\n");
+        html.append("<h1>Carbon statement, ").append(month).append("</h1>\n");
+        html.append("<p><strong>").append(format(summary.getTotalCO2())).append(" kg CO₂</strong> over ")
+                .append(summary.getTransactionCount()).append(" transactions, ")
+                .append(format(summary.getAverageCO2PerTransaction())).append(" kg on average.");
+        if (summary.getEvolutionPercentage() != null && summary.getEvolutionPercentage() != 0.0) {
+            html.append(' ').append(summary.getEvolutionPercentage() > 0 ? "Up " : "Down ")
+                    .append(format(Math.abs(summary.getEvolutionPercentage()))).append("% on the previous month.");
+        }
+        html.append("</p>\n");
+
+        html.append("<h2>By category</h2>\n<table><tr><th>Category</th><th></th><th>kg CO₂</th><th>Share</th>")
+                .append("<th>Transactions</th></tr>\n");
+        for (CategoryBreakdown category : statement.getCategories()) {
+            html.append("<tr><td>").append(escape(category.getDisplayName()))
+                    .append("</td><td><span class=\"bar\" style=\"width:")
+                    .append(Math.round(category.getPercentage() * 2)).append("px;background:")
+                    .append(category.getColor()).append("\"></span></td><td class=\"n\">")
+                    .append(format(category.getTotalCO2())).append("</td><td class=\"n\">")
+                    .append(format(category.getPercentage())).append("%</td><td class=\"n\">")
+                    .append(category.getTransactionCount()).append("</td></tr>\n");
+        }
+        html.append("</table>\n");
+
+        html.append("<h2>Top merchants</h2>\n<table><tr><th>Merchant</th><th>Category</th><th>kg CO₂</th>")
+                .append("<th>Transactions</th></tr>\n");
+        for (MerchantAnalytics merchant : statement.getMerchants()) {
+            html.append("<tr><td>").append(escape(merchant.getMerchantName())).append("</td><td>")
+                    .append(escape(merchant.getPrimaryCategory())).append("</td><td class=\"n\">")
+                    .append(format(merchant.getTotalCO2())).append("</td><td class=\"n\">")
+                    .append(merchant.getTransactionCount()).append("</td></tr>\n");
+        }
+        html.append("</table>\n<p><small>").append(summary.getPeriodStart()).append(" to ")
+                .append(summary.getPeriodEnd()).append("</small></p>\n</body></html>\n");
+        return html.toString();
+    }
+
+    private static String escape(String value) {
+        return value != null ? HtmlUtils.htmlEscape(value, "UTF-8") : "";
+    }
+
+    private static String format(Double value) {
+        return value != null ? String.format(Locale.ENGLISH, "%.1f", value) : "";
+    }
+}
@@ -0,0 +1,62 @@
+package com.bankverte.api.sharding;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Postgres session advisory locks, for work that one node at a time should
+ * do on a database. Held by the connection that took them, until unlocked
+ * or the connection closes. On other databases (embedded H2, one node) they
+ * always succeed.
+ */
+public final class AdvisoryLocks {
+
+    // One key per kind of work, the same on every node
+    public static final long FORECAST_BACKFILL = 0x6276_0001L;
+    public static final long OUTBOX_RELAY = 0x6276_0002L;
+    public static final long MONTHLY_TOTALS_BACKFILL = 0x6276_0003L;
+    public static final long SKETCH_BACKFILL = 0x6276_0004L;
+    public static final long RECURRING_BACKFILL = 0x6276_0005L;
+
+    private AdvisoryLocks() {
+    }
+
+    /**
+     * Waits for the lock.
+     */
+    public static void lock(Connection connection, long key) throws SQLException {
+        if (isPostgres(connection)) {
+            // Returns void, which the driver cannot read as a boolean
+            call(connection, "SELECT pg_advisory_lock(?) IS NULL", key);
+        }
+    }
+
+    /**
+     * @return whether the lock was free, and is now held
+     */
+    public static boolean tryLock(Connection connection, long key) throws SQLException {
+        return !isPostgres(connection) || call(connection, "SELECT pg_try_advisory_lock(?)", key);
+    }
+
+    public static void unlock(Connection connection, long key) throws SQLException {
+        if (isPostgres(connection)) {
+            call(connection, "SELECT pg_advisory_unlock(?)", key);
+        }
+    }
+
+    private static boolean isPostgres(Connection connection) throws SQLException {
+        return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+    }
+
+    private static boolean call(Connection connection, String sql, long key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, key);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bankverte.api.sharding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoveUserRequest {
+    private Integer userId;
+    private String shard;
+}
@@ -0,0 +1,69 @@
+package com.bankverte.api.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * The database the current thread's connections come from: the user's home
+ * database during a request, or the one a background job is working on.
+ * Must be set before a transaction begins, since the connection is taken
+ * then and kept to the end.
+ */
+public final class ShardContext {
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        String shard = CURRENT.get();
+        return shard != null ? shard : PRIMARY;
+    }
+
+    /**
+     * Switches the thread to a database until the scope is closed.
+     */
+    public static Scope open(String shard) {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(shard);
+        return scope;
+    }
+
+    public static <T> T call(String shard, Supplier<T> work) {
+        Scope scope = open(shard);
+        try {
+            return work.get();
+        } finally {
+            scope.close();
+        }
+    }
+
+    public static void run(String shard, Runnable work) {
+        Scope scope = open(shard);
+        try {
+            work.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final String previous;
+
+        private Scope(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
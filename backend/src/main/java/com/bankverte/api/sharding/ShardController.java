@@ -0,0 +1,44 @@
+package com.bankverte.api.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.sql.SQLException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/shards")
+@RequiredArgsConstructor
+public class ShardController {
+
+        private final ShardDirectory directory;
+        private final ShardMover mover;
+
+        @GetMapping
+        public ResponseEntity<List<ShardStatus>> getStatus() {
+                return ResponseEntity.ok(directory.status());
+        }
+
+        @PostMapping("/move")
+        public ResponseEntity<?> move(@RequestBody MoveUserRequest request) throws SQLException {
+                if (request.getUserId() == null || request.getShard() == null) {
+                        return ResponseEntity.badRequest().build();
+                }
+                try {
+                        return ResponseEntity.ok(mover.move(request.getUserId(), request.getShard()));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                }
+        }
+
+        /**
+         * Moves users the hash ring places on another database, at most
+         * {@code max} per call.
+         */
+        @PostMapping("/rebalance")
+        public ResponseEntity<List<ShardMoveResult>> rebalance(@RequestParam(defaultValue = "100") int max)
+                        throws SQLException {
+                return ResponseEntity.ok(mover.rebalance(max));
+        }
+}
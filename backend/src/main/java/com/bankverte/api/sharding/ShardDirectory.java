@@ -0,0 +1,195 @@
+package com.bankverte.api.sharding;
+
+import com.bankverte.api.user.Role;
+import com.bankverte.api.user.User;
+import com.bankverte.api.user.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where each user lives. The primary keeps a _user row for everyone, for
+ * logging in by email, with the user's database in _user.shard; a user
+ * living elsewhere has a home copy of the row there, which holds the data
+ * version and profile the requests see.
+ *
+ * <p>Works on plain JDBC with explicit databases rather than through
+ * {@link ShardContext}, so it gives the same answer whatever the calling
+ * thread is routed to.
+ */
+@Slf4j
+@Component
+public class ShardDirectory {
+
+    private static final String SELECT_HOME_COPY =
+            "SELECT firstname, lastname, email, password, role, data_version FROM _user WHERE id = ?";
+
+    private final Shards shards;
+    private final UserRepository userRepository;
+    private final ShardRing ring;
+
+    public ShardDirectory(Shards shards, UserRepository userRepository, ShardingProperties properties) {
+        this.shards = shards;
+        this.userRepository = userRepository;
+        this.ring = new ShardRing(shards.names(), properties.getVirtualNodes());
+    }
+
+    public String homeOf(User user) {
+        return user.getShard() != null ? user.getShard() : ShardContext.PRIMARY;
+    }
+
+    /**
+     * The database the ring assigns to a user id.
+     */
+    public String placement(int userId) {
+        return shards.isSharded() ? ring.owner(userId) : ShardContext.PRIMARY;
+    }
+
+    /**
+     * Gives a user just saved on the primary its database.
+     */
+    public void place(User user) {
+        String shard = placement(user.getId());
+        if (shard.equals(ShardContext.PRIMARY)) {
+            return;
+        }
+        shards.jdbc(shard).update("INSERT INTO _user (id, firstname, lastname, email, password, role, data_version, "
+                        + "shard_moving) VALUES (?, ?, ?, ?, ?, ?, ?, false)", user.getId(), user.getFirstname(),
+                user.getLastname(), user.getEmail(), user.getPassword(), user.getRole().name(), user.getDataVersion());
+        primary().update("UPDATE _user SET shard = ? WHERE id = ?", shard, user.getId());
+        user.setShard(shard);
+    }
+
+    /**
+     * The user as requests see it: the directory row of a primary user, the
+     * home copy with the directory's placement for the others.
+     */
+    public User resolve(User entry) {
+        if (entry.getShard() == null) {
+            return entry;
+        }
+        List<User> copies = shards.jdbc(entry.getShard()).query(SELECT_HOME_COPY, (rs, row) -> User.builder()
+                .id(entry.getId())
+                .firstname(rs.getString(1))
+                .lastname(rs.getString(2))
+                .email(rs.getString(3))
+                .password(rs.getString(4))
+                .role(Role.valueOf(rs.getString(5)))
+                .dataVersion(rs.getLong(6))
+                .shard(entry.getShard())
+                .shardMoving(entry.isShardMoving())
+                .build(), entry.getId());
+        if (copies.isEmpty()) {
+            log.warn("User {} has no home copy on shard {}", entry.getId(), entry.getShard());
+            return entry;
+        }
+        return copies.get(0);
+    }
+
+    /**
+     * Each user's database as the directory has it now, rather than a cached
+     * principal; users being moved are left out.
+     */
+    public Map<Integer, String> settledHomes(Collection<Integer> userIds) {
+        Map<Integer, String> homes = new HashMap<>();
+        if (!shards.isSharded() || userIds.isEmpty()) {
+            userIds.forEach(userId -> homes.put(userId, ShardContext.PRIMARY));
+            return homes;
+        }
+        String in = String.join(",", Collections.nCopies(userIds.size(), "?"));
+        primary().query("SELECT id, shard, shard_moving FROM _user WHERE id IN (" + in + ")",
+                rs -> {
+                    String shard = rs.getString(2);
+                    if (!rs.getBoolean(3)) {
+                        homes.put(rs.getInt(1), shard != null && shards.contains(shard) ? shard : ShardContext.PRIMARY);
+                    }
+                }, userIds.toArray());
+        return homes;
+    }
+
+    /**
+     * The users' ids grouped by database, primary first.
+     */
+    public Map<String, List<Integer>> byShard(Collection<Integer> userIds) {
+        Map<String, List<Integer>> grouped = new LinkedHashMap<>();
+        if (!shards.isSharded() || userIds.isEmpty()) {
+            grouped.put(ShardContext.PRIMARY, new ArrayList<>(userIds));
+            return grouped;
+        }
+        Map<Integer, String> homes = new HashMap<>();
+        String in = String.join(",", Collections.nCopies(userIds.size(), "?"));
+        primary().query("SELECT id, shard FROM _user WHERE id IN (" + in + ")",
+                rs -> {
+                    homes.put(rs.getInt(1), rs.getString(2));
+                }, userIds.toArray());
+        for (String name : shards.names()) {
+            grouped.put(name, new ArrayList<>());
+        }
+        for (Integer userId : userIds) {
+            String shard = homes.get(userId);
+            grouped.get(shard != null && shards.contains(shard) ? shard : ShardContext.PRIMARY).add(userId);
+        }
+        grouped.values().removeIf(List::isEmpty);
+        return grouped;
+    }
+
+    /**
+     * Pairs of {@code [id, dataVersion]} read where each user lives.
+     */
+    public List<Object[]> findDataVersions(Collection<Integer> userIds) {
+        if (!shards.isSharded()) {
+            return userRepository.findDataVersions(userIds);
+        }
+        List<Object[]> versions = new ArrayList<>(userIds.size());
+        byShard(userIds).forEach((shard, ids) -> {
+            String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+            shards.jdbc(shard).query("SELECT id, data_version FROM _user WHERE id IN (" + in + ")",
+                    rs -> {
+                        versions.add(new Object[] { rs.getInt(1), rs.getLong(2) });
+                    }, ids.toArray());
+        });
+        return versions;
+    }
+
+    /**
+     * Users and transactions per database, counted on all of them at once.
+     */
+    public List<ShardStatus> status() {
+        Map<String, long[]> users = new HashMap<>();
+        primary().query("SELECT id, shard FROM _user", rs -> {
+            int userId = rs.getInt(1);
+            String home = rs.getString(2) != null ? rs.getString(2) : ShardContext.PRIMARY;
+            long[] counts = users.computeIfAbsent(home, h -> new long[2]);
+            counts[0]++;
+            if (!placement(userId).equals(home)) {
+                counts[1]++;
+            }
+        });
+        List<Long> transactions = shards.fanOut(shard ->
+                shards.jdbc(shard).queryForObject("SELECT COUNT(*) FROM transaction", Long.class));
+        List<ShardStatus> status = new ArrayList<>();
+        for (int i = 0; i < shards.names().size(); i++) {
+            String shard = shards.name(i);
+            long[] counts = users.getOrDefault(shard, new long[2]);
+            status.add(ShardStatus.builder()
+                    .name(shard)
+                    .users(counts[0])
+                    .misplaced(counts[1])
+                    .transactions(transactions.get(i))
+                    .build());
+        }
+        return status;
+    }
+
+    private JdbcTemplate primary() {
+        return shards.jdbc(ShardContext.PRIMARY);
+    }
+}
@@ -0,0 +1,20 @@
+package com.bankverte.api.sharding;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShardMoveResult {
+    private Integer userId;
+    private String from;
+    private String to;
+    private Long rows; // copied, over all tables
+    private Long millis;
+}
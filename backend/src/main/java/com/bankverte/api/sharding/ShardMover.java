@@ -0,0 +1,398 @@
+package com.bankverte.api.sharding;
+
+import com.bankverte.api.user.UserDataChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves a user's rows to another database while the user keeps working:
+ * <ol>
+ * <li>copies the transactions in chunks, each chunk committed on its own;
+ * <li>freezes the user, so writes get a 503, and waits freeze-grace for
+ * every node to notice and for writes in flight to land;
+ * <li>copies the transactions written meanwhile, the small per-user tables
+ * whole, and the user's outbox events the old database's consumers may not
+ * have processed, as new events on the new one; the transactions not yet
+ * folded into the derived tables stay locked on the old database, so they
+ * are folded in once, on the new one;
+ * <li>points _user.shard at the new database and lifts the freeze;
+ * <li>deletes the rows and outbox events from the old database.
+ * </ol>
+ * Write-behind batches look the user up as they are written, so writes
+ * queued before the freeze are refused too, not written to the old
+ * database after the copy.
+ * Reads go to the old database until the flip. A move that fails before it
+ * leaves the user where it was; the partial copy is cleared by the next
+ * attempt. Archived transactions are not stored per database and stay put.
+ */
+@Slf4j
+@Component
+public class ShardMover {
+
+    // Copied whole while the user is frozen, parents first
+    private static final List<String> USER_TABLES = List.of("carbon_month_total", "merchant_month_total",
+            "daily_sketch", "carbon_anomaly", "carbon_budget", "insight_set", "user_insight", "user_change",
+            "recurring_series", "forecast_state");
+    private static final int IDS_PER_STATEMENT = 500;
+
+    private final Shards shards;
+    private final ShardDirectory directory;
+    private final ShardingProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer moves;
+    private final Counter copied;
+    // One move at a time per node; not synchronized: the copy blocks on JDBC
+    private final ReentrantLock moving = new ReentrantLock();
+
+    public ShardMover(Shards shards, ShardDirectory directory, ShardingProperties properties,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.shards = shards;
+        this.directory = directory;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.moves = Timer.builder("bankverte.shard.move")
+                .description("Users moved to another database")
+                .register(meterRegistry);
+        this.copied = Counter.builder("bankverte.shard.rows.copied")
+                .description("Rows copied by user moves")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Moves a user to a database; nothing to do when it is already there.
+     *
+     * @throws IllegalArgumentException for an unknown user or database
+     */
+    public ShardMoveResult move(int userId, String target) throws SQLException {
+        if (!shards.contains(target)) {
+            throw new IllegalArgumentException("Unknown shard " + target);
+        }
+        moving.lock();
+        try {
+            String source = currentHome(userId);
+            ShardMoveResult result = ShardMoveResult.builder().userId(userId).from(source).to(target).build();
+            if (source.equals(target)) {
+                return result;
+            }
+            long started = System.nanoTime();
+            try (Connection from = shards.dataSource(source).getConnection();
+                    Connection to = shards.dataSource(target).getConnection()) {
+                to.setAutoCommit(false);
+                clear(to, userId, target);
+                copyHomeCopy(from, to, userId, target);
+                long rows = copyTransactions(from, to, userId);
+
+                freeze(userId, source, true);
+                from.setAutoCommit(false);
+                try {
+                    sleep(properties.getFreezeGrace().toMillis());
+                    Set<Integer> pending = lockPending(from, userId);
+                    rows += copyMissingTransactions(from, to, userId);
+                    for (String table : USER_TABLES) {
+                        rows += copy(from, to, table, "SELECT * FROM " + table + " WHERE user_id = ?", userId);
+                    }
+                    settlePending(to, userId, pending);
+                    rows += copyPendingEvents(from, to, userId);
+                    to.commit();
+                    flip(userId, source, target);
+                    from.commit();
+                } catch (SQLException | RuntimeException e) {
+                    to.rollback();
+                    from.rollback();
+                    freeze(userId, source, false);
+                    throw e;
+                }
+                clear(from, userId, source);
+                result.setRows(rows);
+            }
+            long elapsed = System.nanoTime() - started;
+            moves.record(elapsed, TimeUnit.NANOSECONDS);
+            result.setMillis(elapsed / 1_000_000);
+            log.info("Moved user {} from {} to {} ({} rows) in {} ms", userId, source, target, result.getRows(),
+                    result.getMillis());
+            return result;
+        } finally {
+            moving.unlock();
+        }
+    }
+
+    /**
+     * Moves up to {@code max} users whose database is not the one the ring
+     * assigns them, e.g. after a shard was added.
+     */
+    public List<ShardMoveResult> rebalance(int max) throws SQLException {
+        List<ShardMoveResult> results = new ArrayList<>();
+        List<Map<String, Object>> users = primary().queryForList("SELECT id, shard FROM _user ORDER BY id");
+        for (Map<String, Object> user : users) {
+            if (results.size() >= max) {
+                break;
+            }
+            int userId = ((Number) user.get("id")).intValue();
+            String home = user.get("shard") != null ? (String) user.get("shard") : ShardContext.PRIMARY;
+            String placement = directory.placement(userId);
+            if (!placement.equals(home)) {
+                results.add(move(userId, placement));
+            }
+        }
+        return results;
+    }
+
+    private String currentHome(int userId) {
+        List<String> homes = primary().query("SELECT shard FROM _user WHERE id = ?",
+                (rs, row) -> rs.getString(1) != null ? rs.getString(1) : ShardContext.PRIMARY, userId);
+        if (homes.isEmpty()) {
+            throw new IllegalArgumentException("Unknown user " + userId);
+        }
+        return homes.get(0);
+    }
+
+    private long copyTransactions(Connection from, Connection to, int userId) throws SQLException {
+        long total = 0;
+        long lastId = 0;
+        while (true) {
+            List<Integer> ids = new ArrayList<>();
+            try (PreparedStatement select = from.prepareStatement(
+                    "SELECT id FROM transaction WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?")) {
+                select.setInt(1, userId);
+                select.setLong(2, lastId);
+                select.setInt(3, properties.getCopyChunkSize());
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                return total;
+            }
+            total += copyTransactions(from, to, ids);
+            to.commit();
+            lastId = ids.get(ids.size() - 1);
+        }
+    }
+
+    /**
+     * Transactions on the source and not on the target: pooled ids are not
+     * handed out in commit order, so a position would miss some.
+     */
+    private long copyMissingTransactions(Connection from, Connection to, int userId) throws SQLException {
+        Set<Integer> missing = ids(from, userId);
+        missing.removeAll(ids(to, userId));
+        return missing.isEmpty() ? 0 : copyTransactions(from, to, new ArrayList<>(missing));
+    }
+
+    private long copyTransactions(Connection from, Connection to, List<Integer> ids) throws SQLException {
+        long total = 0;
+        for (int start = 0; start < ids.size(); start += IDS_PER_STATEMENT) {
+            List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + IDS_PER_STATEMENT));
+            String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            total += copy(from, to, "transaction", "SELECT * FROM transaction WHERE id IN (" + in + ")",
+                    chunk.toArray());
+        }
+        return total;
+    }
+
+    /**
+     * Events of the user past the lowest consumer position on the source.
+     * Some may be delivered on both databases, which at-least-once
+     * consumers tolerate.
+     */
+    private long copyPendingEvents(Connection from, Connection to, int userId) throws SQLException {
+        long processed;
+        try (PreparedStatement select = from.prepareStatement("SELECT COALESCE(MIN(position), 0) FROM outbox_cursor");
+                ResultSet rs = select.executeQuery()) {
+            rs.next();
+            processed = rs.getLong(1);
+        }
+        // New ids on the target, past its consumers' positions
+        return copy(from, to, "outbox_event", "SELECT type, user_id, transaction_id, created_at FROM outbox_event"
+                + " WHERE user_id = ? AND id > ? ORDER BY id", userId, processed);
+    }
+
+    /**
+     * The user's transactions the source's consumer has yet to fold into the
+     * derived tables, locked so it cannot until the move is done: copied
+     * with the tables as they are now, they are folded in on the target.
+     */
+    private static Set<Integer> lockPending(Connection from, int userId) throws SQLException {
+        return ids(from, "SELECT id FROM transaction WHERE user_id = ? AND derived_pending = true FOR UPDATE", userId);
+    }
+
+    /**
+     * Clears the flag of the transactions copied while pending that the
+     * source's consumer has folded in since, into the tables just copied.
+     */
+    private static void settlePending(Connection to, int userId, Set<Integer> pending) throws SQLException {
+        List<Integer> done = new ArrayList<>(ids(to,
+                "SELECT id FROM transaction WHERE user_id = ? AND derived_pending = true", userId));
+        done.removeAll(pending);
+        for (int start = 0; start < done.size(); start += IDS_PER_STATEMENT) {
+            List<Integer> chunk = done.subList(start, Math.min(done.size(), start + IDS_PER_STATEMENT));
+            try (PreparedStatement update = to.prepareStatement("UPDATE transaction SET derived_pending = false"
+                    + " WHERE id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    update.setInt(i + 1, chunk.get(i));
+                }
+                update.executeUpdate();
+            }
+        }
+    }
+
+    private static Set<Integer> ids(Connection connection, int userId) throws SQLException {
+        return ids(connection, "SELECT id FROM transaction WHERE user_id = ?", userId);
+    }
+
+    private static Set<Integer> ids(Connection connection, String sql, int userId) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        try (PreparedStatement select = connection.prepareStatement(sql)) {
+            select.setInt(1, userId);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * The user's _user row on the target, unless that is the primary, which
+     * has it already.
+     */
+    private void copyHomeCopy(Connection from, Connection to, int userId, String target) throws SQLException {
+        if (!target.equals(ShardContext.PRIMARY)) {
+            copy(from, to, "_user", "SELECT * FROM _user WHERE id = ?", userId);
+            to.commit();
+        }
+    }
+
+    /**
+     * Copies the rows a query returns into the same table, column by column.
+     */
+    private long copy(Connection from, Connection to, String table, String select, Object... args)
+            throws SQLException {
+        long rows = 0;
+        try (PreparedStatement query = from.prepareStatement(select)) {
+            for (int i = 0; i < args.length; i++) {
+                query.setObject(i + 1, args[i]);
+            }
+            try (ResultSet rs = query.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                List<String> names = new ArrayList<>(columns);
+                for (int i = 1; i <= columns; i++) {
+                    names.add(meta.getColumnLabel(i));
+                }
+                try (PreparedStatement insert = to.prepareStatement("INSERT INTO " + table + " ("
+                        + String.join(", ", names) + ") VALUES ("
+                        + String.join(", ", Collections.nCopies(columns, "?")) + ")")) {
+                    while (rs.next()) {
+                        for (int i = 1; i <= columns; i++) {
+                            insert.setObject(i, rs.getObject(i));
+                        }
+                        insert.addBatch();
+                        if (++rows % properties.getCopyChunkSize() == 0) {
+                            insert.executeBatch();
+                        }
+                    }
+                    insert.executeBatch();
+                }
+            }
+        }
+        copied.increment(rows);
+        return rows;
+    }
+
+    /**
+     * Deletes the user's rows from a database, children first; the _user
+     * row only from a shard, the primary's is the directory entry.
+     */
+    private void clear(Connection connection, int userId, String shard) throws SQLException {
+        List<String> tables = new ArrayList<>(USER_TABLES);
+        Collections.reverse(tables);
+        tables.add("outbox_event");
+        tables.add("transaction");
+        try {
+            for (String table : tables) {
+                delete(connection, "DELETE FROM " + table + " WHERE user_id = ?", userId);
+            }
+            if (!shard.equals(ShardContext.PRIMARY)) {
+                delete(connection, "DELETE FROM _user WHERE id = ?", userId);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private static void delete(Connection connection, String sql, int userId) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(sql)) {
+            delete.setInt(1, userId);
+            delete.executeUpdate();
+        }
+    }
+
+    private void freeze(int userId, String home, boolean frozen) {
+        primary().update("UPDATE _user SET shard_moving = ? WHERE id = ?", frozen, userId);
+        changed(userId, home);
+    }
+
+    private void flip(int userId, String source, String target) {
+        // The target's row is from before the freeze, or the primary's from before the user left it
+        Map<String, Object> home = shards.jdbc(source).queryForMap(
+                "SELECT firstname, lastname, data_version FROM _user WHERE id = ?", userId);
+        shards.jdbc(target).update("UPDATE _user SET firstname = ?, lastname = ?, data_version = ? WHERE id = ?",
+                home.get("firstname"), home.get("lastname"), home.get("data_version"), userId);
+        primary().update("UPDATE _user SET shard = ?, shard_moving = false WHERE id = ?",
+                target.equals(ShardContext.PRIMARY) ? null : target, userId);
+        changed(userId, target);
+    }
+
+    /**
+     * Bumps the data version where the user lives and announces it, so every
+     * node drops its cached principal, which carries the placement.
+     */
+    private void changed(int userId, String home) {
+        shards.jdbc(home).update("UPDATE _user SET data_version = data_version + 1 WHERE id = ?", userId);
+        transactionTemplate.executeWithoutResult(status ->
+                eventPublisher.publishEvent(new UserDataChangedEvent(userId)));
+    }
+
+    private JdbcTemplate primary() {
+        return shards.jdbc(ShardContext.PRIMARY);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while moving a user", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.bankverte.api.sharding;
+
+import com.bankverte.api.sketch.Hashing;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent hashing of user ids over the databases: each database owns
+ * the arcs ending at its virtual nodes, so adding one takes a share from
+ * every other and leaves the rest of the placements alone. Only consulted
+ * for new users and rebalancing; where a user lives is _user.shard.
+ */
+final class ShardRing {
+
+    private final long[] points;
+    private final String[] owners;
+
+    ShardRing(List<String> shards, int virtualNodes) {
+        int size = shards.size() * virtualNodes;
+        long[] hashes = new long[size];
+        String[] names = new String[size];
+        Integer[] order = new Integer[size];
+        int n = 0;
+        for (String shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                hashes[n] = Hashing.hash64(shard + "#" + i);
+                names[n] = shard;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = names[order[i]];
+        }
+    }
+
+    String owner(int userId) {
+        int i = Arrays.binarySearch(points, Hashing.fmix64(userId));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+}
@@ -0,0 +1,28 @@
+package com.bankverte.api.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections of the database named by {@link ShardContext}.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    ShardRoutingDataSource(Shards shards) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (String name : shards.names()) {
+            targets.put(name, shards.dataSource(name));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.dataSource(ShardContext.PRIMARY));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
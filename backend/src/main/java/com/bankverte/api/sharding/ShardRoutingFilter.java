@@ -0,0 +1,69 @@
+package com.bankverte.api.sharding;
+
+import com.bankverte.api.user.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs each authenticated request against the database of its user. Sits
+ * behind the security filters, which resolve the user, and in front of
+ * everything that opens a transaction or an EntityManager.
+ */
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private final ShardDirectory directory;
+    private final Counter frozen;
+
+    public ShardRoutingFilter(ShardDirectory directory, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.frozen = Counter.builder("bankverte.shard.frozen")
+                .description("Writes refused because the user was being moved")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getRequestURI();
+        // Platform-wide endpoints pick their databases themselves
+        return path.startsWith("/actuator/") || path.startsWith("/api/admin/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (user.isShardMoving() && !HttpMethod.GET.matches(request.getMethod())
+                && !HttpMethod.HEAD.matches(request.getMethod())) {
+            frozen.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            // Not sendError: the error dispatch would run into the security filters and become a 403
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        ShardContext.Scope scope = ShardContext.open(directory.homeOf(user));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.bankverte.api.sharding;
+
+import com.bankverte.api.BankVerteApplication;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings the schema of every shard up to the entities at startup, the way
+ * ddl-auto does for the primary, and starts each shard's id sequences at
+ * its id base. Runs as the bean initializes, so before any
+ * {@link org.springframework.beans.factory.SmartInitializingSingleton}
+ * callback: the startup backfills find the tables they fill on every shard.
+ */
+@Slf4j
+class ShardSchema {
+
+    private final Shards shards;
+    private final EntityManagerFactoryBuilder builder;
+    private final Map<String, Object> hibernateProperties;
+
+    ShardSchema(Shards shards, EntityManagerFactoryBuilder builder, JpaProperties jpaProperties,
+            HibernateProperties hibernateProperties) {
+        this.shards = shards;
+        this.builder = builder;
+        this.hibernateProperties = new LinkedHashMap<>(hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings().ddlAuto(() -> "update")));
+        // The factory is closed right after the update, which would drop a create-drop schema again
+        this.hibernateProperties.replace(AvailableSettings.HBM2DDL_AUTO, "create-drop", "create");
+    }
+
+    @PostConstruct
+    void updateShards() {
+        for (String shard : shards.names()) {
+            if (!shard.equals(ShardContext.PRIMARY)) {
+                update(shard);
+            }
+        }
+    }
+
+    private void update(String shard) {
+        LocalContainerEntityManagerFactoryBean factory = builder
+                .dataSource(shards.dataSource(shard))
+                .packages(BankVerteApplication.class)
+                .properties(hibernateProperties)
+                .persistenceUnit("shard-" + shard)
+                .build();
+        factory.afterPropertiesSet();
+        try {
+            startSequences(shard, factory.getObject());
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private void startSequences(String shard, EntityManagerFactory factory) {
+        Map<String, Integer> sequences = new LinkedHashMap<>();
+        factory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.getGenerator() instanceof SequenceStyleGenerator generator) {
+                DatabaseStructure structure = generator.getDatabaseStructure();
+                sequences.put(structure.getPhysicalName().render(), structure.getIncrementSize());
+            }
+        });
+        JdbcTemplate jdbc = shards.jdbc(shard);
+        long base = shards.idBase(shard);
+        List<String> restarted = new ArrayList<>();
+        sequences.forEach((sequence, increment) -> {
+            Long next = jdbc.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+            if (next != null && next < base) {
+                // Past the base by one increment: the pooled optimizer hands out the block below the value
+                jdbc.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (base + increment));
+                restarted.add(sequence);
+            }
+        });
+        if (!restarted.isEmpty()) {
+            log.info("Sequences {} on shard {} start at {}", restarted, shard, base);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.bankverte.api.sharding;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardStatus {
+    private String name;
+    private Long users; // living there
+    private Long misplaced; // of those, users the ring assigns elsewhere
+    private Long transactions;
+}
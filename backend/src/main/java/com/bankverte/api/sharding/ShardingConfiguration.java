@@ -0,0 +1,75 @@
+package com.bankverte.api.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * Without sharding the application's DataSource is Spring Boot's and
+ * {@link Shards} lists it alone. With sharding the spring.datasource pool
+ * becomes the primary behind a {@link ShardRoutingDataSource}, which the
+ * EntityManagerFactory and everything else injecting a DataSource get.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "bankverte.sharding.enabled", havingValue = "false", matchIfMissing = true)
+    public Shards shards(DataSource dataSource) {
+        return Shards.single(dataSource);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "bankverte.sharding.enabled", havingValue = "true")
+    static class Routing {
+
+        // As Spring Boot builds it, so spring.datasource.hikari.* and the pool metrics still apply
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+            return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        }
+
+        @Bean
+        public Shards shards(HikariDataSource primaryDataSource, ShardingProperties properties,
+                MeterRegistry meterRegistry) {
+            return Shards.of(primaryDataSource, properties, meterRegistry);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(Shards shards) {
+            return new ShardRoutingDataSource(shards);
+        }
+
+        @Bean
+        public ShardSchema shardSchema(Shards shards, EntityManagerFactoryBuilder builder, JpaProperties jpaProperties,
+                HibernateProperties hibernateProperties) {
+            return new ShardSchema(shards, builder, jpaProperties, hibernateProperties);
+        }
+
+        @Bean
+        public FilterRegistrationBean<ShardRoutingFilter> shardRoutingFilter(ShardDirectory directory,
+                MeterRegistry meterRegistry) {
+            FilterRegistrationBean<ShardRoutingFilter> registration =
+                    new FilterRegistrationBean<>(new ShardRoutingFilter(directory, meterRegistry));
+            // Right behind the security filters, which resolve the user
+            registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+            return registration;
+        }
+    }
+}
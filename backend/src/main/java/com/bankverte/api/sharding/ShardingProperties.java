@@ -0,0 +1,70 @@
+package com.bankverte.api.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.sharding")
+public class ShardingProperties {
+
+    /**
+     * Spread users over the databases in {@link #shards} besides the one in
+     * spring.datasource, which stays the user directory and the home of
+     * users placed before sharding was turned on.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Additional databases, in a fixed order: the position is stored nowhere
+     * but the name is, so never rename a shard that holds users.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    /**
+     * Points per database on the hash ring. More points even out the share
+     * of new users each database gets.
+     */
+    private int virtualNodes = 128;
+
+    /**
+     * Transactions copied per statement batch and commit when moving a user.
+     */
+    private int copyChunkSize = 1_000;
+
+    /**
+     * How long a moving user's writes are refused before the final copy:
+     * long enough for every node to see the freeze and for requests already
+     * past the check to finish.
+     */
+    private Duration freezeGrace = Duration.ofSeconds(2);
+
+    /**
+     * Threads for queries that run on every database at once.
+     */
+    private int fanOutParallelism = 4;
+
+    @Data
+    public static class Shard {
+
+        /**
+         * Stored in _user.shard for the users living here.
+         */
+        private String name;
+
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        /**
+         * First id of the generated keys on this database, so rows keep their
+         * id when their user moves. Defaults to 200,000,000 times the
+         * position in the list, counting from 1.
+         */
+        private long idBase;
+    }
+}
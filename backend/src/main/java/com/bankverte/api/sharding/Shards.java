@@ -0,0 +1,163 @@
+package com.bankverte.api.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * The databases users live in, primary first. Without sharding the primary
+ * is the only one, so code looping over them runs once, as before.
+ */
+public class Shards {
+
+    private static final long DEFAULT_ID_STRIDE = 200_000_000L;
+
+    private final Map<String, DataSource> dataSources = new LinkedHashMap<>();
+    private final Map<String, JdbcTemplate> jdbcTemplates = new LinkedHashMap<>();
+    private final Map<String, Long> idBases = new LinkedHashMap<>();
+    private final List<String> names;
+    private final ExecutorService fanOut;
+
+    private Shards(DataSource primary, List<ShardingProperties.Shard> shards, int parallelism,
+            MeterRegistry meterRegistry) {
+        add(ShardContext.PRIMARY, primary, 0);
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            if (shard.getName() == null || dataSources.containsKey(shard.getName())) {
+                throw new IllegalStateException("Shard " + (i + 1) + " needs a unique name");
+            }
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + shard.getName());
+            pool.setJdbcUrl(shard.getUrl());
+            pool.setUsername(shard.getUsername());
+            pool.setPassword(shard.getPassword());
+            pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            add(shard.getName(), pool, shard.getIdBase() > 0 ? shard.getIdBase() : DEFAULT_ID_STRIDE * (i + 1));
+        }
+        this.names = List.copyOf(dataSources.keySet());
+        if (names.size() > 1) {
+            CustomizableThreadFactory threads = new CustomizableThreadFactory("shard-fan-out-");
+            threads.setDaemon(true);
+            this.fanOut = Executors.newFixedThreadPool(parallelism, threads);
+        } else {
+            this.fanOut = null;
+        }
+    }
+
+    static Shards single(DataSource dataSource) {
+        return new Shards(dataSource, List.of(), 1, null);
+    }
+
+    static Shards of(DataSource primary, ShardingProperties properties, MeterRegistry meterRegistry) {
+        return new Shards(primary, properties.getShards(), properties.getFanOutParallelism(), meterRegistry);
+    }
+
+    private void add(String name, DataSource dataSource, long idBase) {
+        dataSources.put(name, dataSource);
+        jdbcTemplates.put(name, new JdbcTemplate(dataSource));
+        idBases.put(name, idBase);
+    }
+
+    public boolean isSharded() {
+        return names.size() > 1;
+    }
+
+    /**
+     * Every database, primary first.
+     */
+    public List<String> names() {
+        return names;
+    }
+
+    public boolean contains(String name) {
+        return dataSources.containsKey(name);
+    }
+
+    public int index(String name) {
+        int index = names.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown shard " + name);
+        }
+        return index;
+    }
+
+    public String name(int index) {
+        return names.get(index);
+    }
+
+    public DataSource dataSource(String name) {
+        DataSource dataSource = dataSources.get(name);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard " + name);
+        }
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbc(String name) {
+        dataSource(name);
+        return jdbcTemplates.get(name);
+    }
+
+    long idBase(String name) {
+        return idBases.get(name);
+    }
+
+    /**
+     * Runs the work on every database at once, each call with the
+     * {@link ShardContext} of its database, and returns the results in
+     * {@link #names()} order.
+     */
+    public <T> List<T> fanOut(Function<String, T> work) {
+        if (fanOut == null) {
+            return List.of(work.apply(ShardContext.PRIMARY));
+        }
+        List<Future<T>> futures = new ArrayList<>(names.size());
+        for (String name : names) {
+            futures.add(fanOut.submit(() -> ShardContext.call(name, () -> work.apply(name))));
+        }
+        List<T> results = new ArrayList<>(names.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted waiting for the shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    @PreDestroy
+    void close() {
+        if (fanOut != null) {
+            fanOut.shutdownNow();
+        }
+        dataSources.forEach((name, dataSource) -> {
+            if (!name.equals(ShardContext.PRIMARY) && dataSource instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        });
+    }
+}
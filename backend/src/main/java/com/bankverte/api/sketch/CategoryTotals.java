@@ -0,0 +1,114 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.transaction.TransactionCategory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Exact CO₂ and transaction count per category, plus the count of
+ * uncategorized transactions.
+ */
+public final class CategoryTotals {
+
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+    private static final byte VERSION = 1;
+
+    private final double[] co2 = new double[CATEGORIES.length];
+    private final long[] counts = new long[CATEGORIES.length];
+    private long uncategorized;
+
+    public void add(TransactionCategory category, double value) {
+        if (category == null) {
+            uncategorized++;
+            return;
+        }
+        co2[category.ordinal()] += value;
+        counts[category.ordinal()]++;
+    }
+
+    public void merge(CategoryTotals other) {
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            co2[i] += other.co2[i];
+            counts[i] += other.counts[i];
+        }
+        uncategorized += other.uncategorized;
+    }
+
+    public double co2(TransactionCategory category) {
+        return co2[category.ordinal()];
+    }
+
+    public long count(TransactionCategory category) {
+        return counts[category.ordinal()];
+    }
+
+    public double totalCo2() {
+        double total = 0;
+        for (double value : co2) {
+            total += value;
+        }
+        return total;
+    }
+
+    public long totalCount() {
+        long total = uncategorized;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + CATEGORIES.length * 17);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(uncategorized);
+            int used = 0;
+            for (long count : counts) {
+                used += count > 0 ? 1 : 0;
+            }
+            out.writeByte(used);
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                if (counts[i] > 0) {
+                    out.writeByte(i);
+                    out.writeDouble(co2[i]);
+                    out.writeLong(counts[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes as written by {@link #toBytes()}, or null for no transactions
+     */
+    public static CategoryTotals fromBytes(byte[] bytes) {
+        CategoryTotals totals = new CategoryTotals();
+        if (bytes == null || bytes.length == 0) {
+            return totals;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown category totals version " + version);
+            }
+            totals.uncategorized = in.readLong();
+            int used = in.readByte();
+            for (int i = 0; i < used; i++) {
+                int ordinal = in.readByte();
+                totals.co2[ordinal] = in.readDouble();
+                totals.counts[ordinal] = in.readLong();
+            }
+            return totals;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
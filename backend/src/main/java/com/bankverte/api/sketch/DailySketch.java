@@ -0,0 +1,55 @@
+package com.bankverte.api.sketch;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Mergeable summaries of one user's transactions on one day, updated on
+ * each insert. Ranges are answered by merging the days they cover.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "daily_sketch")
+@IdClass(DailySketch.Key.class)
+public class DailySketch {
+
+    @Id
+    private Integer userId;
+
+    @Id
+    @Column(name = "sketch_day")
+    private LocalDate day;
+
+    @Column(length = MerchantSketch.MAX_BYTES)
+    private byte[] merchants; // MerchantSketch
+
+    @Column(name = "co2_quantiles", length = 8192)
+    private byte[] co2Quantiles; // QuantileSketch
+
+    @Column(length = 2048)
+    private byte[] merchantHll; // HyperLogLog
+
+    @Column(length = 256)
+    private byte[] categoryTotals; // CategoryTotals
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Integer userId;
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bankverte.api.sketch;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySketchRepository extends JpaRepository<DailySketch, DailySketch.Key> {
+
+    List<DailySketch> findByUserIdAndDayBetween(Integer userId, LocalDate from, LocalDate to);
+
+    /**
+     * Only the category totals of each day, without the merchant and
+     * quantile sketches.
+     */
+    @Query("SELECT d.day AS day, d.categoryTotals AS categoryTotals FROM DailySketch d "
+            + "WHERE d.userId = :userId AND d.day BETWEEN :from AND :to")
+    List<DayTotals> findCategoryTotals(@Param("userId") Integer userId, @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    interface DayTotals {
+        LocalDate getDay();
+
+        byte[] getCategoryTotals();
+    }
+}
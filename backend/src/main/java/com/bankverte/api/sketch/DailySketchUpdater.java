@@ -0,0 +1,41 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.transaction.DerivedStateUpdater;
+import com.bankverte.api.transaction.Transaction;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Folds each new transaction into its day's sketches, shortly after its
+ * commit; see {@link com.bankverte.api.transaction.DerivedStateConsumer}.
+ */
+@Component
+@RequiredArgsConstructor
+public class DailySketchUpdater implements DerivedStateUpdater {
+
+    private final DailySketchRepository dailySketchRepository;
+    private final SketchProperties properties;
+    private final EntityManager entityManager;
+
+    @Override
+    public void apply(Transaction transaction) {
+        Integer userId = transaction.getUser().getId();
+        LocalDate day = transaction.getCreatedAt().toLocalDate();
+        DailySketch sketch = dailySketchRepository.findById(new DailySketch.Key(userId, day)).orElse(null);
+        boolean created = sketch == null;
+        if (created) {
+            sketch = DailySketch.builder().userId(userId).day(day).build();
+        }
+
+        DaySketches sketches = DaySketches.of(sketch, properties.getMerchantCapacity());
+        sketches.add(transaction.getMerchant(), transaction.getCategory(), transaction.getCarbonFootprint());
+        sketches.writeTo(sketch);
+        if (created) {
+            entityManager.persist(sketch);
+        }
+        // An existing row is managed and flushed as an UPDATE on commit
+    }
+}
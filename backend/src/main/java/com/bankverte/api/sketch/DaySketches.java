@@ -0,0 +1,55 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.transaction.TransactionCategory;
+
+/**
+ * The decoded summaries of one {@link DailySketch} row, for updating it.
+ */
+final class DaySketches {
+
+    final MerchantSketch merchants;
+    final QuantileSketch co2;
+    final HyperLogLog distinctMerchants;
+    final CategoryTotals categories;
+
+    DaySketches(int merchantCapacity) {
+        this(new MerchantSketch(merchantCapacity), new QuantileSketch(), new HyperLogLog(), new CategoryTotals());
+    }
+
+    private DaySketches(MerchantSketch merchants, QuantileSketch co2, HyperLogLog distinctMerchants,
+            CategoryTotals categories) {
+        this.merchants = merchants;
+        this.co2 = co2;
+        this.distinctMerchants = distinctMerchants;
+        this.categories = categories;
+    }
+
+    static DaySketches of(DailySketch row, int merchantCapacity) {
+        return new DaySketches(
+                MerchantSketch.fromBytes(row.getMerchants(), merchantCapacity),
+                QuantileSketch.fromBytes(row.getCo2Quantiles()),
+                HyperLogLog.fromBytes(row.getMerchantHll()),
+                CategoryTotals.fromBytes(row.getCategoryTotals()));
+    }
+
+    void add(String merchant, TransactionCategory category, Double carbonFootprint) {
+        double co2Value = carbonFootprint != null ? carbonFootprint : 0.0;
+        categories.add(category, co2Value);
+        if (carbonFootprint != null) {
+            co2.add(carbonFootprint);
+        }
+        if (merchant != null && !merchant.isEmpty()) {
+            distinctMerchants.add(merchant);
+            if (category != null) {
+                merchants.add(merchant, category, co2Value);
+            }
+        }
+    }
+
+    void writeTo(DailySketch row) {
+        row.setMerchants(merchants.toBytes());
+        row.setCo2Quantiles(co2.toBytes());
+        row.setMerchantHll(distinctMerchants.toBytes());
+        row.setCategoryTotals(categories.toBytes());
+    }
+}
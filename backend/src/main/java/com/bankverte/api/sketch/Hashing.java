@@ -0,0 +1,37 @@
+package com.bankverte.api.sketch;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The 64-bit hashes the sketches and the shard ring place values with.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, then {@link #fmix64} to spread the high
+     * bits, so similar strings land far apart.
+     */
+    public static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return fmix64(hash);
+    }
+
+    /**
+     * The MurmurHash3 64-bit finalizer.
+     */
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,120 @@
+package com.bankverte.api.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * HyperLogLog distinct counter with 2^10 registers: a standard error of
+ * {@link #STANDARD_ERROR} (about 3%), exact-ish below a few hundred thanks
+ * to linear counting. Merging is a register-wise max. Stored sparse while
+ * few registers are set, which is every single day of a single user.
+ */
+public final class HyperLogLog {
+
+    private static final int P = 10;
+    private static final int M = 1 << P;
+    public static final double STANDARD_ERROR = 1.04 / Math.sqrt(M);
+
+    private static final byte VERSION = 1;
+    private static final byte SPARSE = 0;
+    private static final byte DENSE = 1;
+    // Beyond this many set registers the dense form is smaller
+    private static final int SPARSE_LIMIT = M / 3;
+
+    private final byte[] registers = new byte[M];
+
+    public void add(String value) {
+        long hash = Hashing.hash64(value);
+        int index = (int) (hash >>> (64 - P));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << P), 64 - P) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < M; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double harmonic = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            harmonic += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / M);
+        double estimate = alpha * M * M / harmonic;
+        if (estimate <= 2.5 * M && zeros > 0) {
+            estimate = M * Math.log((double) M / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        int set = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                set++;
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(set <= SPARSE_LIMIT ? 4 + set * 3 : 2 + M);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            if (set <= SPARSE_LIMIT) {
+                out.writeByte(SPARSE);
+                out.writeShort(set);
+                for (int i = 0; i < M; i++) {
+                    if (registers[i] != 0) {
+                        out.writeShort(i);
+                        out.writeByte(registers[i]);
+                    }
+                }
+            } else {
+                out.writeByte(DENSE);
+                out.write(registers);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes as written by {@link #toBytes()}, or null for an empty counter
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog hll = new HyperLogLog();
+        if (bytes == null || bytes.length == 0) {
+            return hll;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown HyperLogLog version " + version);
+            }
+            if (in.readByte() == DENSE) {
+                in.readFully(hll.registers);
+            } else {
+                int set = in.readShort();
+                for (int i = 0; i < set; i++) {
+                    int index = in.readShort();
+                    hll.registers[index] = in.readByte();
+                }
+            }
+            return hll;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
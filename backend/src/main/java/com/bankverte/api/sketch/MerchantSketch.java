@@ -0,0 +1,164 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Weighted Space-Saving summary (Metwally et al.) of CO₂ per merchant. At
+ * most {@code capacity} merchants are tracked; once full, a new merchant
+ * takes the slot of the lightest one and inherits its weight as error. A
+ * tracked total overestimates the true one by at most its error, and no
+ * untracked merchant weighs more than {@link #floor()}. Until the summary
+ * fills up it is exact. Names are kept to their first
+ * {@link #MAX_MERCHANT_CHARS} characters, so a summary never encodes to more
+ * than {@link #MAX_BYTES}.
+ */
+public final class MerchantSketch {
+
+    private static final byte VERSION = 1;
+    public static final int MAX_CAPACITY = 64;
+    public static final int MAX_MERCHANT_CHARS = 64;
+    // writeUTF takes at most 3 bytes a char, after its 2-byte length; then co2, error, count, category
+    private static final int MAX_ENTRY_BYTES = 2 + MAX_MERCHANT_CHARS * 3 + 8 + 8 + 4 + 1;
+    public static final int MAX_BYTES = 1 + 2 + MAX_CAPACITY * MAX_ENTRY_BYTES;
+
+    @Data
+    @AllArgsConstructor
+    public static final class Entry {
+        private String merchant;
+        private double co2;
+        private double error;
+        private int count;
+        private TransactionCategory category; // of the latest transaction
+    }
+
+    private final int capacity;
+    // A few dozen entries at most: a linear scan beats a map
+    private final List<Entry> entries;
+
+    /**
+     * @throws IllegalArgumentException for a capacity above
+     *                                  {@link #MAX_CAPACITY}
+     */
+    public MerchantSketch(int capacity) {
+        this(capacity, new ArrayList<>());
+    }
+
+    private MerchantSketch(int capacity, List<Entry> entries) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("At most " + MAX_CAPACITY + " merchants can be tracked");
+        }
+        this.capacity = capacity;
+        this.entries = entries;
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public void add(String merchant, TransactionCategory category, double co2) {
+        merchant = truncate(merchant);
+        Entry lightest = null;
+        for (Entry entry : entries) {
+            if (entry.merchant.equals(merchant)) {
+                entry.co2 += co2;
+                entry.count++;
+                entry.category = category;
+                return;
+            }
+            if (lightest == null || entry.co2 < lightest.co2) {
+                lightest = entry;
+            }
+        }
+        if (entries.size() < capacity) {
+            entries.add(new Entry(merchant, co2, 0, 1, category));
+            return;
+        }
+        lightest.error = lightest.co2;
+        lightest.merchant = merchant;
+        lightest.co2 += co2;
+        lightest.count++;
+        lightest.category = category;
+    }
+
+    /**
+     * Upper bound on the CO₂ of any merchant that is not tracked.
+     */
+    public double floor() {
+        if (entries.size() < capacity) {
+            return 0;
+        }
+        double min = Double.MAX_VALUE;
+        for (Entry entry : entries) {
+            min = Math.min(min, entry.co2);
+        }
+        return min;
+    }
+
+    static String truncate(String merchant) {
+        if (merchant.length() <= MAX_MERCHANT_CHARS) {
+            return merchant;
+        }
+        // Never split a surrogate pair
+        int end = Character.isHighSurrogate(merchant.charAt(MAX_MERCHANT_CHARS - 1))
+                ? MAX_MERCHANT_CHARS - 1 : MAX_MERCHANT_CHARS;
+        return merchant.substring(0, end);
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + entries.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeShort(entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.merchant);
+                out.writeDouble(entry.co2);
+                out.writeDouble(entry.error);
+                out.writeInt(entry.count);
+                out.writeByte(entry.category != null ? entry.category.ordinal() : -1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes as written by {@link #toBytes()}, or null for an empty sketch
+     */
+    public static MerchantSketch fromBytes(byte[] bytes, int capacity) {
+        if (bytes == null || bytes.length == 0) {
+            return new MerchantSketch(capacity);
+        }
+        TransactionCategory[] categories = TransactionCategory.values();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown merchant sketch version " + version);
+            }
+            int size = in.readShort();
+            List<Entry> entries = new ArrayList<>(Math.max(size, capacity));
+            for (int i = 0; i < size; i++) {
+                String merchant = in.readUTF();
+                double co2 = in.readDouble();
+                double error = in.readDouble();
+                int count = in.readInt();
+                byte category = in.readByte();
+                entries.add(new Entry(merchant, co2, error, count, category >= 0 ? categories[category] : null));
+            }
+            return new MerchantSketch(Math.max(size, capacity), entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
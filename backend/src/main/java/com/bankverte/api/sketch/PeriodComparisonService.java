@@ -0,0 +1,202 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.analytics.AnalyticsAggregator;
+import com.bankverte.api.analytics.dto.PeriodComparison;
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares any number of periods from one read of the daily category
+ * totals covering all of them. The days are turned into prefix sums, so
+ * each period then costs one subtraction per category whatever its length.
+ * The totals are exact, and cover archived months too.
+ */
+@Service
+@RequiredArgsConstructor
+public class PeriodComparisonService {
+
+    public static final int MAX_PERIODS = 36;
+    // Calendar years that fit within MAX_SPAN_DAYS
+    public static final int MAX_YEARS = 10;
+    // Days read for one comparison, first day of the earliest period to last of the latest
+    private static final int MAX_SPAN_DAYS = 366 * MAX_YEARS;
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+
+    private final DailySketchRepository dailySketchRepository;
+    private final AnalyticsAggregator aggregator;
+
+    /**
+     * A period to compare, both days included.
+     */
+    public record Range(String label, LocalDate from, LocalDate to) {
+
+        /**
+         * @param value {@code yyyy-MM-dd..yyyy-MM-dd}, a month {@code yyyy-MM}
+         *              or a year {@code yyyy}
+         */
+        public static Range parse(String value) {
+            int separator = value.indexOf("..");
+            if (separator >= 0) {
+                return new Range(value, LocalDate.parse(value.substring(0, separator)),
+                        LocalDate.parse(value.substring(separator + 2)));
+            }
+            if (value.length() == 4) {
+                Year year = Year.parse(value);
+                return new Range(value, year.atDay(1), year.atMonth(12).atEndOfMonth());
+            }
+            YearMonth month = YearMonth.parse(value);
+            return new Range(value, month.atDay(1), month.atEndOfMonth());
+        }
+
+        /**
+         * The last {@code count} calendar months, oldest first, the current
+         * one up to today.
+         *
+         * @throws IllegalArgumentException unless count is between 1 and
+         *                                  {@link #MAX_PERIODS}
+         */
+        public static List<Range> lastMonths(int count, LocalDate today) {
+            if (count < 1 || count > MAX_PERIODS) {
+                throw new IllegalArgumentException("Between 1 and " + MAX_PERIODS + " months can be compared");
+            }
+            List<Range> ranges = new ArrayList<>();
+            for (int i = count - 1; i >= 0; i--) {
+                YearMonth month = YearMonth.from(today).minusMonths(i);
+                ranges.add(new Range(month.toString(), month.atDay(1), i == 0 ? today : month.atEndOfMonth()));
+            }
+            return ranges;
+        }
+
+        /**
+         * The last {@code count} calendar years, oldest first, the current
+         * one up to today.
+         *
+         * @throws IllegalArgumentException unless count is between 1 and
+         *                                  {@link #MAX_YEARS}
+         */
+        public static List<Range> lastYears(int count, LocalDate today) {
+            if (count < 1 || count > MAX_YEARS) {
+                throw new IllegalArgumentException("Between 1 and " + MAX_YEARS + " years can be compared");
+            }
+            List<Range> ranges = new ArrayList<>();
+            for (int i = count - 1; i >= 0; i--) {
+                Year year = Year.from(today).minusYears(i);
+                ranges.add(new Range(year.toString(), year.atDay(1),
+                        i == 0 ? today : year.atMonth(12).atEndOfMonth()));
+            }
+            return ranges;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException for no period, more than
+     *                                  {@link #MAX_PERIODS}, one ending before
+     *                                  it starts, or more than
+     *                                  {@link #MAX_YEARS} years between the
+     *                                  first and last day
+     */
+    public PeriodComparison compare(Integer userId, List<Range> ranges) {
+        if (ranges.isEmpty() || ranges.size() > MAX_PERIODS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_PERIODS + " periods can be compared");
+        }
+        LocalDate first = ranges.get(0).from();
+        LocalDate last = ranges.get(0).to();
+        for (Range range : ranges) {
+            if (range.to().isBefore(range.from())) {
+                throw new IllegalArgumentException("Period " + range.label() + " ends before it starts");
+            }
+            first = range.from().isBefore(first) ? range.from() : first;
+            last = range.to().isAfter(last) ? range.to() : last;
+        }
+        int days = (int) ChronoUnit.DAYS.between(first, last) + 1;
+        if (days > MAX_SPAN_DAYS) {
+            throw new IllegalArgumentException("Periods must fit within " + MAX_SPAN_DAYS + " days");
+        }
+
+        // Row d holds the totals of the days before first + d, one column per category
+        int columns = CATEGORIES.length;
+        double[] co2 = new double[(days + 1) * columns];
+        long[] counts = new long[(days + 1) * columns];
+        long[] allCounts = new long[days + 1]; // uncategorized transactions included
+        for (DailySketchRepository.DayTotals day : dailySketchRepository.findCategoryTotals(userId, first, last)) {
+            int row = (int) ChronoUnit.DAYS.between(first, day.getDay()) + 1;
+            CategoryTotals totals = CategoryTotals.fromBytes(day.getCategoryTotals());
+            for (TransactionCategory category : CATEGORIES) {
+                co2[row * columns + category.ordinal()] = totals.co2(category);
+                counts[row * columns + category.ordinal()] = totals.count(category);
+            }
+            allCounts[row] = totals.totalCount();
+        }
+        for (int row = 1; row <= days; row++) {
+            for (int column = 0; column < columns; column++) {
+                co2[row * columns + column] += co2[(row - 1) * columns + column];
+                counts[row * columns + column] += counts[(row - 1) * columns + column];
+            }
+            allCounts[row] += allCounts[row - 1];
+        }
+
+        List<PeriodComparison.Period> periods = new ArrayList<>(ranges.size());
+        double[] previous = null;
+        for (Range range : ranges) {
+            int start = (int) ChronoUnit.DAYS.between(first, range.from());
+            int end = (int) ChronoUnit.DAYS.between(first, range.to()) + 1;
+            double[] periodCo2 = new double[columns];
+            Map<TransactionCategory, Double> categoryCo2 = new EnumMap<>(TransactionCategory.class);
+            Map<TransactionCategory, Long> categoryCounts = new EnumMap<>(TransactionCategory.class);
+            double total = 0;
+            for (TransactionCategory category : CATEGORIES) {
+                int column = category.ordinal();
+                periodCo2[column] = co2[end * columns + column] - co2[start * columns + column];
+                long count = counts[end * columns + column] - counts[start * columns + column];
+                if (count > 0) {
+                    categoryCo2.put(category, periodCo2[column]);
+                    categoryCounts.put(category, count);
+                }
+                total += periodCo2[column];
+            }
+
+            PeriodComparison.Period.PeriodBuilder period = PeriodComparison.Period.builder()
+                    .label(range.label())
+                    .from(range.from().toString())
+                    .to(range.to().toString())
+                    .totalCO2(round(total))
+                    .transactionCount(allCounts[end] - allCounts[start])
+                    .averageCO2PerDay(round(total / (end - start)))
+                    .categories(aggregator.byCategory(categoryCo2, categoryCounts, total));
+            if (previous != null) {
+                double previousTotal = 0;
+                Map<String, Double> deltas = new LinkedHashMap<>();
+                for (TransactionCategory category : CATEGORIES) {
+                    int column = category.ordinal();
+                    previousTotal += previous[column];
+                    if (periodCo2[column] != 0 || previous[column] != 0) {
+                        deltas.put(category.name(), round(periodCo2[column] - previous[column]));
+                    }
+                }
+                period.deltaCO2(round(total - previousTotal))
+                        .deltaPercentage(previousTotal > 0
+                                ? Math.round((total - previousTotal) / previousTotal * 1000.0) / 10.0
+                                : null)
+                        .categoryDeltas(deltas);
+            }
+            periods.add(period.build());
+            previous = periodCo2;
+        }
+        return PeriodComparison.builder().periods(periods).build();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,150 @@
+package com.bankverte.api.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch over logarithmic buckets (the DDSketch scheme):
+ * every quantile it returns is within {@link #RELATIVE_ACCURACY} of the
+ * exact value of that rank, whatever the data and however many sketches
+ * were merged. Count and sum are exact. A day's worth of transactions
+ * occupies a handful of buckets; a year of CO₂ values spans a few hundred
+ * at most.
+ */
+public final class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // Smaller values are counted as zero
+    private static final double MIN_VALUE = 1e-6;
+    private static final byte VERSION = 1;
+
+    // Sorted bucket indexes and their counts
+    private int[] indexes = new int[8];
+    private long[] counts = new long[8];
+    private int size;
+    private long zeroCount;
+    private long count;
+    private double sum;
+
+    public long count() {
+        return count;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public void add(double value) {
+        count++;
+        sum += value;
+        if (value < MIN_VALUE) {
+            zeroCount++;
+        } else {
+            increment((int) Math.ceil(Math.log(value) / LOG_GAMMA), 1);
+        }
+    }
+
+    public void merge(QuantileSketch other) {
+        count += other.count;
+        sum += other.sum;
+        zeroCount += other.zeroCount;
+        for (int i = 0; i < other.size; i++) {
+            increment(other.indexes[i], other.counts[i]);
+        }
+    }
+
+    /**
+     * The value of rank {@code ceil(q * count)}, NaN when empty.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = zeroCount;
+        if (rank <= seen) {
+            return 0;
+        }
+        for (int i = 0; i < size; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return 2 * Math.pow(GAMMA, indexes[i]) / (GAMMA + 1);
+            }
+        }
+        return 2 * Math.pow(GAMMA, indexes[size - 1]) / (GAMMA + 1);
+    }
+
+    private void increment(int index, long by) {
+        int position = Arrays.binarySearch(indexes, 0, size, index);
+        if (position >= 0) {
+            counts[position] += by;
+            return;
+        }
+        position = -position - 1;
+        if (size == indexes.length) {
+            indexes = Arrays.copyOf(indexes, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        System.arraycopy(indexes, position, indexes, position + 1, size - position);
+        System.arraycopy(counts, position, counts, position + 1, size - position);
+        indexes[position] = index;
+        counts[position] = by;
+        size++;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + size * 10);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(zeroCount);
+            out.writeDouble(sum);
+            out.writeShort(size);
+            for (int i = 0; i < size; i++) {
+                out.writeShort(indexes[i]);
+                out.writeLong(counts[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes as written by {@link #toBytes()}, or null for an empty sketch
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        QuantileSketch sketch = new QuantileSketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown quantile sketch version " + version);
+            }
+            sketch.zeroCount = in.readLong();
+            sketch.count = sketch.zeroCount;
+            sketch.sum = in.readDouble();
+            int size = in.readShort();
+            sketch.indexes = new int[Math.max(8, size)];
+            sketch.counts = new long[Math.max(8, size)];
+            for (int i = 0; i < size; i++) {
+                sketch.indexes[i] = in.readShort();
+                sketch.counts[i] = in.readLong();
+                sketch.count += sketch.counts[i];
+            }
+            sketch.size = size;
+            return sketch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
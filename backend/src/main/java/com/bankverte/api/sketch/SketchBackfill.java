@@ -0,0 +1,130 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.insight.Backfills;
+import com.bankverte.api.sharding.AdvisoryLocks;
+import com.bankverte.api.sharding.Shards;
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Fills the daily sketches in one pass over the transaction table sorted by
+ * user and time, writing each day's {@link DaySketches} as the next day
+ * starts. Also rebuilds sketches written before the category totals existed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SketchBackfill implements SmartInitializingSingleton {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final Shards shards;
+    private final SketchProperties properties;
+
+    /**
+     * Runs on the first start after the sketches were introduced or gained a
+     * column, before the web server accepts requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Backfills.onEveryShard(shards, AdvisoryLocks.SKETCH_BACKFILL, "Daily sketch",
+                (shard, dataSource, connection) -> {
+                    if (isComplete(connection) || Backfills.isEmpty(connection, "transaction")) {
+                        return;
+                    }
+                    long started = System.nanoTime();
+                    connection.setAutoCommit(false);
+                    int rows = rebuild(connection, 0, properties.getMerchantCapacity());
+                    connection.commit();
+                    log.info("Backfilled {} daily sketches on {} in {} ms", rows, shard,
+                            (System.nanoTime() - started) / 1_000_000);
+                });
+    }
+
+    /**
+     * Replaces the sketches of every user with an id from {@code firstUserId}
+     * on. Leaves committing to the caller, and transactions still pending to
+     * {@link com.bankverte.api.transaction.DerivedStateConsumer}.
+     *
+     * @return the number of sketch rows written
+     */
+    public static int rebuild(Connection connection, long firstUserId, int merchantCapacity) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM daily_sketch WHERE user_id >= ?")) {
+            delete.setLong(1, firstUserId);
+            delete.executeUpdate();
+        }
+
+        int rows = 0;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT user_id, created_at, merchant, category, carbon_footprint FROM transaction "
+                        + "WHERE user_id >= ? AND derived_pending = false "
+                        + "ORDER BY user_id, created_at");
+                PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO daily_sketch (user_id, sketch_day, merchants, co2_quantiles, merchant_hll, "
+                                + "category_totals) VALUES (?, ?, ?, ?, ?, ?)")) {
+            select.setLong(1, firstUserId);
+            select.setFetchSize(10_000);
+            int userId = -1;
+            LocalDate day = null;
+            DaySketches sketches = null;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    int rowUser = rs.getInt(1);
+                    LocalDate rowDay = rs.getTimestamp(2).toLocalDateTime().toLocalDate();
+                    if (rowUser != userId || !rowDay.equals(day)) {
+                        if (sketches != null) {
+                            add(insert, userId, day, sketches);
+                            rows++;
+                            if (rows % BATCH_SIZE == 0) {
+                                insert.executeBatch();
+                            }
+                        }
+                        userId = rowUser;
+                        day = rowDay;
+                        sketches = new DaySketches(merchantCapacity);
+                    }
+                    String category = rs.getString(4);
+                    Double co2 = rs.getObject(5) != null ? rs.getDouble(5) : null;
+                    sketches.add(rs.getString(3), category != null ? TransactionCategory.valueOf(category) : null, co2);
+                }
+            }
+            if (sketches != null) {
+                add(insert, userId, day, sketches);
+                rows++;
+            }
+            insert.executeBatch();
+        }
+        return rows;
+    }
+
+    private static void add(PreparedStatement insert, int userId, LocalDate day, DaySketches sketches)
+            throws SQLException {
+        insert.setInt(1, userId);
+        insert.setDate(2, Date.valueOf(day));
+        insert.setBytes(3, sketches.merchants.toBytes());
+        insert.setBytes(4, sketches.co2.toBytes());
+        insert.setBytes(5, sketches.distinctMerchants.toBytes());
+        insert.setBytes(6, sketches.categories.toBytes());
+        insert.addBatch();
+    }
+
+    // Rows written before the category totals existed lack the other summaries too
+    private static boolean isComplete(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(
+                        "SELECT 1 FROM daily_sketch WHERE category_totals IS NULL LIMIT 1")) {
+            return !rs.next() && !Backfills.isEmpty(connection, "daily_sketch");
+        }
+    }
+}
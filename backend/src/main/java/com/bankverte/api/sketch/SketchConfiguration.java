@@ -0,0 +1,9 @@
+package com.bankverte.api.sketch;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SketchProperties.class)
+public class SketchConfiguration {
+}
@@ -0,0 +1,22 @@
+package com.bankverte.api.sketch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.sketch")
+public class SketchProperties {
+
+    /**
+     * Merchants tracked per user and day. Days with fewer distinct merchants
+     * are exact, so errors only come from unusually busy days. At most
+     * {@link MerchantSketch#MAX_CAPACITY}.
+     */
+    private int merchantCapacity = 16;
+
+    /**
+     * Longest range, in days, answered exactly from transactions when the
+     * client does not choose; longer ranges are merged from daily sketches.
+     */
+    private int exactMaxDays = 92;
+}
@@ -0,0 +1,177 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.analytics.AnalyticsAggregator;
+import com.bankverte.api.analytics.dto.AnalyticsSummaryResponse;
+import com.bankverte.api.analytics.dto.CategoryBreakdown;
+import com.bankverte.api.analytics.dto.MerchantAnalytics;
+import com.bankverte.api.analytics.dto.TimeSeriesDataPoint;
+import com.bankverte.api.transaction.TransactionCategory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate analytics merged from {@link DailySketch} rows: the cost
+ * depends on the number of days in the range, not on how many transactions
+ * they hold.
+ */
+@Service
+@RequiredArgsConstructor
+public class SketchQueryService {
+
+    private final DailySketchRepository dailySketchRepository;
+    private final SketchProperties properties;
+    private final AnalyticsAggregator aggregator;
+
+    /**
+     * Whether a range is answered from sketches when the client did not say.
+     */
+    public boolean approximateByDefault(LocalDate from, LocalDate to) {
+        return ChronoUnit.DAYS.between(from, to) + 1 > properties.getExactMaxDays();
+    }
+
+    /**
+     * The summary card of {@code from..to}, compared with the {@code previousFrom}
+     * days before it, in one query. Totals, counts and the top category are
+     * exact; the median and p90 are within {@link QuantileSketch#RELATIVE_ACCURACY}
+     * and the distinct merchant count has a {@link HyperLogLog#STANDARD_ERROR}
+     * standard error.
+     */
+    public AnalyticsSummaryResponse summary(Integer userId, LocalDate previousFrom, LocalDate from, LocalDate to) {
+        CategoryTotals current = new CategoryTotals();
+        CategoryTotals previous = new CategoryTotals();
+        QuantileSketch co2 = new QuantileSketch();
+        HyperLogLog merchants = new HyperLogLog();
+        for (DailySketch day : dailySketchRepository.findByUserIdAndDayBetween(userId, previousFrom, to)) {
+            if (day.getDay().isBefore(from)) {
+                previous.merge(CategoryTotals.fromBytes(day.getCategoryTotals()));
+                continue;
+            }
+            current.merge(CategoryTotals.fromBytes(day.getCategoryTotals()));
+            co2.merge(QuantileSketch.fromBytes(day.getCo2Quantiles()));
+            merchants.merge(HyperLogLog.fromBytes(day.getMerchantHll()));
+        }
+
+        Map<TransactionCategory, Double> categoryTotals = new EnumMap<>(TransactionCategory.class);
+        for (TransactionCategory category : TransactionCategory.values()) {
+            if (current.count(category) > 0) {
+                categoryTotals.put(category, current.co2(category));
+            }
+        }
+        AnalyticsSummaryResponse response = aggregator.summarize(current.totalCo2(), current.totalCount(),
+                categoryTotals, previous.totalCo2(), from, to);
+        response.setMedianCO2PerTransaction(round(co2.quantile(0.5)));
+        response.setP90CO2PerTransaction(round(co2.quantile(0.9)));
+        response.setDistinctMerchants(merchants.estimate());
+        response.setQuantileRelativeError(QuantileSketch.RELATIVE_ACCURACY);
+        response.setDistinctMerchantsStandardError(Math.round(HyperLogLog.STANDARD_ERROR * 1000.0) / 1000.0);
+        return response;
+    }
+
+    /**
+     * Daily CO₂ and transaction counts, exact.
+     */
+    public List<TimeSeriesDataPoint> timeSeries(Integer userId, LocalDate from, LocalDate to) {
+        List<TimeSeriesDataPoint> points = new ArrayList<>();
+        for (DailySketch day : dailySketchRepository.findByUserIdAndDayBetween(userId, from, to)) {
+            CategoryTotals totals = CategoryTotals.fromBytes(day.getCategoryTotals());
+            points.add(TimeSeriesDataPoint.builder()
+                    .date(day.getDay().format(DateTimeFormatter.ISO_DATE))
+                    .co2Value(Math.round(totals.totalCo2() * 100.0) / 100.0)
+                    .transactionCount((int) totals.totalCount())
+                    .build());
+        }
+        points.sort(Comparator.comparing(TimeSeriesDataPoint::getDate));
+        return points;
+    }
+
+    /**
+     * Per-category breakdown, exact.
+     */
+    public List<CategoryBreakdown> byCategory(Integer userId, LocalDate from, LocalDate to) {
+        CategoryTotals totals = new CategoryTotals();
+        for (DailySketch day : dailySketchRepository.findByUserIdAndDayBetween(userId, from, to)) {
+            totals.merge(CategoryTotals.fromBytes(day.getCategoryTotals()));
+        }
+        Map<TransactionCategory, Double> co2 = new EnumMap<>(TransactionCategory.class);
+        Map<TransactionCategory, Long> counts = new EnumMap<>(TransactionCategory.class);
+        for (TransactionCategory category : TransactionCategory.values()) {
+            if (totals.count(category) > 0) {
+                co2.put(category, totals.co2(category));
+                counts.put(category, totals.count(category));
+            }
+        }
+        return aggregator.byCategory(co2, counts, totals.totalCo2());
+    }
+
+    /**
+     * Heaviest merchants of the range. Each total is within
+     * {@code co2ErrorBound} kg of the exact one, and a merchant missing from
+     * the list emits at most the smallest listed total plus that bound.
+     */
+    public List<MerchantAnalytics> topMerchants(Integer userId, LocalDate from, LocalDate to, int limit) {
+        Map<String, MerchantTotal> totals = new HashMap<>();
+        double floors = 0;
+        for (DailySketch day : dailySketchRepository.findByUserIdAndDayBetween(userId, from, to)) {
+            MerchantSketch sketch = MerchantSketch.fromBytes(day.getMerchants(), properties.getMerchantCapacity());
+            double floor = sketch.floor();
+            floors += floor;
+            for (MerchantSketch.Entry entry : sketch.entries()) {
+                totals.computeIfAbsent(entry.getMerchant(), m -> new MerchantTotal()).add(entry, floor);
+            }
+        }
+
+        double allFloors = floors;
+        return totals.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, MerchantTotal> e) -> e.getValue().co2)
+                        .reversed())
+                .limit(limit)
+                .map(e -> {
+                    MerchantTotal t = e.getValue();
+                    // Overestimated by up to its own error, missed on the other days by up to their floors
+                    double bound = t.error + (allFloors - t.floorsWhereTracked);
+                    return MerchantAnalytics.builder()
+                            .merchantName(e.getKey())
+                            .totalCO2(Math.round(t.co2 * 100.0) / 100.0)
+                            .transactionCount(t.count)
+                            .averageCO2(Math.round((t.co2 / t.count) * 100.0) / 100.0)
+                            .primaryCategory(t.category != null ? t.category.getDisplayName() : "Unknown")
+                            .co2ErrorBound(Math.round(bound * 100.0) / 100.0)
+                            .build();
+                })
+                .toList();
+    }
+
+    private static Double round(double value) {
+        return Double.isNaN(value) ? null : Math.round(value * 100.0) / 100.0;
+    }
+
+    private static final class MerchantTotal {
+        double co2;
+        double error;
+        double floorsWhereTracked;
+        int count;
+        int categoryCount;
+        TransactionCategory category; // of the day with the most transactions
+
+        void add(MerchantSketch.Entry entry, double floor) {
+            co2 += entry.getCo2();
+            error += entry.getError();
+            floorsWhereTracked += floor;
+            count += entry.getCount();
+            if (entry.getCount() > categoryCount) {
+                categoryCount = entry.getCount();
+                category = entry.getCategory();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bankverte.api.sync;
+
+import com.bankverte.api.sharding.Shards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes change log entries past the retention on every database. Clients
+ * holding a token from before the oldest remaining entry resync in full.
+ */
+@Slf4j
+@Component
+public class ChangeLogCompactor {
+
+    private final Shards shards;
+    private final SyncProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final Counter compacted;
+
+    public ChangeLogCompactor(Shards shards, SyncProperties properties, MeterRegistry meterRegistry) {
+        this.shards = shards;
+        this.properties = properties;
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("change-log-");
+        threads.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threads);
+        this.compacted = Counter.builder("bankverte.sync.compacted")
+                .description("Change log entries deleted after the retention")
+                .register(meterRegistry);
+
+        long interval = properties.getCompactionInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::compact, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    void compact() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(properties.getRetention()));
+        for (String shard : shards.names()) {
+            try {
+                int deleted = shards.jdbc(shard).update("DELETE FROM user_change WHERE changed_at < ?", cutoff);
+                compacted.increment(deleted);
+                log.debug("Compacted {} change log entries on {}", deleted, shard);
+            } catch (DataAccessException e) {
+                log.warn("Could not compact the change log on {}: {}", shard, e.toString());
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,27 @@
+package com.bankverte.api.sync;
+
+import com.bankverte.api.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+        private final SyncService syncService;
+
+        /**
+         * @param since the {@code version} of the previous sync; without it
+         *              the answer is a full resync with the current version
+         */
+        @GetMapping
+        public ResponseEntity<SyncResponse> sync(
+                        @AuthenticationPrincipal User user,
+                        @RequestParam(required = false) Long since) {
+
+                return ResponseEntity.ok(syncService.changesSince(user, since));
+        }
+}
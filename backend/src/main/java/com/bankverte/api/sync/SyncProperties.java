@@ -0,0 +1,28 @@
+package com.bankverte.api.sync;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "bankverte.sync")
+public class SyncProperties {
+
+    /**
+     * How long change log entries are kept. A client whose token is older
+     * is told to resync in full.
+     */
+    private Duration retention = Duration.ofDays(30);
+
+    /**
+     * Most changes returned by one sync; a client further behind is told to
+     * resync in full, which is cheaper by then.
+     */
+    private int maxChanges = 500;
+
+    /**
+     * Time between compaction runs.
+     */
+    private Duration compactionInterval = Duration.ofHours(1);
+}
@@ -0,0 +1,30 @@
+package com.bankverte.api.sync;
+
+import com.bankverte.api.budget.BudgetStatus;
+import com.bankverte.api.transaction.TransactionResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What changed since a client's token. Parts that did not change are left
+ * out; with {@code fullResync} only the version is set and the client
+ * reloads everything, then syncs from that version.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncResponse {
+
+    // The token for the next sync
+    private long version;
+    private boolean fullResync;
+    private List<TransactionResponse> transactions;
+    private List<Integer> deletedTransactionIds;
+    private Map<String, Object> carbonSummary;
+    private List<BudgetStatus> budgets;
+    private Map<String, Object> profile;
+}
@@ -0,0 +1,135 @@
+package com.bankverte.api.sync;
+
+import com.bankverte.api.budget.BudgetService;
+import com.bankverte.api.budget.BudgetStatus;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionRepository;
+import com.bankverte.api.transaction.TransactionResponse;
+import com.bankverte.api.transaction.TransactionService;
+import com.bankverte.api.user.User;
+import com.bankverte.api.user.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Answers a sync from the user's change log: the entries after the client's
+ * version say which transactions to send and which snapshots to rebuild.
+ * The token is the user's data version, the same one the ETags carry.
+ */
+@Service
+public class SyncService {
+
+    private final UserChangeRepository userChangeRepository;
+    private final UserRepository userRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionService transactionService;
+    private final BudgetService budgetService;
+    private final SyncProperties properties;
+    private final Counter fullResyncs;
+
+    public SyncService(UserChangeRepository userChangeRepository, UserRepository userRepository,
+            TransactionRepository transactionRepository, TransactionService transactionService,
+            BudgetService budgetService, SyncProperties properties, MeterRegistry meterRegistry) {
+        this.userChangeRepository = userChangeRepository;
+        this.userRepository = userRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionService = transactionService;
+        this.budgetService = budgetService;
+        this.properties = properties;
+        this.fullResyncs = Counter.builder("bankverte.sync.full")
+                .description("Syncs answered with a full resync")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param since the version the client last synced to, null for none
+     */
+    public SyncResponse changesSince(User user, Long since) {
+        // Not the principal's: a cached one may predate a change made through another node
+        long current = userRepository.findDataVersion(user.getId());
+        if (since == null || since < 0 || since > current) {
+            // A version never handed out, e.g. from before a database restore
+            return fullResync(current);
+        }
+        if (since == current) {
+            // The common poll: one query
+            return SyncResponse.builder().version(current).build();
+        }
+
+        List<UserChange> changes = userChangeRepository.findByUserIdAndDataVersionGreaterThanOrderByDataVersion(
+                user.getId(), since, Limit.of(properties.getMaxChanges() + 1));
+        if (changes.isEmpty()) {
+            // Behind with no entries: compacted
+            return fullResync(current);
+        }
+        if (changes.size() > properties.getMaxChanges() || !contiguous(changes, since)
+                || changes.get(changes.size() - 1).getDataVersion() < current) {
+            return fullResync(current);
+        }
+
+        Set<UserChange.Kind> kinds = EnumSet.noneOf(UserChange.Kind.class);
+        Set<Integer> transactionIds = new LinkedHashSet<>();
+        for (UserChange change : changes) {
+            kinds.add(change.getKind());
+            if (change.getKind() == UserChange.Kind.TRANSACTION && change.getEntityId() != null) {
+                transactionIds.add(change.getEntityId());
+            }
+        }
+
+        SyncResponse.SyncResponseBuilder response = SyncResponse.builder()
+                .version(changes.get(changes.size() - 1).getDataVersion());
+        if (kinds.contains(UserChange.Kind.TRANSACTION)) {
+            List<Transaction> found = new ArrayList<>();
+            transactionRepository.findAllById(transactionIds).forEach(t -> {
+                if (t.getUser().getId().equals(user.getId())) {
+                    found.add(t);
+                }
+            });
+            found.sort(Comparator.comparing(Transaction::getCreatedAt).reversed());
+            found.forEach(t -> transactionIds.remove(t.getId()));
+            response.transactions(found.stream().map(TransactionResponse::from).toList())
+                    .deletedTransactionIds(List.copyOf(transactionIds))
+                    .carbonSummary(transactionService.carbonSummary(user.getId()));
+        }
+        if (kinds.contains(UserChange.Kind.BUDGET) || kinds.contains(UserChange.Kind.TRANSACTION)) {
+            // New transactions move the spent share of every budget
+            List<BudgetStatus> budgets = budgetService.statuses(user.getId());
+            if (kinds.contains(UserChange.Kind.BUDGET) || !budgets.isEmpty()) {
+                response.budgets(budgets);
+            }
+        }
+        if (kinds.contains(UserChange.Kind.PROFILE)) {
+            response.profile(Map.of(
+                    "id", user.getId(),
+                    "firstname", user.getFirstname(),
+                    "lastname", user.getLastname(),
+                    "email", user.getEmail()));
+        }
+        return response.build();
+    }
+
+    private static boolean contiguous(List<UserChange> changes, long since) {
+        long expected = since + 1;
+        for (UserChange change : changes) {
+            if (change.getDataVersion() != expected++) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SyncResponse fullResync(long version) {
+        fullResyncs.increment();
+        return SyncResponse.builder().version(version).fullResync(true).build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.bankverte.api.sync;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * One change to a user's data, at the data version it produced. Logged in
+ * the same database transaction as the change and its version bump, so a
+ * user's entries have consecutive versions unless something bumped the
+ * version without logging, which sends clients to a full resync.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_change", indexes = @Index(columnList = "changed_at"))
+@IdClass(UserChange.Key.class)
+public class UserChange {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Id
+    @Column(name = "data_version")
+    private long dataVersion;
+
+    @Enumerated(EnumType.STRING)
+    private Kind kind;
+
+    // The transaction, for TRANSACTION
+    @Column(name = "entity_id")
+    private Integer entityId;
+
+    @Column(name = "changed_at")
+    private LocalDateTime changedAt;
+
+    public enum Kind {
+        TRANSACTION,
+        BUDGET,
+        PROFILE,
+        ANALYTICS // derived state caught up with new transactions; nothing to send
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Integer userId;
+        private long dataVersion;
+    }
+}
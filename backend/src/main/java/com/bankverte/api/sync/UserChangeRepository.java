@@ -0,0 +1,30 @@
+package com.bankverte.api.sync;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface UserChangeRepository extends JpaRepository<UserChange, UserChange.Key> {
+
+    /**
+     * Logs a change at the data version the caller just bumped to. The bump
+     * holds the user's row lock until commit, so concurrent changes of the
+     * same user cannot read the same version.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_change (user_id, data_version, kind, entity_id, changed_at) "
+            + "SELECT id, data_version, CAST(:kind AS VARCHAR(32)), CAST(:entityId AS INTEGER), CURRENT_TIMESTAMP "
+            + "FROM _user WHERE id = :userId", nativeQuery = true)
+    int insert(@Param("userId") Integer userId, @Param("kind") String kind, @Param("entityId") Integer entityId);
+
+    default void record(Integer userId, UserChange.Kind kind, Integer entityId) {
+        insert(userId, kind.name(), entityId);
+    }
+
+    List<UserChange> findByUserIdAndDataVersionGreaterThanOrderByDataVersion(Integer userId, long dataVersion,
+            Limit limit);
+}
@@ -0,0 +1,105 @@
+package com.bankverte.api.transaction;
+
+import com.bankverte.api.outbox.OutboxConsumer;
+import com.bankverte.api.outbox.OutboxEvent;
+import com.bankverte.api.outbox.OutboxRecord;
+import com.bankverte.api.sharding.ShardContext;
+import com.bankverte.api.sharding.Shards;
+import com.bankverte.api.sync.UserChange;
+import com.bankverte.api.sync.UserChangeRepository;
+import com.bankverte.api.user.UserDataChangedEvent;
+import com.bankverte.api.user.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Runs every {@link DerivedStateUpdater} over the new transactions of each
+ * outbox batch, one database transaction per database. The transactions'
+ * derived_pending flag is cleared in the same database transaction, which
+ * makes the updates exactly once however often the relay delivers an event.
+ * The owners' data versions are bumped again with an ANALYTICS change, so
+ * ETags and caches taken before the update do not outlive it.
+ */
+@Component
+public class DerivedStateConsumer implements OutboxConsumer {
+
+    private final List<DerivedStateUpdater> updaters;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final UserChangeRepository userChangeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+    private final Counter applied;
+    // Transaction ids of the current batch per database index, consumer thread only
+    private final Map<Integer, List<Integer>> batch = new TreeMap<>();
+
+    public DerivedStateConsumer(List<DerivedStateUpdater> updaters, TransactionRepository transactionRepository,
+            UserRepository userRepository, UserChangeRepository userChangeRepository,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager, Shards shards,
+            MeterRegistry meterRegistry) {
+        this.updaters = updaters;
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.userChangeRepository = userChangeRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = shards;
+        this.applied = Counter.builder("bankverte.derived.applied")
+                .description("Transactions folded into the state derived from them")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "derived-state";
+    }
+
+    @Override
+    public void onEvent(OutboxRecord event, boolean endOfBatch) {
+        if (event.type() == OutboxEvent.Type.TRANSACTION_CREATED) {
+            batch.computeIfAbsent(event.shardIndex(), shard -> new ArrayList<>()).add(event.transactionId());
+        }
+        if (!endOfBatch) {
+            return;
+        }
+        try {
+            // A retry after a failure redoes only the databases not committed yet: the others are no longer pending
+            batch.forEach((shard, ids) -> ShardContext.run(shards.name(shard),
+                    () -> transactionTemplate.executeWithoutResult(status -> apply(ids))));
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void apply(List<Integer> ids) {
+        List<Transaction> pending = transactionRepository.findDerivedPending(ids);
+        if (pending.isEmpty()) {
+            return;
+        }
+        TreeSet<Integer> users = new TreeSet<>();
+        for (Transaction transaction : pending) {
+            for (DerivedStateUpdater updater : updaters) {
+                updater.apply(transaction);
+            }
+            users.add(transaction.getUser().getId());
+        }
+        transactionRepository.clearDerivedPending(pending.stream().map(Transaction::getId).toList());
+        for (Integer userId : users) {
+            userRepository.bumpDataVersion(userId);
+            userChangeRepository.record(userId, UserChange.Kind.ANALYTICS, null);
+            eventPublisher.publishEvent(new UserDataChangedEvent(userId));
+        }
+        applied.increment(pending.size());
+    }
+}
@@ -0,0 +1,13 @@
+package com.bankverte.api.transaction;
+
+/**
+ * Folds a committed transaction into state derived from the user's history,
+ * off the request path. Called by {@link DerivedStateConsumer} exactly once
+ * per transaction, inside the database transaction that marks it done, on
+ * the transaction's database; one consumer thread per database, so updates
+ * of the same user never race.
+ */
+public interface DerivedStateUpdater {
+
+    void apply(Transaction transaction);
+}
@@ -1,11 +1,13 @@
 package com.bankverte.api.transaction;
 
 import com.bankverte.api.user.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -45,6 +47,13 @@ public class Transaction {
 
     private LocalDateTime createdAt;
 
+    // Not folded into the derived state yet, see DerivedStateConsumer
+    @JsonIgnore
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean derivedPending;
+
+    @JsonIgnore // lazy proxy, and the owner is always the caller
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
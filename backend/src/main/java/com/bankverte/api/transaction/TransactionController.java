@@ -1,16 +1,24 @@
 package com.bankverte.api.transaction;
 
+import com.bankverte.api.archive.ArchiveStore;
+import com.bankverte.api.ingest.IngestProperties;
+import com.bankverte.api.ingest.IngestStatus;
+import com.bankverte.api.ingest.PendingWrite;
+import com.bankverte.api.ingest.WriteBehindIngestor;
 import com.bankverte.api.user.User;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.time.LocalDateTime;
-import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -19,6 +27,10 @@ import java.util.stream.Collectors;
 public class TransactionController {
 
         private final TransactionRepository transactionRepository;
+        private final TransactionService transactionService;
+        private final WriteBehindIngestor writeBehindIngestor;
+        private final IngestProperties ingestProperties;
+        private final ArchiveStore archiveStore;
 
         @GetMapping("/categories")
         public ResponseEntity<?> getCategories() {
@@ -31,32 +43,56 @@ public class TransactionController {
                 return ResponseEntity.ok(categories);
         }
 
+        /**
+         * In write-behind mode the insert joins the next group commit. The
+         * response waits for it unless the client sends
+         * {@code Prefer: respond-async}, which gets a 202 and a ticket to
+         * follow on /api/ingest right away.
+         */
         @PostMapping
         public ResponseEntity<?> createTransaction(
                         @AuthenticationPrincipal User user,
-                        @RequestBody CreateTransactionRequest request) {
+                        @RequestBody CreateTransactionRequest request,
+                        @RequestHeader(value = "Prefer", required = false) String prefer) {
 
-                Transaction transaction = Transaction.builder()
-                                .description(request.getDescription())
-                                .amount(request.getAmount())
-                                .currency(request.getCurrency())
-                                .category(request.getCategory())
-                                .merchant(request.getMerchant())
-                                .paymentType(request.getPaymentType())
-                                .user(user)
-                                .build();
+                if (!writeBehindIngestor.isEnabled()) {
+                        Transaction transaction = transactionService.create(user, request);
+                        return ResponseEntity.ok(TransactionResponse.from(transaction));
+                }
 
-                transaction = transactionRepository.save(transaction);
-
-                return ResponseEntity.ok(toResponse(transaction));
+                PendingWrite write;
+                try {
+                        write = writeBehindIngestor.submit(user, request);
+                } catch (RejectedExecutionException e) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                        .header(HttpHeaders.RETRY_AFTER, "1")
+                                        .build();
+                }
+                boolean respondAsync = prefer != null && prefer.contains("respond-async");
+                IngestStatus status = write.await(respondAsync ? 0 : ingestProperties.getAwaitTimeout().toMillis());
+                return switch (status.getState()) {
+                        case COMMITTED -> ResponseEntity.ok(status.getTransaction());
+                        case FAILED -> ResponseEntity.internalServerError().body(status);
+                        case REJECTED -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                        .header(HttpHeaders.RETRY_AFTER, "1")
+                                        .body(status);
+                        case PENDING -> ResponseEntity.accepted()
+                                        .location(URI.create("/api/ingest/" + write.ticket()))
+                                        .body(status);
+                };
         }
 
+        /**
+         * Every transaction of the user, newest first, archived months
+         * included.
+         */
         @GetMapping
         public ResponseEntity<?> getTransactions(@AuthenticationPrincipal User user) {
-                List<TransactionResponse> transactions = transactionRepository
-                                .findByUserOrderByCreatedAtDesc(user)
+                List<TransactionResponse> transactions = archiveStore
+                                .merge(user, LocalDateTime.MIN, LocalDateTime.MAX,
+                                                transactionRepository.findByUserOrderByCreatedAtDesc(user))
                                 .stream()
-                                .map(this::toResponse)
+                                .map(TransactionResponse::from)
                                 .collect(Collectors.toList());
 
                 return ResponseEntity.ok(transactions);
@@ -64,30 +100,6 @@ public class TransactionController {
 
         @GetMapping("/carbon-summary")
         public ResponseEntity<?> getCarbonSummary(@AuthenticationPrincipal User user) {
-                YearMonth currentMonth = YearMonth.now();
-                LocalDateTime startOfMonth = currentMonth.atDay(1).atStartOfDay();
-                LocalDateTime startOfLastMonth = currentMonth.minusMonths(1).atDay(1).atStartOfDay();
-
-                Double currentMonthTotal = transactionRepository.sumCarbonFootprintByUserSince(user, startOfMonth);
-                Double lastMonthTotal = transactionRepository.sumCarbonFootprintByUserBetween(user, startOfLastMonth,
-                                startOfMonth);
-
-                return ResponseEntity.ok(Map.of(
-                                "currentMonth", currentMonthTotal != null ? currentMonthTotal : 0.0,
-                                "lastMonth", lastMonthTotal != null ? lastMonthTotal : 0.0,
-                                "month", currentMonth.toString()));
-        }
-
-        private TransactionResponse toResponse(Transaction t) {
-                return TransactionResponse.builder()
-                                .id(t.getId())
-                                .description(t.getDescription())
-                                .amount(t.getAmount())
-                                .category(t.getCategory().name())
-                                .categoryDisplayName(t.getCategory().getDisplayName())
-                                .carbonFootprint(t.getCarbonFootprint())
-                                .merchant(t.getMerchant())
-                                .createdAt(t.getCreatedAt())
-                                .build();
+                return ResponseEntity.ok(transactionService.carbonSummary(user.getId()));
         }
 }
@@ -0,0 +1,13 @@
+package com.bankverte.api.transaction;
+
+/**
+ * Published by {@link TransactionService#create} inside the write transaction.
+ * Listeners that must only see committed data use
+ * {@code @TransactionalEventListener}.
+ */
+public record TransactionCreatedEvent(Transaction transaction) {
+
+    public Integer userId() {
+        return transaction.getUser().getId();
+    }
+}
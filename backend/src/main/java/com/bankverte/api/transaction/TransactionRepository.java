@@ -1,12 +1,17 @@
 package com.bankverte.api.transaction;
 
 import com.bankverte.api.user.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
 
@@ -22,7 +27,23 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
     Double sumCarbonFootprintByUserBetween(@Param("user") User user, @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
 
+    @Query("SELECT t.id FROM Transaction t WHERE t.user = :user AND t.createdAt >= :startDate AND t.createdAt < :endDate")
+    Set<Integer> findIdsByUserBetween(@Param("user") User user, @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.user = :user AND t.createdAt >= :startDate AND t.createdAt < :endDate")
     Long countByUserBetween(@Param("user") User user, @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * The transactions among {@code ids} not folded into the derived state
+     * yet, locked until the caller's commit.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id IN :ids AND t.derivedPending = true ORDER BY t.id")
+    List<Transaction> findDerivedPending(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query("UPDATE Transaction t SET t.derivedPending = false WHERE t.id IN :ids")
+    int clearDerivedPending(@Param("ids") Collection<Integer> ids);
 }
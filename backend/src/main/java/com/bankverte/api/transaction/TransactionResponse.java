@@ -20,4 +20,17 @@ public class TransactionResponse {
     private Double carbonFootprint;
     private String merchant;
     private LocalDateTime createdAt;
+
+    public static TransactionResponse from(Transaction t) {
+        return TransactionResponse.builder()
+                .id(t.getId())
+                .description(t.getDescription())
+                .amount(t.getAmount())
+                .category(t.getCategory().name())
+                .categoryDisplayName(t.getCategory().getDisplayName())
+                .carbonFootprint(t.getCarbonFootprint())
+                .merchant(t.getMerchant())
+                .createdAt(t.getCreatedAt())
+                .build();
+    }
 }
@@ -0,0 +1,78 @@
+package com.bankverte.api.transaction;
+
+import com.bankverte.api.insight.CarbonMonthTotal;
+import com.bankverte.api.insight.CarbonMonthTotalRepository;
+import com.bankverte.api.sync.UserChange;
+import com.bankverte.api.sync.UserChangeRepository;
+import com.bankverte.api.user.User;
+import com.bankverte.api.user.UserDataChangedEvent;
+import com.bankverte.api.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class TransactionService {
+
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final UserChangeRepository userChangeRepository;
+    private final CarbonMonthTotalRepository carbonMonthTotalRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Saves a new transaction and bumps its owner's data version in the same
+     * database transaction, so a cached ETag never outlives the data it covers.
+     * The daily sketches follow once it commits, through
+     * {@link DerivedStateConsumer}.
+     */
+    @Transactional
+    public Transaction create(User user, CreateTransactionRequest request) {
+        Transaction transaction = Transaction.builder()
+                .description(request.getDescription())
+                .amount(request.getAmount())
+                .currency(request.getCurrency())
+                .category(request.getCategory())
+                .merchant(request.getMerchant())
+                .paymentType(request.getPaymentType())
+                .user(user)
+                .derivedPending(true)
+                .build();
+
+        transaction = transactionRepository.save(transaction);
+        userRepository.bumpDataVersion(user.getId());
+        userChangeRepository.record(user.getId(), UserChange.Kind.TRANSACTION, transaction.getId());
+        eventPublisher.publishEvent(new TransactionCreatedEvent(transaction));
+        eventPublisher.publishEvent(new UserDataChangedEvent(user.getId()));
+        return transaction;
+    }
+
+    /**
+     * CO₂ of the current and the last month, from the running monthly totals:
+     * one primary key range read, no aggregate.
+     */
+    public Map<String, Object> carbonSummary(Integer userId) {
+        YearMonth currentMonth = YearMonth.now();
+        int current = CarbonMonthTotal.key(currentMonth);
+        double currentMonthTotal = 0.0;
+        double lastMonthTotal = 0.0;
+        for (CarbonMonthTotal row : carbonMonthTotalRepository.findByUserIdAndYearMonthIn(userId,
+                List.of(current, CarbonMonthTotal.key(currentMonth.minusMonths(1))))) {
+            if (row.getYearMonth() == current) {
+                currentMonthTotal += row.getCo2();
+            } else {
+                lastMonthTotal += row.getCo2();
+            }
+        }
+        return Map.of(
+                "currentMonth", currentMonthTotal,
+                "lastMonth", lastMonthTotal,
+                "month", currentMonth.toString());
+    }
+}
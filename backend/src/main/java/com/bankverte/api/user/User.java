@@ -13,7 +13,7 @@ import java.util.Collection;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
@@ -35,6 +35,20 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // Bumped whenever the user's transactions or profile change, drives ETags.
+    // Only written through UserRepository.bumpDataVersion, never on merge
+    @Column(nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long dataVersion;
+
+    // Database holding the user's data when sharded, null for the primary.
+    // Only written through ShardDirectory, never on merge
+    @Column(updatable = false)
+    private String shard;
+
+    // Set while the user's data moves to another database; writes are refused
+    @Column(nullable = false, updatable = false, columnDefinition = "boolean default false")
+    private boolean shardMoving;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(role.name()));
@@ -12,7 +12,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class UserController {
 
-    private final UserRepository userRepository;
+    private final UserService userService;
 
     @GetMapping("/profile")
     public ResponseEntity<?> getProfile(@AuthenticationPrincipal User user) {
@@ -28,11 +28,9 @@ public class UserController {
     public ResponseEntity<?> updateProfile(
             @AuthenticationPrincipal User user,
             @RequestBody UpdateProfileRequest request) {
-        
-        user.setFirstname(request.getFirstname());
-        user.setLastname(request.getLastname());
-        userRepository.save(user);
-        
+
+        userService.updateProfile(user, request);
+
         return ResponseEntity.ok(Map.of(
             "id", user.getId(),
             "firstname", user.getFirstname(),
@@ -0,0 +1,9 @@
+package com.bankverte.api.user;
+
+/**
+ * Published inside every write transaction that bumps a user's data version.
+ * Caches holding anything derived from that user's data must drop it once
+ * the transaction commits.
+ */
+public record UserDataChangedEvent(Integer userId) {
+}
@@ -1,8 +1,27 @@
 package com.bankverte.api.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
+
+    @Modifying
+    @Query("UPDATE User u SET u.dataVersion = u.dataVersion + 1 WHERE u.id = :id")
+    int bumpDataVersion(@Param("id") Integer id);
+
+    @Query("SELECT u.dataVersion FROM User u WHERE u.id = :id")
+    long findDataVersion(@Param("id") Integer id);
+
+    /**
+     * Pairs of {@code [id, dataVersion]}.
+     */
+    @Query("SELECT u.id, u.dataVersion FROM User u WHERE u.id IN :ids")
+    List<Object[]> findDataVersions(@Param("ids") Collection<Integer> ids);
 }
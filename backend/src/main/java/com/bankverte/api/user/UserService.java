@@ -0,0 +1,28 @@
+package com.bankverte.api.user;
+
+import com.bankverte.api.sync.UserChange;
+import com.bankverte.api.sync.UserChangeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+public class UserService {
+
+    private final UserRepository userRepository;
+    private final UserChangeRepository userChangeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public User updateProfile(User user, UpdateProfileRequest request) {
+        user.setFirstname(request.getFirstname());
+        user.setLastname(request.getLastname());
+        userRepository.save(user);
+        userRepository.bumpDataVersion(user.getId());
+        userChangeRepository.record(user.getId(), UserChange.Kind.PROFILE, null);
+        eventPublisher.publishEvent(new UserDataChangedEvent(user.getId()));
+        return user;
+    }
+}
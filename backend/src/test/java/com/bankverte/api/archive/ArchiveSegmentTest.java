@@ -0,0 +1,158 @@
+package com.bankverte.api.archive;
+
+import com.bankverte.api.transaction.PaymentType;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCategory;
+import com.bankverte.api.user.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ArchiveSegmentTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 2);
+    private static final LocalDateTime START = MONTH.atDay(1).atStartOfDay();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEveryColumn() throws IOException {
+        List<Transaction> rows = List.of(
+                transaction(3, 7, START.plusDays(2).plusNanos(123_000), 12.5, TransactionCategory.FOOD_LOCAL,
+                        PaymentType.DEBIT_CARD, "Biocoop"),
+                transaction(1, 2, START.plusDays(5), 40.0, TransactionCategory.ENERGY, PaymentType.BANK_TRANSFER, "EDF"),
+                transaction(2, 7, START, 3.0, TransactionCategory.FOOD_LOCAL, PaymentType.DEBIT_CARD, "Café Noël"),
+                Transaction.builder().id(4).user(user(2)).createdAt(MONTH.atEndOfMonth().atTime(23, 59, 59))
+                        .build());
+
+        ArchiveSegment segment = write(rows);
+
+        assertThat(segment.month()).isEqualTo(MONTH);
+        assertThat(segment.rowCount()).isEqualTo(4);
+        List<Transaction> read = segment.readAll();
+        // By user, then time
+        assertThat(read).extracting(Transaction::getId).containsExactly(1, 4, 2, 3);
+        assertThat(read).extracting(t -> t.getUser().getId()).containsExactly(2, 2, 7, 7);
+        for (Transaction expected : rows) {
+            Transaction actual = read.stream().filter(t -> t.getId().equals(expected.getId())).findFirst().orElseThrow();
+            assertThat(actual).usingRecursiveComparison().ignoringFields("user").isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void readsOnlyTheUsersRowsWithinTheInclusiveRange() throws IOException {
+        List<Transaction> rows = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            rows.add(transaction(100 + day, 5, START.plusDays(day), 1.0, TransactionCategory.OTHER, null, "M"));
+            rows.add(transaction(200 + day, 6, START.plusDays(day), 1.0, TransactionCategory.OTHER, null, "M"));
+        }
+        ArchiveSegment segment = write(rows);
+
+        assertThat(ids(segment, 5, START.plusDays(2), START.plusDays(4))).containsExactly(102, 103, 104);
+        // Bounds between rows, down to the microsecond
+        assertThat(ids(segment, 5, START.plusDays(2).plusNanos(1), START.plusDays(4).minusNanos(1)))
+                .containsExactly(103);
+        // Bounds outside the month keep every row
+        assertThat(ids(segment, 6, START.minusYears(1), START.plusYears(1))).hasSize(10);
+        assertThat(ids(segment, 6, START.plusDays(20), START.plusDays(25))).isEmpty();
+        assertThat(ids(segment, 4, START, START.plusMonths(1))).isEmpty();
+        assertThat(ids(segment, 99, START, START.plusMonths(1))).isEmpty();
+    }
+
+    @Test
+    void sumsCo2ButForTheExcludedIds() throws IOException {
+        ArchiveSegment segment = write(List.of(
+                transaction(1, 5, START.plusDays(1), 2.0, TransactionCategory.OTHER, null, "M"),
+                transaction(2, 5, START.plusDays(2), 3.0, TransactionCategory.OTHER, null, "M"),
+                Transaction.builder().id(3).user(user(5)).createdAt(START.plusDays(3)).build(),
+                transaction(4, 6, START.plusDays(2), 100.0, TransactionCategory.OTHER, null, "M")));
+
+        assertThat(segment.sumCo2(5, START, START.plusMonths(1), Set.of())).isCloseTo(0.5, within(1e-9));
+        assertThat(segment.sumCo2(5, START, START.plusMonths(1), Set.of(2))).isCloseTo(0.2, within(1e-9));
+        assertThat(segment.sumCo2(5, START.plusDays(2), START.plusMonths(1), Set.of())).isCloseTo(0.3, within(1e-9));
+    }
+
+    @Test
+    void writesAnEmptyMonth() throws IOException {
+        ArchiveSegment segment = write(List.of());
+
+        assertThat(segment.rowCount()).isZero();
+        assertThat(segment.readAll()).isEmpty();
+        assertThat(ids(segment, 1, START, START.plusMonths(1))).isEmpty();
+    }
+
+    @Test
+    void rejectsAForeignOrTruncatedFile() throws IOException {
+        Path foreign = directory.resolve("foreign.seg");
+        Files.write(foreign, new byte[64]);
+        assertThatThrownBy(() -> ArchiveSegment.open(foreign)).isInstanceOf(IOException.class);
+
+        Path target = directory.resolve("truncated.seg");
+        ArchiveSegment.write(target, MONTH,
+                List.of(transaction(1, 5, START, 2.0, TransactionCategory.OTHER, null, "Merchant")));
+        byte[] bytes = Files.readAllBytes(target);
+        Files.write(target, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThatThrownBy(() -> ArchiveSegment.open(target)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void refusesReadersOnceReleased() throws IOException {
+        ArchiveSegment segment = write(List.of());
+
+        assertThat(segment.retain()).isTrue();
+        segment.release();
+        segment.release();
+
+        assertThat(segment.retain()).isFalse();
+    }
+
+    private ArchiveSegment write(List<Transaction> rows) throws IOException {
+        Path target = directory.resolve(MONTH + ".seg");
+        ArchiveSegment.write(target, MONTH, rows);
+        return ArchiveSegment.open(target);
+    }
+
+    private static List<Integer> ids(ArchiveSegment segment, int userId, LocalDateTime from, LocalDateTime to) {
+        List<Transaction> out = new ArrayList<>();
+        segment.read(user(userId), from, to, out);
+        assertThat(out).allSatisfy(t -> assertThat(t.getUser().getId()).isEqualTo(userId));
+        return out.stream().map(Transaction::getId).toList();
+    }
+
+    private static Transaction transaction(int id, int userId, LocalDateTime createdAt, double amount,
+                                           TransactionCategory category, PaymentType paymentType, String merchant) {
+        return Transaction.builder()
+                .id(id)
+                .user(user(userId))
+                .createdAt(createdAt)
+                .amount(amount)
+                .carbonFootprint(amount / 10)
+                .emissionFactor(0.1)
+                .confidenceScore(0.9)
+                .category(category)
+                .paymentType(paymentType)
+                .description("Payment " + id)
+                .currency("EUR")
+                .merchant(merchant)
+                .factorSource("CATEGORY_DEFAULT")
+                .build();
+    }
+
+    private static User user(int id) {
+        return User.builder().id(id).build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.bankverte.api.forecast;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ForecastStateTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private final ForecastProperties properties = new ForecastProperties();
+
+    @Test
+    void isThePlainDailyMeanUntilAlphaTakesOver() {
+        ForecastState state = ForecastState.start(1, TransactionCategory.ENERGY, START, START);
+        // 1/n stays above alpha for the first 1/alpha days
+        int meanDays = (int) (1 / properties.getAlpha());
+        double sum = 0;
+        for (int day = 0; day < properties.getWarmupDays(); day++) {
+            double co2 = 2 + day % 5;
+            state.add(START.plusDays(day), co2, properties);
+            sum += day < meanDays ? co2 : 0;
+            if (day + 1 == meanDays) {
+                state.advance(START.plusDays(meanDays), properties);
+                assertThat(state.getDailyLevel()).isCloseTo(sum / meanDays, within(1e-9));
+            }
+        }
+
+        state.advance(START.plusDays(properties.getWarmupDays()), properties);
+
+        assertThat(state.observedDays()).isEqualTo(properties.getWarmupDays());
+        // No trend before the warm-up is over
+        assertThat(state.getDailyTrend()).isZero();
+        state.advance(START.plusDays(properties.getWarmupDays() + 1), properties);
+        assertThat(state.getDailyTrend()).isNotZero();
+    }
+
+    @Test
+    void followsHoltsDampedTrendDayByDay() {
+        ForecastState state = ForecastState.start(1, TransactionCategory.ENERGY, START, START);
+        SplittableRandom random = new SplittableRandom(7);
+        int days = 200;
+        double[] daily = new double[days];
+        for (int day = 0; day < days; day++) {
+            // A rising series, with empty days and several transactions on others
+            for (int i = random.nextInt(3); i > 0; i--) {
+                double co2 = random.nextDouble(0, 1 + day / 20.0);
+                state.add(START.plusDays(day), co2, properties);
+                daily[day] += co2;
+            }
+        }
+        state.advance(START.plusDays(days), properties);
+
+        double level = 0;
+        double trend = 0;
+        for (int day = 0; day < days; day++) {
+            int n = day + 1;
+            double alpha = Math.max(properties.getAlpha(), 1.0 / n);
+            double previous = level;
+            level = alpha * daily[day] + (1 - alpha) * (level + properties.getDamping() * trend);
+            trend = n > properties.getWarmupDays()
+                    ? properties.getBeta() * (level - previous)
+                            + (1 - properties.getBeta()) * properties.getDamping() * trend
+                    : 0;
+        }
+        assertThat(state.getDailyLevel()).isCloseTo(level, within(1e-9));
+        assertThat(state.getDailyTrend()).isCloseTo(trend, within(1e-12));
+        assertThat(trend).isNotZero();
+    }
+
+    @Test
+    void sumsTheForecastInClosedForm() {
+        for (double damping : new double[] {0.5, 0.9, 0.98, 1.0}) {
+            properties.setDamping(damping);
+            ForecastState state = ForecastState.builder().dailyLevel(3.2).dailyTrend(0.05).build();
+            for (int days : new int[] {1, 2, 7, 31, 365}) {
+                // Holt's forecast h days ahead: the level plus the trend damped h times, summed
+                double expected = 0;
+                double trendAhead = 0;
+                double phiPower = 1;
+                for (int h = 1; h <= days; h++) {
+                    phiPower *= damping;
+                    trendAhead += phiPower * state.getDailyTrend();
+                    expected += state.getDailyLevel() + trendAhead;
+                }
+
+                assertThat(state.expected(days, properties)).as("damping %s, %d days", damping, days)
+                        .isCloseTo(expected, within(1e-9 * expected));
+            }
+        }
+    }
+
+    @Test
+    void neverExpectsLessThanNothing() {
+        ForecastState state = ForecastState.builder().dailyLevel(1).dailyTrend(-0.5).build();
+
+        assertThat(state.expected(365, properties)).isZero();
+        assertThat(state.expected(0, properties)).isZero();
+    }
+
+    @Test
+    void keepsTheMonthAndYearToDate() {
+        ForecastState state = ForecastState.start(1, TransactionCategory.SHOPPING, START, START);
+        state.add(LocalDate.of(2024, 1, 20), 5, properties);
+        state.add(LocalDate.of(2024, 2, 3), 2, properties);
+        // Late, but within the year
+        state.add(LocalDate.of(2024, 1, 31), 1, properties);
+
+        assertThat(state.getMonthKey()).isEqualTo(202402);
+        assertThat(state.getMonthCo2()).isEqualTo(2);
+        assertThat(state.getYearCo2()).isEqualTo(8);
+        assertThat(state.getOpenCo2()).isEqualTo(3);
+
+        state.add(LocalDate.of(2025, 1, 2), 4, properties);
+
+        assertThat(state.getMonthKey()).isEqualTo(202501);
+        assertThat(state.getMonthCo2()).isEqualTo(4);
+        assertThat(state.getYearCo2()).isEqualTo(4);
+    }
+
+    @Test
+    void forgetsEverythingAfterALongGap() {
+        ForecastState state = ForecastState.start(1, TransactionCategory.SHOPPING, START, START);
+        state.add(START, 50, properties);
+
+        state.advance(START.plusDays(400), properties);
+
+        assertThat(state.getDailyLevel()).isZero();
+        assertThat(state.getDailyTrend()).isZero();
+        assertThat(state.getOpenCo2()).isZero();
+        assertThat(state.getOpenDay()).isEqualTo(START.plusDays(400));
+        // Moving back does nothing
+        state.advance(START, properties);
+        assertThat(state.getOpenDay()).isEqualTo(START.plusDays(400));
+    }
+}
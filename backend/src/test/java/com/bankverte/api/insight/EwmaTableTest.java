@@ -0,0 +1,124 @@
+package com.bankverte.api.insight;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class EwmaTableTest {
+
+    @Test
+    void firstObservationIsTheMean() {
+        EwmaTable table = new EwmaTable(0.1, 16);
+        int slot = table.slot(7);
+
+        table.observe(slot, 12.5);
+
+        assertThat(table.count(slot)).isEqualTo(1);
+        assertThat(table.mean(slot)).isEqualTo(12.5);
+        assertThat(table.stdDev(slot)).isZero();
+    }
+
+    @Test
+    void followsTheExponentialRecurrence() {
+        double alpha = 0.2;
+        EwmaTable table = new EwmaTable(alpha, 16);
+        int slot = table.slot(1);
+        SplittableRandom random = new SplittableRandom(1);
+
+        double mean = 0;
+        double variance = 0;
+        for (int i = 0; i < 500; i++) {
+            double x = random.nextDouble(0, 100);
+            table.observe(slot, x);
+            if (i == 0) {
+                mean = x;
+            } else {
+                double diff = x - mean;
+                mean += alpha * diff;
+                variance = (1 - alpha) * (variance + alpha * diff * diff);
+            }
+        }
+
+        assertThat(table.mean(slot)).isCloseTo(mean, within(1e-9));
+        assertThat(table.stdDev(slot)).isCloseTo(Math.sqrt(variance), within(1e-9));
+    }
+
+    @Test
+    void estimatesMeanAndStdDevOfAStationarySeries() {
+        EwmaTable table = new EwmaTable(0.005, 16);
+        int slot = table.slot(1);
+        SplittableRandom random = new SplittableRandom(2);
+
+        for (int i = 0; i < 20_000; i++) {
+            // Mean 50, standard deviation 10
+            table.observe(slot, 50 + 10 * gaussian(random));
+        }
+
+        assertThat(table.mean(slot)).isCloseTo(50, within(2.0));
+        assertThat(table.stdDev(slot)).isCloseTo(10, within(1.5));
+    }
+
+    @Test
+    void keepsEverySeriesAcrossGrowth() {
+        EwmaTable table = new EwmaTable(0.5, 16);
+        for (long key = -5_000; key < 5_000; key++) {
+            table.observe(table.slot(key), key);
+        }
+
+        assertThat(table.size()).isEqualTo(10_000);
+        for (long key = -5_000; key < 5_000; key++) {
+            int slot = table.slot(key);
+            assertThat(table.count(slot)).isEqualTo(1);
+            assertThat(table.mean(slot)).isEqualTo(key);
+        }
+        assertThat(table.size()).isEqualTo(10_000);
+    }
+
+    @Test
+    void observesEachClosedBucketSum() {
+        EwmaTable table = new EwmaTable(0.5, 16);
+        int slot = table.slot(3);
+
+        assertThat(table.accumulate(slot, 10, 2)).isEqualTo(2);
+        assertThat(table.accumulate(slot, 10, 3)).isEqualTo(5);
+        assertThat(table.count(slot)).isZero();
+        assertThat(table.bucketSum(slot, 10)).isEqualTo(5);
+        assertThat(table.bucketSum(slot, 11)).isZero();
+
+        assertThat(table.accumulate(slot, 12, 1)).isEqualTo(1);
+        assertThat(table.count(slot)).isEqualTo(1);
+        assertThat(table.mean(slot)).isEqualTo(5);
+
+        assertThat(table.accumulate(slot, 13, 4)).isEqualTo(4);
+        assertThat(table.count(slot)).isEqualTo(2);
+        assertThat(table.mean(slot)).isEqualTo(3);
+    }
+
+    @Test
+    void dropsValuesForEarlierBuckets() {
+        EwmaTable table = new EwmaTable(0.5, 16);
+        int slot = table.slot(3);
+        table.accumulate(slot, 10, 2);
+
+        assertThat(table.accumulate(slot, 9, 100)).isZero();
+        assertThat(table.bucketSum(slot, 10)).isEqualTo(2);
+        assertThat(table.count(slot)).isZero();
+    }
+
+    @Test
+    void rejectsTheReservedKey() {
+        EwmaTable table = new EwmaTable(0.5, 16);
+
+        assertThatThrownBy(() -> table.slot(Long.MIN_VALUE)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+}
@@ -0,0 +1,110 @@
+package com.bankverte.api.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventRingTest {
+
+    @Test
+    void rejectsASizeThatIsNotAPowerOfTwo() {
+        assertThatThrownBy(() -> new EventRing(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new EventRing(12, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void refusesToOverwriteASlotTheSlowestConsumerHasNotRead() {
+        EventRing ring = new EventRing(4, 2);
+        for (long sequence = 0; sequence < 4; sequence++) {
+            assertThat(ring.claim(sequence)).isNotNull();
+        }
+        ring.publish(3);
+
+        assertThat(ring.claim(4)).isNull();
+        ring.cursor(0).sequence = 3;
+        // The second consumer still holds sequence 0
+        assertThat(ring.claim(4)).isNull();
+        ring.cursor(1).sequence = 0;
+
+        assertThat(ring.claim(4)).isSameAs(ring.get(0));
+        assertThat(ring.claim(5)).isNull();
+    }
+
+    @Test
+    void wrapsAroundOntoTheSameSlots() {
+        EventRing ring = new EventRing(8, 1);
+
+        for (long sequence = 0; sequence < 8; sequence++) {
+            ring.claim(sequence).id = sequence;
+        }
+        ring.cursor(0).sequence = 7;
+        for (long sequence = 8; sequence < 16; sequence++) {
+            OutboxRecord slot = ring.claim(sequence);
+            assertThat(slot).isSameAs(ring.get(sequence - 8));
+            slot.id = sequence;
+        }
+        ring.publish(15);
+
+        assertThat(ring.published()).isEqualTo(15);
+        for (long sequence = 8; sequence < 16; sequence++) {
+            assertThat(ring.get(sequence).id).isEqualTo(sequence);
+        }
+    }
+
+    @Test
+    void handsEveryEventToEveryConsumerInOrderAcrossManyWraps() throws InterruptedException {
+        int events = 200_000;
+        EventRing ring = new EventRing(64, 3);
+        List<List<Long>> seen = new ArrayList<>();
+        List<Thread> consumers = new ArrayList<>();
+        for (int c = 0; c < 3; c++) {
+            EventRing.Cursor cursor = ring.cursor(c);
+            List<Long> ids = new ArrayList<>(events);
+            seen.add(ids);
+            Thread consumer = new Thread(() -> {
+                while (cursor.sequence < events - 1) {
+                    long available = ring.published();
+                    for (long sequence = cursor.sequence + 1; sequence <= available; sequence++) {
+                        ids.add(ring.get(sequence).id);
+                    }
+                    if (available > cursor.sequence) {
+                        cursor.sequence = available;
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            consumer.start();
+            consumers.add(consumer);
+        }
+
+        for (long sequence = 0; sequence < events; sequence++) {
+            OutboxRecord slot;
+            while ((slot = ring.claim(sequence)) == null) {
+                LockSupport.parkNanos(1_000);
+            }
+            slot.id = 1_000 + sequence;
+            // Publish in small bursts, like the relay after each fetch
+            if (sequence % 7 == 6 || sequence == events - 1) {
+                ring.publish(sequence);
+            }
+        }
+        for (Thread consumer : consumers) {
+            consumer.join(30_000);
+        }
+
+        for (List<Long> ids : seen) {
+            assertThat(ids).hasSize(events);
+            for (int i = 0; i < events; i++) {
+                if (ids.get(i) != 1_000 + i) {
+                    assertThat(ids.get(i)).as("event %d", i).isEqualTo(1_000L + i);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.bankverte.api.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Gaps in the outbox ids: held back briefly, moved past, filled late or
+ * given up on, with the watermark the consumers record. The gaps are timed
+ * on a mock clock, which only the test moves.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-relay;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "bankverte.outbox.poll-interval=20ms",
+        "bankverte.outbox.batch-delay=0ms",
+        "bankverte.outbox.gap-timeout=300ms",
+        "bankverte.outbox.gap-max-age=1m",
+        "logging.level.root=WARN"
+})
+class OutboxRelayTest {
+
+    private static final ConcurrentLinkedQueue<long[]> RECEIVED = new ConcurrentLinkedQueue<>();
+    private static final Duration GAP_TIMEOUT = Duration.ofMillis(300);
+    private static final Duration GAP_MAX_AGE = Duration.ofMinutes(1);
+
+    @TestConfiguration
+    static class Recorder {
+
+        @Bean
+        MockClock clock() {
+            return new MockClock();
+        }
+
+        @Bean
+        OutboxConsumer recorder() {
+            return new OutboxConsumer() {
+                @Override
+                public String name() {
+                    return "recorder";
+                }
+
+                @Override
+                public void onEvent(OutboxRecord event, boolean endOfBatch) {
+                    RECEIVED.add(new long[] { event.id(), event.watermark() });
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private MockClock clock;
+
+    @Test
+    void movesPastGapsAndRelaysLateRowsBelowTheWatermark() {
+        insert(1);
+        insert(2);
+        await(() -> RECEIVED.size() == 2);
+        assertThat(take()).containsExactly(List.of(1L, 1L), List.of(2L, 2L));
+
+        // Id 3 not committed yet: 4 waits while the clock stands still, however many polls pass
+        insert(4);
+        pause();
+        assertThat(RECEIVED).isEmpty();
+        // Once the gap timeout has passed, 4 goes without moving the watermark
+        awaitAdvancing(() -> RECEIVED.size() == 1);
+        assertThat(take()).containsExactly(List.of(4L, 2L));
+        assertThat(gauge("bankverte.outbox.missing")).isEqualTo(1);
+
+        // 3 commits late, within the maximum age, and closes the gap
+        insert(3);
+        await(() -> RECEIVED.size() == 1);
+        assertThat(take()).containsExactly(List.of(3L, 4L));
+        assertThat(counter("bankverte.outbox.late")).isEqualTo(1);
+        assertThat(gauge("bankverte.outbox.missing")).isZero();
+
+        // 5 never commits: given up on after the maximum age, and the watermark moves on
+        insert(6);
+        awaitAdvancing(() -> RECEIVED.size() == 1);
+        assertThat(take()).containsExactly(List.of(6L, 4L));
+        pause();
+        assertThat(counter("bankverte.outbox.abandoned")).isZero();
+        clock.add(GAP_MAX_AGE);
+        await(() -> counter("bankverte.outbox.abandoned") == 1);
+        insert(7);
+        await(() -> RECEIVED.size() == 1);
+        assertThat(take()).containsExactly(List.of(7L, 7L));
+
+        await(() -> position("recorder") == 7);
+    }
+
+    private void insert(long id) {
+        jdbcTemplate.update("INSERT INTO outbox_event (id, type, user_id, transaction_id, created_at)"
+                + " VALUES (?, 'TRANSACTION_CREATED', 1, ?, CURRENT_TIMESTAMP)", id, id);
+    }
+
+    private static List<List<Long>> take() {
+        List<List<Long>> events = RECEIVED.stream().map(e -> List.of(e[0], e[1])).toList();
+        RECEIVED.clear();
+        return events;
+    }
+
+    private long position(String consumer) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT position FROM outbox_cursor WHERE consumer = ?", consumer);
+        return rows.isEmpty() ? -1 : ((Number) rows.get(0).get("position")).longValue();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    /**
+     * Moves the clock on by the gap timeout until the condition holds: the
+     * relay may not have seen the gap yet when the clock first moves.
+     */
+    private void awaitAdvancing(BooleanSupplier condition) {
+        await(() -> {
+            clock.add(GAP_TIMEOUT);
+            return condition.getAsBoolean();
+        });
+    }
+
+    // A few polls of the relay
+    private static void pause() {
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 10 s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
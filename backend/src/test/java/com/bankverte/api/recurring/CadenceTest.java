@@ -0,0 +1,38 @@
+package com.bankverte.api.recurring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CadenceTest {
+
+    @Test
+    void fitsGapsWithinTheSlack() {
+        assertThat(Cadence.of(7)).isEqualTo(Cadence.WEEKLY);
+        assertThat(Cadence.of(5)).isEqualTo(Cadence.WEEKLY);
+        assertThat(Cadence.of(9)).isEqualTo(Cadence.WEEKLY);
+        assertThat(Cadence.of(11)).isEqualTo(Cadence.BIWEEKLY);
+        assertThat(Cadence.of(17)).isEqualTo(Cadence.BIWEEKLY);
+        // February to March, and a 31-day month paid a few days late
+        assertThat(Cadence.of(28)).isEqualTo(Cadence.MONTHLY);
+        assertThat(Cadence.of(34)).isEqualTo(Cadence.MONTHLY);
+        assertThat(Cadence.of(81)).isEqualTo(Cadence.QUARTERLY);
+        assertThat(Cadence.of(101)).isEqualTo(Cadence.QUARTERLY);
+        assertThat(Cadence.of(366)).isEqualTo(Cadence.YEARLY);
+        assertThat(Cadence.of(Cadence.LONGEST_GAP)).isEqualTo(Cadence.YEARLY);
+    }
+
+    @Test
+    void fitsNothingBetweenTheCadences() {
+        assertThat(Cadence.of(0)).isNull();
+        assertThat(Cadence.of(4)).isNull();
+        assertThat(Cadence.of(10)).isNull();
+        assertThat(Cadence.of(18)).isNull();
+        assertThat(Cadence.of(25)).isNull();
+        assertThat(Cadence.of(35)).isNull();
+        assertThat(Cadence.of(80)).isNull();
+        assertThat(Cadence.of(102)).isNull();
+        assertThat(Cadence.of(349)).isNull();
+        assertThat(Cadence.of(Cadence.LONGEST_GAP + 1)).isNull();
+    }
+}
@@ -0,0 +1,145 @@
+package com.bankverte.api.recurring;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RecurringSeriesTest {
+
+    private static final double TOLERANCE = 0.2;
+    private static final LocalDate START = LocalDate.of(2024, 1, 5);
+
+    @Test
+    void foldsMerchantNames() {
+        assertThat(RecurringSeries.merchantKey("EDF")).isEqualTo(RecurringSeries.merchantKey("edf."));
+        assertThat(RecurringSeries.merchantKey("  Café Noël ")).isEqualTo("cafe noel");
+        assertThat(RecurringSeries.merchantKey("Basic-Fit")).isEqualTo("basic fit");
+    }
+
+    @Test
+    void becomesRecurringOnItsCadence() {
+        List<RecurringSeries> series = new ArrayList<>();
+        RecurringSeries s = null;
+        for (int month = 0; month < 4; month++) {
+            s = record(series, START.plusMonths(month), 10 + month, 1 + month);
+        }
+
+        assertThat(series).containsExactly(s);
+        assertThat(s.getCadence()).isEqualTo(Cadence.MONTHLY);
+        assertThat(s.getIntervals()).isEqualTo(3);
+        assertThat(s.isRecurring(3)).isTrue();
+        assertThat(s.isRecurring(4)).isFalse();
+        assertThat(s.getFirstSeen()).isEqualTo(START);
+        assertThat(s.getLastSeen()).isEqualTo(START.plusMonths(3));
+        // Running means of 10..13 and 1..4
+        assertThat(s.getAverageAmount()).isCloseTo(11.5, within(1e-9));
+        assertThat(s.getAverageCo2()).isCloseTo(2.5, within(1e-9));
+        assertThat(s.nextExpected()).isEqualTo(START.plusMonths(3).plusDays(30));
+        assertThat(s.monthlyCo2()).isCloseTo(2.5 * 30.44 / 30, within(1e-9));
+    }
+
+    @Test
+    void restartsOnAGapOffEveryCadence() {
+        List<RecurringSeries> series = new ArrayList<>();
+        record(series, START, 10, 1);
+        record(series, START.plusDays(30), 10, 1);
+        RecurringSeries s = record(series, START.plusDays(30 + 50), 12, 2);
+
+        assertThat(s.getCadence()).isNull();
+        assertThat(s.getIntervals()).isZero();
+        assertThat(s.getFirstSeen()).isEqualTo(START.plusDays(80));
+        assertThat(s.getAverageAmount()).isEqualTo(12);
+        assertThat(s.getAverageCo2()).isEqualTo(2);
+    }
+
+    @Test
+    void countsANewCadenceFromTheLastPayment() {
+        List<RecurringSeries> series = new ArrayList<>();
+        record(series, START, 10, 1);
+        record(series, START.plusDays(30), 10, 1);
+        record(series, START.plusDays(60), 10, 1);
+        RecurringSeries s = record(series, START.plusDays(67), 12, 3);
+
+        assertThat(s.getCadence()).isEqualTo(Cadence.WEEKLY);
+        assertThat(s.getIntervals()).isEqualTo(1);
+        assertThat(s.getFirstSeen()).isEqualTo(START.plusDays(60));
+        assertThat(s.getAverageAmount()).isCloseTo(11, within(1e-9));
+        assertThat(s.getAverageCo2()).isCloseTo(2, within(1e-9));
+    }
+
+    @Test
+    void ignoresSameDayAndEarlierPaymentsOnASeries() {
+        List<RecurringSeries> series = new ArrayList<>();
+        record(series, START, 10, 1);
+        record(series, START.plusDays(30), 10, 1);
+        record(series, START.plusDays(30), 10, 1);
+        RecurringSeries s = record(series, START.plusDays(20), 10, 1);
+
+        assertThat(s.getIntervals()).isEqualTo(1);
+        assertThat(s.getLastSeen()).isEqualTo(START.plusDays(30));
+    }
+
+    @Test
+    void keepsSeriesOfDifferentAmountsApart() {
+        List<RecurringSeries> series = new ArrayList<>();
+        for (int month = 0; month < 3; month++) {
+            record(series, START.plusMonths(month), 9.99, 0.1);
+        }
+        // A second plan from the same merchant
+        for (int month = 2; month < 5; month++) {
+            record(series, START.plusMonths(month).plusDays(3), 17.99, 0.2);
+        }
+        RecurringSeries basic = record(series, START.plusMonths(3), 10.49, 0.1);
+
+        assertThat(series).hasSize(2);
+        assertThat(basic.getSeriesNo()).isZero();
+        assertThat(basic.getIntervals()).isEqualTo(3);
+        RecurringSeries premium = series.get(1);
+        assertThat(premium.getSeriesNo()).isEqualTo(1);
+        assertThat(premium.getCadence()).isEqualTo(Cadence.MONTHLY);
+        assertThat(premium.getIntervals()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsASingleUnmatchedPayment() {
+        List<RecurringSeries> series = new ArrayList<>();
+        record(series, START, 10, 1);
+        record(series, START.plusDays(3), 50, 5);
+        RecurringSeries s = record(series, START.plusDays(6), 200, 20);
+
+        assertThat(series).containsExactly(s);
+        assertThat(s.getAverageAmount()).isEqualTo(200);
+        assertThat(s.getLastSeen()).isEqualTo(START.plusDays(6));
+    }
+
+    @Test
+    void goesInactiveAndExpiresWhenOverdue() {
+        List<RecurringSeries> series = new ArrayList<>();
+        record(series, START, 10, 1);
+        RecurringSeries s = record(series, START.plusDays(7), 10, 1);
+        LocalDate last = START.plusDays(7);
+
+        assertThat(s.isActive(last.plusDays(14))).isTrue();
+        assertThat(s.isActive(last.plusDays(15))).isFalse();
+        assertThat(s.isExpired(last.plusDays(21), 3)).isFalse();
+        assertThat(s.isExpired(last.plusDays(22), 3)).isTrue();
+
+        RecurringSeries single = record(new ArrayList<>(), START, 10, 1);
+        assertThat(single.isActive(START)).isFalse();
+        assertThat(single.isExpired(START.plusDays(Cadence.LONGEST_GAP), 3)).isFalse();
+        assertThat(single.isExpired(START.plusDays(Cadence.LONGEST_GAP + 1), 3)).isTrue();
+    }
+
+    private static RecurringSeries record(List<RecurringSeries> series, LocalDate day, double amount, double co2) {
+        return RecurringSeries.record(series, day, amount, co2, TOLERANCE, seriesNo -> RecurringSeries.builder()
+                .userId(1)
+                .merchantKey("m")
+                .seriesNo(seriesNo)
+                .build());
+    }
+}
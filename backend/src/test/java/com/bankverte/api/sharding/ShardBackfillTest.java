@@ -0,0 +1,86 @@
+package com.bankverte.api.sharding;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The startup backfills on a shard whose schema predates the derived
+ * tables: the schema is brought up to the entities first, then filled.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:backfill-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "bankverte.sharding.enabled=true",
+        "bankverte.sharding.shards[0].name=second",
+        "bankverte.sharding.shards[0].url=" + ShardBackfillTest.SECOND_URL,
+        "bankverte.sharding.shards[0].username=sa",
+        "bankverte.sharding.shards[0].password=",
+        "logging.level.root=WARN"
+})
+class ShardBackfillTest {
+
+    static final String SECOND_URL =
+            "jdbc:h2:mem:backfill-second;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    private static final int USER_ID = 1_000_001;
+
+    @Autowired
+    private Shards shards;
+
+    /**
+     * Only users and their transactions, the way a database looked before
+     * any of the derived tables existed.
+     */
+    @BeforeAll
+    static void createOldSchema() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(SECOND_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE _user (id INTEGER PRIMARY KEY, email VARCHAR(255))");
+            statement.execute("CREATE TABLE transaction (id INTEGER PRIMARY KEY, user_id INTEGER REFERENCES _user (id), "
+                    + "amount DOUBLE PRECISION, category VARCHAR(255), carbon_footprint DOUBLE PRECISION, "
+                    + "merchant VARCHAR(255), created_at TIMESTAMP)");
+            statement.execute("INSERT INTO _user (id, email) VALUES (" + USER_ID + ", 'old@bankverte.test')");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO transaction "
+                    + "(id, user_id, amount, category, carbon_footprint, merchant, created_at) "
+                    + "VALUES (?, ?, 12.5, 'FOOD_LOCAL', 1.25, 'Market', ?)")) {
+                LocalDateTime now = LocalDateTime.now().withNano(0);
+                for (int i = 0; i < 10; i++) {
+                    insert.setInt(1, i + 1);
+                    insert.setInt(2, USER_ID);
+                    insert.setTimestamp(3, Timestamp.valueOf(now.minusDays(7L * i)));
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    @Test
+    void fillsTheForecastsOfANewSchema() {
+        assertThat(count("SELECT COUNT(*) FROM forecast_state WHERE user_id = ?")).isEqualTo(1);
+    }
+
+    @Test
+    void fillsTheOtherDerivedTablesOfANewSchema() {
+        assertThat(count("SELECT SUM(transaction_count) FROM carbon_month_total WHERE user_id = ?")).isEqualTo(10);
+        assertThat(count("SELECT COUNT(*) FROM daily_sketch WHERE user_id = ?")).isEqualTo(10);
+        assertThat(count("SELECT COUNT(*) FROM recurring_series WHERE user_id = ?")).isEqualTo(1);
+    }
+
+    private long count(String sql) {
+        return shards.jdbc("second").queryForObject(sql, Long.class, USER_ID);
+    }
+}
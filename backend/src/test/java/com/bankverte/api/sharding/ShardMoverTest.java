@@ -0,0 +1,166 @@
+package com.bankverte.api.sharding;
+
+import com.bankverte.api.auth.AuthService;
+import com.bankverte.api.auth.RegisterRequest;
+import com.bankverte.api.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Placement, routing and moves over two in-memory databases.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "bankverte.sharding.enabled=true",
+        "bankverte.sharding.shards[0].name=second",
+        "bankverte.sharding.shards[0].url=jdbc:h2:mem:shard-second;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "bankverte.sharding.shards[0].username=sa",
+        "bankverte.sharding.shards[0].password=",
+        "bankverte.sharding.freeze-grace=50ms",
+        "logging.level.root=WARN"
+})
+@AutoConfigureMockMvc
+class ShardMoverTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private Shards shards;
+    @Autowired
+    private ShardDirectory directory;
+    @Autowired
+    private ShardMover mover;
+
+    @Test
+    void placesNewUsersWhereTheRingSays() {
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            int userId = register().userId;
+            String home = home(userId);
+            assertThat(home).isEqualTo(directory.placement(userId));
+            assertThat(count(home, "SELECT COUNT(*) FROM _user WHERE id = ?", userId)).isEqualTo(1);
+            used.add(home);
+        }
+        assertThat(used).containsExactlyInAnyOrder(ShardContext.PRIMARY, "second");
+    }
+
+    @Test
+    void movesAUserAndItsRequestsFollow() throws Exception {
+        Registered user = register();
+        String source = home(user.userId);
+        String target = source.equals(ShardContext.PRIMARY) ? "second" : ShardContext.PRIMARY;
+        for (int i = 0; i < 5; i++) {
+            createTransaction(user);
+        }
+        assertThat(count(source, "SELECT COUNT(*) FROM transaction WHERE user_id = ?", user.userId)).isEqualTo(5);
+        assertThat(count(source, "SELECT COUNT(*) FROM outbox_event WHERE user_id = ?", user.userId)).isEqualTo(5);
+
+        ShardMoveResult result = mover.move(user.userId, target);
+
+        assertThat(result.getFrom()).isEqualTo(source);
+        assertThat(result.getTo()).isEqualTo(target);
+        assertThat(home(user.userId)).isEqualTo(target);
+        assertThat(count(target, "SELECT COUNT(*) FROM transaction WHERE user_id = ?", user.userId)).isEqualTo(5);
+        assertThat(count(source, "SELECT COUNT(*) FROM transaction WHERE user_id = ?", user.userId)).isZero();
+        assertThat(count(source, "SELECT COUNT(*) FROM outbox_event WHERE user_id = ?", user.userId)).isZero();
+        assertThat(count(ShardContext.PRIMARY, "SELECT COUNT(*) FROM _user WHERE id = ? AND shard_moving",
+                user.userId)).isZero();
+
+        mvc.perform(get("/api/transactions").header(HttpHeaders.AUTHORIZATION, user.bearer()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5));
+        createTransaction(user);
+        assertThat(count(target, "SELECT COUNT(*) FROM transaction WHERE user_id = ?", user.userId)).isEqualTo(6);
+        assertThat(count(source, "SELECT COUNT(*) FROM transaction WHERE user_id = ?", user.userId)).isZero();
+
+        // And back again, over the rows the first move left behind
+        mover.move(user.userId, source);
+        assertThat(home(user.userId)).isEqualTo(source);
+        assertThat(count(source, "SELECT COUNT(*) FROM transaction WHERE user_id = ?", user.userId)).isEqualTo(6);
+        assertThat(count(target, "SELECT COUNT(*) FROM transaction WHERE user_id = ?", user.userId)).isZero();
+    }
+
+    @Test
+    void refusesWritesOfAFrozenUser() throws Exception {
+        Registered user = register();
+        shards.jdbc(ShardContext.PRIMARY).update("UPDATE _user SET shard_moving = true WHERE id = ?", user.userId);
+        try {
+            assertThat(directory.settledHomes(List.of(user.userId))).isEmpty();
+        } finally {
+            shards.jdbc(ShardContext.PRIMARY).update("UPDATE _user SET shard_moving = false WHERE id = ?",
+                    user.userId);
+        }
+        assertThat(directory.settledHomes(List.of(user.userId))).isEqualTo(Map.of(user.userId, home(user.userId)));
+    }
+
+    @Test
+    void leavesAUserAlreadyOnTheTarget() throws Exception {
+        Registered user = register();
+        String home = home(user.userId);
+        createTransaction(user);
+
+        ShardMoveResult result = mover.move(user.userId, home);
+
+        assertThat(result.getFrom()).isEqualTo(home);
+        assertThat(result.getTo()).isEqualTo(home);
+        assertThat(count(home, "SELECT COUNT(*) FROM transaction WHERE user_id = ?", user.userId)).isEqualTo(1);
+    }
+
+    private Registered register() {
+        String email = "shard" + USERS.incrementAndGet() + "@bankverte.test";
+        String token = authService.register(RegisterRequest.builder()
+                .firstname("Shard").lastname("Test").email(email).password("password").build()).getToken();
+        return new Registered(userRepository.findByEmail(email).orElseThrow().getId(), token);
+    }
+
+    private void createTransaction(Registered user) throws Exception {
+        mvc.perform(post("/api/transactions").header(HttpHeaders.AUTHORIZATION, user.bearer())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Bus\",\"amount\":2.5,\"category\":\"TRANSPORT_PUBLIC\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private String home(int userId) {
+        String shard = shards.jdbc(ShardContext.PRIMARY).queryForObject("SELECT shard FROM _user WHERE id = ?",
+                String.class, userId);
+        return shard != null ? shard : ShardContext.PRIMARY;
+    }
+
+    private long count(String shard, String sql, int userId) {
+        return shards.jdbc(shard).queryForObject(sql, Long.class, userId);
+    }
+
+    private record Registered(int userId, String token) {
+
+        String bearer() {
+            return "Bearer " + token;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.bankverte.api.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardRingTest {
+
+    private static final int USERS = 300_000;
+
+    @Test
+    void placesEveryUserOnTheOnlyShard() {
+        ShardRing ring = new ShardRing(List.of("primary"), 128);
+
+        for (int userId = 1; userId < 1_000; userId++) {
+            assertThat(ring.owner(userId)).isEqualTo("primary");
+        }
+    }
+
+    @Test
+    void spreadsUsersEvenly() {
+        ShardRing ring = new ShardRing(List.of("primary", "shard1", "shard2", "shard3"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int userId = 1; userId <= USERS; userId++) {
+            counts.merge(ring.owner(userId), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(4);
+        // 128 virtual nodes: each share is within a few times 1/sqrt(128) of even
+        counts.forEach((shard, count) -> assertThat(count).as(shard)
+                .isBetween((int) (USERS / 4 * 0.75), (int) (USERS / 4 * 1.25)));
+    }
+
+    @Test
+    void dependsOnTheNamesNotTheirOrder() {
+        ShardRing ring = new ShardRing(List.of("primary", "shard1", "shard2"), 64);
+        ShardRing reordered = new ShardRing(List.of("shard2", "primary", "shard1"), 64);
+
+        for (int userId = 1; userId <= 10_000; userId++) {
+            assertThat(reordered.owner(userId)).isEqualTo(ring.owner(userId));
+        }
+    }
+
+    @Test
+    void addingAShardOnlyMovesUsersOntoIt() {
+        ShardRing before = new ShardRing(List.of("primary", "shard1", "shard2"), 128);
+        ShardRing after = new ShardRing(List.of("primary", "shard1", "shard2", "shard3"), 128);
+
+        int moved = 0;
+        for (int userId = 1; userId <= USERS; userId++) {
+            String from = before.owner(userId);
+            String to = after.owner(userId);
+            if (!from.equals(to)) {
+                assertThat(to).as("new home of user %d", userId).isEqualTo("shard3");
+                moved++;
+            }
+        }
+
+        // About a quarter, the new shard's share
+        assertThat(moved).isBetween((int) (USERS / 4 * 0.75), (int) (USERS / 4 * 1.25));
+    }
+
+    @Test
+    void wrapsAroundPastTheLastPoint() {
+        ShardRing ring = new ShardRing(List.of("primary", "shard1"), 1);
+
+        // Ids hash all over the 64-bit range, so some land after the highest point
+        Map<String, Integer> counts = new HashMap<>();
+        for (int userId = 1; userId <= 10_000; userId++) {
+            counts.merge(ring.owner(userId), 1, Integer::sum);
+        }
+
+        assertThat(counts.keySet()).containsExactlyInAnyOrder("primary", "shard1");
+    }
+}
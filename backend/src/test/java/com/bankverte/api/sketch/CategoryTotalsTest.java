@@ -0,0 +1,87 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CategoryTotalsTest {
+
+    @Test
+    void sumsPerCategory() {
+        CategoryTotals totals = new CategoryTotals();
+        totals.add(TransactionCategory.ENERGY, 10);
+        totals.add(TransactionCategory.ENERGY, 2.5);
+        totals.add(TransactionCategory.FOOD_LOCAL, 0.5);
+        totals.add(null, 99);
+
+        assertThat(totals.co2(TransactionCategory.ENERGY)).isEqualTo(12.5);
+        assertThat(totals.count(TransactionCategory.ENERGY)).isEqualTo(2);
+        assertThat(totals.co2(TransactionCategory.SHOPPING)).isZero();
+        // Uncategorized transactions count, their CO₂ does not
+        assertThat(totals.totalCo2()).isEqualTo(13);
+        assertThat(totals.totalCount()).isEqualTo(4);
+    }
+
+    @Test
+    void mergesPerCategory() {
+        CategoryTotals monday = new CategoryTotals();
+        monday.add(TransactionCategory.ENERGY, 10);
+        monday.add(null, 1);
+        CategoryTotals tuesday = new CategoryTotals();
+        tuesday.add(TransactionCategory.ENERGY, 5);
+        tuesday.add(TransactionCategory.TRANSPORT_CAR, 7);
+
+        monday.merge(tuesday);
+
+        assertThat(monday.co2(TransactionCategory.ENERGY)).isEqualTo(15);
+        assertThat(monday.count(TransactionCategory.ENERGY)).isEqualTo(2);
+        assertThat(monday.co2(TransactionCategory.TRANSPORT_CAR)).isEqualTo(7);
+        assertThat(monday.totalCount()).isEqualTo(4);
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        CategoryTotals totals = new CategoryTotals();
+        for (TransactionCategory category : TransactionCategory.values()) {
+            if (category != TransactionCategory.SHOPPING) {
+                totals.add(category, category.ordinal() + 0.25);
+            }
+        }
+        totals.add(null, 0);
+
+        byte[] bytes = totals.toBytes();
+        CategoryTotals decoded = CategoryTotals.fromBytes(bytes);
+
+        for (TransactionCategory category : TransactionCategory.values()) {
+            assertThat(decoded.co2(category)).as(category.name()).isEqualTo(totals.co2(category));
+            assertThat(decoded.count(category)).as(category.name()).isEqualTo(totals.count(category));
+        }
+        assertThat(decoded.totalCount()).isEqualTo(totals.totalCount());
+        assertThat(decoded.toBytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void encodesOnlyUsedCategories() {
+        CategoryTotals totals = new CategoryTotals();
+        totals.add(TransactionCategory.ENERGY, 1);
+
+        // Version, uncategorized count, used count, then ordinal, CO₂ and count
+        assertThat(totals.toBytes()).hasSize(1 + 8 + 1 + 1 + 8 + 8);
+    }
+
+    @Test
+    void decodesNothingAsEmpty() {
+        assertThat(CategoryTotals.fromBytes(null).totalCount()).isZero();
+        assertThat(CategoryTotals.fromBytes(new byte[0]).totalCo2()).isZero();
+    }
+
+    @Test
+    void rejectsAnUnknownVersion() {
+        byte[] bytes = new CategoryTotals().toBytes();
+        bytes[0] = 99;
+
+        assertThatThrownBy(() -> CategoryTotals.fromBytes(bytes)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
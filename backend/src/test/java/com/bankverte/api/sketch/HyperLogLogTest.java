@@ -0,0 +1,95 @@
+package com.bankverte.api.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void countsNothingAtFirst() {
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    @Test
+    void isNearlyExactForFewValues() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            hll.add("Merchant " + i);
+            hll.add("Merchant " + i);
+        }
+
+        // Linear counting: a standard deviation of sqrt(m (e^(n/m) - n/m - 1)), about 2.2 here
+        assertThat(hll.estimate()).isCloseTo(100L, within(7L));
+    }
+
+    @Test
+    void staysWithinThreeStandardErrors() {
+        for (int distinct : new int[] { 1_000, 10_000, 200_000 }) {
+            HyperLogLog hll = new HyperLogLog();
+            for (int i = 0; i < distinct; i++) {
+                hll.add("merchant-" + distinct + "-" + i);
+            }
+
+            double error = Math.abs(hll.estimate() - distinct) / (double) distinct;
+            assertThat(error).as("relative error at %d", distinct).isLessThan(3 * HyperLogLog.STANDARD_ERROR);
+        }
+    }
+
+    @Test
+    void mergesToTheCounterOfTheUnion() {
+        HyperLogLog all = new HyperLogLog();
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        for (int i = 0; i < 5_000; i++) {
+            all.add("m" + i);
+            (i % 3 == 0 ? left : right).add("m" + i);
+            // Overlap
+            if (i % 5 == 0) {
+                left.add("m" + i);
+            }
+        }
+
+        left.merge(right);
+
+        assertThat(left.estimate()).isEqualTo(all.estimate());
+        assertThat(left.toBytes()).isEqualTo(all.toBytes());
+    }
+
+    @Test
+    void roundTripsSparseAndDense() {
+        HyperLogLog sparse = new HyperLogLog();
+        for (int i = 0; i < 20; i++) {
+            sparse.add("s" + i);
+        }
+        HyperLogLog dense = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            dense.add("d" + i);
+        }
+
+        byte[] sparseBytes = sparse.toBytes();
+        byte[] denseBytes = dense.toBytes();
+
+        assertThat(sparseBytes.length).isLessThan(100);
+        assertThat(denseBytes.length).isEqualTo(2 + 1024);
+        assertThat(HyperLogLog.fromBytes(sparseBytes).toBytes()).isEqualTo(sparseBytes);
+        assertThat(HyperLogLog.fromBytes(denseBytes).toBytes()).isEqualTo(denseBytes);
+        assertThat(HyperLogLog.fromBytes(denseBytes).estimate()).isEqualTo(dense.estimate());
+    }
+
+    @Test
+    void decodesNothingAsEmpty() {
+        assertThat(HyperLogLog.fromBytes(null).estimate()).isZero();
+        assertThat(HyperLogLog.fromBytes(new byte[0]).estimate()).isZero();
+    }
+
+    @Test
+    void rejectsAnUnknownVersion() {
+        byte[] bytes = new HyperLogLog().toBytes();
+        bytes[0] = 99;
+
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(bytes)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
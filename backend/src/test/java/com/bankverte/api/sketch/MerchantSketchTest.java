@@ -0,0 +1,135 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.transaction.TransactionCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class MerchantSketchTest {
+
+    @Test
+    void isExactUntilFull() {
+        MerchantSketch sketch = new MerchantSketch(4);
+        sketch.add("Biocoop", TransactionCategory.FOOD_LOCAL, 1.5);
+        sketch.add("EDF", TransactionCategory.ENERGY, 10);
+        sketch.add("Biocoop", TransactionCategory.FOOD_LOCAL, 2.5);
+
+        assertThat(sketch.entries()).containsExactly(
+                new MerchantSketch.Entry("Biocoop", 4.0, 0, 2, TransactionCategory.FOOD_LOCAL),
+                new MerchantSketch.Entry("EDF", 10, 0, 1, TransactionCategory.ENERGY));
+        assertThat(sketch.floor()).isZero();
+    }
+
+    @Test
+    void replacesTheLightestMerchantOnceFull() {
+        MerchantSketch sketch = new MerchantSketch(2);
+        sketch.add("A", TransactionCategory.OTHER, 5);
+        sketch.add("B", TransactionCategory.OTHER, 1);
+        sketch.add("C", TransactionCategory.SHOPPING, 2);
+
+        assertThat(sketch.entries()).containsExactly(
+                new MerchantSketch.Entry("A", 5, 0, 1, TransactionCategory.OTHER),
+                new MerchantSketch.Entry("C", 3, 1, 2, TransactionCategory.SHOPPING));
+        assertThat(sketch.floor()).isEqualTo(3);
+    }
+
+    @Test
+    void staysWithinItsErrorBoundsOnASkewedStream() {
+        int capacity = 16;
+        MerchantSketch sketch = new MerchantSketch(capacity);
+        Map<String, Double> truth = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(3);
+        double total = 0;
+        for (int i = 0; i < 50_000; i++) {
+            // Zipf-like: a few heavy merchants and a long tail of 500
+            String merchant = "M" + (int) (500 * Math.pow(random.nextDouble(), 3));
+            double co2 = random.nextDouble(0.1, 5);
+            sketch.add(merchant, TransactionCategory.OTHER, co2);
+            truth.merge(merchant, co2, Double::sum);
+            total += co2;
+        }
+
+        double tracked = 0;
+        for (MerchantSketch.Entry entry : sketch.entries()) {
+            double actual = truth.get(entry.getMerchant());
+            assertThat(entry.getCo2()).isGreaterThanOrEqualTo(actual - 1e-6);
+            assertThat(entry.getCo2() - entry.getError()).isLessThanOrEqualTo(actual + 1e-6);
+            tracked += entry.getCo2();
+        }
+        // Every addition lands on exactly one entry
+        assertThat(tracked).isCloseTo(total, within(1e-6 * total));
+        double floor = sketch.floor();
+        assertThat(floor).isLessThanOrEqualTo(total / capacity);
+        for (Map.Entry<String, Double> merchant : truth.entrySet()) {
+            boolean isTracked = sketch.entries().stream().anyMatch(e -> e.getMerchant().equals(merchant.getKey()));
+            if (!isTracked) {
+                assertThat(merchant.getValue()).as(merchant.getKey()).isLessThanOrEqualTo(floor + 1e-6);
+            }
+            if (merchant.getValue() > total / capacity) {
+                assertThat(isTracked).as("heavy hitter %s tracked", merchant.getKey()).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        MerchantSketch sketch = new MerchantSketch(2);
+        sketch.add("A", TransactionCategory.OTHER, 5);
+        sketch.add("Café Noël", null, 1);
+        sketch.add("C", TransactionCategory.ENERGY, 2);
+
+        MerchantSketch decoded = MerchantSketch.fromBytes(sketch.toBytes(), 2);
+
+        assertThat(decoded.entries()).isEqualTo(sketch.entries());
+        assertThat(decoded.floor()).isEqualTo(sketch.floor());
+    }
+
+    @Test
+    void decodesNothingAsEmpty() {
+        assertThat(MerchantSketch.fromBytes(null, 8).entries()).isEmpty();
+        assertThat(MerchantSketch.fromBytes(new byte[0], 8).entries()).isEmpty();
+    }
+
+    @Test
+    void rejectsAnUnknownVersion() {
+        byte[] bytes = new MerchantSketch(2).toBytes();
+        bytes[0] = 99;
+
+        assertThatThrownBy(() -> MerchantSketch.fromBytes(bytes, 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void neverEncodesBeyondMaxBytes() {
+        MerchantSketch sketch = new MerchantSketch(MerchantSketch.MAX_CAPACITY);
+        for (int i = 0; i < MerchantSketch.MAX_CAPACITY; i++) {
+            // Three UTF-8 bytes a char, twice the kept length
+            sketch.add(String.valueOf(i) + "€".repeat(2 * MerchantSketch.MAX_MERCHANT_CHARS),
+                    TransactionCategory.SHOPPING, i);
+        }
+
+        assertThat(sketch.entries()).hasSize(MerchantSketch.MAX_CAPACITY);
+        assertThat(sketch.toBytes().length).isLessThanOrEqualTo(MerchantSketch.MAX_BYTES);
+    }
+
+    @Test
+    void truncatesWithoutSplittingASurrogatePair() {
+        String name = "a".repeat(MerchantSketch.MAX_MERCHANT_CHARS - 1) + "🌱" + "tail";
+
+        String truncated = MerchantSketch.truncate(name);
+
+        assertThat(truncated).hasSize(MerchantSketch.MAX_MERCHANT_CHARS - 1);
+        assertThat(MerchantSketch.truncate("short")).isEqualTo("short");
+    }
+
+    @Test
+    void rejectsACapacityAboveTheMaximum() {
+        assertThatThrownBy(() -> new MerchantSketch(MerchantSketch.MAX_CAPACITY + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
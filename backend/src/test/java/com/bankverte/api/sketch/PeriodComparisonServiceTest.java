@@ -0,0 +1,165 @@
+package com.bankverte.api.sketch;
+
+import com.bankverte.api.analytics.AnalyticsAggregator;
+import com.bankverte.api.analytics.dto.CategoryBreakdown;
+import com.bankverte.api.analytics.dto.PeriodComparison;
+import com.bankverte.api.insight.InsightEvaluator;
+import com.bankverte.api.transaction.TransactionCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PeriodComparisonServiceTest {
+
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+    private static final LocalDate START = LocalDate.of(2023, 1, 1);
+
+    private final TreeMap<LocalDate, CategoryTotals> days = new TreeMap<>();
+    private PeriodComparisonService service;
+
+    @BeforeEach
+    void setUp() {
+        DailySketchRepository repository = mock(DailySketchRepository.class);
+        when(repository.findCategoryTotals(eq(1), any(), any())).thenAnswer(call -> {
+            List<DailySketchRepository.DayTotals> rows = new ArrayList<>();
+            days.subMap(call.getArgument(1), true, call.getArgument(2), true)
+                    .forEach((day, totals) -> rows.add(dayTotals(day, totals.toBytes())));
+            return rows;
+        });
+        service = new PeriodComparisonService(repository, new AnalyticsAggregator(mock(InsightEvaluator.class)));
+    }
+
+    @Test
+    void matchesSummingTheDaysOfEachPeriod() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (LocalDate day = START; day.isBefore(START.plusYears(2)); day = day.plusDays(1)) {
+            // Some days without any transaction
+            if (random.nextInt(4) == 0) {
+                continue;
+            }
+            CategoryTotals totals = new CategoryTotals();
+            for (int i = random.nextInt(1, 6); i > 0; i--) {
+                totals.add(random.nextInt(5) == 0 ? null : CATEGORIES[random.nextInt(CATEGORIES.length)],
+                        random.nextDouble(0, 20));
+            }
+            days.put(day, totals);
+        }
+        List<PeriodComparisonService.Range> ranges = List.of(
+                PeriodComparisonService.Range.parse("2023"),
+                PeriodComparisonService.Range.parse("2023-02"),
+                PeriodComparisonService.Range.parse("2024-06-15..2024-06-15"),
+                PeriodComparisonService.Range.parse("2023-12-20..2024-01-10"),
+                // Reaches past the data
+                PeriodComparisonService.Range.parse("2024-12-01..2025-01-31"));
+
+        PeriodComparison comparison = service.compare(1, ranges);
+
+        assertThat(comparison.getPeriods()).hasSize(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            PeriodComparisonService.Range range = ranges.get(i);
+            PeriodComparison.Period period = comparison.getPeriods().get(i);
+            CategoryTotals expected = new CategoryTotals();
+            days.subMap(range.from(), true, range.to(), true).values().forEach(expected::merge);
+
+            assertThat(period.getLabel()).isEqualTo(range.label());
+            assertThat(period.getTotalCO2()).isCloseTo(expected.totalCo2(), within(0.006));
+            assertThat(period.getTransactionCount()).isEqualTo(expected.totalCount());
+            for (CategoryBreakdown category : period.getCategories()) {
+                TransactionCategory c = TransactionCategory.valueOf(category.getCategory());
+                assertThat(category.getTotalCO2()).as(category.getCategory()).isCloseTo(expected.co2(c), within(0.006));
+                assertThat(category.getTransactionCount().longValue()).isEqualTo(expected.count(c));
+            }
+            assertThat(period.getCategories()).hasSize((int) Arrays.stream(CATEGORIES)
+                    .filter(c -> expected.count(c) > 0).count());
+        }
+    }
+
+    @Test
+    void comparesEachPeriodWithThePreviousOne() {
+        days.put(START, totals(TransactionCategory.ENERGY, 10, TransactionCategory.FOOD_MEAT, 5));
+        days.put(START.plusMonths(1), totals(TransactionCategory.ENERGY, 12, TransactionCategory.SHOPPING, 3));
+
+        PeriodComparison comparison = service.compare(1, List.of(
+                PeriodComparisonService.Range.parse("2022-12"),
+                PeriodComparisonService.Range.parse("2023-01"),
+                PeriodComparisonService.Range.parse("2023-02")));
+
+        PeriodComparison.Period empty = comparison.getPeriods().get(0);
+        assertThat(empty.getTotalCO2()).isZero();
+        assertThat(empty.getDeltaCO2()).isNull();
+        PeriodComparison.Period january = comparison.getPeriods().get(1);
+        assertThat(january.getDeltaCO2()).isEqualTo(15);
+        // Nothing to compare a rise from zero with
+        assertThat(january.getDeltaPercentage()).isNull();
+        assertThat(january.getAverageCO2PerDay()).isCloseTo(15.0 / 31, within(0.006));
+        PeriodComparison.Period february = comparison.getPeriods().get(2);
+        assertThat(february.getDeltaCO2()).isEqualTo(0);
+        assertThat(february.getDeltaPercentage()).isEqualTo(0);
+        assertThat(february.getCategoryDeltas()).isEqualTo(Map.of(
+                "ENERGY", 2.0, "FOOD_MEAT", -5.0, "SHOPPING", 3.0));
+    }
+
+    @Test
+    void rejectsInvalidPeriods() {
+        assertThatThrownBy(() -> service.compare(1, List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.compare(1, List.of(PeriodComparisonService.Range.parse("2024-02-01..2024-01-01"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.compare(1, List.of(
+                PeriodComparisonService.Range.parse("2010"), PeriodComparisonService.Range.parse("2024"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void buildsTheLastMonthsAndYearsUpToToday() {
+        LocalDate today = LocalDate.of(2024, 3, 14);
+
+        assertThat(PeriodComparisonService.Range.lastMonths(3, today)).containsExactly(
+                new PeriodComparisonService.Range("2024-01", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)),
+                new PeriodComparisonService.Range("2024-02", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29)),
+                new PeriodComparisonService.Range("2024-03", LocalDate.of(2024, 3, 1), today));
+        assertThat(PeriodComparisonService.Range.lastYears(2, today)).containsExactly(
+                new PeriodComparisonService.Range("2023", LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31)),
+                new PeriodComparisonService.Range("2024", LocalDate.of(2024, 1, 1), today));
+        assertThatThrownBy(() -> PeriodComparisonService.Range.lastMonths(0, today))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PeriodComparisonService.Range.lastYears(PeriodComparisonService.MAX_YEARS + 1, today))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CategoryTotals totals(TransactionCategory first, double firstCo2,
+                                         TransactionCategory second, double secondCo2) {
+        CategoryTotals totals = new CategoryTotals();
+        totals.add(first, firstCo2);
+        totals.add(second, secondCo2);
+        return totals;
+    }
+
+    private static DailySketchRepository.DayTotals dayTotals(LocalDate day, byte[] bytes) {
+        return new DailySketchRepository.DayTotals() {
+            @Override
+            public LocalDate getDay() {
+                return day;
+            }
+
+            @Override
+            public byte[] getCategoryTotals() {
+                return bytes;
+            }
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.bankverte.api.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = { 0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1 };
+
+    @Test
+    void isEmptyAtFirst() {
+        QuantileSketch sketch = new QuantileSketch();
+
+        assertThat(sketch.count()).isZero();
+        assertThat(sketch.sum()).isZero();
+        assertThat(sketch.quantile(0.5)).isNaN();
+    }
+
+    @Test
+    void staysWithinItsRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = logNormal(100_000, 4);
+        double sum = 0;
+        for (double value : values) {
+            sketch.add(value);
+            sum += value;
+        }
+
+        assertThat(sketch.count()).isEqualTo(values.length);
+        assertThat(sketch.sum()).isCloseTo(sum, within(1e-9 * sum));
+        assertExact(sketch, values);
+    }
+
+    @Test
+    void mergesToTheSketchOfTheUnion() {
+        double[] values = logNormal(20_000, 5);
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch[] days = new QuantileSketch[7];
+        Arrays.setAll(days, i -> new QuantileSketch());
+        for (int i = 0; i < values.length; i++) {
+            all.add(values[i]);
+            days[i % days.length].add(values[i]);
+        }
+
+        QuantileSketch merged = new QuantileSketch();
+        for (QuantileSketch day : days) {
+            merged.merge(day);
+        }
+
+        assertThat(merged.count()).isEqualTo(all.count());
+        assertThat(merged.sum()).isCloseTo(all.sum(), within(1e-9 * all.sum()));
+        for (double q : QUANTILES) {
+            assertThat(merged.quantile(q)).isEqualTo(all.quantile(q));
+        }
+        assertExact(merged, values);
+    }
+
+    @Test
+    void countsTinyValuesAsZero() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(0);
+        sketch.add(1e-9);
+        sketch.add(3);
+
+        assertThat(sketch.quantile(0.5)).isZero();
+        assertThat(sketch.quantile(1)).isCloseTo(3, within(3 * QuantileSketch.RELATIVE_ACCURACY));
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(0);
+        for (double value : logNormal(5_000, 6)) {
+            sketch.add(value);
+        }
+
+        QuantileSketch decoded = QuantileSketch.fromBytes(sketch.toBytes());
+
+        assertThat(decoded.count()).isEqualTo(sketch.count());
+        assertThat(decoded.sum()).isEqualTo(sketch.sum());
+        for (double q : QUANTILES) {
+            assertThat(decoded.quantile(q)).isEqualTo(sketch.quantile(q));
+        }
+        // Still growable after decoding
+        decoded.add(1e6);
+        assertThat(decoded.quantile(1)).isCloseTo(1e6, within(1e6 * QuantileSketch.RELATIVE_ACCURACY));
+    }
+
+    @Test
+    void decodesNothingAsEmpty() {
+        assertThat(QuantileSketch.fromBytes(null).count()).isZero();
+        assertThat(QuantileSketch.fromBytes(new byte[0]).count()).isZero();
+    }
+
+    @Test
+    void rejectsAnUnknownVersion() {
+        byte[] bytes = new QuantileSketch().toBytes();
+        bytes[0] = 99;
+
+        assertThatThrownBy(() -> QuantileSketch.fromBytes(bytes)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertExact(QuantileSketch sketch, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double exact = sorted[(int) Math.max(1, Math.ceil(q * sorted.length)) - 1];
+            assertThat(sketch.quantile(q)).as("q=%s", q)
+                    .isCloseTo(exact, within(exact * QuantileSketch.RELATIVE_ACCURACY + 1e-12));
+        }
+    }
+
+    // CO₂-like values: median around 1 kg, spanning several orders of magnitude
+    private static double[] logNormal(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            double u1 = 1.0 - random.nextDouble();
+            double u2 = random.nextDouble();
+            values[i] = Math.exp(1.5 * Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,72 @@
+package com.bankverte.bench;
+
+import com.bankverte.api.analytics.AnalyticsAggregator;
+import com.bankverte.api.analytics.dto.AnalyticsSummaryResponse;
+import com.bankverte.api.analytics.dto.CategoryBreakdown;
+import com.bankverte.api.analytics.dto.Insight;
+import com.bankverte.api.analytics.dto.MerchantAnalytics;
+import com.bankverte.api.analytics.dto.TimeSeriesDataPoint;
+import com.bankverte.api.insight.HighCategoryRule;
+import com.bankverte.api.insight.InsightEvaluator;
+import com.bankverte.api.insight.PeriodOverPeriodRule;
+import com.bankverte.api.insight.TopEmitterRule;
+import com.bankverte.api.transaction.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request aggregation done by the analytics endpoints once the
+ * transactions of the period have been loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class AnalyticsAggregationBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int transactions;
+
+    private final AnalyticsAggregator aggregator = new AnalyticsAggregator(new InsightEvaluator(
+            List.of(new HighCategoryRule(), new PeriodOverPeriodRule(), new TopEmitterRule())));
+    private List<Transaction> data;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        end = LocalDateTime.of(2025, 6, 30, 23, 59, 59);
+        start = end.minusDays(365);
+        data = new SyntheticTransactions(42).generate(SyntheticTransactions.user(1), transactions, end, 365);
+    }
+
+    @Benchmark
+    public AnalyticsSummaryResponse summary() {
+        return aggregator.summarize(data, 1234.5, start, end);
+    }
+
+    @Benchmark
+    public List<CategoryBreakdown> byCategory() {
+        return aggregator.byCategory(data);
+    }
+
+    @Benchmark
+    public List<MerchantAnalytics> topMerchants() {
+        return aggregator.topMerchants(data, 10);
+    }
+
+    @Benchmark
+    public List<TimeSeriesDataPoint> timeSeries() {
+        return aggregator.timeSeries(data);
+    }
+
+    @Benchmark
+    public List<Insight> insights() {
+        return aggregator.insights(data, () -> 1234.5);
+    }
+}
@@ -0,0 +1,48 @@
+package com.bankverte.bench;
+
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCategory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Footprint computation done for every inserted transaction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarbonCalculationBenchmark {
+
+    @Param({ "TRANSPORT_FLIGHT", "FOOD_LOCAL" })
+    public TransactionCategory category;
+
+    public double amount = 42.5;
+
+    private Transaction transaction;
+
+    // prePersist only overwrites derived fields, so one instance can be reused
+    @Setup(Level.Trial)
+    public void setUp() {
+        transaction = Transaction.builder()
+                .description("bench")
+                .amount(amount)
+                .category(category)
+                .merchant("Bench Merchant")
+                .build();
+    }
+
+    @Benchmark
+    public double calculateCarbonFootprint() {
+        return category.calculateCarbonFootprint(amount);
+    }
+
+    @Benchmark
+    public Transaction prePersist() {
+        transaction.prePersist();
+        return transaction;
+    }
+}
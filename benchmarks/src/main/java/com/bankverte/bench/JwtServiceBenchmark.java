@@ -0,0 +1,46 @@
+package com.bankverte.bench;
+
+import com.bankverte.api.config.JwtService;
+import com.bankverte.api.user.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing (login/register) and the verification done by
+ * JwtAuthenticationFilter on every authenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private final JwtService jwtService = new JwtService();
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        user = SyntheticTransactions.user(1);
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        // Mirrors the filter: subject extraction followed by full validation
+        return jwtService.extractUsername(token) != null && jwtService.isTokenValid(token, user);
+    }
+}
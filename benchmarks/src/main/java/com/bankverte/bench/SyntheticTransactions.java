@@ -0,0 +1,218 @@
+package com.bankverte.bench;
+
+import com.bankverte.api.transaction.PaymentType;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.transaction.TransactionCategory;
+import com.bankverte.api.user.Role;
+import com.bankverte.api.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of in-memory transactions with a plausible mix of
+ * categories, merchants, amounts and timestamps, and of monthly subscription
+ * payments for the recurring payment detection to find.
+ */
+public final class SyntheticTransactions {
+
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+
+    // Relative frequency of each category, in TransactionCategory declaration order
+    private static final double[] CATEGORY_WEIGHTS = { 0.01, 0.14, 0.10, 0.18, 0.20, 0.05, 0.22, 0.10 };
+
+    // Median amount (EUR) and log-normal spread per category
+    private static final double[][] AMOUNT_MEDIAN_SIGMA = {
+            { 220.0, 0.6 }, { 45.0, 0.5 }, { 2.5, 0.6 }, { 18.0, 0.7 },
+            { 12.0, 0.6 }, { 85.0, 0.4 }, { 35.0, 0.9 }, { 20.0, 1.0 } };
+
+    private static final Map<TransactionCategory, String[]> MERCHANTS = Map.of(
+            TransactionCategory.TRANSPORT_FLIGHT, new String[] { "Air France", "Ryanair", "easyJet", "Lufthansa" },
+            TransactionCategory.TRANSPORT_CAR, new String[] { "TotalEnergies", "Shell", "Esso", "BP", "Uber" },
+            TransactionCategory.TRANSPORT_PUBLIC, new String[] { "RATP", "SNCF", "Navigo", "Lime" },
+            TransactionCategory.FOOD_MEAT, new String[] { "Boucherie Martin", "McDonald's", "Burger King", "Carrefour" },
+            TransactionCategory.FOOD_LOCAL, new String[] { "Biocoop", "Marché Local", "La Vie Claire", "Monoprix" },
+            TransactionCategory.ENERGY, new String[] { "EDF", "Engie", "TotalEnergies Électricité" },
+            TransactionCategory.SHOPPING, new String[] { "Amazon", "Fnac", "Decathlon", "Zara", "IKEA", "Darty" },
+            TransactionCategory.OTHER, new String[] { "La Poste", "Pharmacie", "Cinéma", "Netflix", "Spotify" });
+
+    // Merchant, category and monthly amount (EUR) of the subscriptions users pick from
+    private static final Object[][] SUBSCRIPTIONS = {
+            { "Netflix", TransactionCategory.OTHER, 13.49 },
+            { "Spotify", TransactionCategory.OTHER, 10.99 },
+            { "EDF", TransactionCategory.ENERGY, 78.00 },
+            { "Engie", TransactionCategory.ENERGY, 46.50 },
+            { "Navigo", TransactionCategory.TRANSPORT_PUBLIC, 86.40 },
+            { "Basic-Fit", TransactionCategory.OTHER, 29.99 } };
+
+    private static final int MAX_SUBSCRIPTIONS = 3;
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    // Relative activity per hour of day: quiet nights, lunch and evening peaks
+    private static final double[] HOUR_WEIGHTS = {
+            0.2, 0.1, 0.1, 0.1, 0.1, 0.2, 0.5, 1.0, 1.5, 1.5, 1.6, 2.0,
+            2.8, 2.4, 1.6, 1.5, 1.7, 2.2, 2.8, 2.6, 1.8, 1.2, 0.7, 0.4 };
+
+    private static final double WEEKEND_ACTIVITY = 1.3;
+
+    private final SplittableRandom random;
+    private final double[] cumulativeWeights;
+    private final double[] cumulativeHours;
+
+    public SyntheticTransactions(long seed) {
+        this.random = new SplittableRandom(seed);
+        this.cumulativeWeights = new double[CATEGORY_WEIGHTS.length];
+        double sum = 0;
+        for (int i = 0; i < CATEGORY_WEIGHTS.length; i++) {
+            sum += CATEGORY_WEIGHTS[i];
+            cumulativeWeights[i] = sum;
+        }
+        this.cumulativeHours = new double[HOUR_WEIGHTS.length];
+        sum = 0;
+        for (int i = 0; i < HOUR_WEIGHTS.length; i++) {
+            sum += HOUR_WEIGHTS[i];
+            cumulativeHours[i] = sum;
+        }
+    }
+
+    public static User user(int id) {
+        return User.builder()
+                .id(id)
+                .firstname("Bench")
+                .lastname("User" + id)
+                .email("bench" + id + "@bankverte.test")
+                .password("unused")
+                .role(Role.USER)
+                .build();
+    }
+
+    /**
+     * Generates {@code count} transactions spread over the {@code days} days
+     * preceding {@code end}, already carrying their computed carbon footprint.
+     */
+    public List<Transaction> generate(User user, int count, LocalDateTime end, int days) {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Transaction t = next(user);
+            t.setId(i + 1);
+            t.prePersist();
+            t.setCreatedAt(timestamp(end, days));
+            transactions.add(t);
+        }
+        transactions.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        return transactions;
+    }
+
+    /**
+     * A fresh, not yet persisted transaction.
+     */
+    public Transaction next(User user) {
+        int c = category();
+        TransactionCategory category = CATEGORIES[c];
+        String[] merchants = MERCHANTS.get(category);
+        return Transaction.builder()
+                .description(category.name().toLowerCase() + " purchase")
+                .amount(amount(c))
+                .currency(random.nextInt(20) == 0 ? "USD" : "EUR")
+                .category(category)
+                // Skewed towards the first merchants of each category
+                .merchant(merchants[(int) (merchants.length * Math.pow(random.nextDouble(), 2))])
+                .paymentType(PAYMENT_TYPES[random.nextInt(PAYMENT_TYPES.length)])
+                .user(user)
+                .build();
+    }
+
+    /**
+     * One user's subscriptions over the {@code days} days before {@code end}:
+     * one to three merchants, each paid on the same day of every month at the
+     * same amount, give or take a few cents. Carbon footprint and timestamp
+     * are set; oldest first.
+     */
+    public List<Transaction> subscriptions(User user, LocalDateTime end, int days) {
+        List<Transaction> payments = new ArrayList<>();
+        LocalDateTime start = end.minusDays(days);
+        int count = 1 + random.nextInt(MAX_SUBSCRIPTIONS);
+        int first = random.nextInt(SUBSCRIPTIONS.length);
+        for (int i = 0; i < count; i++) {
+            Object[] subscription = SUBSCRIPTIONS[(first + i) % SUBSCRIPTIONS.length];
+            TransactionCategory category = (TransactionCategory) subscription[1];
+            double amount = (double) subscription[2];
+            PaymentType paymentType = random.nextBoolean() ? PaymentType.DEBIT_CARD : PaymentType.BANK_TRANSFER;
+            LocalDateTime at = start.toLocalDate().withDayOfMonth(1 + random.nextInt(28))
+                    .atTime(6 + random.nextInt(4), random.nextInt(60));
+            for (; !at.isAfter(end); at = at.plusMonths(1)) {
+                if (at.isBefore(start)) {
+                    continue;
+                }
+                Transaction t = Transaction.builder()
+                        .description((String) subscription[0] + " subscription")
+                        .amount(Math.round((amount + (random.nextInt(21) - 10) / 100.0) * 100.0) / 100.0)
+                        .currency("EUR")
+                        .category(category)
+                        .merchant((String) subscription[0])
+                        .paymentType(paymentType)
+                        .user(user)
+                        .build();
+                t.prePersist();
+                t.setCreatedAt(at);
+                payments.add(t);
+            }
+        }
+        payments.sort((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()));
+        return payments;
+    }
+
+    /**
+     * A point in the {@code days} days before {@code end}, following a daily
+     * and weekly activity profile. Never after {@code end}.
+     */
+    public LocalDateTime timestamp(LocalDateTime end, int days) {
+        LocalDateTime day;
+        // Rejection sampling favours Saturdays and Sundays
+        do {
+            day = end.toLocalDate().minusDays(random.nextInt(days)).atStartOfDay();
+        } while (day.getDayOfWeek().getValue() < 6 && random.nextDouble() * WEEKEND_ACTIVITY > 1.0);
+        LocalDateTime at = day.plusHours(pick(cumulativeHours)).plusSeconds(random.nextInt(3600));
+        return at.isAfter(end) ? end.minusSeconds(random.nextInt(3600)) : at;
+    }
+
+    /**
+     * Picks an index in [0, users) with a heavy tail: a few very active
+     * users and a long tail of occasional ones.
+     */
+    public int activeUser(int users) {
+        return (int) (users * Math.pow(random.nextDouble(), 3));
+    }
+
+    private int category() {
+        return pick(cumulativeWeights);
+    }
+
+    private int pick(double[] cumulative) {
+        double r = random.nextDouble() * cumulative[cumulative.length - 1];
+        for (int i = 0; i < cumulative.length; i++) {
+            if (r < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    private double amount(int category) {
+        double median = AMOUNT_MEDIAN_SIGMA[category][0];
+        double sigma = AMOUNT_MEDIAN_SIGMA[category][1];
+        double value = median * Math.exp(sigma * gaussian());
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private double gaussian() {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+}
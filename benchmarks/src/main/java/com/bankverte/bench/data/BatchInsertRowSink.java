@@ -0,0 +1,55 @@
+package com.bankverte.bench.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+
+/**
+ * JDBC batch inserts, for databases without COPY.
+ */
+class BatchInsertRowSink implements RowSink {
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final Connection connection;
+    private PreparedStatement statement;
+    private int pending;
+    private long rows;
+
+    BatchInsertRowSink(Connection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public void begin(String table, String... columns) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+        statement = connection.prepareStatement("INSERT INTO " + table + " (" + String.join(", ", columns)
+                + ") VALUES (" + placeholders + ")");
+        pending = 0;
+        rows = 0;
+    }
+
+    @Override
+    public void row(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+        statement.addBatch();
+        rows++;
+        if (++pending == BATCH_SIZE) {
+            statement.executeBatch();
+            pending = 0;
+        }
+    }
+
+    @Override
+    public long end() throws SQLException {
+        if (pending > 0) {
+            statement.executeBatch();
+        }
+        statement.close();
+        statement = null;
+        return rows;
+    }
+}
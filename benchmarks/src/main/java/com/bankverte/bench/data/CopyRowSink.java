@@ -0,0 +1,76 @@
+package com.bankverte.bench.data;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Streams rows to PostgreSQL with {@code COPY ... FROM STDIN} in CSV format.
+ */
+class CopyRowSink implements RowSink {
+
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private final CopyManager copyManager;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_BYTES + 4096);
+    private CopyIn copy;
+
+    CopyRowSink(BaseConnection connection) throws SQLException {
+        this.copyManager = new CopyManager(connection);
+    }
+
+    @Override
+    public void begin(String table, String... columns) throws SQLException {
+        copy = copyManager.copyIn("COPY " + table + " (" + String.join(", ", columns)
+                + ") FROM STDIN WITH (FORMAT csv)");
+    }
+
+    @Override
+    public void row(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            append(values[i]);
+        }
+        buffer.append('\n');
+        if (buffer.length() >= FLUSH_BYTES) {
+            flush();
+        }
+    }
+
+    @Override
+    public long end() throws SQLException {
+        flush();
+        long rows = copy.endCopy();
+        copy = null;
+        return rows;
+    }
+
+    private void append(Object value) {
+        if (value == null) {
+            // Unquoted empty field is NULL in CSV COPY
+            return;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            buffer.append(value);
+        } else if (value instanceof LocalDateTime dateTime) {
+            buffer.append(dateTime);
+        } else {
+            buffer.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.length() == 0) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,174 @@
+package com.bankverte.bench.data;
+
+import com.bankverte.api.forecast.ForecastBackfill;
+import com.bankverte.api.forecast.ForecastProperties;
+import com.bankverte.api.insight.MonthlyTotalsBackfill;
+import com.bankverte.api.recurring.RecurringBackfill;
+import com.bankverte.api.recurring.RecurringProperties;
+import com.bankverte.api.sketch.SketchBackfill;
+import com.bankverte.api.sketch.SketchProperties;
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.api.user.Role;
+import com.bankverte.bench.Args;
+import com.bankverte.bench.SyntheticTransactions;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+/**
+ * Bulk-loads synthetic users and transactions straight into the API schema,
+ * then builds every table the write path maintains from them.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.bankverte.bench.data.DataGenerator \
+ *     --users=10000 --transactions=5000000 \
+ *     --url=jdbc:postgresql://localhost:5432/bankverte --username=postgres --password=password
+ * </pre>
+ *
+ * The schema must already exist: start the API once against the target
+ * database so Hibernate creates it. Every generated user can log in with
+ * {@code <email-prefix><n>@bankverte.test} / {@code --user-password}.
+ * Besides {@code --transactions} spread over all users, each user gets a few
+ * monthly subscriptions, which the recurring payment detection picks up.
+ *
+ * <p>Loaded users start at data version 1 with an empty change log, so a
+ * client syncs them with a full resync. There are no outbox events: the
+ * monthly totals, daily sketches, recurring series and forecasts are
+ * rebuilt here, and insights are computed on first read. Anomaly detection
+ * learns from live traffic only. Everything goes to the primary database;
+ * on a sharded API, {@code POST /api/admin/shards/rebalance} then places
+ * the users.
+ */
+public class DataGenerator {
+
+    private static final String[] USER_COLUMNS = {
+            "id", "email", "firstname", "lastname", "password", "role", "data_version" };
+
+    private static final String[] TRANSACTION_COLUMNS = {
+            "id", "amount", "carbon_footprint", "category", "confidence_score", "created_at", "currency",
+            "description", "emission_factor", "factor_source", "merchant", "payment_type", "user_id" };
+
+    // Hibernate's pooled sequence optimizer hands out (value - 49 .. value)
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        int users = args.getInt("users", 1_000);
+        long transactions = args.getLong("transactions", 1_000_000);
+        int days = args.getInt("days", 395);
+        String prefix = args.get("email-prefix", "loadtest");
+        String userPassword = args.get("user-password", "password");
+        long seed = args.getLong("seed", 42);
+
+        try (Connection connection = DriverManager.getConnection(
+                args.get("url", "jdbc:postgresql://localhost:5432/bankverte"),
+                args.get("username", "postgres"),
+                args.get("password", "password"))) {
+            connection.setAutoCommit(false);
+            new DataGenerator(connection, new SyntheticTransactions(seed))
+                    .generate(users, transactions, days, prefix, userPassword);
+        }
+    }
+
+    private final Connection connection;
+    private final SyntheticTransactions synthetic;
+
+    public DataGenerator(Connection connection, SyntheticTransactions synthetic) {
+        this.connection = connection;
+        this.synthetic = synthetic;
+    }
+
+    public void generate(int users, long transactions, int days, String emailPrefix, String userPassword)
+            throws SQLException {
+        long firstUserId = maxId("_user") + 1;
+        long firstTransactionId = maxId("transaction") + 1;
+        RowSink sink = RowSink.forConnection(connection);
+        LocalDateTime now = LocalDateTime.now();
+
+        long started = System.nanoTime();
+        // One hash for everybody: BCrypt is deliberately slow
+        String passwordHash = new BCryptPasswordEncoder().encode(userPassword);
+        sink.begin("_user", USER_COLUMNS);
+        for (int i = 0; i < users; i++) {
+            sink.row(firstUserId + i, emailPrefix + i + "@bankverte.test", "Load", "Test " + i, passwordHash,
+                    Role.USER.name(), 1L);
+        }
+        long userRows = sink.end();
+        report("users", userRows, started);
+
+        started = System.nanoTime();
+        sink.begin("transaction", TRANSACTION_COLUMNS);
+        long nextTransactionId = firstTransactionId;
+        for (long i = 0; i < transactions; i++) {
+            Transaction t = synthetic.next(null);
+            t.prePersist();
+            t.setCreatedAt(synthetic.timestamp(now, days));
+            row(sink, nextTransactionId++, t, firstUserId + synthetic.activeUser(users));
+        }
+        for (int i = 0; i < users; i++) {
+            for (Transaction t : synthetic.subscriptions(null, now, days)) {
+                row(sink, nextTransactionId++, t, firstUserId + i);
+            }
+        }
+        long transactionRows = sink.end();
+        report("transactions", transactionRows, started);
+
+        started = System.nanoTime();
+        long totalRows = MonthlyTotalsBackfill.rebuild(connection, firstUserId);
+        report("monthly totals", totalRows, started);
+
+        started = System.nanoTime();
+        long sketchRows = SketchBackfill.rebuild(connection, firstUserId,
+                new SketchProperties().getMerchantCapacity());
+        report("daily sketches", sketchRows, started);
+
+        started = System.nanoTime();
+        long seriesRows = RecurringBackfill.rebuild(connection, firstUserId, new RecurringProperties());
+        report("recurring series", seriesRows, started);
+
+        started = System.nanoTime();
+        long forecastRows = ForecastBackfill.rebuild(connection, firstUserId, new ForecastProperties());
+        report("forecast states", forecastRows, started);
+
+        advanceSequence("_user_seq", firstUserId + users - 1);
+        advanceSequence("transaction_seq", nextTransactionId - 1);
+        connection.commit();
+    }
+
+    private static void row(RowSink sink, long id, Transaction t, long userId) throws SQLException {
+        sink.row(id, t.getAmount(), t.getCarbonFootprint(), t.getCategory().name(), t.getConfidenceScore(),
+                t.getCreatedAt(), t.getCurrency(), t.getDescription(), t.getEmissionFactor(), t.getFactorSource(),
+                t.getMerchant(), t.getPaymentType().name(), userId);
+    }
+
+    private long maxId(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new SQLException("Table " + table + " not found: start the API once against this database "
+                    + "so that the schema is created", e);
+        }
+    }
+
+    private void advanceSequence(String sequence, long lastUsedId) throws SQLException {
+        boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        String sql = postgres
+                ? "SELECT setval('" + sequence + "', " + lastUsedId + ")"
+                : "ALTER SEQUENCE " + sequence + " RESTART WITH " + (lastUsedId + SEQUENCE_INCREMENT);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static void report(String what, long rows, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        System.out.printf("Loaded %,d %s in %.1fs (%,.0f rows/s)%n", rows, what, seconds, rows / seconds);
+    }
+}
@@ -0,0 +1,32 @@
+package com.bankverte.bench.data;
+
+import org.postgresql.core.BaseConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Destination of generated rows, one table at a time.
+ */
+public interface RowSink {
+
+    void begin(String table, String... columns) throws SQLException;
+
+    void row(Object... values) throws SQLException;
+
+    /**
+     * @return number of rows written since {@link #begin}
+     */
+    long end() throws SQLException;
+
+    /**
+     * COPY for PostgreSQL, batched inserts for anything else (H2 in
+     * PostgreSQL mode).
+     */
+    static RowSink forConnection(Connection connection) throws SQLException {
+        if (connection.isWrapperFor(BaseConnection.class)) {
+            return new CopyRowSink(connection.unwrap(BaseConnection.class));
+        }
+        return new BatchInsertRowSink(connection);
+    }
+}
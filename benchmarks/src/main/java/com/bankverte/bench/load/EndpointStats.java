@@ -0,0 +1,66 @@
+package com.bankverte.bench.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count of one endpoint, safe for concurrent
+ * recording.
+ */
+class EndpointStats {
+
+    // Up to one minute at 3 significant digits
+    private static final long MAX_MICROS = 60_000_000L;
+
+    private final String name;
+    private final Recorder recorder = new Recorder(MAX_MICROS, 3);
+    private final Histogram total = new Histogram(MAX_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void record(long startedNanos, boolean ok) {
+        long micros = (System.nanoTime() - startedNanos) / 1_000;
+        recorder.recordValue(Math.min(micros, MAX_MICROS));
+        if (!ok) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Folds the samples recorded since the last call into the run total.
+     */
+    synchronized Histogram drain() {
+        Histogram interval = recorder.getIntervalHistogram();
+        total.add(interval);
+        return interval;
+    }
+
+    synchronized Histogram total() {
+        return total;
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    void writePercentiles(Path directory) throws IOException {
+        Path file = directory.resolve(name.replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm");
+        try (PrintStream out = new PrintStream(new FileOutputStream(file.toFile()))) {
+            // Values are recorded in microseconds, report milliseconds
+            total().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+}
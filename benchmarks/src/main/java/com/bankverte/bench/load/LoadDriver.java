@@ -0,0 +1,261 @@
+package com.bankverte.bench.load;
+
+import com.bankverte.api.transaction.Transaction;
+import com.bankverte.bench.Args;
+import com.bankverte.bench.SyntheticTransactions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays dashboard, history and ingestion traffic against a running API
+ * with users created by {@link com.bankverte.bench.data.DataGenerator}.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.bankverte.bench.load.LoadDriver \
+ *     --base-url=http://localhost:8080 --users=1000 --concurrency=64 --duration=120
+ * </pre>
+ *
+ * Prints per-endpoint latency percentiles every {@code --report-interval}
+ * seconds and at the end, and writes HdrHistogram percentile files plus a
+ * {@code summary.csv} to {@code --report-dir}.
+ */
+public class LoadDriver {
+
+    private static final String[] DASHBOARD_PERIODS = { "7", "30", "30", "30", "90" };
+
+    private final HttpClient http;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final String baseUrl;
+    private final String emailPrefix;
+    private final String userPassword;
+    private final int users;
+    private final double ingestRatio;
+    private final double historyRatio;
+    private final long thinkTimeMillis;
+
+    public LoadDriver(Args args) {
+        this.baseUrl = args.get("base-url", "http://localhost:8080");
+        this.emailPrefix = args.get("email-prefix", "loadtest");
+        this.userPassword = args.get("user-password", "password");
+        this.users = args.getInt("users", 1_000);
+        this.ingestRatio = args.getDouble("ingest-ratio", 0.1);
+        this.historyRatio = args.getDouble("history-ratio", 0.1);
+        this.thinkTimeMillis = args.getLong("think-time-ms", 0);
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for (String endpoint : new String[] {
+                "POST /api/auth/authenticate",
+                "GET /api/analytics/summary",
+                "GET /api/analytics/timeseries",
+                "GET /api/analytics/by-category",
+                "GET /api/analytics/top-merchants",
+                "GET /api/analytics/insights",
+                "GET /api/transactions",
+                "GET /api/transactions/categories",
+                "POST /api/transactions" }) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        new LoadDriver(args).run(
+                args.getInt("concurrency", 32),
+                args.getInt("warmup", 10),
+                args.getInt("duration", 60),
+                args.getInt("report-interval", 10),
+                Path.of(args.get("report-dir", "target/load-report")));
+    }
+
+    public void run(int concurrency, int warmupSeconds, int durationSeconds, int reportIntervalSeconds,
+            Path reportDir) throws Exception {
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            workers.submit(() -> {
+                try {
+                    virtualUser(worker, deadline);
+                } catch (Exception e) {
+                    System.err.println("Worker " + worker + " stopped: " + e);
+                }
+            });
+        }
+        workers.shutdown();
+
+        System.out.printf("Warming up for %ds with %d concurrent users...%n", warmupSeconds, concurrency);
+        sleepUntil(measureFrom);
+        stats.values().forEach(EndpointStats::drain);
+        stats.values().forEach(s -> s.total().reset());
+
+        long measuredStart = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            sleepUntil(Math.min(deadline, System.nanoTime() + TimeUnit.SECONDS.toNanos(reportIntervalSeconds)));
+            printInterval();
+        }
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        double measuredSeconds = (System.nanoTime() - measuredStart) / 1e9;
+
+        printSummary(measuredSeconds);
+        writeReports(reportDir, measuredSeconds);
+    }
+
+    private void virtualUser(int worker, long deadline) throws Exception {
+        SplittableRandom random = new SplittableRandom(worker);
+        SyntheticTransactions synthetic = new SyntheticTransactions(worker);
+        String email = emailPrefix + (worker % users) + "@bankverte.test";
+        String token = login(email);
+
+        while (System.nanoTime() < deadline) {
+            double r = random.nextDouble();
+            if (r < ingestRatio) {
+                get(token, "GET /api/transactions/categories", "/api/transactions/categories");
+                Transaction t = synthetic.next(null);
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("description", t.getDescription());
+                body.put("amount", t.getAmount());
+                body.put("category", t.getCategory().name());
+                body.put("merchant", t.getMerchant());
+                body.put("paymentType", t.getPaymentType().name());
+                send("POST /api/transactions", authorized(token, "/api/transactions")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                        .build());
+            } else if (r < ingestRatio + historyRatio) {
+                get(token, "GET /api/transactions", "/api/transactions");
+            } else {
+                dashboard(token, DASHBOARD_PERIODS[random.nextInt(DASHBOARD_PERIODS.length)]);
+            }
+            if (thinkTimeMillis > 0) {
+                Thread.sleep(thinkTimeMillis);
+            }
+        }
+    }
+
+    /**
+     * Same sequence of calls as the analytics home screen.
+     */
+    private void dashboard(String token, String periodDays) throws Exception {
+        LocalDate today = LocalDate.now();
+        String range = "from=" + today.minusDays(Long.parseLong(periodDays)) + "&to=" + today;
+        get(token, "GET /api/analytics/summary", "/api/analytics/summary?" + range);
+        get(token, "GET /api/analytics/timeseries", "/api/analytics/timeseries?groupBy=day&" + range);
+        get(token, "GET /api/analytics/by-category", "/api/analytics/by-category?" + range);
+        get(token, "GET /api/analytics/top-merchants", "/api/analytics/top-merchants?limit=5&" + range);
+        get(token, "GET /api/analytics/insights", "/api/analytics/insights");
+    }
+
+    private String login(String email) throws Exception {
+        String body = mapper.writeValueAsString(Map.of("email", email, "password", userPassword));
+        HttpResponse<String> response = send("POST /api/auth/authenticate",
+                HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/authenticate"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed for " + email + ": HTTP " + response.statusCode());
+        }
+        return mapper.readTree(response.body()).get("token").asText();
+    }
+
+    private void get(String token, String endpoint, String path) throws Exception {
+        send(endpoint, authorized(token, path).GET().build());
+    }
+
+    private HttpRequest.Builder authorized(String token, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request) throws Exception {
+        EndpointStats endpointStats = stats.get(endpoint);
+        long started = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            endpointStats.record(started, response.statusCode() < 400);
+            return response;
+        } catch (IOException e) {
+            endpointStats.record(started, false);
+            throw e;
+        }
+    }
+
+    private void printInterval() {
+        StringBuilder line = new StringBuilder("interval:");
+        for (EndpointStats s : stats.values()) {
+            Histogram h = s.drain();
+            if (h.getTotalCount() > 0) {
+                line.append(String.format(" [%s n=%d p99=%.1fms]", s.name(), h.getTotalCount(),
+                        h.getValueAtPercentile(99) / 1000.0));
+            }
+        }
+        System.out.println(line);
+    }
+
+    private void printSummary(double seconds) {
+        System.out.printf("%n%-34s %9s %7s %9s %8s %8s %8s %8s %8s %8s%n", "endpoint", "count", "errors",
+                "req/s", "mean", "p50", "p90", "p95", "p99", "max");
+        for (EndpointStats s : stats.values()) {
+            Histogram h = s.total();
+            if (h.getTotalCount() == 0) {
+                continue;
+            }
+            System.out.printf("%-34s %9d %7d %9.1f %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f%n", s.name(),
+                    h.getTotalCount(), s.errors(), h.getTotalCount() / seconds, h.getMean() / 1000.0,
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                    h.getValueAtPercentile(95) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                    h.getMaxValue() / 1000.0);
+        }
+        System.out.println("(latencies in ms)");
+    }
+
+    private void writeReports(Path reportDir, double seconds) throws IOException {
+        Files.createDirectories(reportDir);
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(reportDir.resolve("summary.csv")))) {
+            csv.println("endpoint,count,errors,rps,mean_ms,p50_ms,p90_ms,p95_ms,p99_ms,max_ms");
+            for (EndpointStats s : stats.values()) {
+                Histogram h = s.total();
+                if (h.getTotalCount() == 0) {
+                    continue;
+                }
+                s.writePercentiles(reportDir);
+                csv.printf(Locale.ROOT, "%s,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n", s.name(),
+                        h.getTotalCount(), s.errors(), h.getTotalCount() / seconds, h.getMean() / 1000.0,
+                        h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                        h.getValueAtPercentile(95) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                        h.getMaxValue() / 1000.0);
+            }
+        }
+        System.out.println("Reports written to " + reportDir.toAbsolutePath());
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.bankverte.bench.perf;
+
+import com.bankverte.api.BankVerteApplication;
+import com.bankverte.bench.SyntheticTransactions;
+import com.bankverte.bench.data.DataGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the API on a seeded database and holds every endpoint to the p95
+ * latency, SQL statement and allocation budgets of {@code perf-budgets.csv}.
+ * Results go to {@code target/perf-reports} whether budgets pass or not.
+ *
+ * <p>Runs on in-memory H2 in PostgreSQL mode by default. Point it at a
+ * dedicated Postgres database (the schema is recreated) with
+ * {@code -Dperf.datasource.url=... -Dperf.datasource.username=...
+ * -Dperf.datasource.password=... -Dperf.dialect=org.hibernate.dialect.PostgreSQLDialect}.
+ */
+@SpringBootTest(classes = BankVerteApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=${perf.datasource.url:jdbc:h2:mem:perf;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH}",
+                "spring.datasource.username=${perf.datasource.username:sa}",
+                "spring.datasource.password=${perf.datasource.password:}",
+                "spring.jpa.properties.hibernate.dialect=${perf.dialect:org.hibernate.dialect.H2Dialect}",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "logging.level.root=WARN"
+        })
+@Import(EndpointPerformanceIT.SamplerConfiguration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointPerformanceIT {
+
+    private static final int HEAVY_USER_TRANSACTIONS = Integer.getInteger("perf.transactions", 120_000);
+    private static final int WARMUP = Integer.getInteger("perf.warmup", 3);
+    private static final int ITERATIONS = Integer.getInteger("perf.iterations", 20);
+    private static final Path REPORT_DIR = Path.of("target", "perf-reports");
+
+    @TestConfiguration
+    static class SamplerConfiguration {
+
+        @Bean
+        ServerSideSampler serverSideSampler() {
+            return new ServerSideSampler();
+        }
+
+        @Bean
+        FilterRegistrationBean<ServerSideSampler> serverSideSamplerRegistration(ServerSideSampler sampler) {
+            FilterRegistrationBean<ServerSideSampler> registration = new FilterRegistrationBean<>(sampler);
+            // Just inside the query budget filter, ahead of Spring Security
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+            return registration;
+        }
+    }
+
+    record Scenario(String endpoint, Supplier<RequestEntity<?>> request) {
+        @Override
+        public String toString() {
+            return endpoint;
+        }
+    }
+
+    record EndpointResult(String endpoint, int iterations, double p50Millis, double p95Millis, double maxMillis,
+            int maxStatements, long medianAllocatedBytes, PerfBudget budget, List<String> violations) {
+    }
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ServerSideSampler sampler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicInteger registrations = new AtomicInteger();
+    private final List<EndpointResult> results = new ArrayList<>();
+    private Map<String, PerfBudget> budgets;
+    private String heavyToken;
+    private String lightToken;
+
+    @BeforeAll
+    void seed() throws Exception {
+        budgets = PerfBudget.load("perf-budgets.csv");
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            DataGenerator generator = new DataGenerator(connection, new SyntheticTransactions(7));
+            generator.generate(1, HEAVY_USER_TRANSACTIONS, 395, "perf-heavy", "password");
+            generator.generate(1, 200, 395, "perf-light", "password");
+        }
+        heavyToken = login("perf-heavy0@bankverte.test");
+        lightToken = login("perf-light0@bankverte.test");
+    }
+
+    Stream<Scenario> scenarios() {
+        LocalDate today = LocalDate.now();
+        String year = "from=" + today.minusDays(365) + "&to=" + today;
+        String month = "from=" + today.minusDays(30) + "&to=" + today;
+        return Stream.of(
+                get("GET /api/analytics/summary", "/api/analytics/summary?" + year),
+                get("GET /api/analytics/timeseries", "/api/analytics/timeseries?groupBy=day&" + year),
+                get("GET /api/analytics/by-category", "/api/analytics/by-category?" + year),
+                get("GET /api/analytics/top-merchants", "/api/analytics/top-merchants?limit=5&" + year),
+                get("GET /api/analytics/transactions", "/api/analytics/transactions?" + month),
+                get("GET /api/analytics/insights", "/api/analytics/insights"),
+                get("GET /api/transactions/categories", "/api/transactions/categories"),
+                get("GET /api/transactions", "/api/transactions"),
+                get("GET /api/transactions/carbon-summary", "/api/transactions/carbon-summary"),
+                get("GET /api/budgets", "/api/budgets"),
+                new Scenario("POST /api/transactions", () -> json(HttpMethod.POST, "/api/transactions", lightToken,
+                        Map.of("description", "perf", "amount", 42.0, "category", "FOOD_LOCAL",
+                                "merchant", "Biocoop", "paymentType", "DEBIT_CARD"))),
+                get("GET /api/user/profile", "/api/user/profile"),
+                new Scenario("PUT /api/user/profile", () -> json(HttpMethod.PUT, "/api/user/profile", lightToken,
+                        Map.of("firstname", "Perf", "lastname", "Light"))),
+                new Scenario("POST /api/auth/authenticate", () -> json(HttpMethod.POST, "/api/auth/authenticate",
+                        null, Map.of("email", "perf-light0@bankverte.test", "password", "password"))),
+                new Scenario("POST /api/auth/register", () -> json(HttpMethod.POST, "/api/auth/register", null,
+                        Map.of("firstname", "Perf", "lastname", "Register", "password", "password",
+                                "email", "perf-register" + registrations.incrementAndGet() + "@bankverte.test"))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("scenarios")
+    void endpointStaysWithinBudget(Scenario scenario) {
+        PerfBudget budget = budgets.get(scenario.endpoint());
+        assertThat(budget).as("budget for %s in perf-budgets.csv", scenario.endpoint()).isNotNull();
+
+        awaitOutboxDrained();
+        for (int i = 0; i < WARMUP; i++) {
+            call(scenario);
+        }
+        sampler.clear();
+        double[] latencies = new double[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long started = System.nanoTime();
+            call(scenario);
+            latencies[i] = (System.nanoTime() - started) / 1e6;
+        }
+        Arrays.sort(latencies);
+
+        List<ServerSideSampler.Sample> samples = sampler.samples(scenario.endpoint());
+        int maxStatements = samples.stream().mapToInt(ServerSideSampler.Sample::statements).max().orElse(-1);
+        long[] allocated = samples.stream().mapToLong(ServerSideSampler.Sample::allocatedBytes).sorted().toArray();
+        long medianAllocated = allocated.length > 0 ? allocated[allocated.length / 2] : -1;
+        double p95 = percentile(latencies, 95);
+
+        List<String> violations = new ArrayList<>();
+        if (p95 > budget.p95Millis()) {
+            violations.add(String.format(Locale.ROOT, "p95 %.1fms > %.1fms", p95, budget.p95Millis()));
+        }
+        if (maxStatements > budget.maxStatements()) {
+            violations.add(maxStatements + " SQL statements > " + budget.maxStatements());
+        }
+        if (medianAllocated > budget.maxAllocatedBytes()) {
+            violations.add(medianAllocated + " bytes allocated > " + budget.maxAllocatedBytes());
+        }
+        results.add(new EndpointResult(scenario.endpoint(), ITERATIONS, percentile(latencies, 50), p95,
+                latencies[latencies.length - 1], maxStatements, medianAllocated, budget, violations));
+
+        assertThat(samples).as("server-side samples for %s", scenario.endpoint()).hasSize(ITERATIONS);
+        assertThat(violations).as("budget violations of %s", scenario.endpoint()).isEmpty();
+    }
+
+    @AfterAll
+    void writeReports() throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("heavyUserTransactions", HEAVY_USER_TRANSACTIONS);
+        report.put("warmup", WARMUP);
+        report.put("iterations", ITERATIONS);
+        report.put("results", results);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(REPORT_DIR.resolve("endpoint-performance.json").toFile(), report);
+
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(REPORT_DIR.resolve("endpoint-performance.csv")))) {
+            csv.println("endpoint,p50_ms,p95_ms,max_ms,max_statements,median_allocated_bytes,"
+                    + "budget_p95_ms,budget_statements,budget_allocated_bytes,passed");
+            for (EndpointResult r : results) {
+                csv.printf(Locale.ROOT, "%s,%.2f,%.2f,%.2f,%d,%d,%.1f,%d,%d,%b%n", r.endpoint(), r.p50Millis(),
+                        r.p95Millis(), r.maxMillis(), r.maxStatements(), r.medianAllocatedBytes(),
+                        r.budget().p95Millis(), r.budget().maxStatements(), r.budget().maxAllocatedBytes(),
+                        r.violations().isEmpty());
+            }
+        }
+    }
+
+    private Scenario get(String endpoint, String path) {
+        boolean heavy = endpoint.startsWith("GET /api/analytics") || endpoint.startsWith("GET /api/transactions");
+        return new Scenario(endpoint, () -> RequestEntity.get(URI.create(path))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + (heavy ? heavyToken : lightToken))
+                .build());
+    }
+
+    private RequestEntity<?> json(HttpMethod method, String path, String token, Object body) {
+        RequestEntity.BodyBuilder builder = RequestEntity.method(method, URI.create(path))
+                .contentType(MediaType.APPLICATION_JSON);
+        if (token != null) {
+            builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        return builder.body(body);
+    }
+
+    private void call(Scenario scenario) {
+        ResponseEntity<byte[]> response = rest.exchange(scenario.request().get(), byte[].class);
+        assertThat(response.getStatusCode().is2xxSuccessful())
+                .as("%s answered %s", scenario.endpoint(), response.getStatusCode())
+                .isTrue();
+    }
+
+    /**
+     * Lets the outbox consumers finish the writes of earlier scenarios before
+     * the warmup, so their data version bumps and cache evictions do not land
+     * among this scenario's samples.
+     */
+    private void awaitOutboxDrained() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.find("bankverte.outbox.lag").gauges().stream().mapToDouble(Gauge::value).sum() > 0
+                && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private String login(String email) {
+        ResponseEntity<Map> response = rest.postForEntity("/api/auth/authenticate",
+                Map.of("email", email, "password", "password"), Map.class);
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        return (String) response.getBody().get("token");
+    }
+
+    private static double percentile(double[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
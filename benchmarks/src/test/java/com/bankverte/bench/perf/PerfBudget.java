@@ -0,0 +1,33 @@
+package com.bankverte.bench.perf;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Budget of one endpoint, read from {@code perf-budgets.csv}.
+ */
+record PerfBudget(String endpoint, double p95Millis, int maxStatements, long maxAllocatedBytes) {
+
+    static Map<String, PerfBudget> load(String resource) throws IOException {
+        Map<String, PerfBudget> budgets = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                PerfBudget.class.getClassLoader().getResourceAsStream(resource), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] cols = line.split(",");
+                PerfBudget budget = new PerfBudget(cols[0].strip(), Double.parseDouble(cols[1].strip()),
+                        Integer.parseInt(cols[2].strip()), Long.parseLong(cols[3].strip().replace("_", "")));
+                budgets.put(budget.endpoint(), budget);
+            }
+        }
+        return budgets;
+    }
+}
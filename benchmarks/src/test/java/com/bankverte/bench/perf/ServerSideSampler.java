@@ -0,0 +1,54 @@
+package com.bankverte.bench.perf;
+
+import com.bankverte.api.observability.QueryStatsHolder;
+import com.bankverte.api.observability.RequestQueryStats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs inside the query budget filter and records, on the request thread,
+ * the bytes allocated and the SQL statements issued by each request.
+ */
+class ServerSideSampler extends OncePerRequestFilter {
+
+    record Sample(long allocatedBytes, int statements) {
+    }
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, List<Sample>> samples = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        filterChain.doFilter(request, response);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        RequestQueryStats stats = QueryStatsHolder.current();
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        samples.computeIfAbsent(endpoint, k -> new CopyOnWriteArrayList<>())
+                .add(new Sample(allocated, stats != null ? stats.getStatements() : -1));
+    }
+
+    List<Sample> samples(String endpoint) {
+        return samples.getOrDefault(endpoint, List.of());
+    }
+
+    void clear() {
+        samples.clear();
+    }
+}
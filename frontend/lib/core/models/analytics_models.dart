@@ -6,6 +6,9 @@ class AnalyticsSummary {
   final double evolutionPercentage;
   final String periodStart;
   final String periodEnd;
+  final double? medianCO2PerTransaction;
+  final double? p90CO2PerTransaction;
+  final int? distinctMerchants;
 
   AnalyticsSummary({
     required this.totalCO2,
@@ -15,6 +18,9 @@ class AnalyticsSummary {
     required this.evolutionPercentage,
     required this.periodStart,
     required this.periodEnd,
+    this.medianCO2PerTransaction,
+    this.p90CO2PerTransaction,
+    this.distinctMerchants,
   });
 
   factory AnalyticsSummary.fromJson(Map<String, dynamic> json) {
@@ -28,6 +34,9 @@ class AnalyticsSummary {
       evolutionPercentage: (json['evolutionPercentage'] as num?)?.toDouble() ?? 0.0,
       periodStart: json['periodStart'] as String? ?? '',
       periodEnd: json['periodEnd'] as String? ?? '',
+      medianCO2PerTransaction: (json['medianCO2PerTransaction'] as num?)?.toDouble(),
+      p90CO2PerTransaction: (json['p90CO2PerTransaction'] as num?)?.toDouble(),
+      distinctMerchants: json['distinctMerchants'] as int?,
     );
   }
 }
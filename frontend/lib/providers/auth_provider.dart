@@ -1,5 +1,6 @@
 import 'package:flutter/material.dart';
 import 'package:shared_preferences/shared_preferences.dart';
+import '../services/analytics_service.dart';
 import '../services/api_service.dart';
 
 class AuthProvider with ChangeNotifier {
@@ -18,6 +19,7 @@ class AuthProvider with ChangeNotifier {
 
   Future<void> login(String email, String password) async {
     try {
+      AnalyticsService.clearCache();
       _token = await _apiService.login(email, password);
       final prefs = await SharedPreferences.getInstance();
       if (_token != null) {
@@ -37,6 +39,7 @@ class AuthProvider with ChangeNotifier {
     String password,
   ) async {
     try {
+      AnalyticsService.clearCache();
       _token = await _apiService.register(firstname, lastname, email, password);
       final prefs = await SharedPreferences.getInstance();
       if (_token != null) {
@@ -75,6 +78,7 @@ class AuthProvider with ChangeNotifier {
   }
 
   Future<void> logout() async {
+    AnalyticsService.clearCache();
     _token = null;
     _firstname = null;
     _lastname = null;
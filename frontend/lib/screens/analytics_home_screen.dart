@@ -55,7 +55,8 @@ class _AnalyticsHomeScreenState extends State<AnalyticsHomeScreen> {
       final merchants = await _analyticsService.getTopMerchants(from: from, to: to, limit: 5);
       print('Merchants loaded: ${merchants.length} merchants');
       
-      final insights = await _analyticsService.getInsights(from: from, to: to);
+      // Insights cover the current month, precomputed server-side
+      final insights = await _analyticsService.getInsights();
       print('Insights loaded: ${insights.length} insights');
       
       // Check if data is empty - if so, use demo data
@@ -380,6 +381,30 @@ class _AnalyticsHomeScreenState extends State<AnalyticsHomeScreen> {
             ),
           ],
         ),
+        if (_summary!.medianCO2PerTransaction != null) ...[
+          const SizedBox(height: 12),
+          Row(
+            children: [
+              Expanded(
+                child: _buildKPICard(
+                  'Median / P90',
+                  '${_summary!.medianCO2PerTransaction!.toStringAsFixed(2)} / ${(_summary!.p90CO2PerTransaction ?? 0).toStringAsFixed(2)} kg',
+                  Icons.stacked_bar_chart,
+                  Colors.teal,
+                ),
+              ),
+              const SizedBox(width: 12),
+              Expanded(
+                child: _buildKPICard(
+                  'Merchants',
+                  '${_summary!.distinctMerchants ?? 0}',
+                  Icons.storefront,
+                  Colors.purple,
+                ),
+              ),
+            ],
+          ),
+        ],
       ],
     );
   }
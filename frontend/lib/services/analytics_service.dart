@@ -6,11 +6,46 @@ import '../core/models/analytics_models.dart';
 class AnalyticsService {
   static const String baseUrl = 'http://localhost:8080/api/analytics';
 
+  // Last response per token and URL, least recently used first. The API
+  // answers If-None-Match with 304 while the user's data is unchanged, so
+  // revisiting the dashboard costs no payload. Keyed by token as well, so one
+  // user never gets another's body back; emptied on login and logout.
+  static const int _etagCacheSize = 32;
+  static final Map<String, http.Response> _etagCache = {};
+
+  static void clearCache() => _etagCache.clear();
+
   Future<String?> _getToken() async {
     final prefs = await SharedPreferences.getInstance();
     return prefs.getString('jwt_token');
   }
 
+  Future<http.Response> _get(Uri uri, String token) async {
+    final key = '$token $uri';
+    // Removed and put back below, which makes it the most recently used
+    final cached = _etagCache.remove(key);
+    final response = await http.get(
+      uri,
+      headers: {
+        'Authorization': 'Bearer $token',
+        'Content-Type': 'application/json',
+        if (cached != null) 'If-None-Match': cached.headers['etag']!,
+      },
+    );
+
+    if (response.statusCode == 304 && cached != null) {
+      _etagCache[key] = cached;
+      return cached;
+    }
+    if (response.statusCode == 200 && response.headers.containsKey('etag')) {
+      _etagCache[key] = response;
+      if (_etagCache.length > _etagCacheSize) {
+        _etagCache.remove(_etagCache.keys.first);
+      }
+    }
+    return response;
+  }
+
   Future<AnalyticsSummary?> getSummary({String? from, String? to}) async {
     try {
       final token = await _getToken();
@@ -27,13 +62,7 @@ class AnalyticsService {
       final uri = Uri.parse('$baseUrl/summary').replace(queryParameters: queryParams);
       print('Analytics getSummary - Calling: $uri');
       
-      final response = await http.get(
-        uri,
-        headers: {
-          'Authorization': 'Bearer $token',
-          'Content-Type': 'application/json',
-        },
-      );
+      final response = await _get(uri, token);
 
       print('Analytics getSummary - Response status: ${response.statusCode}');
       print('Analytics getSummary - Response body: ${response.body.substring(0, response.body.length > 200 ? 200 : response.body.length)}...');
@@ -63,13 +92,7 @@ class AnalyticsService {
       if (to != null) queryParams['to'] = to;
 
       final uri = Uri.parse('$baseUrl/timeseries').replace(queryParameters: queryParams);
-      final response = await http.get(
-        uri,
-        headers: {
-          'Authorization': 'Bearer $token',
-          'Content-Type': 'application/json',
-        },
-      );
+      final response = await _get(uri, token);
 
       if (response.statusCode == 200) {
         final List<dynamic> data = json.decode(response.body);
@@ -95,13 +118,7 @@ class AnalyticsService {
       if (to != null) queryParams['to'] = to;
 
       final uri = Uri.parse('$baseUrl/by-category').replace(queryParameters: queryParams);
-      final response = await http.get(
-        uri,
-        headers: {
-          'Authorization': 'Bearer $token',
-          'Content-Type': 'application/json',
-        },
-      );
+      final response = await _get(uri, token);
 
       if (response.statusCode == 200) {
         final List<dynamic> data = json.decode(response.body);
@@ -128,13 +145,7 @@ class AnalyticsService {
       if (to != null) queryParams['to'] = to;
 
       final uri = Uri.parse('$baseUrl/top-merchants').replace(queryParameters: queryParams);
-      final response = await http.get(
-        uri,
-        headers: {
-          'Authorization': 'Bearer $token',
-          'Content-Type': 'application/json',
-        },
-      );
+      final response = await _get(uri, token);
 
       if (response.statusCode == 200) {
         final List<dynamic> data = json.decode(response.body);
@@ -157,13 +168,7 @@ class AnalyticsService {
       if (to != null) queryParams['to'] = to;
 
       final uri = Uri.parse('$baseUrl/insights').replace(queryParameters: queryParams);
-      final response = await http.get(
-        uri,
-        headers: {
-          'Authorization': 'Bearer $token',
-          'Content-Type': 'application/json',
-        },
-      );
+      final response = await _get(uri, token);
 
       if (response.statusCode == 200) {
         final List<dynamic> data = json.decode(response.body);